@@ -0,0 +1,152 @@
+package com.example.demo.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.api.SweepwaterService;
+import com.example.demo.api.SweepwaterWriter;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.bet.BetDispatchQueue;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.odds.OddsBook;
+import com.example.demo.model.dto.settings.OddsScanDTO;
+import com.example.demo.model.dto.settings.ProfitDTO;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * 扫水比对热路径：新二 × 平博 样例赔率，一轮 = 所有绑定赛事对调用一次 aggregateEventOdds（全场 + 上半场）
+ * water=miss 时水位区间不命中，只比较配对和水位计算；water=hit 时全部命中，包含生成扫水记录
+ * 分配用 -prof gc 查看 gc.alloc.rate.norm（每轮分配字节数）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OddsCompareBenchmark {
+
+    private static final String XINBAO = WebsiteType.XINBAO.getId();
+    private static final String PINGBO = WebsiteType.PINGBO.getId();
+
+    /**
+     * 两个网站各自的滚球联赛数（样例数据平均每个联赛 1.5 场比赛）
+     */
+    @Param({"10", "40", "120"})
+    public int leagues;
+
+    @Param({"miss", "hit"})
+    public String water;
+
+    private JSONArray leaguesA;
+    private JSONArray leaguesB;
+    private List<OddsBook.League> bookA;
+    private List<OddsBook.League> bookB;
+    private SweepwaterService service;
+    private OddsScanDTO scan;
+    private ProfitDTO profit;
+    private WebsiteVO websiteA;
+    private WebsiteVO websiteB;
+
+    @Setup
+    public void setUp() {
+        // 命中时每条记录都会打 info 日志，基准只关心计算本身
+        ((Logger) LoggerFactory.getLogger(SweepwaterService.class)).setLevel(Level.WARN);
+
+        leaguesA = OddsFixtures.scale(OddsFixtures.leagues(OddsFixtures.XINBAO), leagues);
+        leaguesB = OddsFixtures.scale(OddsFixtures.pingbo(), leagues);
+        bookA = typed(leaguesA);
+        bookB = typed(leaguesB);
+
+        service = new SweepwaterService();
+        ReflectionTestUtils.setField(service, "threadPoolHolder", mock(SweepWaterThreadPoolHolder.class));
+        // 投注机会直接丢弃
+        ReflectionTestUtils.setField(service, "betDispatchQueue", mock(BetDispatchQueue.class));
+        ReflectionTestUtils.setField(service, "sweepwaterWriter", new SweepwaterWriter() {
+            @Override
+            public boolean submit(String username, SweepwaterDTO dto) {
+                return true;
+            }
+        });
+
+        scan = new OddsScanDTO();
+        scan.setWaterLevelFrom("hit".equals(water) ? -1.0 : 9.0);
+        scan.setWaterLevelTo("hit".equals(water) ? 5.0 : 9.5);
+        profit = new ProfitDTO();
+        profit.setRollingLetBall(1.0);
+        profit.setRollingSize(1.0);
+        websiteA = website(XINBAO);
+        websiteB = website(PINGBO);
+    }
+
+    /**
+     * 一轮比对：联赛按样例顺序一一绑定，联赛内赛事按下标绑定（平博样例的赛事数不同时循环取）
+     */
+    @Benchmark
+    public int round() {
+        int results = 0;
+        for (int l = 0; l < bookA.size(); l++) {
+            OddsBook.League leagueA = bookA.get(l);
+            OddsBook.League leagueB = bookB.get(l);
+            for (int e = 0; e < leagueA.getEvents().size(); e++) {
+                OddsBook.Event eventA = leagueA.getEvents().get(e);
+                OddsBook.Event eventB = leagueB.getEvents().get(e % leagueB.getEvents().size());
+                results += service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", scan, profit,
+                        null, null, List.of(), List.of(), null, websiteA, websiteB,
+                        leagueA, leagueB, eventA.getId(), eventB.getId(), eventA.getName(), eventB.getName(),
+                        XINBAO, PINGBO, leagueA.getId(), leagueB.getId(), eventA.getId(), eventB.getId()).size();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 每份快照转换一次赔率簿的开销
+     */
+    @Benchmark
+    public void parseBooks(Blackhole blackhole) {
+        blackhole.consume(OddsBook.of(leaguesA));
+        blackhole.consume(OddsBook.of(leaguesB));
+    }
+
+    /**
+     * 按样例顺序取出赔率簿中的联赛
+     */
+    private static List<OddsBook.League> typed(JSONArray leagues) {
+        OddsBook book = OddsBook.of(leagues);
+        return leagues.stream().map(league -> book.league(((JSONObject) league).getStr("id"))).toList();
+    }
+
+    private static WebsiteVO website(String id) {
+        WebsiteVO website = new WebsiteVO();
+        website.setId(id);
+        website.setFullCourt(1);
+        website.setFirstHalf(1);
+        website.setHangingWall(1);
+        website.setFootWall(1);
+        website.setBigBall(1);
+        website.setSmallBall(1);
+        return website;
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.demo.benchmark;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.core.replay.RecordedExchange;
+import com.example.demo.core.sites.pingbo.WebsitePingBoEventsOddsHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 基准测试用的赔率样例，默认都是合成数据，不是线上录制
+ * 新二：src/test/resources/xinbao/game_list_live.H.expected.json，手写的新二滚球列表样例（game_list_live.xml）的解析结果
+ * 平博：-Dsweepwater.fixture.pingbo=录制文件 时取录制文件（sweepwater.replay.record=true 录制的 traffic-*.jsonl）中
+ * 最后一次平博滚球列表响应，经 WebsitePingBoEventsOddsHandler 解析；未指定时由新二样例按平博的盘口 id 格式转换而来
+ * JMH 在子进程中运行，属性要通过 -Djmh.args="-jvmArgsAppend -Dsweepwater.fixture.pingbo=logs/replay/traffic-xxx.jsonl" 传入
+ * 样例只有几场比赛，按联赛数复制放大到接近线上的滚球规模，复制出的联赛、赛事、盘口 id 和名称互不重复；
+ * 赔率分布、队名差异都不代表线上，结论以录制文件跑出的结果为准
+ */
+public final class OddsFixtures {
+
+    public static final String XINBAO = "/xinbao/game_list_live.H.expected.json";
+    public static final String PINGBO_CAPTURE = "sweepwater.fixture.pingbo";
+
+    private OddsFixtures() {
+    }
+
+    /**
+     * 平博联赛数组，见类注释
+     */
+    public static JSONArray pingbo() {
+        String capture = System.getProperty(PINGBO_CAPTURE);
+        return capture != null ? pingboCapture(Path.of(capture)) : pingboFromXinBao(leagues(XINBAO));
+    }
+
+    /**
+     * 录制文件中最后一次平博滚球列表（me=0）的成功响应
+     */
+    static JSONArray pingboCapture(Path file) {
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = lines.size() - 1; i >= 0; i--) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            RecordedExchange exchange = JSONUtil.toBean(lines.get(i), RecordedExchange.class);
+            String path = exchange.getPath();
+            if (exchange.getStatus() != 200 || exchange.getBody() == null || path == null
+                    || !path.contains("pimo=") || !path.contains("&me=0&")) {
+                continue;
+            }
+            OkHttpProxyDispatcher.HttpResult response = new OkHttpProxyDispatcher.HttpResult(exchange.getBody(),
+                    exchange.getResponseHeaders(), 200, null, exchange.getDurationMs());
+            JSONArray leagues = new WebsitePingBoEventsOddsHandler(null, null, null)
+                    .parseResponse(new JSONObject(), response).getJSONArray("leagues");
+            JSONArray live = new JSONArray();
+            for (Object league : leagues) {
+                JSONArray events = ((JSONObject) league).getJSONArray("events");
+                if (events != null && !events.isEmpty()) {
+                    live.add(league);
+                }
+            }
+            if (!live.isEmpty()) {
+                return live;
+            }
+        }
+        throw new IllegalStateException("录制文件中没有平博滚球列表响应: " + file);
+    }
+
+    /**
+     * 同一批比赛按平博的格式转换：盘口 id 为 赛事id|场次|盘口类型|方向|行位|盘口值，带 selectionId，
+     * 赔率取新二同方向的赔率（A 的上盘和 B 的下盘相加即新二自身的水位）
+     */
+    static JSONArray pingboFromXinBao(JSONArray xinbao) {
+        JSONArray leagues = new JSONArray();
+        for (Object obj : xinbao) {
+            JSONObject leagueA = (JSONObject) obj;
+            JSONArray events = new JSONArray();
+            for (Object e : leagueA.getJSONArray("events")) {
+                JSONObject eventA = (JSONObject) e;
+                String eventId = "9" + eventA.getStr("id");
+                JSONObject event = new JSONObject().set("id", eventId).set("name", eventA.getStr("name"))
+                        .set("homeTeam", eventA.getStr("homeTeam")).set("awayTeam", eventA.getStr("awayTeam"))
+                        .set("score", eventA.getStr("score")).set("session", eventA.getStr("session"))
+                        .set("reTime", eventA.getStr("reTime"));
+                String[] courts = {"fullCourt", "firstHalf"};
+                for (int period = 0; period < courts.length; period++) {
+                    JSONObject courtA = eventA.getJSONObject(courts[period]);
+                    JSONObject court = new JSONObject();
+                    for (String market : new String[]{"letBall", "overSize"}) {
+                        JSONObject marketA = courtA == null ? null : courtA.getJSONObject(market);
+                        if (marketA == null) {
+                            continue;
+                        }
+                        JSONObject marketB = new JSONObject();
+                        for (String side : marketA.keySet()) {
+                            boolean home = "up".equals(side) || "big".equals(side);
+                            String type = "letBall".equals(market) ? "2|" + (home ? 0 : 1) : "3|" + (home ? 3 : 4);
+                            JSONObject sideB = new JSONObject();
+                            JSONObject sideA = marketA.getJSONObject(side);
+                            for (String line : sideA.keySet()) {
+                                JSONObject oddsA = sideA.getJSONObject(line);
+                                String id = eventId + "|" + period + "|" + type + "|0|" + line;
+                                sideB.set(line, new JSONObject().set("id", id)
+                                        .set("selectionId", oddsA.getStr("id") + "|" + id + "|" + (home ? 0 : 1))
+                                        .set("handicap", oddsA.getStr("handicap")).set("odds", oddsA.getStr("odds"))
+                                        .set("teamName", home ? eventA.getStr("homeTeam") : eventA.getStr("awayTeam"))
+                                        .set("isHome", home));
+                            }
+                            marketB.set(side, sideB);
+                        }
+                        court.set(market, marketB);
+                    }
+                    event.set(courts[period], court);
+                }
+                events.add(event);
+            }
+            leagues.add(new JSONObject().set("id", "9" + leagueA.getStr("id")).set("league", leagueA.getStr("league")).set("events", events));
+        }
+        return leagues;
+    }
+
+    /**
+     * 读取样例中的联赛数组
+     */
+    public static JSONArray leagues(String resource) {
+        try (InputStream in = OddsFixtures.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到样例数据: " + resource);
+            }
+            return JSONUtil.parseObj(new String(in.readAllBytes(), StandardCharsets.UTF_8)).getJSONArray("leagues");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把样例中的联赛循环复制到 leagueCount 个
+     */
+    public static JSONArray scale(JSONArray recorded, int leagueCount) {
+        JSONArray leagues = new JSONArray();
+        for (int i = 0; i < leagueCount; i++) {
+            JSONObject league = JSONUtil.parseObj(recorded.getJSONObject(i % recorded.size()).toString());
+            int copy = i / recorded.size();
+            if (copy == 0) {
+                leagues.add(league);
+                continue;
+            }
+            String suffix = "#" + copy;
+            league.set("id", league.getStr("id") + suffix);
+            league.set("league", league.getStr("league") + suffix);
+            for (Object obj : league.getJSONArray("events")) {
+                JSONObject event = (JSONObject) obj;
+                event.set("id", event.getStr("id") + suffix);
+                event.set("name", event.getStr("name") + suffix);
+                for (String court : new String[]{"fullCourt", "firstHalf"}) {
+                    JSONObject courtJson = event.getJSONObject(court);
+                    if (courtJson != null) {
+                        prefixOddsIds(courtJson, copy + "_");
+                    }
+                }
+            }
+            leagues.add(league);
+        }
+        return leagues;
+    }
+
+    /**
+     * 盘口 id 加前缀（平博比对时会去掉最后一个 | 之后的部分，所以不能加在末尾）
+     */
+    private static void prefixOddsIds(JSONObject json, String prefix) {
+        for (String key : json.keySet()) {
+            Object value = json.get(key);
+            if (value instanceof JSONObject child) {
+                if (child.containsKey("odds") && child.containsKey("id")) {
+                    child.set("id", prefix + child.getStr("id"));
+                } else {
+                    prefixOddsIds(child, prefix);
+                }
+            }
+        }
+    }
+}
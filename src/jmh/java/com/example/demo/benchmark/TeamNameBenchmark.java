@@ -0,0 +1,85 @@
+package com.example.demo.benchmark;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.utils.TeamNameMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 球队名称规范化 + 相似度：样例中的新二球队名 × 平博球队名（来源见 {@link OddsFixtures}），加上线上出现过的译名差异
+ * 一次操作 = 所有名称对各算一次相似度
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TeamNameBenchmark {
+
+    /**
+     * 线上出现过的两个网站译名不一致的球队
+     */
+    private static final String[][] VARIANTS = {
+            {"迪康塞普森", " 康塞普西翁体育"},
+            {"隆迪那PR", "隆德里纳"},
+            {"IFK史柯瓦德", "IFK舍夫德"},
+            {"尼科平斯", "尼雪平"},
+            {"纳卡伊利里亚", "纳卡"},
+            {"堤达斯托尔", "廷达斯托"},
+            {"UMF辛德利和方", "辛德里"},
+            {"贝雷达比历克", "雷克雅未克维京古尔"},
+            {"贝拉萨特吉(后备)", "贝拉萨特吉"},
+            {"格罗比纳", "格罗比尼亚足球俱乐部"},
+            {"瓦埃勒", "维积利"},
+            {"北京国安", "Wuhan Three Towns"},
+    };
+
+    private final List<String[]> pairs = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        // 自动绑定时新二的每个球队名和平博的每个球队名都要算一次相似度
+        List<String> xinbao = teamNames(OddsFixtures.leagues(OddsFixtures.XINBAO));
+        List<String> pingbo = teamNames(OddsFixtures.pingbo());
+        for (String nameA : xinbao) {
+            for (String nameB : pingbo) {
+                pairs.add(new String[]{nameA, nameB});
+            }
+        }
+        pairs.addAll(List.of(VARIANTS));
+    }
+
+    private static List<String> teamNames(JSONArray leagues) {
+        List<String> names = new ArrayList<>();
+        for (Object league : leagues) {
+            for (Object obj : ((JSONObject) league).getJSONArray("events")) {
+                JSONObject event = (JSONObject) obj;
+                names.add(event.getStr("homeTeam"));
+                names.add(event.getStr("awayTeam"));
+            }
+        }
+        return names;
+    }
+
+    @Benchmark
+    public void similarity(Blackhole blackhole) {
+        for (String[] pair : pairs) {
+            blackhole.consume(TeamNameMatcher.calculateSimilarity(pair[0], pair[1]));
+        }
+    }
+}
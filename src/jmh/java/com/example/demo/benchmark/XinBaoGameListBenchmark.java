@@ -0,0 +1,111 @@
+package com.example.demo.benchmark;
+
+import cn.hutool.core.util.XmlUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.core.sites.xinbao.XinBaoGameListDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+
+import javax.xml.xpath.XPathConstants;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新二 get_game_list 响应解析：原 DOM + XPath + JSONUtil 逐条解析 与 StAX + Jackson 流式解析对比
+ * 样例数据：src/test/resources/xinbao/game_list_live.xml（手写的合成响应，不是线上录制），按 games 复制盘口条目放大（ECID/GID 互不重复）
+ * 一次操作 = 解析一次完整响应
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XinBaoGameListBenchmark {
+
+    private static final String RECORDED = "/xinbao/game_list_live.xml";
+    private static final String CDATA_START = "<![CDATA[";
+    private static final String CDATA_END = "]]>";
+
+    /**
+     * 响应中的盘口条目数（滚球高峰约 200 条）
+     */
+    @Param({"4", "200"})
+    public int games;
+
+    private String xml;
+
+    @Setup
+    public void setUp() {
+        String recorded = read(RECORDED);
+        int start = recorded.indexOf(CDATA_START) + CDATA_START.length();
+        int end = recorded.indexOf(CDATA_END, start);
+        JSONObject original = JSONUtil.parseObj(recorded.substring(start, end));
+
+        JSONObject scaled = new JSONObject();
+        int copy = 0;
+        while (scaled.size() < games) {
+            for (Map.Entry<String, Object> entry : original.entrySet()) {
+                if (scaled.size() >= games) {
+                    break;
+                }
+                JSONObject game = JSONUtil.parseObj(entry.getValue().toString());
+                if (copy > 0) {
+                    for (String id : new String[]{"ECID", "GID", "HGID"}) {
+                        game.set(id, game.getStr(id) + copy);
+                    }
+                }
+                scaled.set(entry.getKey() + (copy > 0 ? "_c" + copy : ""), game);
+            }
+            copy++;
+        }
+        xml = recorded.substring(0, start) + scaled + recorded.substring(end);
+    }
+
+    /**
+     * 原实现：hutool DOM + XPath 取 original，再整体和逐条各 parse 一次
+     */
+    @Benchmark
+    public void dom(Blackhole blackhole) {
+        Document document = XmlUtil.readXML(xml);
+        Object original = XmlUtil.getByXPath("//serverresponse/original", document, XPathConstants.STRING);
+        JSONObject originalJson = JSONUtil.parseObj(original);
+        for (Map.Entry<String, Object> entry : originalJson.entrySet()) {
+            JSONObject game = JSONUtil.parseObj(entry.getValue());
+            blackhole.consume(game.getStr("ECID"));
+            blackhole.consume(game.getStr("RATIO_RE"));
+        }
+    }
+
+    @Benchmark
+    public void stax(Blackhole blackhole) throws Exception {
+        blackhole.consume(XinBaoGameListDecoder.decode(xml));
+    }
+
+    private static String read(String resource) {
+        try (InputStream in = XinBaoGameListBenchmark.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("找不到样例数据: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -36,6 +36,12 @@ public class AdminService {
     @Resource
     private AutoProxyTask autoProxyTask;
 
+    @Resource
+    private AdminUserRegistry adminUserRegistry;
+
+    @Resource
+    private SettingsNearCache settingsNearCache;
+
     public AdminLoginDTO getAdmin(String username) {
         // Redis 键值
         String redisKey = KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, username);
@@ -43,68 +49,17 @@ public class AdminService {
     }
 
     /**
-     * 获取所有平台用户
-     * @return
+     * 获取所有平台用户（读取进程内注册表，不访问 Redis）
+     * @return 新列表，调用方可以增删，但不能修改其中的用户对象
      */
     public List<AdminLoginDTO> getUsers(String group) {
-
-        // 匹配所有平台用户的 Redis Key
-        String pattern = KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, "*");
-
-        RKeys keys = businessPlatformRedissonClient.getKeys();
-
-        // 使用 SCAN 命令代替 KEYS 命令，避免阻塞
-        Iterator<String> iterableKeys = keys.getKeysByPattern(pattern, 100).iterator();
-
-        List<String> keysList = new ArrayList<>();
-
-        while (iterableKeys.hasNext()) {
-            keysList.add(iterableKeys.next());
-        }
-
-        if (keysList.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // =========================
-        // 使用 Redisson Pipeline 批量获取
-        // =========================
-        RBatch batch = businessPlatformRedissonClient.createBatch();
-
-        Map<String, RFuture<Object>> futureMap = new HashMap<>(keysList.size());
-
-        for (String key : keysList) {
-            RBucketAsync<Object> bucket = batch.getBucket(key);
-            futureMap.put(key, bucket.getAsync());
-        }
-
-        // 一次性发送
-        batch.execute();
-
-        // 解析结果
-        List<AdminLoginDTO> result = new ArrayList<>(keysList.size());
-
-        for (RFuture<Object> future : futureMap.values()) {
-
-            Object obj = future.getNow();
-
-            if (obj == null) {
-                continue;
-            }
-
-            try {
-                AdminLoginDTO user = JSONUtil.toBean(obj.toString(), AdminLoginDTO.class);
-
-                // group 过滤
-                if (StringUtils.isBlank(group) || group.equals(user.getGroup())) {
-                    result.add(user);
-                }
-
-            } catch (Exception e) {
-                log.warn("解析用户数据失败: {}", obj, e);
+        List<AdminLoginDTO> result = new ArrayList<>();
+        for (AdminLoginDTO user : adminUserRegistry.users()) {
+            // group 过滤
+            if (StringUtils.isBlank(group) || group.equals(user.getGroup())) {
+                result.add(user);
             }
         }
-
         return result;
     }
 
@@ -146,6 +101,7 @@ public class AdminService {
             adminLogin.setStopBet(adminBetVO.getStopBet());
             adminLogin.setSimulateBet(adminBetVO.getSimulateBet());
             businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(adminLogin));
+            adminUserRegistry.userSaved(username);
             // ✅ 投注开关变化，触发 AutoProxyTask 检查任务
             autoProxyTask.handleUserBetChange(adminLogin);
         } else {
@@ -158,53 +114,18 @@ public class AdminService {
      * @return
      */
     public List<AdminLoginDTO> getEnableUsers() {
-        // 匹配所有平台用户的 Redis Key
-        String pattern = KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, "*");
-        // 使用 Redisson 执行扫描所有平台用户操作
-        RKeys keys = businessPlatformRedissonClient.getKeys();
-        // 使用 SCAN 命令代替 KEYS 命令，避免阻塞
-        Iterator<String> iterableKeys = keys.getKeysByPattern(pattern, 100).iterator();
-        List<String> keysList = new ArrayList<>();
-        while (iterableKeys.hasNext()) {
-            keysList.add(iterableKeys.next());
-        }
-        return keysList.stream()
-                .map(key -> {
-                    String json = (String) businessPlatformRedissonClient.getBucket(key).get();
-                    return JSONUtil.toBean(json, AdminLoginDTO.class);
-                })
+        return adminUserRegistry.users().stream()
                 .filter(user -> user.getStatus() == 1) // 筛选出开启状态的用户
                 .collect(Collectors.toList());
     }
 
     public List<String> getGroup() {
-
-        String pattern = KeyUtil.genKey(RedisConstants.PLATFORM_ADMIN_GROUP_PREFIX, "*");
-
-        RKeys keys = businessPlatformRedissonClient.getKeys();
-
-        // 使用 SCAN 命令代替 KEYS 命令，避免阻塞
-        Iterator<String> iterableKeys = keys.getKeysByPattern(pattern, 100).iterator();
-
-        Set<String> groupSet = new HashSet<>();
-
-        while (iterableKeys.hasNext()) {
-
-            String key = iterableKeys.next();
-
-            int first = key.indexOf(':');
-            int second = key.indexOf(':', first + 1);
-
-            if (second != -1 && second + 1 < key.length()) {
-                groupSet.add(key.substring(second + 1));
-            }
-        }
-
-        return new ArrayList<>(groupSet);
+        return new ArrayList<>(adminUserRegistry.groups());
     }
 
     public void addGroup(String group) {
         businessPlatformRedissonClient.getBucket(KeyUtil.genKey(RedisConstants.PLATFORM_ADMIN_GROUP_PREFIX, group)).set(1);
+        adminUserRegistry.groupAdded(group);
     }
 
 
@@ -256,6 +177,7 @@ public class AdminService {
             adminLoginDTO.setRoles(roles);
             adminLoginDTO.setPermissions(List.of("*:*:*"));
             businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(adminLoginDTO));
+            adminUserRegistry.userSaved(admin.getUsername());
 
             // 生成 Redis 中的 key
             String websiteKey = KeyUtil.genKey(RedisConstants.PLATFORM_WEBSITE_ALL_PREFIX, admin.getUsername());
@@ -296,6 +218,8 @@ public class AdminService {
             businessPlatformRedissonClient.getList(timeframeKey).add(timeframe);
             String oddsrangeKey = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_FILTER_ODDSRANGE_PREFIX, admin.getUsername());
             businessPlatformRedissonClient.getList(oddsrangeKey).addAll(oddsrange);
+            // 重复添加同名用户时，丢弃各实例缓存的旧设置快照
+            settingsNearCache.invalidate(admin.getUsername());
         }
     }
 
@@ -324,6 +248,8 @@ public class AdminService {
 
     public void delUser(String username) {
         businessPlatformRedissonClient.getBucket(KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, username)).delete();
+        adminUserRegistry.userDeleted(username);
+        settingsNearCache.invalidate(username);
     }
 
     public void changePassword(String username, String oldPassword, String newPassword) {
@@ -338,6 +264,7 @@ public class AdminService {
         }
         adminLogin.setPassword(newPassword);
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(adminLogin));
+        adminUserRegistry.userSaved(username);
     }
 
 }
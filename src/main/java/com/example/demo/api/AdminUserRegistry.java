@@ -0,0 +1,202 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.model.dto.AdminLoginDTO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 平台用户注册表
+ * 用户名 / 小组名维护在 Redis Set 索引中，进程内缓存一份不可变快照；
+ * 用户或小组变更时更新索引并通过 Redis topic 通知所有实例，下次读取时重新加载（SMEMBERS + MGET，不再 SCAN）
+ */
+@Slf4j
+@Component
+public class AdminUserRegistry implements InitializingBean, DisposableBean {
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    /**
+     * 兜底刷新间隔(秒)，覆盖绕过接口直接改 Redis 的情况
+     */
+    @Value("${sweepwater.user-registry.refresh-seconds:30}")
+    private long refreshSeconds = 30;
+
+    /** 变更代数，快照加载时的代数与当前不一致即视为过期 */
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    /** 已检查过的索引，每个进程只在索引为空时重建一次，之后以索引为准 */
+    private final Set<String> checkedIndexes = ConcurrentHashMap.newKeySet();
+
+    private int listenerId = -1;
+
+    @Override
+    public void afterPropertiesSet() {
+        listenerId = businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_USER_CHANGED_TOPIC)
+                .addListener(String.class, (channel, msg) -> changes.incrementAndGet());
+        log.info("Subscribed to {} with listenerId={}", RedisConstants.PLATFORM_USER_CHANGED_TOPIC, listenerId);
+    }
+
+    @Override
+    public void destroy() {
+        if (listenerId >= 0) {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_USER_CHANGED_TOPIC).removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 所有平台用户（按用户名排序，不可修改，其中的对象为共享快照，调用方不能修改）
+     */
+    public List<AdminLoginDTO> users() {
+        return current().users;
+    }
+
+    /**
+     * 所有小组
+     */
+    public List<String> groups() {
+        return current().groups;
+    }
+
+    /**
+     * 新增或修改用户后调用
+     */
+    public void userSaved(String username) {
+        businessPlatformRedissonClient.<String>getSet(RedisConstants.PLATFORM_USER_INDEX).add(username);
+        changed(username);
+    }
+
+    /**
+     * 删除用户后调用
+     */
+    public void userDeleted(String username) {
+        businessPlatformRedissonClient.<String>getSet(RedisConstants.PLATFORM_USER_INDEX).remove(username);
+        changed(username);
+    }
+
+    /**
+     * 新增小组后调用
+     */
+    public void groupAdded(String group) {
+        businessPlatformRedissonClient.<String>getSet(RedisConstants.PLATFORM_ADMIN_GROUP_INDEX).add(group);
+        changed(group);
+    }
+
+    private void changed(String name) {
+        changes.incrementAndGet();
+        try {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_USER_CHANGED_TOPIC).publish(name);
+        } catch (Exception e) {
+            log.warn("发布平台用户变更通知失败 name={}", name, e);
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s != null && !s.isStale(changes.get(), refreshSeconds)) {
+            return s;
+        }
+        synchronized (this) {
+            s = snapshot;
+            if (s == null || s.isStale(changes.get(), refreshSeconds)) {
+                s = load();
+                snapshot = s;
+            }
+            return s;
+        }
+    }
+
+    private Snapshot load() {
+        long generation = changes.get();
+
+        RSet<String> userIndex = businessPlatformRedissonClient.getSet(RedisConstants.PLATFORM_USER_INDEX);
+        Set<String> usernames = userIndex.readAll();
+        if (checkedIndexes.add(RedisConstants.PLATFORM_USER_INDEX) && usernames.isEmpty()) {
+            usernames = rebuildIndex(userIndex, RedisConstants.PLATFORM_USER_PREFIX);
+        }
+
+        List<AdminLoginDTO> users = new ArrayList<>(usernames.size());
+        if (!usernames.isEmpty()) {
+            String[] keys = usernames.stream()
+                    .map(username -> KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, username))
+                    .toArray(String[]::new);
+            Map<String, Object> values = businessPlatformRedissonClient.getBuckets().get(keys);
+            for (String username : usernames) {
+                Object json = values.get(KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, username));
+                if (json == null) {
+                    // 用户 key 已不存在，清理索引
+                    userIndex.remove(username);
+                    continue;
+                }
+                try {
+                    users.add(JSONUtil.toBean(json.toString(), AdminLoginDTO.class));
+                } catch (Exception e) {
+                    log.warn("解析用户数据失败: {}", json, e);
+                }
+            }
+            users.sort(Comparator.comparing(AdminLoginDTO::getUsername, Comparator.nullsLast(Comparator.naturalOrder())));
+        }
+
+        RSet<String> groupIndex = businessPlatformRedissonClient.getSet(RedisConstants.PLATFORM_ADMIN_GROUP_INDEX);
+        Set<String> groups = groupIndex.readAll();
+        if (checkedIndexes.add(RedisConstants.PLATFORM_ADMIN_GROUP_INDEX) && groups.isEmpty()) {
+            groups = rebuildIndex(groupIndex, RedisConstants.PLATFORM_ADMIN_GROUP_PREFIX);
+        }
+
+        return new Snapshot(generation, List.copyOf(users), List.copyOf(new TreeSet<>(groups)));
+    }
+
+    /**
+     * 索引为空时（首次上线，旧数据没有索引）扫描一次 key 重建索引
+     */
+    private Set<String> rebuildIndex(RSet<String> index, String prefix) {
+        Set<String> names = new TreeSet<>();
+        for (String key : businessPlatformRedissonClient.getKeys().getKeysByPattern(KeyUtil.genKey(prefix, "*"), 100)) {
+            names.add(key.substring(prefix.length() + 1));
+        }
+        if (!names.isEmpty()) {
+            index.addAll(names);
+            log.info("重建索引 {}，共 {} 个", index.getName(), names.size());
+        }
+        return names;
+    }
+
+    private static final class Snapshot {
+        private final long generation;
+        private final long loadedNanos = System.nanoTime();
+        private final List<AdminLoginDTO> users;
+        private final List<String> groups;
+
+        private Snapshot(long generation, List<AdminLoginDTO> users, List<String> groups) {
+            this.generation = generation;
+            this.users = users;
+            this.groups = groups;
+        }
+
+        private boolean isStale(long currentGeneration, long refreshSeconds) {
+            return generation != currentGeneration
+                    || System.nanoTime() - loadedNanos > TimeUnit.SECONDS.toNanos(refreshSeconds);
+        }
+    }
+}
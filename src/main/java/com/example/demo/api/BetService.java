@@ -17,6 +17,7 @@ import com.example.demo.common.utils.TeamNameMatcher;
 import com.example.demo.config.OkHttpProxyDispatcher;
 import com.example.demo.config.PriorityTaskExecutor;
 import com.example.demo.config.SuccessBasedLimitManager;
+import com.example.demo.core.bet.OddsAgeGuard;
 import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
 import com.example.demo.core.result.PageResult;
 import com.example.demo.model.dto.AdminLoginDTO;
@@ -78,6 +79,8 @@ public class BetService {
     private SweepWaterThreadPoolHolder threadPoolHolder;
     @Resource
     private RealtimeIndexService realtimeIndexService;
+    @Resource
+    private OddsAgeGuard oddsAgeGuard;
 
     @Resource
     private com.example.demo.common.utils.MatchMatchUtil matchMatchUtil;
@@ -910,13 +913,10 @@ public class BetService {
         boolean betAmountByOdds = limitDTO.getBetAmountByOdds() != null && limitDTO.getBetAmountByOdds() == 1;
 
         List<WebsiteVO> websites = websiteService.getWebsites(username);
-        // 30秒投注限制不需要
-        /*LocalDateTime createTime = LocalDateTime.parse(sweepwaterDTO.getCreateTime(), DateTimeFormatter.ofPattern(DatePattern.NORM_DATETIME_MS_PATTERN));
-        long seconds = Duration.between(createTime, LocalDateTime.now()).getSeconds();
-        if (seconds > 30) {
-            log.info("赔率数据过期({}秒前)，放弃处理投注", seconds);
-            continue; // 直接退出方法
-        }*/
+        // 赔率按拉取时的单调时钟计算年龄，过期的不再请求盘口预览
+        if (!oddsAgeGuard.isFresh(username, sweepwaterDTO)) {
+            return;
+        }
 
         SweepwaterBetDTO dto = new SweepwaterBetDTO();
         BeanUtils.copyProperties(sweepwaterDTO, dto);
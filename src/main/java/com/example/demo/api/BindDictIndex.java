@@ -0,0 +1,269 @@
+package com.example.demo.api;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.model.vo.dict.BindLeagueVO;
+import com.example.demo.model.vo.dict.BindTeamVO;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 球队绑定字典进程内索引
+ * 每个用户首次读取时 SCAN 一次加载，之后由绑定接口增量更新；扫水每轮只读取不可变快照，不再扫描 keyspace。
+ * 多实例部署时，绑定变更通过 Redis topic 通知其它实例丢弃该用户的快照，快照另有过期时间兜底通知丢失
+ */
+@Slf4j
+@Component
+public class BindDictIndex implements InitializingBean, DisposableBean {
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    /**
+     * 快照最长存活时间(秒)，兜底 topic 消息丢失（如 Redis 重连期间）
+     */
+    @Value("${sweepwater.bind-dict.index-ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    /** 毫秒时钟，测试中替换 */
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /** 本实例标识，忽略自己发出的变更通知 */
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong();
+
+    /** 快照变更/失效次数（不分用户），加载期间有变化时不缓存加载结果 */
+    private final AtomicLong changes = new AtomicLong();
+
+    /** 全量加载（SCAN）次数 */
+    private final AtomicLong loads = new AtomicLong();
+
+    private int listenerId = -1;
+
+    @Override
+    public void afterPropertiesSet() {
+        listenerId = businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_BIND_DICT_INVALIDATE_TOPIC)
+                .addListener(String.class, (channel, msg) -> {
+                    String[] parts = StringUtils.split(msg, "|", 2);
+                    if (parts.length == 2 && !instanceId.equals(parts[0])) {
+                        changes.incrementAndGet();
+                        snapshots.remove(parts[1]);
+                    }
+                });
+        log.info("Subscribed to {} with listenerId={}", RedisConstants.PLATFORM_BIND_DICT_INVALIDATE_TOPIC, listenerId);
+    }
+
+    @Override
+    public void destroy() {
+        if (listenerId >= 0) {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_BIND_DICT_INVALIDATE_TOPIC).removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 获取用户的绑定快照，首次访问或快照过期时从 Redis 加载
+     * SCAN + MGET 不放在 computeIfAbsent 里执行，避免网络 IO 期间占住 map 的桶锁
+     */
+    public Snapshot get(String username) {
+        Snapshot snapshot = snapshots.get(username);
+        if (snapshot != null && !isExpired(snapshot)) {
+            return snapshot;
+        }
+        long mark = changes.get();
+        Snapshot loaded = load(username);
+        Snapshot current = snapshots.compute(username, (u, cur) -> {
+            if (cur != null && cur != snapshot && !isExpired(cur)) {
+                // 其它线程已加载，或加载期间有增量更新
+                return cur;
+            }
+            // 加载期间有绑定变更，结果可能早于变更，不缓存，下次读取重新加载
+            return changes.get() == mark ? loaded : null;
+        });
+        return current != null ? current : loaded;
+    }
+
+    /**
+     * 绑定写入 Redis 后调用
+     */
+    public void put(String username, String websiteIdA, String websiteIdB, List<BindLeagueVO> bindLeagueVOS) {
+        String key = KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, username, websiteIdA, websiteIdB);
+        // 未加载过的用户不处理，下次读取时会加载到最新数据
+        changes.incrementAndGet();
+        snapshots.computeIfPresent(username, (u, old) -> {
+            Map<String, List<BindLeagueVO>> pairs = new LinkedHashMap<>(old.pairs);
+            pairs.put(key, freeze(bindLeagueVOS));
+            return new Snapshot(versions.incrementAndGet(), old.loadedAt, pairs);
+        });
+        publish(username);
+    }
+
+    /**
+     * 删除某个网站对的绑定后调用
+     */
+    public void remove(String username, String websiteIdA, String websiteIdB) {
+        String key = KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, username, websiteIdA, websiteIdB);
+        changes.incrementAndGet();
+        snapshots.computeIfPresent(username, (u, old) -> {
+            Map<String, List<BindLeagueVO>> pairs = new LinkedHashMap<>(old.pairs);
+            pairs.remove(key);
+            return new Snapshot(versions.incrementAndGet(), old.loadedAt, pairs);
+        });
+        publish(username);
+    }
+
+    /**
+     * 删除用户全部绑定后调用
+     */
+    public void removeAll(String username) {
+        changes.incrementAndGet();
+        snapshots.put(username, new Snapshot(versions.incrementAndGet(), clock.getAsLong(), Collections.emptyMap()));
+        publish(username);
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    private boolean isExpired(Snapshot snapshot) {
+        return clock.getAsLong() - snapshot.loadedAt >= ttlSeconds * 1000;
+    }
+
+    private Snapshot load(String username) {
+        loads.incrementAndGet();
+        long loadedAt = clock.getAsLong();
+        String patternKey = KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, username, "*", "*");
+        List<String> keys = new ArrayList<>();
+        businessPlatformRedissonClient.getKeys().getKeysByPattern(patternKey).forEach(keys::add);
+
+        Map<String, List<BindLeagueVO>> pairs = new LinkedHashMap<>();
+        if (!keys.isEmpty()) {
+            // 一次 MGET 取回所有网站对
+            Map<String, Object> values = businessPlatformRedissonClient.getBuckets().get(keys.toArray(new String[0]));
+            for (String key : keys) {
+                Object json = values.get(key);
+                if (json != null && StringUtils.isNotBlank(json.toString())) {
+                    pairs.put(key, freeze(JSONUtil.parseArray(json.toString()).toList(BindLeagueVO.class)));
+                }
+            }
+        }
+        Snapshot snapshot = new Snapshot(versions.incrementAndGet(), loadedAt, pairs);
+        log.info("加载球队绑定索引 username={}, 网站对={}, 球队={}", username, pairs.size(), snapshot.teamCount);
+        return snapshot;
+    }
+
+    private void publish(String username) {
+        try {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_BIND_DICT_INVALIDATE_TOPIC).publish(instanceId + "|" + username);
+        } catch (Exception e) {
+            log.warn("发布球队绑定变更通知失败 username={}", username, e);
+        }
+    }
+
+    private static List<BindLeagueVO> freeze(List<BindLeagueVO> leagues) {
+        List<BindLeagueVO> copy = new ArrayList<>(leagues.size());
+        for (BindLeagueVO league : leagues) {
+            BindLeagueVO vo = copyLeague(league);
+            vo.setEvents(league.getEvents() == null ? List.of() : List.copyOf(league.getEvents()));
+            copy.add(vo);
+        }
+        return Collections.unmodifiableList(copy);
+    }
+
+    private static BindLeagueVO copyLeague(BindLeagueVO league) {
+        BindLeagueVO vo = new BindLeagueVO();
+        vo.setId(league.getId());
+        vo.setWebsiteIdA(league.getWebsiteIdA());
+        vo.setWebsiteIdB(league.getWebsiteIdB());
+        vo.setLeagueIdA(league.getLeagueIdA());
+        vo.setLeagueIdB(league.getLeagueIdB());
+        vo.setLeagueNameA(league.getLeagueNameA());
+        vo.setLeagueNameB(league.getLeagueNameB());
+        return vo;
+    }
+
+    /**
+     * 某一时刻的绑定数据，创建后不再修改
+     */
+    public static final class Snapshot {
+        @Getter
+        private final long version;
+        /** Redis key -> 该网站对绑定的联赛 */
+        private final Map<String, List<BindLeagueVO>> pairs;
+        /** 扫水可用的绑定：联赛 id 与赛事 id 均不为空，且至少有一场赛事 */
+        @Getter
+        private final List<List<BindLeagueVO>> sweepGroups;
+        @Getter
+        private final int teamCount;
+        /** 最近一次全量加载的时间，增量更新沿用，过期后重新加载 */
+        private final long loadedAt;
+
+        private Snapshot(long version, long loadedAt, Map<String, List<BindLeagueVO>> pairs) {
+            this.version = version;
+            this.loadedAt = loadedAt;
+            this.pairs = Collections.unmodifiableMap(pairs);
+            List<List<BindLeagueVO>> groups = new ArrayList<>(pairs.size());
+            int teams = 0;
+            for (List<BindLeagueVO> leagues : pairs.values()) {
+                List<BindLeagueVO> group = new ArrayList<>(leagues.size());
+                for (BindLeagueVO league : leagues) {
+                    teams += league.getEvents().size();
+                    if (StringUtils.isBlank(league.getLeagueIdA()) || StringUtils.isBlank(league.getLeagueIdB())) {
+                        continue;
+                    }
+                    List<BindTeamVO> events = league.getEvents().stream()
+                            .filter(e -> StringUtils.isNotBlank(e.getIdA()) && StringUtils.isNotBlank(e.getIdB()))
+                            .toList();
+                    if (events.isEmpty()) {
+                        continue;
+                    }
+                    BindLeagueVO vo = copyLeague(league);
+                    vo.setEvents(events);
+                    group.add(vo);
+                }
+                if (!group.isEmpty()) {
+                    groups.add(Collections.unmodifiableList(group));
+                }
+            }
+            this.sweepGroups = Collections.unmodifiableList(groups);
+            this.teamCount = teams;
+        }
+
+        /**
+         * 全部绑定（未过滤），返回副本，调用方可以修改
+         */
+        public List<List<BindLeagueVO>> copyAll() {
+            List<List<BindLeagueVO>> result = new ArrayList<>(pairs.size());
+            for (List<BindLeagueVO> leagues : pairs.values()) {
+                List<BindLeagueVO> group = new ArrayList<>(leagues.size());
+                for (BindLeagueVO league : leagues) {
+                    BindLeagueVO vo = copyLeague(league);
+                    vo.setEvents(new ArrayList<>(league.getEvents()));
+                    group.add(vo);
+                }
+                result.add(group);
+            }
+            return result;
+        }
+    }
+}
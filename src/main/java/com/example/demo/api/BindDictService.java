@@ -34,6 +34,9 @@ public class BindDictService {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private BindDictIndex bindDictIndex;
+
     private JSONArray defaultCompetitions;
     private JSONArray defaultTeams;
 
@@ -62,30 +65,22 @@ public class BindDictService {
     }
 
     /**
-     * 获取所有已绑定的球队字典
+     * 获取所有已绑定的球队字典（副本，调用方可以修改）
      * @param username
      * @return
      */
     public List<List<BindLeagueVO>> getAllBindDict(String username) {
-        // 生成模糊查询的 key，使用通配符 * 来匹配所有 websiteIdA 和 websiteIdB
-        String patternKey = KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, username, "*", "*");
-
-        // 使用 Redisson 的 scan 方法进行模糊查询
-        Iterable<String> keys = businessPlatformRedissonClient.getKeys().getKeysByPattern(patternKey);
-
-        List<List<BindLeagueVO>> result = new ArrayList<>();
-
-        // 遍历所有匹配的 key，获取对应的数据
-        for (String key : keys) {
-            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
-            if (StringUtils.isNotBlank(json)) {
-                // 将每个 key 对应的 JSON 数据解析为 List<BindLeagueVO>，并添加到结果中
-                List<BindLeagueVO> bindLeagueList = JSONUtil.parseArray(json).toList(BindLeagueVO.class);
-                result.add(bindLeagueList);
-            }
-        }
+        return bindDictIndex.get(username).copyAll();
+    }
 
-        return result;
+    /**
+     * 获取扫水用的球队字典，已剔除联赛 id / 赛事 id 为空的绑定和无赛事的联赛
+     * 返回的是共享的不可变快照，调用方不能修改其中的对象
+     * @param username
+     * @return
+     */
+    public List<List<BindLeagueVO>> getSweepBindDict(String username) {
+        return bindDictIndex.get(username).getSweepGroups();
     }
 
     /**
@@ -119,6 +114,7 @@ public class BindDictService {
 
         // 获取 Redis 中的列表
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(bindLeagueVOS));
+        bindDictIndex.put(username, websiteIdA, websiteIdB, bindLeagueVOS);
     }
 
     /**
@@ -131,6 +127,7 @@ public class BindDictService {
 
         // 获取所有网站信息
         businessPlatformRedissonClient.getBucket(key).delete();
+        bindDictIndex.remove(username, websiteIdA, websiteIdB);
     }
 
     /**
@@ -141,6 +138,7 @@ public class BindDictService {
         // 获取所有绑定信息的前缀
         String keyPattern = KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, username, "*");
         businessPlatformRedissonClient.getKeys().deleteByPattern(keyPattern);
+        bindDictIndex.removeAll(username);
     }
 
     public List<BindLeagueVO> getCornerBindDictAll(String username) {
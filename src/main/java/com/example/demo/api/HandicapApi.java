@@ -14,10 +14,15 @@ import cn.hutool.json.JSONUtil;
 import com.example.demo.common.constants.RedisConstants;
 import com.example.demo.common.enmu.*;
 import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.config.HttpCallScope;
+import com.example.demo.config.OkHttpProxyDispatcher;
 import com.example.demo.core.exception.BusinessException;
 import com.example.demo.core.factory.ApiHandler;
 import com.example.demo.core.factory.WebsiteApiFactory;
 import com.example.demo.core.factory.WebsiteFactoryManager;
+import com.example.demo.core.holder.AdaptiveRateLimiter;
+import com.example.demo.core.holder.ConcurrencyLimiter;
+import com.example.demo.core.holder.OddsHedger;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.example.demo.model.vo.*;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -33,6 +38,7 @@ import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Slf4j
 @Component
@@ -56,6 +62,18 @@ public class HandicapApi {
     @Resource
     private ConfigAccountService accountService;
 
+    @Resource
+    private OkHttpProxyDispatcher dispatcher;
+
+    @Resource
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Resource
+    private OddsHedger oddsHedger;
+
+    @Resource
+    private AdaptiveRateLimiter rateLimiter;
+
     /**
      * 所有盘口账号自动登录
      */
@@ -255,6 +273,12 @@ public class HandicapApi {
         accountService.saveAccount(username, websiteId, account);
         if (result.getBool("success")) {
             retryMap.remove(key); // 成功则清除失败记录
+            // 登录成功预热该账户代理到盘口的连接，后续扫水/投注直接复用
+            try {
+                dispatcher.warmUp(account, websiteService.getWebsiteBaseUrl(username, websiteId));
+            } catch (Exception e) {
+                log.debug("连接预热跳过, 网站:{}, 账号:{}, 原因:{}", websiteId, account.getAccount(), e.getMessage());
+            }
             // 登录成功就执行获取额度
             balanceByAccount(username, websiteId, account);
             // 登录成功就执行账户保活操作，用于平博盘口的账户v-hucode参数获取
@@ -810,6 +834,16 @@ public class HandicapApi {
      * @return
      */
     public Object eventsOdds(String username, String websiteId, String lid, String ecid) {
+        EventsOdds odds = eventsOddsWithServerTime(username, websiteId, lid, ecid);
+        return odds != null ? odds.leagues() : null;
+    }
+
+    /**
+     * 同 {@link #eventsOdds}，同时返回胜出请求收到的盘口服务器时间
+     * 对冲时胜出的可能是备用线程上的请求，服务器时间随结果带回，不能从调用线程的 ThreadLocal 读取
+     * @return 联赛赔率和服务器时间，都失败返回 null
+     */
+    public EventsOdds eventsOddsWithServerTime(String username, String websiteId, String lid, String ecid) {
         log.info("执行eventsOdds方法-获取赛事列表,平台用户:{},网站:{}", username, WebsiteType.getById(websiteId).getDescription());
         WebsiteVO websiteVO = websiteService.getWebsite(username, websiteId);
         Integer oddsType = websiteVO.getOddsType();
@@ -827,132 +861,228 @@ public class HandicapApi {
             // int idx = Math.abs(indexRef.getAndIncrement() % size);
             // 防止 AtomicInteger 溢出
             int idx = indexRef.getAndUpdate(val -> (val + 1) % size);
-            ConfigAccountVO account = accounts.get(idx);
-            if (account.getIsTokenValid() == 0) {
-                // 未登录直接跳过
+            OddsAttempt attempt = prepareOddsAttempt(username, websiteId, lid, ecid, oddsType, accounts.get(idx), idx);
+            if (attempt == null) {
                 continue;
             }
-            String accountName = account.getAccount();
-            // 检查冷却时间
-            long now = System.currentTimeMillis();
-            long lastUsed = accountCooldownMap.getOrDefault(accountName, 0L);
-            long lastUsedMill = now - lastUsed;
-            if (lastUsedMill < cooldownMillis) {
-                log.info("获取赛事列表,平台用户:{},网站:{},账号 [{}] 正在冷却中，跳过，剩余冷却时间[{}]毫秒, 当前accountCooldownMap大小为[{}]", username, WebsiteType.getById(websiteId).getDescription(), accountName, cooldownMillis - lastUsedMill, accountCooldownMap.size());
+            // 首个账号迟迟不返回时，换一个账号/代理再请求一次（默认关闭）
+            EventsOdds odds = oddsHedger.execute(websiteId,
+                    () -> fetchOdds(username, websiteId, lid, ecid, attempt),
+                    () -> backupOddsAttempt(username, websiteId, lid, ecid, oddsType, accounts, indexRef, attempt.account()));
+            if (odds != null) {
+                return odds;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 对冲用的备用账号：按轮询顺序取下一个可用的其它账号，同样检查冷却和并发许可
+     * @return 备用请求，没有可用账号返回 null
+     */
+    private Supplier<EventsOdds> backupOddsAttempt(String username, String websiteId, String lid, String ecid, Integer oddsType,
+                                               List<ConfigAccountVO> accounts, AtomicInteger indexRef, ConfigAccountVO primary) {
+        int size = accounts.size();
+        for (int i = 0; i < size; i++) {
+            int idx = indexRef.getAndUpdate(val -> (val + 1) % size);
+            ConfigAccountVO account = accounts.get(idx);
+            if (account == primary) {
                 continue;
             }
+            OddsAttempt attempt = prepareOddsAttempt(username, websiteId, lid, ecid, oddsType, account, idx);
+            if (attempt != null) {
+                log.info("获取赛事列表-对冲,平台用户:{},网站:{},备用账号:{}", username, WebsiteType.getById(websiteId).getDescription(), account.getAccount());
+                return () -> fetchOdds(username, websiteId, lid, ecid, attempt);
+            }
+        }
+        return null;
+    }
 
-            log.info("获取赛事列表,平台用户:{},网站:{},idx:{},账号:{}", username, WebsiteType.getById(websiteId).getDescription(), idx, accountName);
+    /**
+     * 检查账号是否可用（已登录、不在冷却中、并发许可），并组装请求参数
+     * @return 可发起的请求，账号不可用返回 null；返回的许可在 {@link #fetchOdds} 中释放
+     */
+    private OddsAttempt prepareOddsAttempt(String username, String websiteId, String lid, String ecid, Integer oddsType,
+                                           ConfigAccountVO account, int idx) {
+        if (account.getIsTokenValid() == 0) {
+            // 未登录直接跳过
+            return null;
+        }
+        String accountName = account.getAccount();
+        // 检查冷却时间
+        long now = System.currentTimeMillis();
+        long lastUsed = accountCooldownMap.getOrDefault(accountName, 0L);
+        long lastUsedMill = now - lastUsed;
+        if (lastUsedMill < cooldownMillis) {
+            log.info("获取赛事列表,平台用户:{},网站:{},账号 [{}] 正在冷却中，跳过，剩余冷却时间[{}]毫秒, 当前accountCooldownMap大小为[{}]", username, WebsiteType.getById(websiteId).getDescription(), accountName, cooldownMillis - lastUsedMill, accountCooldownMap.size());
+            return null;
+        }
 
-            WebsiteApiFactory factory = factoryManager.getFactory(websiteId);
+        log.info("获取赛事列表,平台用户:{},网站:{},idx:{},账号:{}", username, WebsiteType.getById(websiteId).getDescription(), idx, accountName);
 
-            ApiHandler apiHandler = factory.getEventsOddsHandler();
-            if (apiHandler == null) {
-                continue;
-            }
-            JSONObject params = new JSONObject();
-            params.putOpt("adminUsername", username);
-            params.putOpt("websiteId", websiteId);
-            try {
-                // 根据不同站点传入不同的参数
-                if (WebsiteType.PINGBO.getId().equals(websiteId)) {
-                    params.putAll(account.getToken().getJSONObject("tokens"));
-                    // 转换赔率类型
-                    int oddsFormatType = 0;
-                    if (oddsType == 1) {
-                        // 平台设置的马来盘
-                        oddsFormatType = PingBoOddsFormatType.RM.getId();
-                    } else if (oddsType == 2) {
-                        // 平台设置的香港盘
-                        oddsFormatType = PingBoOddsFormatType.HKC.getId();
-                    } else {
-                        // 默认马来盘
-                        oddsFormatType = PingBoOddsFormatType.RM.getId();
-                    }
-                    params.putOpt("hucode", account.getHucode());
-                    params.putOpt("oddsFormatType", oddsFormatType);
-                } else if (WebsiteType.ZHIBO.getId().equals(websiteId)) {
-                    params.putOpt("token", "Bearer " + account.getToken().getStr("token"));
-                    // 转换赔率类型
-                    int oddsFormatType = 0;
-                    if (oddsType == 1) {
-                        // 平台设置的马来盘
-                        oddsFormatType = ZhiBoOddsFormatType.RM.getId();
-                    } else if (oddsType == 2) {
-                        // 平台设置的香港盘
-                        oddsFormatType = ZhiBoOddsFormatType.HKC.getId();
-                    } else {
-                        // 默认马来盘
-                        oddsFormatType = ZhiBoOddsFormatType.RM.getId();
-                    }
-                    params.putOpt("oddsFormatType", oddsFormatType);
-                } else if (WebsiteType.XINBAO.getId().equals(websiteId)) {
-                    params.putAll(account.getToken().getJSONObject("serverresponse"));
-                    params.putOpt("lid", lid);
-                    params.putOpt("ecid", ecid);
-                    // 转换赔率类型
-                    String oddsFormatType = "";
-                    if (oddsType == 1) {
-                        // 平台设置的马来盘
-                        oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
-                    } else if (oddsType == 2) {
-                        // 平台设置的香港盘
-                        oddsFormatType = XinBaoOddsFormatType.HKC.getCurrencyCode();
-                    } else {
-                        // 默认马来盘
-                        oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
-                    }
-                    params.putOpt("oddsFormatType", oddsFormatType);
-                    params.putOpt("showType", ZhiBoSchedulesType.LIVESCHEDULE.getId());
-                } else if (WebsiteType.SBO.getId().equals(websiteId)) {
-                    params.putOpt("token", account.getToken().getJSONObject("token").getStr("authToken"));
-                    params.putOpt("oddsToken", account.getToken().getJSONObject("token").getStr("oddsToken"));
-                    params.putOpt("eventId", ecid);
-                    // 转换赔率类型
-                    String oddsFormatType = "";
-                    if (oddsType == 1) {
-                        // 平台设置的马来盘
-                        oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
-                    } else if (oddsType == 2) {
-                        // 平台设置的香港盘
-                        oddsFormatType = XinBaoOddsFormatType.HKC.getCurrencyCode();
-                    } else {
-                        // 默认马来盘
-                        oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
-                    }
-                    params.putOpt("oddsFormatType", oddsFormatType);
-                    params.putOpt("showType", ZhiBoSchedulesType.LIVESCHEDULE.getId());
+        WebsiteApiFactory factory = factoryManager.getFactory(websiteId);
+
+        ApiHandler apiHandler = factory.getEventsOddsHandler();
+        if (apiHandler == null) {
+            return null;
+        }
+        JSONObject params = new JSONObject();
+        params.putOpt("adminUsername", username);
+        params.putOpt("websiteId", websiteId);
+        try {
+            // 根据不同站点传入不同的参数
+            if (WebsiteType.PINGBO.getId().equals(websiteId)) {
+                params.putAll(account.getToken().getJSONObject("tokens"));
+                // 转换赔率类型
+                int oddsFormatType = 0;
+                if (oddsType == 1) {
+                    // 平台设置的马来盘
+                    oddsFormatType = PingBoOddsFormatType.RM.getId();
+                } else if (oddsType == 2) {
+                    // 平台设置的香港盘
+                    oddsFormatType = PingBoOddsFormatType.HKC.getId();
+                } else {
+                    // 默认马来盘
+                    oddsFormatType = PingBoOddsFormatType.RM.getId();
                 }
-            } catch (Exception e) {
-                continue;
-            }
-            long durationMs = 0;
-            try {
-                JSONObject result = apiHandler.execute(account, params);
-                log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, code:{}, success:{}, 查询结果:{}", username, WebsiteType.getById(websiteId).getDescription(), accountName, result.get("code"), result.getBool("success"), result);
-                // ✅ 更新调用时间（不论成功与否）
-                accountCooldownMap.put(accountName, System.currentTimeMillis());
-                if (result.getBool("success") && result.get("leagues") != null) {
-                    log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{} 获取赛事成功", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid);
-                    return result.get("leagues");
+                params.putOpt("hucode", account.getHucode());
+                params.putOpt("oddsFormatType", oddsFormatType);
+            } else if (WebsiteType.ZHIBO.getId().equals(websiteId)) {
+                params.putOpt("token", "Bearer " + account.getToken().getStr("token"));
+                // 转换赔率类型
+                int oddsFormatType = 0;
+                if (oddsType == 1) {
+                    // 平台设置的马来盘
+                    oddsFormatType = ZhiBoOddsFormatType.RM.getId();
+                } else if (oddsType == 2) {
+                    // 平台设置的香港盘
+                    oddsFormatType = ZhiBoOddsFormatType.HKC.getId();
                 } else {
-                    if (result.containsKey("code") && result.getInt("code") == 429) {
-                        // 被盘口限流了，再延迟个500毫秒
-                        log.info("获取赛事列表,平台用户:{},网站:{}, 账号 [{}] 被限流，lid:{}, ecid:{}，延迟等待", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid);
-                        Thread.sleep(500);
-                    }
+                    // 默认马来盘
+                    oddsFormatType = ZhiBoOddsFormatType.RM.getId();
                 }
-                durationMs = result.containsKey("durationMs") ? result.getLong("durationMs") : 0;
-                log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{}, 获取赛事失败,获取结果:{}", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid, result);
-            } catch (Exception e) {
+                params.putOpt("oddsFormatType", oddsFormatType);
+            } else if (WebsiteType.XINBAO.getId().equals(websiteId)) {
+                params.putAll(account.getToken().getJSONObject("serverresponse"));
+                params.putOpt("lid", lid);
+                params.putOpt("ecid", ecid);
+                // 转换赔率类型
+                String oddsFormatType = "";
+                if (oddsType == 1) {
+                    // 平台设置的马来盘
+                    oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
+                } else if (oddsType == 2) {
+                    // 平台设置的香港盘
+                    oddsFormatType = XinBaoOddsFormatType.HKC.getCurrencyCode();
+                } else {
+                    // 默认马来盘
+                    oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
+                }
+                params.putOpt("oddsFormatType", oddsFormatType);
+                params.putOpt("showType", ZhiBoSchedulesType.LIVESCHEDULE.getId());
+            } else if (WebsiteType.SBO.getId().equals(websiteId)) {
+                params.putOpt("token", account.getToken().getJSONObject("token").getStr("authToken"));
+                params.putOpt("oddsToken", account.getToken().getJSONObject("token").getStr("oddsToken"));
+                params.putOpt("eventId", ecid);
+                // 转换赔率类型
+                String oddsFormatType = "";
+                if (oddsType == 1) {
+                    // 平台设置的马来盘
+                    oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
+                } else if (oddsType == 2) {
+                    // 平台设置的香港盘
+                    oddsFormatType = XinBaoOddsFormatType.HKC.getCurrencyCode();
+                } else {
+                    // 默认马来盘
+                    oddsFormatType = XinBaoOddsFormatType.RM.getCurrencyCode();
+                }
+                params.putOpt("oddsFormatType", oddsFormatType);
+                params.putOpt("showType", ZhiBoSchedulesType.LIVESCHEDULE.getId());
+            }
+        } catch (Exception e) {
+            return null;
+        }
+        // 账号熔断中或超出学习到的速率时换下一个账号，不在这里等待
+        if (!rateLimiter.tryAcquire(websiteId, accountName)) {
+            log.info("获取赛事列表,平台用户:{},网站:{},账号 [{}] 限速或熔断中，跳过", username, WebsiteType.getById(websiteId).getDescription(), accountName);
+            return null;
+        }
+        // 网站/账号在途请求已满时换下一个账号
+        ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(websiteId, accountName);
+        if (permit == null) {
+            // 请求没有发出，退还限速令牌和熔断探测名额
+            rateLimiter.release(websiteId, accountName);
+            log.info("获取赛事列表,平台用户:{},网站:{},账号 [{}] 并发已满，跳过", username, WebsiteType.getById(websiteId).getDescription(), accountName);
+            return null;
+        }
+        return new OddsAttempt(account, apiHandler, params, permit);
+    }
+
+    /**
+     * 用选定的账号请求赔率，结束后释放并发许可
+     * @return 联赛赔率和本次请求收到的服务器时间，失败返回 null
+     */
+    private EventsOdds fetchOdds(String username, String websiteId, String lid, String ecid, OddsAttempt attempt) {
+        ConfigAccountVO account = attempt.account();
+        String accountName = account.getAccount();
+        ApiHandler apiHandler = attempt.apiHandler();
+        JSONObject params = attempt.params();
+        ConcurrencyLimiter.Permit permit = attempt.permit();
+        long durationMs = 0;
+        long start = System.nanoTime();
+        // 清掉本线程上次请求留下的服务器时间
+        OkHttpProxyDispatcher.takeServerTime();
+        try {
+            JSONObject result = apiHandler.execute(account, params);
+            log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, code:{}, success:{}, 查询结果:{}", username, WebsiteType.getById(websiteId).getDescription(), accountName, result.get("code"), result.getBool("success"), result);
+            // ✅ 更新调用时间（不论成功与否）
+            accountCooldownMap.put(accountName, System.currentTimeMillis());
+            if (result.containsKey("code") && result.getInt("code") == 429) {
+                // 被盘口限流了：账号降速并熔断一段时间，后续请求换其它账号
+                log.info("获取赛事列表,平台用户:{},网站:{}, 账号 [{}] 被限流，lid:{}, ecid:{}，暂停使用该账号", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid);
+                rateLimiter.onThrottled(websiteId, accountName);
+            } else if (result.getBool("success", false) && result.get("leagues") != null) {
+                rateLimiter.onSuccess(websiteId, accountName, System.nanoTime() - start);
+                log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{} 获取赛事成功", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid);
+                return new EventsOdds(result.get("leagues"), OkHttpProxyDispatcher.takeServerTime());
+            } else if (result.getInt("code", 0) >= 500) {
+                // 盘口服务端错误，计入熔断
+                rateLimiter.onFailure(websiteId, accountName);
+            } else {
+                // 盘口正常应答但没有拿到赔率（token 过期、参数错误、没有数据等），不计入熔断
+                rateLimiter.onRejected(websiteId, accountName);
+            }
+            durationMs = result.containsKey("durationMs") ? result.getLong("durationMs") : 0;
+            log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{}, 获取赛事失败,获取结果:{}", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid, result);
+        } catch (Exception e) {
+            if (HttpCallScope.isCurrentCancelled()) {
+                // 对冲的另一个请求已先返回，或扫水已放弃等待
+                rateLimiter.onCancelled(websiteId, accountName);
+                log.info("获取赛事列表,平台用户:{},网站:{}, 账号 {} 请求已取消", username, WebsiteType.getById(websiteId).getDescription(), accountName);
+            } else {
+                rateLimiter.onFailure(websiteId, accountName);
                 log.error("获取赛事列表,平台用户:{},网站:{}, 账号 {} 获取赛事异常", username, WebsiteType.getById(websiteId).getDescription(), accountName, e);
-            } finally {
-                log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{} 赔率 耗时: {}ms", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid, durationMs);
             }
+        } finally {
+            permit.close();
+            log.info("获取赛事列表,平台用户:{},网站:{}, 账号:{}, lid:{}, ecid:{} 赔率 耗时: {}ms", username, WebsiteType.getById(websiteId).getDescription(), accountName, lid, ecid, durationMs);
         }
         return null;
     }
 
+    /**
+     * 一次赔率请求：账号、处理器、请求参数和已占用的并发许可
+     */
+    private record OddsAttempt(ConfigAccountVO account, ApiHandler apiHandler, JSONObject params,
+                               ConcurrencyLimiter.Permit permit) {
+    }
+
+    /**
+     * 赔率请求结果：联赛赔率 + 盘口服务器时间（毫秒，响应头 Date，取不到为 0）
+     */
+    public record EventsOdds(Object leagues, long serverTimeMillis) {
+    }
+
     /**
      * 根据用户和网站获取指定赛事详情
      * @param username
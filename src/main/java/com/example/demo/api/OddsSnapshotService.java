@@ -0,0 +1,258 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONArray;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.config.HttpCallScope;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.core.odds.OddsBook;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 全局赔率快照
+ * 所有平台用户的扫水轮次共用同一份 (扫水账号, 网站, 联赛/ecid) 赔率，
+ * 新鲜度窗口内只会向盘口发起一次请求（single-flight），扫水请求量只随不同联赛数量增长，与用户数无关
+ * 每个调用方拿到各自的 future，全部调用方都取消或超时放弃时中断进行中的上游请求
+ */
+@Slf4j
+@Service
+public class OddsSnapshotService {
+
+    @Resource
+    private HandicapApi handicapApi;
+
+    @Resource
+    private SweepWaterThreadPoolHolder threadPoolHolder;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    /**
+     * 快照新鲜度（毫秒），窗口内所有用户读取同一份赔率
+     */
+    @Value("${sweepwater.odds.fresh-ms:200}")
+    private long freshMs;
+
+    /**
+     * 进行中的请求超过该时长仍未返回，则视为卡死，允许重新发起
+     */
+    private static final long MAX_INFLIGHT_MS = 10_000;
+
+    // key -> 最近一次快照，长时间未刷新的 key（例如已结束的盛帆赛事）自动淘汰
+    private final Cache<String, OddsSnapshot> snapshots = Caffeine.newBuilder()
+            .maximumSize(20000)
+            .expireAfterWrite(Duration.ofMinutes(2))
+            .build();
+
+    // 统计：命中 / 上游请求 / 无人等待而中断的上游请求
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder abandonedCount = new LongAdder();
+
+    /**
+     * 获取赔率快照，新鲜度窗口内命中或者已有进行中的请求时直接复用
+     * @param username  扫水账号
+     * @param websiteId 网站id
+     * @param leagueId  联赛id
+     * @param id        赛事id（盛帆按赛事拉取）
+     * @return 赔率列表（只读，调用方不得修改）；不再等待时取消该 future
+     */
+    public CompletableFuture<JSONArray> getEventsAsync(String username, String websiteId, String leagueId, String id) {
+        String cacheKey = snapshotKey(username, websiteId, id);
+        OddsSnapshot snapshot = attach(cacheKey, username, websiteId, leagueId, id);
+        return waiterFuture(cacheKey, snapshot, snapshot.future);
+    }
+
+    /**
+     * 获取赔率簿，与 {@link #getEventsAsync} 共用同一份快照，每份快照只转换一次
+     * @return 只读赔率簿，扫水比对使用；不再等待时取消该 future
+     */
+    public CompletableFuture<OddsBook> getBookAsync(String username, String websiteId, String leagueId, String id) {
+        String cacheKey = snapshotKey(username, websiteId, id);
+        OddsSnapshot snapshot = attach(cacheKey, username, websiteId, leagueId, id);
+        return waiterFuture(cacheKey, snapshot, snapshot.book);
+    }
+
+    /**
+     * 取快照并登记一个等待方，与淘汰快照在同一个 compute 中完成，不会拿到刚被中断的请求
+     */
+    private OddsSnapshot attach(String cacheKey, String username, String websiteId, String leagueId, String id) {
+        WebsiteType website = WebsiteType.getById(websiteId);
+        return snapshots.asMap().compute(cacheKey, (k, old) -> {
+            if (old != null && old.isUsable(System.nanoTime(), freshMs)) {
+                hitCount.increment();
+                old.waiters.incrementAndGet();
+                return old;
+            }
+            loadCount.increment();
+            HttpCallScope scope = new HttpCallScope();
+            CompletableFuture<Fetched> fetched = load(k, username, website, websiteId, leagueId, id, scope);
+            OddsSnapshot snapshot = new OddsSnapshot(fetched.thenApply(Fetched::events),
+                    fetched.thenApply(f -> toBook(websiteId, f)), System.nanoTime(), scope);
+            snapshot.waiters.incrementAndGet();
+            return snapshot;
+        });
+    }
+
+    /**
+     * 调用方自己的 future：取消或超时（orTimeout）只影响自己，最后一个等待方放弃且请求还没返回时才中断上游请求
+     */
+    private <T> CompletableFuture<T> waiterFuture(String cacheKey, OddsSnapshot snapshot, CompletableFuture<T> source) {
+        CompletableFuture<T> waiter = source.thenApply(Function.identity());
+        // 拉取本身不会异常结束，等待方异常结束说明是自己放弃了
+        waiter.whenComplete((r, e) -> release(cacheKey, snapshot, e != null));
+        return waiter;
+    }
+
+    private void release(String cacheKey, OddsSnapshot snapshot, boolean abandoned) {
+        snapshots.asMap().compute(cacheKey, (k, current) -> {
+            if (snapshot.waiters.decrementAndGet() > 0 || !abandoned || snapshot.future.isDone()) {
+                return current;
+            }
+            // 没有人再等这份赔率：中断上游请求并淘汰快照，下一个调用方重新拉取
+            abandonedCount.increment();
+            snapshot.scope.cancel();
+            log.info("赔率快照无人等待，中断上游请求: key={}", k);
+            return current == snapshot ? null : current;
+        });
+    }
+
+    /**
+     * 快照 key：盛帆按赛事区分，平博/新二/智博一次拉取整站滚球赔率
+     */
+    static String snapshotKey(String username, String websiteId, String id) {
+        if (WebsiteType.getById(websiteId) == WebsiteType.SBO) {
+            return username + ":" + websiteId + ":" + id;
+        }
+        return username + ":" + websiteId;
+    }
+
+    private CompletableFuture<Fetched> load(String cacheKey, String username, WebsiteType website,
+                                            String websiteId, String leagueId, String id, HttpCallScope scope) {
+        ExecutorService teamOddsExecutor = threadPoolHolder.getTeamOddsExecutor();
+        return CompletableFuture.supplyAsync(() -> {
+            if (scope.isCancelled()) {
+                // 排队期间所有等待方都已放弃
+                return new Fetched(new JSONArray(), System.nanoTime(), 0);
+            }
+            long fetchStart = sweepMetrics.start();
+            // 本次拉取发起的盘口请求都登记到 scope，无人等待时一并中断
+            try (HttpCallScope.Binding ignored = scope.bind()) {
+                HandicapApi.EventsOdds odds;
+                if (website == WebsiteType.SBO) {
+                    // 盛帆：单赛事拉取
+                    odds = handicapApi.eventsOddsWithServerTime(username, websiteId, null, id);
+                } else {
+                    // 平博/新二：一次拉整个联赛赔率
+                    odds = handicapApi.eventsOddsWithServerTime(username, websiteId, leagueId, null);
+                }
+                if (odds == null || odds.leagues() == null) {
+                    return new Fetched(new JSONArray(), System.nanoTime(), 0);
+                }
+                // 服务器时间取自胜出的那次请求（对冲时可能在备用线程上）
+                return new Fetched((JSONArray) odds.leagues(), System.nanoTime(), odds.serverTimeMillis());
+            } catch (Exception e) {
+                if (scope.isCancelled()) {
+                    log.info("赔率快照拉取已中断: key={}, 用户={}, 网站={}", cacheKey, username, websiteId);
+                } else {
+                    log.error("赔率快照拉取eventsOdds异常: key={}, 用户={}, 网站={}, 联赛={}, ecid={}",
+                            cacheKey, username, websiteId, leagueId, id, e);
+                }
+                return new Fetched(new JSONArray(), System.nanoTime(), 0);
+            } finally {
+                sweepMetrics.stop(SweepMetrics.Stage.FETCH, websiteId, username, fetchStart);
+            }
+        }, teamOddsExecutor);
+    }
+
+    /**
+     * 清空全部快照
+     */
+    public void invalidateAll() {
+        snapshots.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    public long getAbandonedCount() {
+        return abandonedCount.sum();
+    }
+
+    /**
+     * 快照当前的等待方数量，没有快照返回 0
+     */
+    int waiterCount(String cacheKey) {
+        OddsSnapshot snapshot = snapshots.getIfPresent(cacheKey);
+        return snapshot != null ? snapshot.waiters.get() : 0;
+    }
+
+    /**
+     * 解析结果转为赔率簿，转换失败按空赔率处理
+     */
+    private OddsBook toBook(String websiteId, Fetched fetched) {
+        long parseStart = sweepMetrics.start();
+        try {
+            return OddsBook.of(fetched.events(), fetched.fetchedNanos(), fetched.serverTimeMillis());
+        } catch (Exception e) {
+            log.error("赔率快照转换赔率簿异常", e);
+            return OddsBook.EMPTY;
+        } finally {
+            sweepMetrics.stop(SweepMetrics.Stage.PARSE, websiteId, null, parseStart);
+        }
+    }
+
+    /**
+     * 一次上游拉取：解析结果 + 拉取完成时刻（单调时钟）+ 盘口服务器时间（毫秒，取不到为 0）
+     */
+    record Fetched(JSONArray events, long fetchedNanos, long serverTimeMillis) {
+    }
+
+    /**
+     * 单个快照：请求 future + 赔率簿 + 发起/完成时间（单调时钟）+ 上游请求的取消范围和等待方数量
+     */
+    static class OddsSnapshot {
+        final CompletableFuture<JSONArray> future;
+        final CompletableFuture<OddsBook> book;
+        final long startNanos;
+        final HttpCallScope scope;
+        final AtomicInteger waiters = new AtomicInteger();
+        volatile long doneNanos;
+
+        OddsSnapshot(CompletableFuture<JSONArray> future, CompletableFuture<OddsBook> book, long startNanos, HttpCallScope scope) {
+            this.future = future;
+            this.book = book;
+            this.startNanos = startNanos;
+            this.scope = scope;
+            future.whenComplete((r, e) -> doneNanos = System.nanoTime());
+        }
+
+        boolean isUsable(long nowNanos, long freshMs) {
+            if (!future.isDone()) {
+                // 进行中：复用同一个请求，除非已经卡死
+                return TimeUnit.NANOSECONDS.toMillis(nowNanos - startNanos) < MAX_INFLIGHT_MS;
+            }
+            long done = doneNanos;
+            // 新鲜度从拿到赔率的时刻开始计算
+            return done == 0 || TimeUnit.NANOSECONDS.toMillis(nowNanos - done) < freshMs;
+        }
+    }
+}
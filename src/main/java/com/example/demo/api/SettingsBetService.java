@@ -28,22 +28,26 @@ public class SettingsBetService {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private SettingsNearCache settingsNearCache;
+
     /**
      * 获取常规设置-投注限制
      * @param username
      * @return
      */
     public LimitDTO getLimit(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_BET_LIMIT_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_LIMIT_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_LIMIT_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, LimitDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, LimitDTO.class);
+        });
     }
 
     /**
@@ -55,6 +59,7 @@ public class SettingsBetService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_LIMIT_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(limitVO));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -63,16 +68,17 @@ public class SettingsBetService {
      * @return
      */
     public IntervalDTO getInterval(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_BET_INTERVAL_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_INTERVAL_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_INTERVAL_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, IntervalDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, IntervalDTO.class);
+        });
     }
 
     /**
@@ -84,6 +90,7 @@ public class SettingsBetService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_INTERVAL_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(intervalVO));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -92,16 +99,17 @@ public class SettingsBetService {
      * @return
      */
     public TypeFilterDTO getTypeFilter(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_BET_TYPEFILTER_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_TYPEFILTER_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_TYPEFILTER_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, TypeFilterDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, TypeFilterDTO.class);
+        });
     }
 
     /**
@@ -113,6 +121,7 @@ public class SettingsBetService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_TYPEFILTER_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(typeFilterVO));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -121,16 +130,17 @@ public class SettingsBetService {
      * @return
      */
     public OptimizingDTO getOptimizing(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_BET_OPTIMIZING_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_OPTIMIZING_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_OPTIMIZING_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, OptimizingDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, OptimizingDTO.class);
+        });
     }
 
     /**
@@ -142,5 +152,6 @@ public class SettingsBetService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_BET_OPTIMIZING_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(optimizingVO));
+        settingsNearCache.invalidate(username);
     }
 }
@@ -29,25 +29,29 @@ public class SettingsFilterService {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private SettingsNearCache settingsNearCache;
+
     /**
      * 获取过滤相关-赔率范围
      * @param username
      * @return
      */
     public List<OddsRangeDTO> getOddsRanges(String username) {
-
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_FILTER_ODDSRANGE_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        List<String> jsonList = businessPlatformRedissonClient.getList(key);
-
-        if (jsonList == null || jsonList.isEmpty()) {
-            return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
-        }
-        // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
-        return jsonList.stream()
-                .map(json -> JSONUtil.toBean(json, OddsRangeDTO.class))
-                .toList();
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_FILTER_ODDSRANGE_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_FILTER_ODDSRANGE_PREFIX, username);
+
+            // 从 Redis 中获取 List 数据
+            List<String> jsonList = businessPlatformRedissonClient.getList(key);
+
+            if (jsonList == null || jsonList.isEmpty()) {
+                return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
+            }
+            // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
+            return jsonList.stream()
+                    .map(json -> JSONUtil.toBean(json, OddsRangeDTO.class))
+                    .toList();
+        });
     }
 
     /**
@@ -72,6 +76,7 @@ public class SettingsFilterService {
             throw new BusinessException(SystemError.ODDSRANGE_1300);
         }
         contrastList.add(JSONUtil.parse(oddsRangeVO).toString());
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -90,6 +95,7 @@ public class SettingsFilterService {
                 .filter(json -> JSONUtil.toBean(json, OddsRangeVO.class).getWebsiteId().equals(id))
                 .findFirst()
                 .ifPresent(json -> businessPlatformRedissonClient.getList(key).remove(json));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -98,19 +104,20 @@ public class SettingsFilterService {
      * @return
      */
     public List<TimeFrameDTO> getTimeFrames(String username) {
-
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_FILTER_TIMEFRAME_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        List<String> jsonList = businessPlatformRedissonClient.getList(key);
-
-        if (jsonList == null || jsonList.isEmpty()) {
-            return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
-        }
-        // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
-        return jsonList.stream()
-                .map(json -> JSONUtil.toBean(json, TimeFrameDTO.class))
-                .toList();
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_FILTER_TIMEFRAME_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_FILTER_TIMEFRAME_PREFIX, username);
+
+            // 从 Redis 中获取 List 数据
+            List<String> jsonList = businessPlatformRedissonClient.getList(key);
+
+            if (jsonList == null || jsonList.isEmpty()) {
+                return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
+            }
+            // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
+            return jsonList.stream()
+                    .map(json -> JSONUtil.toBean(json, TimeFrameDTO.class))
+                    .toList();
+        });
     }
 
     /**
@@ -139,6 +146,7 @@ public class SettingsFilterService {
         }
 
         contrastList.add(JSONUtil.parse(timeFrameVO).toString());
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -157,6 +165,7 @@ public class SettingsFilterService {
                 .filter(json -> JSONUtil.toBean(json, TimeFrameVO.class).getId().equals(id))
                 .findFirst()
                 .ifPresent(json -> businessPlatformRedissonClient.getList(key).remove(json));
+        settingsNearCache.invalidate(username);
     }
 
 }
@@ -0,0 +1,113 @@
+package com.example.demo.api;
+
+import com.example.demo.common.constants.RedisConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 网站设置进程内近端缓存
+ * 每个用户一份设置快照，扫水热路径读取设置不再访问 Redis；
+ * 设置写入后通过 Redis topic 广播用户名，所有实例丢弃该用户的快照，下次读取时重新加载
+ */
+@Slf4j
+@Component
+public class SettingsNearCache implements InitializingBean, DisposableBean {
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    /**
+     * 快照最长存活时间(秒)，兜底 topic 消息丢失（如 Redis 重连期间）
+     */
+    @Value("${sweepwater.settings.near-cache-ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    private Cache<String, Snapshot> snapshots;
+
+    private final AtomicLong versions = new AtomicLong();
+
+    private int listenerId = -1;
+
+    @Override
+    public void afterPropertiesSet() {
+        snapshots = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        listenerId = businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_SETTINGS_INVALIDATE_TOPIC)
+                .addListener(String.class, (channel, username) -> evict(username));
+        log.info("Subscribed to {} with listenerId={}", RedisConstants.PLATFORM_SETTINGS_INVALIDATE_TOPIC, listenerId);
+    }
+
+    @Override
+    public void destroy() {
+        if (listenerId >= 0) {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_SETTINGS_INVALIDATE_TOPIC).removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 读取设置项，快照中没有时调用 loader 从 Redis 加载（null 结果同样缓存）
+     * @param username 用户名
+     * @param type 设置项，一般为 Redis key 前缀
+     * @param loader 加载逻辑
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String username, String type, Supplier<T> loader) {
+        Snapshot snapshot = snapshots.get(username, u -> new Snapshot(versions.incrementAndGet()));
+        // 加载期间若快照被失效，结果只写入已被替换的旧快照，不会污染新快照
+        return (T) snapshot.values.computeIfAbsent(type, t -> Optional.<Object>ofNullable(loader.get())).orElse(null);
+    }
+
+    /**
+     * 设置写入后调用：先失效本地快照，再通知其它实例
+     * @param username 用户名
+     */
+    public void invalidate(String username) {
+        evict(username);
+        try {
+            businessPlatformRedissonClient.getTopic(RedisConstants.PLATFORM_SETTINGS_INVALIDATE_TOPIC).publish(username);
+        } catch (Exception e) {
+            log.warn("发布设置变更通知失败 username={}，其它实例将在 {}s 内过期", username, ttlSeconds, e);
+        }
+    }
+
+    /**
+     * 当前快照版本号，没有快照时返回 0
+     */
+    public long version(String username) {
+        Snapshot snapshot = snapshots.getIfPresent(username);
+        return snapshot == null ? 0 : snapshot.version;
+    }
+
+    private void evict(String username) {
+        if (StringUtils.isBlank(username)) {
+            return;
+        }
+        snapshots.invalidate(username);
+        log.debug("设置快照已失效 username={}", username);
+    }
+
+    private static class Snapshot {
+        private final long version;
+        private final Map<String, Optional<Object>> values = new ConcurrentHashMap<>();
+
+        private Snapshot(long version) {
+            this.version = version;
+        }
+    }
+}
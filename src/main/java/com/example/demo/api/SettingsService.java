@@ -34,25 +34,29 @@ public class SettingsService {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private SettingsNearCache settingsNearCache;
+
     /**
      * 获取常规设置-对比分析
      * @param username
      * @return
      */
     public List<ContrastDTO> getContrasts(String username) {
-
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_CONTRAST_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        List<String> jsonList = businessPlatformRedissonClient.getList(key);
-
-        if (jsonList == null || jsonList.isEmpty()) {
-            return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
-        }
-        // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
-        return jsonList.stream()
-                .map(json -> JSONUtil.toBean(json, ContrastDTO.class))
-                .toList();
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_GENERAL_CONTRAST_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_CONTRAST_PREFIX, username);
+
+            // 从 Redis 中获取 List 数据
+            List<String> jsonList = businessPlatformRedissonClient.getList(key);
+
+            if (jsonList == null || jsonList.isEmpty()) {
+                return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
+            }
+            // 将 List 中的 JSON 字符串反序列化为 ContrastDTO 列表
+            return jsonList.stream()
+                    .map(json -> JSONUtil.toBean(json, ContrastDTO.class))
+                    .toList();
+        });
     }
 
     /**
@@ -111,6 +115,7 @@ public class SettingsService {
             // 如果网站不存在，直接新增
             contrastList.add(JSONUtil.parse(contrastVO).toString());
         }
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -129,6 +134,7 @@ public class SettingsService {
                 .filter(json -> JSONUtil.toBean(json, WebsiteVO.class).getId().equals(id))
                 .findFirst()
                 .ifPresent(json -> businessPlatformRedissonClient.getList(key).remove(json));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -137,16 +143,17 @@ public class SettingsService {
      * @return
      */
     public OddsScanDTO getOddsScan(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_GENERAL_ODDSSCAN_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_ODDSSCAN_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_ODDSSCAN_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, OddsScanDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, OddsScanDTO.class);
+        });
     }
 
     /**
@@ -158,6 +165,7 @@ public class SettingsService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_ODDSSCAN_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(oddsScanVO));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -166,16 +174,17 @@ public class SettingsService {
      * @return
      */
     public ProfitDTO getProfit(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_GENERAL_PROFIT_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_PROFIT_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_PROFIT_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, ProfitDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, ProfitDTO.class);
+        });
     }
 
     /**
@@ -187,6 +196,7 @@ public class SettingsService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_PROFIT_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(profitVO));
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -195,16 +205,17 @@ public class SettingsService {
      * @return
      */
     public BetAmountDTO getBetAmount(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_SETTINGS_GENERAL_AMOUNT_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_AMOUNT_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_AMOUNT_PREFIX, username);
-
-        // 从 Redis 中获取 List 数据
-        String json = (String) businessPlatformRedissonClient.getBucket(key).get();
+            // 从 Redis 中获取 List 数据
+            String json = (String) businessPlatformRedissonClient.getBucket(key).get();
 
-        if (StringUtils.isBlank(json)) {
-            return null;
-        }
-        return JSONUtil.toBean(json, BetAmountDTO.class);
+            if (StringUtils.isBlank(json)) {
+                return null;
+            }
+            return JSONUtil.toBean(json, BetAmountDTO.class);
+        });
     }
 
     /**
@@ -216,5 +227,6 @@ public class SettingsService {
         String key = KeyUtil.genKey(RedisConstants.PLATFORM_SETTINGS_GENERAL_AMOUNT_PREFIX, username);
         // 从 Redis 中获取数据
         businessPlatformRedissonClient.getBucket(key).set(JSONUtil.toJsonStr(betAmountVO));
+        settingsNearCache.invalidate(username);
     }
 }
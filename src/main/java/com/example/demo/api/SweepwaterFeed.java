@@ -0,0 +1,351 @@
+package com.example.demo.api;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.SweepwaterPageVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RMap;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扫水列表进程内视图
+ * 每个正在查看扫水列表的用户一份按到达顺序倒序排列的视图，首次读取时从 Redis 加载一次，
+ * 之后由写入线程、投注标记、清理任务直接更新，其它实例的变更通过 Redis topic 同步；
+ * 轮询只读内存，按游标分页，不再访问 Redis
+ */
+@Slf4j
+@Component
+public class SweepwaterFeed implements InitializingBean, DisposableBean {
+
+    private static final String OP_ADD = "add";
+    private static final String OP_BET = "bet";
+    private static final String OP_DEL = "del";
+    private static final String OP_RESET = "reset";
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    /**
+     * 视图空闲多久(分钟)后丢弃，丢弃后不再跟踪该用户的变更
+     */
+    @Value("${sweepwater.feed.idle-minutes:10}")
+    private long idleMinutes = 10;
+
+    /** 本实例标识，忽略自己发出的变更通知 */
+    private final String instanceId = IdUtil.fastSimpleUUID();
+
+    private Cache<String, View> views;
+
+    /** 从 Redis 全量加载次数 */
+    private final AtomicLong loads = new AtomicLong();
+
+    private int listenerId = -1;
+
+    @Override
+    public void afterPropertiesSet() {
+        views = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(idleMinutes))
+                .build();
+        listenerId = businessPlatformRedissonClient.getTopic(RedisConstants.SWEEPWATER_FEED_TOPIC)
+                .addListener(String.class, (channel, msg) -> onMessage(msg));
+        log.info("Subscribed to {} with listenerId={}", RedisConstants.SWEEPWATER_FEED_TOPIC, listenerId);
+    }
+
+    @Override
+    public void destroy() {
+        if (listenerId >= 0) {
+            businessPlatformRedissonClient.getTopic(RedisConstants.SWEEPWATER_FEED_TOPIC).removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 按游标读取扫水列表，按到达本视图的顺序倒序
+     * 游标用到达序号而不是扫水id：雪花id由多个实例、多个扫水线程生成，晚写入的记录id可能更小，按id做 since 会漏掉
+     * 到达序号是每个实例各自的，只能拿回发出它的实例使用：大于本视图最新序号的游标会从最新一条重新开始，
+     * 但其它实例发出的、恰好落在本视图序号范围内的游标无法识别，会漏掉或重复返回记录，所以多实例部署时需要会话粘滞
+     * 返回的是视图中共享的对象，调用方不能修改
+     * @param username 平台用户名
+     * @param since 只返回该游标之后到达的记录，为空时从最新一条开始
+     * @param before 只返回该游标之前到达的记录（向后翻页），为空时不限制
+     * @param limit 最多返回条数
+     */
+    public SweepwaterPageVO page(String username, Long since, Long before, int limit) {
+        View view = view(username);
+        long latest = view.latest();
+        if (since != null && since > latest) {
+            // 游标不是本视图发出的（视图过期重建或请求落到其它实例），从最新一条重新开始
+            since = null;
+        }
+        if (since != null && before != null && since >= before) {
+            return new SweepwaterPageVO(new ArrayList<>(), since, null);
+        }
+        NavigableMap<Long, Item> items = view.items;
+        if (since != null) {
+            // 倒序排列，head 部分是更晚到达的记录
+            items = items.headMap(since, false);
+        }
+        if (before != null) {
+            items = items.tailMap(before, false);
+        }
+        List<SweepwaterDTO> records = new ArrayList<>(Math.min(limit, SweepwaterWriter.MAX_SIZE));
+        Long first = null;
+        Long last = null;
+        for (Map.Entry<Long, Item> entry : items.entrySet()) {
+            if (records.size() >= limit) {
+                break;
+            }
+            if (first == null) {
+                first = entry.getKey();
+            }
+            last = entry.getKey();
+            records.add(entry.getValue().dto);
+        }
+        // 向后翻页不推进轮询游标；首次读取从最新一条开始轮询
+        Long next = since;
+        if (before == null) {
+            next = first != null ? first : since != null ? since : Long.valueOf(latest);
+        }
+        return new SweepwaterPageVO(records, next, last);
+    }
+
+    /**
+     * 全部扫水记录的副本，按到达顺序倒序，供投注流程使用（投注过程会修改记录）
+     */
+    public List<SweepwaterDTO> snapshot(String username) {
+        Collection<Item> items = view(username).items.values();
+        List<SweepwaterDTO> result = new ArrayList<>(items.size());
+        for (Item item : items) {
+            result.add(JSONUtil.toBean(item.json, SweepwaterDTO.class));
+        }
+        return result;
+    }
+
+    /**
+     * 写入线程批量写入 Redis 成功后调用
+     * @param records 扫水id -> 扫水数据 JSON
+     */
+    public void onWritten(String username, Map<String, String> records) {
+        View view = views.getIfPresent(username);
+        if (view != null) {
+            records.forEach(view::add);
+        }
+        publish(OP_ADD, username, String.join(",", records.keySet()));
+    }
+
+    /**
+     * 记录被标记为已投注后调用
+     */
+    public void onBet(String username, String id, String json) {
+        View view = views.getIfPresent(username);
+        if (view != null) {
+            view.replace(id, json);
+        }
+        publish(OP_BET, username, json);
+    }
+
+    /**
+     * 记录被清理后调用
+     */
+    public void onRemoved(String username, Collection<String> ids) {
+        // 旧格式的列表元素不是扫水id，视图中也不会有
+        List<String> removed = ids.stream().filter(NumberUtil::isLong).toList();
+        if (removed.isEmpty()) {
+            return;
+        }
+        View view = views.getIfPresent(username);
+        if (view != null) {
+            removed.forEach(view::remove);
+        }
+        publish(OP_DEL, username, String.join(",", removed));
+    }
+
+    /**
+     * 清空扫水列表后调用
+     */
+    public void onReset(String username) {
+        views.invalidate(username);
+        publish(OP_RESET, username, "");
+    }
+
+    public long getLoads() {
+        return loads.get();
+    }
+
+    private View view(String username) {
+        View view = views.get(username, u -> new View());
+        // 先放入缓存再加载，加载期间到达的变更直接作用在视图上，不会丢失
+        view.ensureLoaded(username);
+        return view;
+    }
+
+    private void onMessage(String msg) {
+        // 实例id|操作|用户名|内容
+        String[] parts = msg.split("\\|", 4);
+        if (parts.length < 4 || instanceId.equals(parts[0])) {
+            return;
+        }
+        String op = parts[1];
+        String username = parts[2];
+        if (OP_RESET.equals(op)) {
+            views.invalidate(username);
+            return;
+        }
+        View view = views.getIfPresent(username);
+        if (view == null) {
+            return;
+        }
+        switch (op) {
+            case OP_ADD -> {
+                List<String> ids = Arrays.asList(StringUtils.split(parts[3], ','));
+                if (ids.isEmpty()) {
+                    return;
+                }
+                // 在 Redisson 回调线程中不能做同步调用
+                RMap<String, String> records = businessPlatformRedissonClient.getMap(SweepwaterWriter.recordKey(username));
+                records.getAllAsync(new LinkedHashSet<>(ids)).whenComplete((values, e) -> {
+                    if (e != null) {
+                        log.warn("扫水视图同步新增记录失败,丢弃视图 username={}", username, e);
+                        views.invalidate(username);
+                    } else {
+                        view.addAll(ids, values);
+                    }
+                });
+            }
+            case OP_BET -> {
+                SweepwaterDTO dto = JSONUtil.toBean(parts[3], SweepwaterDTO.class);
+                view.replace(dto.getId(), parts[3]);
+            }
+            case OP_DEL -> Arrays.stream(StringUtils.split(parts[3], ',')).forEach(view::remove);
+            default -> log.warn("未知的扫水视图变更: {}", msg);
+        }
+    }
+
+    private void publish(String op, String username, String payload) {
+        try {
+            businessPlatformRedissonClient.getTopic(RedisConstants.SWEEPWATER_FEED_TOPIC)
+                    .publish(instanceId + "|" + op + "|" + username + "|" + payload);
+        } catch (Exception e) {
+            log.warn("发布扫水视图变更通知失败 username={}, op={}", username, op, e);
+        }
+    }
+
+    private record Item(String id, String json, SweepwaterDTO dto) {
+    }
+
+    /**
+     * 单个用户的视图，按到达序号倒序，最多 SweepwaterWriter.MAX_SIZE 条，超出时丢弃最早到达的
+     * 到达序号从视图创建时的毫秒时间 ×1000 开始递增，视图重建后新序号大于旧视图发出的游标
+     */
+    private final class View {
+        private final ConcurrentSkipListMap<Long, Item> items = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+        /** 扫水id -> 到达序号 */
+        private final Map<String, Long> seqs = new ConcurrentHashMap<>();
+        private final AtomicLong arrivals = new AtomicLong(System.currentTimeMillis() * 1000);
+        private volatile boolean loaded;
+
+        private void ensureLoaded(String username) {
+            if (loaded) {
+                return;
+            }
+            synchronized (this) {
+                if (loaded) {
+                    return;
+                }
+                loads.incrementAndGet();
+                List<String> ids = businessPlatformRedissonClient.<String>getList(SweepwaterWriter.indexKey(username))
+                        .range(-SweepwaterWriter.MAX_SIZE, -1);
+                if (!ids.isEmpty()) {
+                    RMap<String, String> records = businessPlatformRedissonClient.getMap(SweepwaterWriter.recordKey(username));
+                    addAll(ids, records.getAll(new LinkedHashSet<>(ids)));
+                }
+                loaded = true;
+            }
+        }
+
+        /**
+         * 最后到达的序号，视图为空时为序号起点
+         */
+        private long latest() {
+            return arrivals.get();
+        }
+
+        /**
+         * 按 ids 的顺序（写入顺序）依次加入
+         */
+        private void addAll(Collection<String> ids, Map<String, String> records) {
+            for (String id : ids) {
+                add(id, records.get(id));
+            }
+        }
+
+        /**
+         * 新增记录，已存在时保留现有的（可能已被标记投注）
+         */
+        private void add(String id, String json) {
+            put(id, json, false);
+        }
+
+        /**
+         * 替换记录（投注标记），保留原到达序号；视图中没有时作为新到达的记录加入
+         */
+        private void replace(String id, String json) {
+            put(id, json, true);
+        }
+
+        /**
+         * 分配序号和插入放在同一把锁内，轮询方看到序号 n 时，n 之前的记录都已可见
+         */
+        private synchronized void put(String id, String json, boolean overwrite) {
+            if (!NumberUtil.isLong(id) || json == null) {
+                return;
+            }
+            Long seq = seqs.get(id);
+            if (seq != null) {
+                if (overwrite) {
+                    items.put(seq, new Item(id, json, JSONUtil.toBean(json, SweepwaterDTO.class)));
+                }
+                return;
+            }
+            seq = arrivals.incrementAndGet();
+            seqs.put(id, seq);
+            items.put(seq, new Item(id, json, JSONUtil.toBean(json, SweepwaterDTO.class)));
+            if (seqs.size() > SweepwaterWriter.MAX_SIZE) {
+                Map.Entry<Long, Item> oldest = items.pollLastEntry();
+                if (oldest != null) {
+                    seqs.remove(oldest.getValue().id());
+                }
+            }
+        }
+
+        private synchronized void remove(String id) {
+            Long seq = seqs.remove(id);
+            if (seq != null) {
+                items.remove(seq);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.api;
 
+import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.date.DatePattern;
 import cn.hutool.core.date.DateUtil;
@@ -13,10 +14,18 @@ import cn.hutool.json.JSONUtil;
 import com.example.demo.common.constants.RedisConstants;
 import com.example.demo.common.enmu.WebsiteType;
 import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.config.HttpCallScope;
+import com.example.demo.core.bet.BetDispatchQueue;
 import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.core.odds.BindingScan;
+import com.example.demo.core.odds.OddsBook;
+import com.example.demo.core.odds.OddsMatcher;
+import com.example.demo.core.odds.PeriodMatch;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.example.demo.model.dto.settings.*;
 import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.SweepwaterPageVO;
 import com.example.demo.model.vo.WebsiteVO;
 import com.example.demo.model.vo.dict.BindLeagueVO;
 import com.example.demo.model.vo.dict.BindTeamVO;
@@ -24,11 +33,10 @@ import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.Resource;
 import lombok.Data;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.redisson.api.RBucket;
-import org.redisson.api.RList;
+import org.redisson.api.RMap;
 import org.redisson.api.RLock;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
@@ -41,10 +49,8 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * 扫水
@@ -65,6 +71,9 @@ public class SweepwaterService {
     @Resource
     private HandicapApi handicapApi;
 
+    @Resource
+    private OddsSnapshotService oddsSnapshotService;
+
     @Resource
     private SettingsService settingsService;
     @Resource
@@ -82,6 +91,18 @@ public class SweepwaterService {
     @Resource
     private SweepWaterThreadPoolHolder threadPoolHolder;
 
+    @Resource
+    private SweepwaterWriter sweepwaterWriter;
+
+    @Resource
+    private SweepwaterFeed sweepwaterFeed;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    @Resource
+    private BetDispatchQueue betDispatchQueue;
+
     @Value("${sweepwater.server.count}")
     private int serverCount;
 
@@ -92,101 +113,65 @@ public class SweepwaterService {
             .build();
 
     /**
-     * 更新扫水已经投注
+     * 更新扫水已经投注：按扫水id直接读取并替换单条记录，耗时与历史条数无关
      * @param username
      * @param id
      */
     public void setIsBet(String username, String id) {
-        final String key = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
-        final RList<String> redisList = businessPlatformRedissonClient.getList(key);
+        final String key = SweepwaterWriter.recordKey(username);
+        final RMap<String, String> records = businessPlatformRedissonClient.getMap(key);
 
         try {
-            // 1. 异步读取Redis列表（带2秒超时）
-            List<String> items = redisList.readAllAsync()
+            String originalJson = records.getAsync(id)
                     .toCompletableFuture()
                     .orTimeout(5, TimeUnit.SECONDS)
                     .join();
-
-            // 2. 并行查找目标项
-            AtomicInteger foundIndex = new AtomicInteger(-1);
-            boolean found = IntStream.range(0, items.size()).parallel().anyMatch(i -> {
-                try {
-                    SweepwaterDTO dto = JSONUtil.toBean(items.get(i), SweepwaterDTO.class);
-                    if (id.equals(dto.getId())) {
-                        foundIndex.set(i);
-                        return true;
-                    }
-                } catch (Exception e) {
-                    log.info("JSON解析失败 [key={}, index={}]", key, i, e);
-                }
-                return false;
-            });
-
-            if (!found) {
+            if (originalJson == null) {
+                // 可能还在写入队列中，或已被裁剪
                 log.info("未找到目标记录 [key={}, id={}]", key, id);
-                return;  // 直接退出，不执行后续更新
+                return;
             }
-
-            // 3. 更新目标项（带重试机制）
-            if (foundIndex.get() >= 0) {
-                int index = foundIndex.get();
-                String originalJson = items.get(index);
-                SweepwaterDTO dto = JSONUtil.toBean(originalJson, SweepwaterDTO.class);
-                dto.setIsBet(1);
-                String updatedJson = JSONUtil.toJsonStr(dto);
-
-                // 带重试的更新逻辑
-                int retryCount = 0;
-                long waitTime = 100; // 初始等待100ms
-                while (retryCount <= 3) { // 最多重试3次
-                    try {
-                        redisList.setAsync(index, updatedJson)
-                                .toCompletableFuture()
-                                .orTimeout(1, TimeUnit.SECONDS)
-                                .join();
-                        log.info("更新成功 [key={}, id={}]", key, id);
-                        return;
-                    } catch (CompletionException ce) {
-                        Throwable cause = ce.getCause();
-                        if (cause instanceof TimeoutException) {
-                            if (retryCount++ < 3) {
-                                log.info("更新超时，准备重试 [key={}, id={}, 第{}/3次]", key, id, retryCount);
-                                try {
-                                    Thread.sleep(waitTime);
-                                    waitTime *= 2; // 指数退避
-                                } catch (InterruptedException ie) {
-                                    Thread.currentThread().interrupt();
-                                    log.info("重试被中断 [key={}]", key);
-                                    break;
-                                }
-                            } else {
-                                // 超过重试次数，退出循环
-                                break;
-                            }
-                        } else if (cause instanceof InterruptedException) {
+            SweepwaterDTO dto = JSONUtil.toBean(originalJson, SweepwaterDTO.class);
+            dto.setIsBet(1);
+            String updatedJson = JSONUtil.toJsonStr(dto);
+
+            // 带重试的更新逻辑，只替换仍存在的记录，避免已裁剪的记录被写回
+            int retryCount = 0;
+            long waitTime = 100; // 初始等待100ms
+            while (retryCount <= 3) { // 最多重试3次
+                try {
+                    String previous = records.replaceAsync(id, updatedJson)
+                            .toCompletableFuture()
+                            .orTimeout(1, TimeUnit.SECONDS)
+                            .join();
+                    if (previous != null) {
+                        sweepwaterFeed.onBet(username, id, updatedJson);
+                    }
+                    log.info("更新成功 [key={}, id={}]", key, id);
+                    return;
+                } catch (CompletionException ce) {
+                    Throwable cause = ce.getCause();
+                    if (cause instanceof TimeoutException && retryCount++ < 3) {
+                        log.info("更新超时，准备重试 [key={}, id={}, 第{}/3次]", key, id, retryCount);
+                        try {
+                            Thread.sleep(waitTime);
+                            waitTime *= 2; // 指数退避
+                        } catch (InterruptedException ie) {
                             Thread.currentThread().interrupt();
-                            log.info("更新操作被中断 [key={}]", key);
-                            break;
-                        } else {
-                            log.info("更新失败 [key={}, id={}]", key, id, ce);
+                            log.info("重试被中断 [key={}]", key);
                             break;
                         }
-                    } catch (Exception e) {
-                        log.info("更新失败 [key={}, id={}]", key, id, e);
+                    } else {
+                        log.info("更新失败 [key={}, id={}]", key, id, ce);
                         break;
                     }
                 }
-                log.info("更新失败，超过最大重试次数 [key={}, id={}]", key, id);
-            } else {
-                log.info("未找到目标记录 [key={}, id={}]", key, id);
             }
+            log.info("更新失败，超过最大重试次数 [key={}, id={}]", key, id);
         } catch (CompletionException ce) {
             Throwable cause = ce.getCause();
             if (cause instanceof TimeoutException) {
                 log.info("Redis读取超时 [key={}]", key, ce);
-            } else if (cause instanceof InterruptedException) {
-                Thread.currentThread().interrupt();
-                log.info("操作被中断 [key={}]", key);
             } else {
                 log.info("Redis读取失败 [key={}]", key, ce);
             }
@@ -195,28 +180,23 @@ public class SweepwaterService {
         }
     }
 
+    /**
+     * 全部扫水记录（最多 1000 条，按id倒序），返回副本，可以修改
+     * @param username
+     */
     public List<SweepwaterDTO> getSweepwaters(String username) {
-        /*List<String> minuteKeys = ToDayRangeUtil.getRecentMinuteKeys(30);
-        for (String minuteKey : minuteKeys) {
-
-        }*/
-        String key = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
-        RList<String> list = businessPlatformRedissonClient.getList(key);
-
-        if (list == null || list.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        int size = list.size();
-        // 获取最后 1000 条（如果不足就全部返回）
-        int fromIndex = Math.max(0, size - 1000);
-        List<String> latestJsonList = list.range(fromIndex, size - 1);
+        return sweepwaterFeed.snapshot(username);
+    }
 
-        return latestJsonList.stream()
-                .map(json -> JSONUtil.toBean(json, SweepwaterDTO.class))
-                // 可选：按 ID 倒序排列（如果数据本身不是倒序写入）
-                .sorted(Comparator.comparing(SweepwaterDTO::getId).reversed())
-                .toList();
+    /**
+     * 按游标读取扫水列表（按到达顺序倒序），只读内存视图
+     * @param username
+     * @param since 上次返回的轮询游标，只返回之后到达的记录
+     * @param before 上次返回的翻页游标，只返回更早到达的记录
+     * @param limit 最多返回条数
+     */
+    public SweepwaterPageVO getSweepwaters(String username, Long since, Long before, int limit) {
+        return sweepwaterFeed.page(username, since, before, limit);
     }
 
     /**
@@ -224,8 +204,8 @@ public class SweepwaterService {
      * @param username
      */
     public void delSweepwaters(String username) {
-        String key = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
-        businessPlatformRedissonClient.getList(key).delete();
+        businessPlatformRedissonClient.getKeys().delete(SweepwaterWriter.indexKey(username), SweepwaterWriter.recordKey(username));
+        sweepwaterFeed.onReset(username);
     }
 
     /**
@@ -236,24 +216,8 @@ public class SweepwaterService {
         TimeInterval timerTotal = DateUtil.timer();
         AdminLoginDTO sweepwaterUser = sweepwaterUsers.get(0);
         String sweepwaterUserName = sweepwaterUser.getUsername();
-        List<List<BindLeagueVO>> bindLeagueVOList = bindDictService.getAllBindDict(username);
-
-        // 先过滤 bindLeagueVOList，去除 leagueIdA 或 leagueIdB 为空的元素，并过滤事件，剔除 idA 或 idB 为空的事件，剔除无事件的 bindLeagueVO
-        bindLeagueVOList = bindLeagueVOList.stream()
-                .map(leagueGroup -> leagueGroup.stream()
-                        .peek(bindLeagueVO -> {
-                            List<BindTeamVO> filteredEvents = bindLeagueVO.getEvents().stream()
-                                    .filter(event -> StringUtils.isNotBlank(event.getIdA()) && StringUtils.isNotBlank(event.getIdB()))
-                                    .collect(Collectors.toList());
-                            bindLeagueVO.setEvents(filteredEvents);
-                        })
-                        // 剔除没有事件的 bindLeagueVO
-                        .filter(bindLeagueVO -> StringUtils.isNotBlank(bindLeagueVO.getLeagueIdA())
-                                && StringUtils.isNotBlank(bindLeagueVO.getLeagueIdB())
-                                && !bindLeagueVO.getEvents().isEmpty())
-                        .collect(Collectors.toList()))
-                .filter(leagueGroup -> !leagueGroup.isEmpty())
-                .collect(Collectors.toList());
+        // 已剔除联赛 id / 赛事 id 为空的绑定和无赛事的联赛
+        List<List<BindLeagueVO>> bindLeagueVOList = bindDictService.getSweepBindDict(username);
 
         if (CollUtil.isEmpty(bindLeagueVOList)) {
             log.warn("无球队绑定数据，平台用户:{}", username);
@@ -283,237 +247,214 @@ public class SweepwaterService {
         }
     }
 
-    public List<BindLeagueVO> mergeBindLeagueVOs(List<BindLeagueVO> allLeagues) {
-        // key = 联赛唯一标识（leagueNameA + leagueNameB）
-        Map<String, BindLeagueVO> mergedLeagueMap = new LinkedHashMap<>();
-
-        for (BindLeagueVO vo : allLeagues) {
-            if (vo == null || StringUtils.isBlank(vo.getLeagueNameA()) || StringUtils.isBlank(vo.getLeagueNameB())) {
-                continue;
-            }
-
-            String leagueKey = vo.getLeagueNameA() + "_" + vo.getLeagueNameB();
-
-            mergedLeagueMap.merge(leagueKey, vo, (oldVo, newVo) -> {
-                Map<String, BindTeamVO> eventMap = new LinkedHashMap<>();
-
-                // 旧赛事
-                if (oldVo.getEvents() != null) {
-                    for (BindTeamVO e : oldVo.getEvents()) {
-                        eventMap.put(e.getIdA() + "_" + e.getIdB() + "_" + e.getNameA() + "_" + e.getNameB(), e);
-                    }
-                }
-
-                // 新赛事（覆盖）
-                if (newVo.getEvents() != null) {
-                    for (BindTeamVO e : newVo.getEvents()) {
-                        eventMap.put(e.getIdA() + "_" + e.getIdB() + "_" + e.getNameA() + "_" + e.getNameB(), e);
-                    }
-                }
-
-                oldVo.setEvents(new ArrayList<>(eventMap.values()));
-                return oldVo;
-            });
+    /**
+     * 共享扫水：合并所有平台用户的绑定，同一组绑定（网站A/B、联赛A/B、球队A/B）每轮只取一次赔率、比对一次，
+     * 再按各平台用户的设置（网站开关、赔率区间、平手盘、时间范围、水位区间、利润）过滤，结果与逐用户扫水 {@link #sweepwater} 一致
+     * 比对只随绑定数增长，平台用户增加时每轮只多出过滤的开销
+     * @param adminUsers      投注的平台用户
+     * @param sweepwaterUsers 扫水专用账号，用第一个拉取赔率
+     */
+    public void sweepwaterNew(List<AdminLoginDTO> adminUsers, List<AdminLoginDTO> sweepwaterUsers, String roundId) {
+        long roundStart = sweepMetrics.start();
+        try {
+            sweepShared(adminUsers, sweepwaterUsers, roundId);
+        } finally {
+            // 没有配置提前返回、异常结束的轮次也计入
+            sweepMetrics.stop(SweepMetrics.Stage.ROUND, null, null, roundStart);
         }
-
-        return new ArrayList<>(mergedLeagueMap.values());
     }
 
-    /**
-     * TODO 新版扫水
-     * 使用专门的扫水账号进行统一扫水，提供公用扫水数据给到其他投注账号
-     * @param adminUsers
-     * @return
-     */
-    public void sweepwaterNew(List<AdminLoginDTO> adminUsers, List<AdminLoginDTO> sweepwaterUsers) {
+    private void sweepShared(List<AdminLoginDTO> adminUsers, List<AdminLoginDTO> sweepwaterUsers, String roundId) {
         TimeInterval timerTotal = DateUtil.timer();
+        // 扫水专用账号
+        String sweepwaterUsername = sweepwaterUsers.get(0).getUsername();
 
-        // 按 websiteIdA + "_" + websiteIdB 分组
-        Map<String, BindLeagueVO> groupMap = new LinkedHashMap<>();
-        // 1. 收集所有账户的 BindLeagueVO
-        List<BindLeagueVO> allLeagues = new ArrayList<>();
-        for (AdminLoginDTO adminUser : adminUsers) {
-            List<List<BindLeagueVO>> bindLeagueVOList = bindDictService.getAllBindDict(adminUser.getUsername());
+        long settingsStart = sweepMetrics.start();
+        Map<String, UserSettings> settingsByUser = loadUserSettings(adminUsers);
+        sweepMetrics.stop(SweepMetrics.Stage.SETTINGS, null, null, settingsStart);
+        if (settingsByUser.isEmpty()) {
+            return;
+        }
 
+        // 同一组绑定只扫一次，记下订阅的平台用户
+        long bindStart = sweepMetrics.start();
+        Map<String, SharedBinding> bindings = new LinkedHashMap<>();
+        settingsByUser.forEach((username, settings) -> {
+            // 已剔除联赛 id / 赛事 id 为空的绑定、无赛事的联赛和空 group
+            List<List<BindLeagueVO>> bindLeagueVOList = bindDictService.getSweepBindDict(username);
             if (CollUtil.isEmpty(bindLeagueVOList)) {
-                log.warn("无球队绑定数据，平台用户:{}", adminUser.getUsername());
-                continue;
+                return;
             }
-
-            for (List<BindLeagueVO> group : bindLeagueVOList) {
-                for (BindLeagueVO vo : group) {
-                    // 过滤事件（保留 idA 和 idB 都存在的）
-                    List<BindTeamVO> filteredEvents = vo.getEvents().stream()
-                            .filter(e -> StringUtils.isNotBlank(e.getIdA()) && StringUtils.isNotBlank(e.getIdB()))
-                            .collect(Collectors.toList());
-                    vo.setEvents(filteredEvents);
-
-                    // 剔除无效 VO
-                    if (StringUtils.isBlank(vo.getLeagueIdA()) || StringUtils.isBlank(vo.getLeagueIdB()) || vo.getEvents().isEmpty()) {
+            for (List<BindLeagueVO> leagueGroup : bindLeagueVOList) {
+                for (BindLeagueVO bindLeagueVO : leagueGroup) {
+                    if (!settings.websiteMap().containsKey(bindLeagueVO.getWebsiteIdA())
+                            || !settings.websiteMap().containsKey(bindLeagueVO.getWebsiteIdB())) {
+                        // 网站存在未启用状态
                         continue;
                     }
-
-                    allLeagues.add(vo);
+                    for (BindTeamVO event : bindLeagueVO.getEvents()) {
+                        String key = String.join("|", bindLeagueVO.getWebsiteIdA(), bindLeagueVO.getWebsiteIdB(),
+                                bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB(),
+                                event.getIdA(), event.getIdB(), event.getNameA(), event.getNameB());
+                        bindings.computeIfAbsent(key, k -> new SharedBinding(bindLeagueVO, event, new ArrayList<>()))
+                                .usernames().add(username);
+                    }
                 }
             }
+        });
+        sweepMetrics.stop(SweepMetrics.Stage.BIND, null, null, bindStart);
+
+        // 每组绑定一个任务：取赔率、比对，再分发给订阅的平台用户
+        ExecutorService eventExecutor = threadPoolHolder.getEventExecutor();
+        // 本轮的上游请求取消范围：绑定任务超时或本轮放弃时，中断还在进行中的盘口请求
+        HttpCallScope roundScope = new HttpCallScope();
+        List<CompletableFuture<Void>> bindingFutures = new ArrayList<>(bindings.size());
+        for (SharedBinding binding : bindings.values()) {
+            HttpCallScope bindingScope = roundScope.newChild();
+            bindingFutures.add(CompletableFuture.runAsync(() -> scanShared(sweepwaterUsername, binding, settingsByUser, bindingScope), eventExecutor)
+                    .orTimeout(10, TimeUnit.SECONDS)
+                    .whenComplete((v, ex) -> cancelOnFailure(bindingScope, ex))
+                    .exceptionally(ex -> {
+                        log.info("共享扫水-绑定任务异常，联赛:{}-{}，球队:{}-{}，平台用户:{}，异常:",
+                                binding.league().getLeagueNameA(), binding.league().getLeagueNameB(),
+                                binding.event().getNameA(), binding.event().getNameB(), binding.usernames(), ex);
+                        return null;
+                    }));
         }
-
-
-        // 2. 按 websiteIdA+websiteIdB 分组并合并
-        Map<String, List<BindLeagueVO>> websiteGroupMap = new LinkedHashMap<>();
-
-        for (BindLeagueVO vo : allLeagues) {
-            String websiteKey = vo.getWebsiteIdA() + "_" + vo.getWebsiteIdB();
-
-            websiteGroupMap
-                    .computeIfAbsent(websiteKey, k -> new ArrayList<>())
-                    .add(vo);
-        }
-
-        // 3. 对每个分组做 league 合并
-        List<List<BindLeagueVO>> bindLeagueVOAllList = new ArrayList<>();
-
-        for (Map.Entry<String, List<BindLeagueVO>> entry : websiteGroupMap.entrySet()) {
-            List<BindLeagueVO> mergedLeagues = mergeBindLeagueVOs(entry.getValue());
-            bindLeagueVOAllList.add(mergedLeagues);
+        try {
+            CompletableFuture.allOf(bindingFutures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            log.info("共享扫水被中断，退出", ie);
+            roundScope.cancel();
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException te) {
+            log.info("共享扫水主流程执行超时，轮次id:{}", roundId);
+            roundScope.cancel();
+        } catch (Exception e) {
+            log.info("共享扫水主流程执行异常，轮次id:{}，异常信息:{}", roundId, e.getMessage(), e);
+            roundScope.cancel();
         }
+        log.info("共享扫水-结束,平台用户数:{},绑定数:{},轮次id:{},耗时:{}毫秒",
+                settingsByUser.size(), bindings.size(), roundId, timerTotal.interval());
+    }
 
-        // 扫水专用账号
-        String sweepwaterUsername = sweepwaterUsers.get(0).getUsername();
+    /**
+     * 并行加载每个平台用户的扫水配置，总共最多等 1 秒，超时或失败的平台用户本轮不扫
+     */
+    private Map<String, UserSettings> loadUserSettings(List<AdminLoginDTO> adminUsers) {
         ExecutorService configExecutor = threadPoolHolder.getConfigExecutor(); // 单独弄个轻量线程池
-        // 并行获取配置项
-        CompletableFuture<OddsScanDTO> oddsScanFuture = CompletableFuture.supplyAsync(() -> settingsService.getOddsScan(sweepwaterUsername), configExecutor);
-        CompletableFuture<ProfitDTO> profitFuture = CompletableFuture.supplyAsync(() -> settingsService.getProfit(sweepwaterUsername), configExecutor);
-        CompletableFuture<IntervalDTO> intervalFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getInterval(sweepwaterUsername), configExecutor);
-        CompletableFuture<LimitDTO> limitFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getLimit(sweepwaterUsername), configExecutor);
-        CompletableFuture<TypeFilterDTO> typeFilterFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getTypeFilter(sweepwaterUsername), configExecutor);
-        CompletableFuture<List<OddsRangeDTO>> oddsRangesFuture = CompletableFuture.supplyAsync(() -> settingsFilterService.getOddsRanges(sweepwaterUsername), configExecutor);
-        CompletableFuture<List<TimeFrameDTO>> timeFramesFuture = CompletableFuture.supplyAsync(() -> settingsFilterService.getTimeFrames(sweepwaterUsername), configExecutor);
-        CompletableFuture<List<WebsiteVO>> websitesFuture = CompletableFuture.supplyAsync(() -> websiteService.getWebsites(sweepwaterUsername), configExecutor);
-
-        try {
-            TimeInterval configTimer = DateUtil.timer();
-            CompletableFuture.allOf(
+        Map<String, CompletableFuture<UserSettings>> futures = new LinkedHashMap<>();
+        for (AdminLoginDTO adminUser : adminUsers) {
+            String username = adminUser.getUsername();
+            CompletableFuture<OddsScanDTO> oddsScanFuture = CompletableFuture.supplyAsync(() -> settingsService.getOddsScan(username), configExecutor);
+            CompletableFuture<ProfitDTO> profitFuture = CompletableFuture.supplyAsync(() -> settingsService.getProfit(username), configExecutor);
+            CompletableFuture<IntervalDTO> intervalFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getInterval(username), configExecutor);
+            CompletableFuture<LimitDTO> limitFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getLimit(username), configExecutor);
+            CompletableFuture<TypeFilterDTO> typeFilterFuture = CompletableFuture.supplyAsync(() -> settingsBetService.getTypeFilter(username), configExecutor);
+            CompletableFuture<List<OddsRangeDTO>> oddsRangesFuture = CompletableFuture.supplyAsync(() -> settingsFilterService.getOddsRanges(username), configExecutor);
+            CompletableFuture<List<TimeFrameDTO>> timeFramesFuture = CompletableFuture.supplyAsync(() -> settingsFilterService.getTimeFrames(username), configExecutor);
+            CompletableFuture<List<WebsiteVO>> websitesFuture = CompletableFuture.supplyAsync(() -> websiteService.getWebsites(username), configExecutor);
+            futures.put(username, CompletableFuture.allOf(
                     oddsScanFuture, profitFuture, intervalFuture, limitFuture,
                     typeFilterFuture, oddsRangesFuture, timeFramesFuture, websitesFuture
-            ).get(1, TimeUnit.SECONDS); // 最多等1秒
-            log.info("sweepwater扫水,获取配置项总耗时: {}ms", configTimer.interval());
-
-            // 获取结果
-            OddsScanDTO oddsScan = oddsScanFuture.get();
-            ProfitDTO profit = profitFuture.get();
-            IntervalDTO interval = intervalFuture.get();
-            LimitDTO limit = limitFuture.get();
-            TypeFilterDTO typeFilter = typeFilterFuture.get();
-            List<OddsRangeDTO> oddsRanges = oddsRangesFuture.get();
-            List<TimeFrameDTO> timeFrames = timeFramesFuture.get();
-            List<WebsiteVO> websites = websitesFuture.get();
+            ).thenApply(v -> new UserSettings(oddsScanFuture.join(), profitFuture.join(), intervalFuture.join(), limitFuture.join(),
+                    typeFilterFuture.join(), oddsRangesFuture.join(), timeFramesFuture.join(),
+                    // 过滤掉未启用的网站，转换为 Map<id, WebsiteVO>
+                    websitesFuture.join().stream()
+                            .filter(website -> website.getEnable() != 0)
+                            .collect(Collectors.toMap(WebsiteVO::getId, Function.identity())))));
+        }
 
-            // 过滤掉未启用的网站
-            websites.removeIf(website -> website.getEnable() == 0);
-            if (CollUtil.isEmpty(websites)) {
-                log.info("无启用网站");
-                return;
+        Map<String, UserSettings> settingsByUser = new LinkedHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        for (Map.Entry<String, CompletableFuture<UserSettings>> entry : futures.entrySet()) {
+            String username = entry.getKey();
+            try {
+                UserSettings settings = entry.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!settings.websiteMap().isEmpty()) {
+                    settingsByUser.put(username, settings);
+                }
+            } catch (TimeoutException te) {
+                log.info("获取配置超时，平台用户:{}", username);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception ex) {
+                log.info("获取配置失败，平台用户:{}，异常:{}", username, ex.getMessage(), ex);
             }
-            // 转换为 Map<id, WebsiteVO>
-            Map<String, WebsiteVO> websiteMap = websites.stream()
-                    .collect(Collectors.toMap(WebsiteVO::getId, Function.identity()));
-
-            log.info("sweepwater 开始执行");
-            ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures = new ConcurrentHashMap<>();
-
-            // 联赛级线程池（外层）
-            ExecutorService leagueExecutor = threadPoolHolder.getLeagueExecutor();
-            // 赛事级线程池（内层）
-            ExecutorService eventExecutor = threadPoolHolder.getEventExecutor();
-            // 球队赔率级线程池（内层）
-            ExecutorService teamOddsExecutor = threadPoolHolder.getTeamOddsExecutor();
-
-            // 获取本机标识（机器ID、IP、或自定义ID）
-            /*String serverId = System.getProperty("server.id", "0");
-            int serverIndex = Integer.parseInt(serverId); // 直接用数字索引*/
-            List<CompletableFuture<Void>> leagueFutures = new ArrayList<>();
-
-            for (int i = 0; i < bindLeagueVOAllList.size(); i++) {
-                // 取模分片
-                /*if (i % serverCount != serverIndex) {
-                    continue; // 不属于当前服务器，跳过
-                }*/
-                for (BindLeagueVO bindLeagueVO : bindLeagueVOAllList.get(i)) {
-                    leagueFutures.add(CompletableFuture.runAsync(() -> {
-                        TimeInterval leagueTimer = DateUtil.timer();
-
-                        String websiteIdA = bindLeagueVO.getWebsiteIdA();
-                        String websiteIdB = bindLeagueVO.getWebsiteIdB();
-
-                        if (!websiteMap.containsKey(websiteIdA) || !websiteMap.containsKey(websiteIdB)) {
-                            log.info("扫水任务 - 网站idA[{}]idB[{}]存在未启用状态", websiteIdA, websiteIdB);
-                            return;
-                        }
-
-                        if (Thread.currentThread().isInterrupted()) {
-                            log.info("联赛任务检测到中断，提前返回");
-                            return;
-                        }
-                        List<CompletableFuture<Void>> eventFutures = new ArrayList<>();
+        }
+        return settingsByUser;
+    }
 
-                        List<BindTeamVO> events = bindLeagueVO.getEvents();
-                        // 每场比赛单独任务（保持最大并发）
-                        for (BindTeamVO event : events) {
-                            // 获取交叉对应的球队名称
-                            String bindNameB = null;
-                            for (BindTeamVO crossEvent : events) {
-                                if (event.getIdA().equals(crossEvent.getIdA()) &&
-                                        event.getIdB().equals(crossEvent.getIdB()) &&
-                                        !event.getNameA().equals(crossEvent.getNameA())) {
-                                    bindNameB = crossEvent.getNameB();
-                                }
-                            }
-                            if (StringUtils.isBlank(bindNameB)) { continue; }
-                            eventFutures.add(handleEventAsync(sweepwaterUsername, sweepwaterUsername, bindLeagueVO, event, bindNameB,
-                                    oddsScan, profit, interval, limit, oddsRanges, timeFrames, typeFilter,
-                                    websiteMap, null, ecidFetchFutures, eventExecutor));
-                        }
+    /**
+     * 一组绑定：取双方赔率、比对一次，再按订阅的平台用户逐个过滤
+     */
+    private void scanShared(String sweepwaterUsername, SharedBinding binding, Map<String, UserSettings> settingsByUser,
+                            HttpCallScope scope) {
+        if (scope.isCancelled()) {
+            // 排队期间已超时
+            return;
+        }
+        BindLeagueVO bindLeagueVO = binding.league();
+        BindTeamVO event = binding.event();
+        String websiteIdA = bindLeagueVO.getWebsiteIdA();
+        String websiteIdB = bindLeagueVO.getWebsiteIdB();
+
+        long waitStart = sweepMetrics.start();
+        // 全局赔率快照：所有平台用户共用扫水账号的同一份赔率
+        CompletableFuture<OddsBook> futureA = oddsSnapshotService.getBookAsync(
+                sweepwaterUsername, websiteIdA, bindLeagueVO.getLeagueIdA(), event.getIdA());
+        CompletableFuture<OddsBook> futureB = oddsSnapshotService.getBookAsync(
+                sweepwaterUsername, websiteIdB, bindLeagueVO.getLeagueIdB(), event.getIdB());
+        cancelWithScope(scope, futureA, futureB);
+        CompletableFuture.allOf(futureA, futureB).join();
+        sweepMetrics.stop(SweepMetrics.Stage.WAIT_ODDS, websiteIdA, websiteIdB, null, waitStart);
+
+        // 记录获取赔率的时间
+        String getOddsTime = LocalDateTimeUtil.format(LocalDateTime.now(), DatePattern.NORM_DATETIME_PATTERN);
+        OddsBook.League leagueA = futureA.join().league(bindLeagueVO.getLeagueIdA());
+        OddsBook.League leagueB = futureB.join().league(bindLeagueVO.getLeagueIdB());
+        if (leagueA == null || leagueA.getEvents().isEmpty() || leagueB == null || leagueB.getEvents().isEmpty()) {
+            return;
+        }
 
-                        // 等待当前联赛所有事件处理完
-                        try {
-                            CompletableFuture.allOf(eventFutures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
-                        } catch (InterruptedException ie) {
-                            log.info("联赛任务被中断，退出", ie);
-                            Thread.currentThread().interrupt(); // 重新设置中断状态
-                        } catch (TimeoutException te) {
-                            log.info("联赛任务超时，平台用户:{}，联赛:{}-{}", sweepwaterUsername, bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB());
-                        } catch (Exception e) {
-                            log.info("联赛任务异常，平台用户:{}，联赛:{}-{}，异常:{}", sweepwaterUsername,
-                                    bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB(), e.getMessage(), e);
-                        }
-                        log.info("sweepwater扫水-联赛级任务,平台用户:{}耗时:{}ms,联赛:{}-{}",
-                                sweepwaterUsername, leagueTimer.interval(), bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB());
-                    }, leagueExecutor));
-                }
-            }
+        long matchStart = sweepMetrics.start();
+        BindingScan scan = BindingScan.of(leagueA, leagueB, event.getNameA(), event.getNameB(), websiteIdA, websiteIdB);
+        sweepMetrics.stop(SweepMetrics.Stage.MATCH, websiteIdA, websiteIdB, null, matchStart);
+        if (scan.isEmpty()) {
+            return;
+        }
 
-            // 等待所有联赛级任务执行完毕
+        for (String username : binding.usernames()) {
+            UserSettings settings = settingsByUser.get(username);
+            long fanOutStart = sweepMetrics.start();
             try {
-                CompletableFuture.allOf(leagueFutures.toArray(new CompletableFuture[0])).get(30, TimeUnit.MINUTES);
-            } catch (TimeoutException te) {
-                log.info("扫水主流程执行超时，平台用户:{}", sweepwaterUsername);
-            } catch (Exception e) {
-                log.info("扫水主流程执行异常，平台用户:{}，异常信息:{}", sweepwaterUsername, e.getMessage(), e);
-            } finally {
-                // 使用复用线程池就不需要关闭操作
-                /*PriorityTaskExecutor.shutdownExecutor(leagueExecutor);
-                PriorityTaskExecutor.shutdownExecutor(eventExecutor);
-                PriorityTaskExecutor.shutdownExecutor(teamOddsExecutor);*/
+                aggregateEventOdds(username, sweepwaterUsername, getOddsTime, settings.oddsScan(), settings.profit(),
+                        settings.interval(), settings.limit(), settings.oddsRanges(), settings.timeFrames(), settings.typeFilter(),
+                        settings.websiteMap().get(websiteIdA), settings.websiteMap().get(websiteIdB), scan,
+                        websiteIdA, websiteIdB, bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB(),
+                        event.getIdA(), event.getIdB());
+            } catch (Exception ex) {
+                log.error("共享扫水-按平台用户过滤异常，平台用户:{}, 联赛:{}-{}, 球队:{}-{}，异常:",
+                        username, bindLeagueVO.getLeagueNameA(), bindLeagueVO.getLeagueNameB(),
+                        event.getNameA(), event.getNameB(), ex);
             }
-        } catch (TimeoutException te) {
-            log.info("获取配置超时，平台用户:{}", sweepwaterUsername);
-            return;
-        } catch (Exception ex) {
-            log.info("获取配置失败，平台用户:{}，异常:{}", sweepwaterUsername, ex.getMessage(), ex);
-            return;
+            sweepMetrics.stop(SweepMetrics.Stage.FAN_OUT, websiteIdA, websiteIdB, username, fanOutStart);
         }
-        log.info("sweepwater扫水-结束，平台用户:{}，耗时:{}毫秒", sweepwaterUsername, timerTotal.interval());
+    }
+
+    /**
+     * 平台用户一轮扫水用到的配置，websiteMap 只含已启用的网站
+     */
+    private record UserSettings(OddsScanDTO oddsScan, ProfitDTO profit, IntervalDTO interval, LimitDTO limit,
+                                TypeFilterDTO typeFilter, List<OddsRangeDTO> oddsRanges, List<TimeFrameDTO> timeFrames,
+                                Map<String, WebsiteVO> websiteMap) {
+    }
+
+    /**
+     * 共享扫水的一组绑定及订阅它的平台用户
+     */
+    private record SharedBinding(BindLeagueVO league, BindTeamVO event, List<String> usernames) {
     }
 
     /**
@@ -522,42 +463,31 @@ public class SweepwaterService {
      * @return
      */
     public void sweepwater(String username, List<AdminLoginDTO> sweepwaterUsers, String roundId) {
+        long roundStart = sweepMetrics.start();
+        try {
+            sweepUser(username, sweepwaterUsers, roundId);
+        } finally {
+            // 无绑定、配置超时等提前返回和异常结束的轮次也计入
+            sweepMetrics.stop(SweepMetrics.Stage.ROUND, null, username, roundStart);
+        }
+    }
+
+    private void sweepUser(String username, List<AdminLoginDTO> sweepwaterUsers, String roundId) {
         TimeInterval timerTotal = DateUtil.timer();
 
         // 扫水专用账号
         String sweepwaterUsername = sweepwaterUsers.get(0).getUsername();
-        List<List<BindLeagueVO>> bindLeagueVOList = bindDictService.getAllBindDict(username);
-
-        if (CollUtil.isEmpty(bindLeagueVOList)) {
-            // 无球队绑定数据
-            return;
-        }
-
-        // 先过滤 bindLeagueVOList，去除 leagueIdA 或 leagueIdB 为空的元素，并过滤事件，剔除 idA 或 idB 为空的事件，剔除无事件的 bindLeagueVO
-        List<List<BindLeagueVO>> filteredBindLeagueVOList = bindLeagueVOList.stream()
-                .map(leagueGroup -> leagueGroup.stream()
-                        // 1. 过滤 leagueIdA 或 leagueIdB 为空的联赛
-                        .filter(league -> StringUtils.isNotBlank(league.getLeagueIdA()) && StringUtils.isNotBlank(league.getLeagueIdB()))
-                        // 2. 过滤事件：去掉 idA 或 idB 为空的
-                        .map(league -> {
-                            List<BindTeamVO> filteredEvents = league.getEvents().stream()
-                                    .filter(event -> StringUtils.isNotBlank(event.getIdA()) && StringUtils.isNotBlank(event.getIdB()))
-                                    .collect(Collectors.toList());
-                            league.setEvents(filteredEvents);
-                            return league;
-                        })
-                        // 3. 剔除掉没有事件的联赛
-                        .filter(league -> CollUtil.isNotEmpty(league.getEvents()))
-                        .collect(Collectors.toList()))
-                // 4. 剔除掉空的 group
-                .filter(CollUtil::isNotEmpty)
-                .collect(Collectors.toList());
+        // 绑定索引快照，已剔除联赛 id / 赛事 id 为空的绑定、无赛事的联赛和空 group
+        long bindStart = sweepMetrics.start();
+        List<List<BindLeagueVO>> filteredBindLeagueVOList = bindDictService.getSweepBindDict(username);
+        sweepMetrics.stop(SweepMetrics.Stage.BIND, null, username, bindStart);
 
         if (CollUtil.isEmpty(filteredBindLeagueVOList)) {
             // 无球队绑定数据
             return;
         }
 
+        long settingsStart = sweepMetrics.start();
         ExecutorService configExecutor = threadPoolHolder.getConfigExecutor(); // 单独弄个轻量线程池
         // 并行获取配置项
         CompletableFuture<OddsScanDTO> oddsScanFuture = CompletableFuture.supplyAsync(() -> settingsService.getOddsScan(username), configExecutor);
@@ -569,7 +499,6 @@ public class SweepwaterService {
         CompletableFuture<List<TimeFrameDTO>> timeFramesFuture = CompletableFuture.supplyAsync(() -> settingsFilterService.getTimeFrames(username), configExecutor);
         CompletableFuture<List<WebsiteVO>> websitesFuture = CompletableFuture.supplyAsync(() -> websiteService.getWebsites(username), configExecutor);
 
-        ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures = new ConcurrentHashMap<>();
         try {
             CompletableFuture.allOf(
                     oddsScanFuture, profitFuture, intervalFuture, limitFuture,
@@ -584,7 +513,9 @@ public class SweepwaterService {
             TypeFilterDTO typeFilter = typeFilterFuture.get();
             List<OddsRangeDTO> oddsRanges = oddsRangesFuture.get();
             List<TimeFrameDTO> timeFrames = timeFramesFuture.get();
-            List<WebsiteVO> websites = websitesFuture.get();
+            // 近端缓存中的网站列表只读，复制后再过滤
+            List<WebsiteVO> websites = new ArrayList<>(websitesFuture.get());
+            sweepMetrics.stop(SweepMetrics.Stage.SETTINGS, null, username, settingsStart);
 
             // 过滤掉未启用的网站
             websites.removeIf(website -> website.getEnable() == 0);
@@ -596,19 +527,18 @@ public class SweepwaterService {
             Map<String, WebsiteVO> websiteMap = websites.stream()
                     .collect(Collectors.toMap(WebsiteVO::getId, Function.identity()));
 
-            // 用于记录已获取的 ecid 对应事件，避免重复请求远程 API
-            // ConcurrentHashMap<String, CompletableFuture<JSONArray>> ecidFetchFuturesA = ecidFetchFutures;
-            // ConcurrentHashMap<String, CompletableFuture<JSONArray>> ecidFetchFuturesB = ecidFetchFutures;
-
             // 联赛级线程池（外层）
             ExecutorService leagueExecutor = threadPoolHolder.getLeagueExecutor();
             // 赛事级线程池（内层）
             ExecutorService eventExecutor = threadPoolHolder.getEventExecutor();
 
             List<CompletableFuture<Void>> leagueFutures = new ArrayList<>();
+            // 本轮的上游请求取消范围：赛事/联赛任务超时或本轮放弃时，中断还在进行中的盘口请求
+            HttpCallScope roundScope = new HttpCallScope();
 
             for (List<BindLeagueVO> leagueGroup : filteredBindLeagueVOList) {
                 for (BindLeagueVO bindLeagueVO : leagueGroup) {
+                    HttpCallScope leagueScope = roundScope.newChild();
                     leagueFutures.add(CompletableFuture.runAsync(() -> {
                         TimeInterval leagueTimer = DateUtil.timer();
 
@@ -620,7 +550,7 @@ public class SweepwaterService {
                             return;
                         }
 
-                        if (Thread.currentThread().isInterrupted()) {
+                        if (Thread.currentThread().isInterrupted() || leagueScope.isCancelled()) {
                             // 联赛任务检测到中断，提前返回
                             return;
                         }
@@ -631,7 +561,7 @@ public class SweepwaterService {
                         for (BindTeamVO event : events) {
                             eventFutures.add(handleEventAsync(username, sweepwaterUsername, bindLeagueVO, event, event.getNameB(),
                                     oddsScan, profit, interval, limit, oddsRanges, timeFrames, typeFilter,
-                                    websiteMap, roundId, ecidFetchFutures, eventExecutor));
+                                    websiteMap, roundId, eventExecutor, leagueScope.newChild()));
                         }
 
                         // 等待当前联赛所有事件处理完
@@ -639,9 +569,11 @@ public class SweepwaterService {
                             CompletableFuture.allOf(eventFutures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
                         } catch (InterruptedException ie) {
                             log.info("联赛任务被中断，退出", ie);
+                            leagueScope.cancel();
                             Thread.currentThread().interrupt(); // 重新设置中断状态
                         } catch (TimeoutException te) {
                             log.info("联赛任务超时，平台用户:{}，联赛:{}-{}", username, bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB());
+                            leagueScope.cancel();
                         } catch (Exception e) {
                             log.info("联赛任务异常，平台用户:{}，联赛:{}-{}，异常:{}", username,
                                     bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB(), e.getMessage(), e);
@@ -657,8 +589,13 @@ public class SweepwaterService {
                 CompletableFuture.allOf(leagueFutures.toArray(new CompletableFuture[0])).get(30, TimeUnit.MINUTES);
             } catch (TimeoutException te) {
                 log.info("扫水主流程执行超时，平台用户:{}", username);
+                roundScope.cancel();
             } catch (Exception e) {
                 log.info("扫水主流程执行异常，平台用户:{}，异常信息:{}", username, e.getMessage(), e);
+                roundScope.cancel();
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
             } finally {
                 // 使用复用线程池就不需要关闭操作
                 /*PriorityTaskExecutor.shutdownExecutor(leagueExecutor);
@@ -671,13 +608,30 @@ public class SweepwaterService {
         } catch (Exception ex) {
             log.info("获取配置失败，平台用户:{}，异常:{}", username, ex.getMessage(), ex);
             return;
-        } finally {
-            // 清理本轮网站赔率缓存
-            clearCache(ecidFetchFutures);
         }
         log.info("sweepwater扫水-结束,平台用户:{},轮次id:{},耗时:{}毫秒", username, roundId, timerTotal.interval());
     }
 
+    /**
+     * 任务超时或异常结束时取消其上游请求范围
+     */
+    private static void cancelOnFailure(HttpCallScope scope, Throwable ex) {
+        if (ex != null) {
+            scope.cancel();
+        }
+    }
+
+    /**
+     * 范围取消时放弃等待赔率：本任务的等待方退出，没有其它等待方时快照中断上游请求
+     */
+    private static void cancelWithScope(HttpCallScope scope, CompletableFuture<?>... futures) {
+        scope.onCancel(() -> {
+            for (CompletableFuture<?> future : futures) {
+                future.cancel(false);
+            }
+        });
+    }
+
     // todo 每场比赛独立处理的包装
     private CompletableFuture<Void> handleEventAsync(
             String username, String sweepwaterUsername,
@@ -687,14 +641,16 @@ public class SweepwaterService {
             List<TimeFrameDTO> timeFrames, TypeFilterDTO typeFilter,
             Map<String, WebsiteVO> websiteMap,
             String roundId,
-            ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures,
-            ExecutorService eventExecutor
+            ExecutorService eventExecutor,
+            HttpCallScope eventScope
     ) {
         return CompletableFuture.runAsync(() -> {
             handleEventLogic(username, sweepwaterUsername, bindLeagueVO, event, bindNameB,
                     oddsScan, profit, interval, limit, oddsRanges, timeFrames, typeFilter,
-                    websiteMap, roundId, ecidFetchFutures);
-        }, eventExecutor).orTimeout(10, TimeUnit.SECONDS).exceptionally(ex -> {
+                    websiteMap, roundId, eventScope);
+        }, eventExecutor).orTimeout(10, TimeUnit.SECONDS)
+                .whenComplete((v, ex) -> cancelOnFailure(eventScope, ex))
+                .exceptionally(ex -> {
             log.info("sweepwater扫水-事件任务异常，平台用户:{}, 网站A:{}-网站B:{},联赛:{}-{}，异常:",
                     username,
                     WebsiteType.getById(bindLeagueVO.getWebsiteIdA()).getDescription(),
@@ -711,10 +667,11 @@ public class SweepwaterService {
             OddsScanDTO oddsScan, ProfitDTO profit, IntervalDTO interval,
             LimitDTO limit, List<OddsRangeDTO> oddsRanges,
             List<TimeFrameDTO> timeFrames, TypeFilterDTO typeFilter,
-            Map<String, WebsiteVO> websiteMap, String roundId, ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures
+            Map<String, WebsiteVO> websiteMap, String roundId,
+            HttpCallScope eventScope
     ) {
         try {
-            if (Thread.currentThread().isInterrupted()) {
+            if (Thread.currentThread().isInterrupted() || eventScope.isCancelled()) {
                 // 球队任务检测到中断，提前返回
                 return;
             }
@@ -724,28 +681,28 @@ public class SweepwaterService {
             // todo 这里可以校验投注次数限制
 
             TimeInterval getEventsTimer = DateUtil.timer();
-            CompletableFuture<JSONArray> futureA = getEventsForEcidAsync(
-                    ecidFetchFutures,
-                    sweepwaterUsername, websiteIdA,
-                    bindLeagueVO.getLeagueIdA(), event.getIdA(), roundId, threadPoolHolder.getTeamOddsExecutor());
+            long waitStart = sweepMetrics.start();
+            // 全局赔率快照：所有平台用户共用扫水账号的同一份赔率
+            CompletableFuture<OddsBook> futureA = oddsSnapshotService.getBookAsync(
+                    sweepwaterUsername, websiteIdA, bindLeagueVO.getLeagueIdA(), event.getIdA());
 
-            CompletableFuture<JSONArray> futureB = getEventsForEcidAsync(
-                    ecidFetchFutures,
-                    sweepwaterUsername, websiteIdB,
-                    bindLeagueVO.getLeagueIdB(), event.getIdB(), roundId, threadPoolHolder.getTeamOddsExecutor());
+            CompletableFuture<OddsBook> futureB = oddsSnapshotService.getBookAsync(
+                    sweepwaterUsername, websiteIdB, bindLeagueVO.getLeagueIdB(), event.getIdB());
+            cancelWithScope(eventScope, futureA, futureB);
 
             CompletableFuture.allOf(futureA, futureB).join();
+            sweepMetrics.stop(SweepMetrics.Stage.WAIT_ODDS, websiteIdA, websiteIdB, username, waitStart);
 
             // 记录获取赔率的时间
             String getOddsTime = LocalDateTimeUtil.format(LocalDateTime.now(), DatePattern.NORM_DATETIME_PATTERN);
-            JSONArray eventsA = futureA.get();
-            JSONArray eventsB = futureB.get();
+            OddsBook bookA = futureA.get();
+            OddsBook bookB = futureB.get();
 
             log.info("平台用户:{},获取网站A:{}和网站B:{}赔率总耗时:{}ms",
                     username, WebsiteType.getById(websiteIdA).getDescription(),
                     WebsiteType.getById(websiteIdB).getDescription(), getEventsTimer.interval());
 
-            if (eventsA.isEmpty()) {
+            if (bookA.isEmpty()) {
                 log.info("扫水,平台用户:{},网站A:{},获取赛事id:{},名称:{},球队id:{},名称:{},赔率失败, 退出",
                         username,
                         WebsiteType.getById(websiteIdA).getDescription(),
@@ -756,7 +713,7 @@ public class SweepwaterService {
                 );
                 return;
             }
-            if (eventsB.isEmpty()) {
+            if (bookB.isEmpty()) {
                 log.info("扫水,平台用户:{},网站B:{},获取赛事id:{},名称:{},球队id:{},名称:{},获取赔率失败, 退出",
                         username,
                         WebsiteType.getById(websiteIdB).getDescription(),
@@ -768,48 +725,40 @@ public class SweepwaterService {
                 return;
             }
 
-            // 提取球队名称
-            List<String> nameAs = bindLeagueVO.getEvents().stream()
-                    .map(BindTeamVO::getNameA)   // 提取 nameA
-                    .filter(Objects::nonNull) // 可选：过滤掉 null
-                    .toList();
-            // 扫水任务启动时，先构建一次索引
-            Map<String, JSONObject> leagueMapA = buildLeagueMap(eventsA);
-            // 平台绑定球队赛事对应获取盘口赛事列表
-            JSONObject eventAJson = findEventByLeagueName(leagueMapA, bindLeagueVO.getLeagueIdA(), nameAs);
-            if (eventAJson == null || eventAJson.getJSONArray("events").isEmpty()) {
+            // 赔率簿为全局快照共享的只读数据，直接按联赛id取，不再复制过滤
+            OddsBook.League leagueA = bookA.league(bindLeagueVO.getLeagueIdA());
+            if (leagueA == null || leagueA.getEvents().isEmpty()) {
                 return;
             }
-
-            // 提取球队名称
-            List<String> nameBs = bindLeagueVO.getEvents().stream()
-                    .map(BindTeamVO::getNameB)   // 提取 idB
-                    .filter(Objects::nonNull) // 可选：过滤掉 null
-                    .toList();
-            Map<String, JSONObject> leagueMapB = buildLeagueMap(eventsB);
-            JSONObject eventBJson = findEventByLeagueName(leagueMapB, bindLeagueVO.getLeagueIdB(), nameBs);
-            if (eventBJson == null || eventBJson.getJSONArray("events").isEmpty()) {
+            OddsBook.League leagueB = bookB.league(bindLeagueVO.getLeagueIdB());
+            if (leagueB == null || leagueB.getEvents().isEmpty()) {
                 return;
             }
 
             TimeInterval oddsTimer = DateUtil.timer();
+            long matchStart = sweepMetrics.start();
             String bindIdA = event.getIdA();
             String bindIdB = event.getIdB();
             aggregateEventOdds(username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit,
                     oddsRanges, timeFrames, typeFilter,
                     websiteMap.get(websiteIdA), websiteMap.get(websiteIdB),
-                    eventAJson, eventBJson,
+                    leagueA, leagueB,
                     bindIdA, bindIdB,
                     event.getNameA(), bindNameB,
                     websiteIdA, websiteIdB,
                     bindLeagueVO.getLeagueIdA(), bindLeagueVO.getLeagueIdB(),
                     event.getIdA(), event.getIdB());
+            sweepMetrics.stop(SweepMetrics.Stage.MATCH, websiteIdA, websiteIdB, username, matchStart);
 
             log.info("sweepwater扫水-聚合赛事赔率,平台用户:{},耗时:{}ms,联赛:{}-{},球队:{}-{}",
                     username, oddsTimer.interval(),
                     bindLeagueVO.getLeagueNameA(), bindLeagueVO.getLeagueNameB(),
                     event.getNameA(), event.getNameB());
 
+        } catch (CancellationException ce) {
+            log.info("sweepwater扫水-事件任务已取消，平台用户:{}, 联赛:{}-{}, 球队:{}-{}",
+                    username, bindLeagueVO.getLeagueNameA(), bindLeagueVO.getLeagueNameB(),
+                    event.getNameA(), event.getNameB());
         } catch (Exception ex) {
             log.error("sweepwater扫水-事件处理异常，平台用户:{}, 联赛:{}-{}, 球队:{}-{}，异常:",
                     username, bindLeagueVO.getLeagueNameA(), bindLeagueVO.getLeagueNameB(),
@@ -817,123 +766,6 @@ public class SweepwaterService {
         }
     }
 
-    /**
-     * 拉取比赛赔率-同步获取-效率较低
-     * @param username
-     * @param ecidCache
-     * @param websiteId
-     * @param leagueId
-     * @param ecid
-     * @return
-     */
-    public JSONArray getEventsForEcid(String username,
-                                      ConcurrentHashMap<String, JSONArray> ecidCache,
-                                      String websiteId, String leagueId, String ecid) {
-        String cacheKey = StringUtils.isNotBlank(ecid) ? ecid : websiteId;
-
-        if (ecidCache.containsKey(cacheKey)) {
-            log.info("从缓存中获取赔率: 平台用户={}, 网站={}, key={}, 联赛={}, ecid={}",
-                    username, WebsiteType.getById(websiteId).getDescription(), cacheKey, leagueId, ecid);
-        }
-
-        return ecidCache.computeIfAbsent(cacheKey, key -> {
-            log.info("首次拉取赔率，通过 API 获取: 用户={}, 网站={}, key={}, 联赛={}, ecid={}",
-                    username, WebsiteType.getById(websiteId).getDescription(), key, leagueId, ecid);
-            try {
-                JSONArray events = (JSONArray) handicapApi.eventsOdds(
-                        username,
-                        websiteId,
-                        StringUtils.isNotBlank(ecid) ? leagueId : null,
-                        StringUtils.isNotBlank(ecid) ? ecid : null);
-                return events != null ? events : new JSONArray();
-            } catch (Exception e) {
-                log.info("拉取eventsOdds异常: key={}, 用户={}, 网站={}, 联赛={}, ecid={}",
-                        key, username, websiteId, leagueId, ecid, e);
-                return new JSONArray();
-            }
-        });
-    }
-
-    // 定义赔率缓存实体
-    @Data
-    static class OddsCacheEntry {
-        final CompletableFuture<JSONArray> future;
-        final long timestamp;
-
-        OddsCacheEntry(CompletableFuture<JSONArray> future, long timestamp) {
-            this.future = future;
-            this.timestamp = timestamp;
-        }
-    }
-
-    /**
-     * 使用异步缓存保存每个 key 的请求任务，避免重复请求
-     * @param username 用户名
-     * @param websiteId 网站ID
-     * @param leagueId 联赛ID
-     * @param id        赛事ID
-     * @param roundId 轮次id
-     * @param teamOddsExecutor 用于请求的线程池
-     * @return CompletableFuture<JSONArray>
-     */
-    public CompletableFuture<JSONArray> getEventsForEcidAsync(
-            ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures,
-            String username,
-            String websiteId, String leagueId, String id, String roundId,
-            ExecutorService teamOddsExecutor) {
-
-        WebsiteType website = WebsiteType.getById(websiteId);
-
-        String cacheKey;
-        if (website == WebsiteType.SBO) {
-            // 盛帆：必须区分 ecid 缓存
-            cacheKey = roundId + "-" + websiteId + "-" + id;
-        } else {
-            // 其他网站：整联赛缓存即可
-            cacheKey = roundId + "-" + websiteId;
-        }
-
-        long now = System.currentTimeMillis();
-        OddsCacheEntry entry = ecidFetchFutures.get(cacheKey);
-
-        // 命中缓存且未过期（3秒）
-        if (entry != null && (now - entry.timestamp) < 3000) {
-            return entry.future;
-        }
-
-        // 新建 Future 拉取最新赔率
-        CompletableFuture<JSONArray> newFuture = CompletableFuture.supplyAsync(() -> {
-            try {
-                JSONArray events;
-                if (website == WebsiteType.SBO) {
-                    // 盛帆：单赛事拉取
-                    events = (JSONArray) handicapApi.eventsOdds(username, websiteId, null, id);
-                } else {
-                    // 平博/新二：一次拉整个联赛赔率
-                    events = (JSONArray) handicapApi.eventsOdds(username, websiteId, leagueId, null);
-                }
-
-                return events != null ? events : new JSONArray();
-            } catch (Exception e) {
-                log.error("拉取eventsOdds异常: key={}, 用户={}, 网站={}, 联赛={}, ecid={}",
-                        cacheKey, username, websiteId, leagueId, id, e);
-                return new JSONArray();
-            }
-        }, teamOddsExecutor);
-
-        // 覆盖写入缓存
-        ecidFetchFutures.put(cacheKey, new OddsCacheEntry(newFuture, now));
-
-        return newFuture;
-    }
-
-    /**
-     * 清空缓存
-     */
-    public void clearCache(ConcurrentHashMap<String, OddsCacheEntry> ecidFetchFutures) {
-        ecidFetchFutures.clear();
-    }
-
     /**
      * 清理当期轮次缓存赔率信息
      * @param roundId
@@ -965,23 +797,53 @@ public class SweepwaterService {
      */
     public JSONObject findEventByLeagueName(Map<String, JSONObject> leagueMap, String leagueId, List<String> names) {
         // 直接通过 leagueId 查找
-        JSONObject eventJson = leagueMap.get(leagueId);
-        if (eventJson == null) {
+        JSONObject leagueJson = leagueMap.get(leagueId);
+        if (leagueJson == null) {
             return null;
         }
 
-        JSONArray eventArray = eventJson.getJSONArray("events");
+        // 赔率来自全局快照，多个用户共享，这里复制一份再过滤，后续比对会修改赛事数据
+        JSONObject eventJson = new JSONObject();
+        for (Map.Entry<String, Object> entry : leagueJson.entrySet()) {
+            if (!"events".equals(entry.getKey())) {
+                eventJson.set(entry.getKey(), entry.getValue());
+            }
+        }
+        JSONArray filtered = new JSONArray();
+        JSONArray eventArray = leagueJson.getJSONArray("events");
         if (eventArray != null && !eventArray.isEmpty()) {
             // names 转为 HashSet，加速 contains 查询
             Set<String> nameSet = new HashSet<>(names);
-
-            // 使用 removeIf，避免 ConcurrentModificationException
-            eventArray.removeIf(event -> !nameSet.contains(((JSONObject) event).getStr("name")));
+            for (Object event : eventArray) {
+                if (nameSet.contains(((JSONObject) event).getStr("name"))) {
+                    filtered.add(deepCopy(event));
+                }
+            }
         }
+        eventJson.set("events", filtered);
 
         return eventJson;
     }
 
+    /**
+     * 深拷贝赔率 json（JSONObject / JSONArray 递归复制，其他值不可变直接复用）
+     */
+    private static Object deepCopy(Object value) {
+        if (value instanceof JSONObject source) {
+            JSONObject copy = new JSONObject(source.size(), source.getConfig());
+            source.forEach((k, v) -> copy.set(k, deepCopy(v)));
+            return copy;
+        }
+        if (value instanceof JSONArray source) {
+            JSONArray copy = new JSONArray(source.size(), source.getConfig());
+            for (Object v : source) {
+                copy.add(deepCopy(v));
+            }
+            return copy;
+        }
+        return value;
+    }
+
     /**
      * 球队名称简化 归一化
      * @param name
@@ -1130,8 +992,8 @@ public class SweepwaterService {
      * @param typeFilter 类型过滤器
      * @param websiteA 网站A配置
      * @param websiteB 网站B配置
-     * @param eventAJson 网站A事件JSON
-     * @param eventBJson 网站B事件JSON
+     * @param leagueA 网站A联赛赔率
+     * @param leagueB 网站B联赛赔率
      * @param bindTeamNameA 绑定队伍A名称
      * @param bindTeamNameB 绑定队伍B名称
      * @param websiteIdA 网站A ID
@@ -1147,100 +1009,69 @@ public class SweepwaterService {
             IntervalDTO interval, LimitDTO limit, List<OddsRangeDTO> oddsRanges,
             List<TimeFrameDTO> timeFrames, TypeFilterDTO typeFilter,
             WebsiteVO websiteA, WebsiteVO websiteB,
-            JSONObject eventAJson, JSONObject eventBJson,
+            OddsBook.League leagueA, OddsBook.League leagueB,
             String bindIdA, String bindIdB,
             String bindTeamNameA, String bindTeamNameB,
             String websiteIdA, String websiteIdB,
             String leagueIdA, String leagueIdB,
             String eventIdA, String eventIdB) {
-        List<SweepwaterDTO> results = new ArrayList<>();
-        JSONArray eventsA = eventAJson.getJSONArray("events");
-        JSONArray eventsB = eventBJson.getJSONArray("events");
-
-        // 同步更改比赛时间，以新二盘口的时间为主
-        boolean reTimeXinEr = WebsiteType.XINBAO.getId().equals(websiteIdA);
-        for (Object eventObjA : eventsA) {
-            JSONObject eventA = (JSONObject) eventObjA;
-            for (Object eventObjB : eventsB) {
-                JSONObject eventB = (JSONObject) eventObjB;
-                if (eventA.getStr("name").equals(bindTeamNameA) &&
-                        eventB.getStr("name").equals(bindTeamNameB)
-                ) {
-                    // A和B属于同一场比赛
-                    if (reTimeXinEr) {
-                        // A是新二盘口,以新二盘口的比赛时间为主更新B盘口对应的比赛时间
-                        String reTime = eventA.getStr("reTime");
-                        eventB.putOpt("reTime", reTime);
-                    } else {
-                        // B是新二盘口,以新二盘口的比赛时间为主更新A盘口对应的比赛时间
-                        String reTime = eventB.getStr("reTime");
-                        eventA.putOpt("reTime", reTime);
-                    }
-                    // 找到配对后可以跳出内层循环，避免重复修改
-                    break;
-                }
-            }
-        }
-
-        // 处理网站A的所有事件
-        for (Object eventObjA : eventsA) {
-            JSONObject eventA = (JSONObject) eventObjA;
-
-            // 处理事件A数据
-            EventData processedEventA = processSingleEvent(
-                    eventA, websiteA, typeFilter, timeFrames
-            );
+        BindingScan scan = BindingScan.of(leagueA, leagueB, bindTeamNameA, bindTeamNameB, websiteIdA, websiteIdB);
+        return aggregateEventOdds(username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit,
+                oddsRanges, timeFrames, typeFilter, websiteA, websiteB, scan,
+                websiteIdA, websiteIdB, leagueIdA, leagueIdB, eventIdA, eventIdB);
+    }
 
+    /**
+     * 按平台用户的设置过滤已算好的比对结果（时间范围、全场/上半场开关），命中的生成扫水记录并投注
+     */
+    private List<SweepwaterDTO> aggregateEventOdds(
+            String username, String sweepwaterUsername, String getOddsTime, OddsScanDTO oddsScan, ProfitDTO profit,
+            IntervalDTO interval, LimitDTO limit, List<OddsRangeDTO> oddsRanges,
+            List<TimeFrameDTO> timeFrames, TypeFilterDTO typeFilter,
+            WebsiteVO websiteA, WebsiteVO websiteB, BindingScan scan,
+            String websiteIdA, String websiteIdB,
+            String leagueIdA, String leagueIdB,
+            String eventIdA, String eventIdB) {
+        List<SweepwaterDTO> results = new ArrayList<>();
+        OddsBook.League leagueA = scan.getLeagueA();
+        OddsBook.League leagueB = scan.getLeagueB();
+        for (BindingScan.Row row : scan.getRows()) {
+            OddsBook.Event eventA = row.getEventA();
             // 如果事件不符合时间范围要求则跳过
-            if (!processedEventA.isValid()) {
-                log.info("扫水,网站A:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事信息:{}", WebsiteType.getById(websiteIdA).getDescription(), eventAJson.getStr("league"), JSONUtil.parseArray(timeFrames), eventA);
+            if (!checkTimeFrameValidity(eventA.getSession(), row.getReTimeA(), timeFrames)) {
+                log.info("扫水,网站A:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事:{}-{}", WebsiteType.getById(websiteIdA).getDescription(), leagueA.getLeague(), JSONUtil.parseArray(timeFrames), eventA.getId(), eventA.getName());
                 continue;
             }
 
-            // 处理网站B的所有事件
-            for (Object eventObjB : eventsB) {
-                JSONObject eventB = (JSONObject) eventObjB;
-
-                // 处理事件B数据
-                EventData processedEventB = processSingleEvent(
-                        eventB, websiteB, typeFilter, timeFrames
-                );
-
-                // 如果事件不符合时间范围要求则跳过
-                if (!processedEventB.isValid()) {
-                    log.info("扫水,网站B:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事信息:{}", WebsiteType.getById(websiteIdB).getDescription(), eventBJson.getStr("league"), JSONUtil.parseArray(timeFrames), eventB);
+            for (BindingScan.Pair pair : row.getPairs()) {
+                OddsBook.Event eventB = pair.getEventB();
+                if (!checkTimeFrameValidity(eventB.getSession(), pair.getReTimeB(), timeFrames)) {
+                    log.info("扫水,网站B:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事:{}-{}", WebsiteType.getById(websiteIdB).getDescription(), leagueB.getLeague(), JSONUtil.parseArray(timeFrames), eventB.getId(), eventB.getName());
                     continue;
                 }
 
-                // 检查是否是对立队伍组合
-                if (processedEventA.getTeamName().equals(bindTeamNameA) &&
-                    processedEventB.getTeamName().equals(bindTeamNameB)
-                ) {
-                    log.info("准备进入扫水对比, eventA:{}======================================eventB:{}", eventA, eventB);
-                    // 处理全场赔率
+                log.debug("准备进入扫水对比, eventA:{}======================================eventB:{}", eventA.getId(), eventB.getId());
+                // 处理全场赔率
+                if (websiteA.getFullCourt() == 1 && websiteB.getFullCourt() == 1) {
                     processFullCourtOdds(
                             username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit, oddsRanges,
-                            processedEventA.getFullCourt(), processedEventB.getFullCourt(),
-                            "fullCourt",
-                            processedEventA.getTeamName(), processedEventB.getTeamName(),
-                            eventAJson, eventBJson,
-                            eventA, eventB,
+                            typeFilter, websiteA, websiteB,
+                            eventA, eventB, pair.getFullCourt(),
+                            leagueA.getLeague(), leagueB.getLeague(), pair.getReTime(),
                             websiteIdA, websiteIdB, leagueIdA, leagueIdB,
-                            eventIdA, eventIdB, results,
-                            processedEventA.getScore(), processedEventB.getScore()
+                            eventIdA, eventIdB, results
                     );
+                }
 
-                    // 处理上半场赔率
+                // 处理上半场赔率
+                if (websiteA.getFirstHalf() == 1 && websiteB.getFirstHalf() == 1) {
                     processFullCourtOdds(
                             username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit, oddsRanges,
-                            processedEventA.getFirstHalf(), processedEventB.getFirstHalf(),
-                            "firstHalf",
-                            processedEventA.getTeamName(), processedEventB.getTeamName(),
-                            eventAJson, eventBJson,
-                            eventA, eventB,
+                            typeFilter, websiteA, websiteB,
+                            eventA, eventB, pair.getFirstHalf(),
+                            leagueA.getLeague(), leagueB.getLeague(), pair.getReTime(),
                             websiteIdA, websiteIdB, leagueIdA, leagueIdB,
-                            eventIdA, eventIdB, results,
-                            processedEventA.getScore(), processedEventB.getScore()
+                            eventIdA, eventIdB, results
                     );
                 }
             }
@@ -1248,52 +1079,6 @@ public class SweepwaterService {
         return results;
     }
 
-    /**
-     * 处理单个事件的数据
-     *
-     * @param eventJson 事件JSON数据
-     * @param website 网站配置
-     * @param typeFilter 类型过滤器
-     * @param timeFrames 时间段配置列表
-     * @return 处理过的事件数据
-     */
-    private EventData processSingleEvent(
-            JSONObject eventJson, WebsiteVO website,
-            TypeFilterDTO typeFilter,
-            List<TimeFrameDTO> timeFrames) {
-
-        // 提取基础信息
-        String id = eventJson.getStr("id");
-        String teamName = eventJson.getStr("name");
-        String score = eventJson.getStr("score");
-        String reTime = eventJson.getStr("reTime");        // 比赛时长
-        String session = eventJson.getStr("session");   // 比赛阶段 1H:上半场，2H:下半场，HT:中场休息
-
-        // 检查时间范围有效性
-        boolean isValid = checkTimeFrameValidity(session, reTime, timeFrames);
-        if (!isValid) {
-            return new EventData(id, teamName, score, null, null, false);
-        }
-
-        // 初始化全场和上半场数据
-        JSONObject fullCourt = new JSONObject();
-        JSONObject firstHalf = new JSONObject();
-
-        // 处理全场数据
-        if (website.getFullCourt() == 1) {
-            fullCourt = eventJson.getJSONObject("fullCourt");
-            cleanOddsData(fullCourt, website, typeFilter);
-        }
-
-        // 处理上半场数据
-        if (website.getFirstHalf() == 1) {
-            firstHalf = eventJson.getJSONObject("firstHalf");
-            cleanOddsData(firstHalf, website, typeFilter);
-        }
-
-        return new EventData(id, teamName, score, fullCourt, firstHalf, true);
-    }
-
     /**
      * 检查时间范围有效性
      *
@@ -1346,50 +1131,6 @@ public class SweepwaterService {
         return true;
     }
 
-    /**
-     * 清理赔率数据
-     *
-     * @param oddsData 赔率数据
-     * @param website 网站配置
-     * @param typeFilter 类型过滤器
-     */
-    private void cleanOddsData(
-            JSONObject oddsData, WebsiteVO website,
-            TypeFilterDTO typeFilter) {
-
-        // 清理大小球数据
-        if (website.getBigBall() == 0) {
-            oddsData.getJSONObject("overSize").putOpt("big", new JSONObject());
-        }
-        if (website.getSmallBall() == 0) {
-            oddsData.getJSONObject("overSize").putOpt("small", new JSONObject());
-        }
-
-        // 清理让球盘数据
-        JSONObject letBall = oddsData.getJSONObject("letBall");
-        if (letBall != null && !letBall.isEmpty()) {
-            // 清理上盘数据
-            if (website.getHangingWall() == 0) {
-                oddsData.getJSONObject("letBall").putOpt("up", new JSONObject());
-                //cleanWallData(letBall, "hanging", oddsData);
-            }
-
-            // 清理下盘数据
-            if (website.getFootWall() == 0) {
-                oddsData.getJSONObject("letBall").putOpt("down", new JSONObject());
-                //cleanWallData(letBall, "foot", oddsData);
-            }
-
-            // 清理平手盘数据
-            if (typeFilter != null &&
-                    typeFilter.getFlatPlate() != null &&
-                    typeFilter.getFlatPlate() == 1) {
-                oddsData.getJSONObject("letBall").getJSONObject("up").putOpt("0", new JSONObject());
-                oddsData.getJSONObject("letBall").getJSONObject("down").putOpt("0", new JSONObject());
-            }
-        }
-    }
-
     /**
      * 清理特定盘口类型数据
      *
@@ -1440,211 +1181,108 @@ public class SweepwaterService {
                 idA.equals(bindIdA) && idB.equals(bindIdB);
     }
 
-    /**
-     * 事件数据封装类
-     */
-    @Getter
-    private static class EventData {
-        // Getters
-        private final String id;
-        private final String teamName;
-        private final String score;
-        private final JSONObject fullCourt;
-        private final JSONObject firstHalf;
-        private final boolean valid;
-
-        public EventData(String id, String teamName, String score,
-                         JSONObject fullCourt, JSONObject firstHalf,
-                         boolean valid) {
-            this.id = id;
-            this.teamName = teamName;
-            this.score = score;
-            this.fullCourt = fullCourt;
-            this.firstHalf = firstHalf;
-            this.valid = valid;
-        }
-
-    }
-
     // 提取的处理逻辑
     private void processFullCourtOdds(String username, String sweepwaterUsername, String getOddsTime, OddsScanDTO oddsScan, ProfitDTO profit, IntervalDTO interval, LimitDTO limit, List<OddsRangeDTO> oddsRanges,
-                                      JSONObject fullCourtA, JSONObject fullCourtB, String courtType,
-                                      String nameA, String nameB, JSONObject eventAJson, JSONObject eventBJson, JSONObject teamA, JSONObject teamB,
+                                      TypeFilterDTO typeFilter, WebsiteVO websiteA, WebsiteVO websiteB,
+                                      OddsBook.Event eventA, OddsBook.Event eventB, PeriodMatch match,
+                                      String leagueNameA, String leagueNameB, String reTime,
                                       String websiteIdA, String websiteIdB, String leagueIdA, String leagueIdB,
-                                      String eventIdA, String eventIdB, List<SweepwaterDTO> results, String scoreA, String scoreB) {
+                                      String eventIdA, String eventIdB, List<SweepwaterDTO> results) {
+        if (match.getLines().isEmpty()) {
+            return;
+        }
         Optional<OddsRangeDTO> optionalOddsA = oddsRanges.stream()
                 .filter(w -> w.getWebsiteId().equals(websiteIdA))
                 .findFirst();
         Optional<OddsRangeDTO> optionalOddsB = oddsRanges.stream()
                 .filter(w -> w.getWebsiteId().equals(websiteIdB))
                 .findFirst();
-        // BetAmountDTO amountDTO = settingsService.getBetAmount(username);
+        // 平手盘过滤
+        boolean skipFlatPlate = typeFilter != null && typeFilter.getFlatPlate() != null && typeFilter.getFlatPlate() == 1;
+        String courtType = match.getPeriod().getKey();
+        String nameA = eventA.getName();
+        String nameB = eventB.getName();
         Set<String> localAdded = new HashSet<>(); // 本轮去重缓存
 
-        // 预计算对立类型映射
-        Map<String, String> oppositeTypes = Map.of(
-                "up", "down",
-                "down", "up",
-                "big", "small",
-                "small", "big"
-        );
-
-        for (String key : fullCourtA.keySet()) {
-            if (!fullCourtB.containsKey(key)) continue;
-
-            // 处理让球盘和大小盘类型
-            JSONObject letBallA = fullCourtA.getJSONObject(key);
-            JSONObject letBallB = fullCourtB.getJSONObject(key);
+        for (PeriodMatch.Line line : match.getLines()) {
+            // A 的每个方向只和 B 的对立方向比对：up-down、big-small
+            OddsBook.Side sideA = line.getSideA();
+            OddsBook.Side sideB = line.getSideB();
+            if (!isSideEnabled(websiteA, sideA) || !isSideEnabled(websiteB, sideB)) {
+                continue;
+            }
+            String key = sideA.getMarket().getKey();
+            boolean letBall = sideA.getMarket() == OddsBook.Market.LET_BALL;
+            OddsBook.Odds oddsA = line.getOddsA();
+            OddsBook.Odds oddsB = line.getOddsB();
 
-            for (String ballTypeA : letBallA.keySet()) {
-                if (StringUtils.isBlank(ballTypeA)) {
-                    continue;
-                }
+            if (letBall && skipFlatPlate && "0".equals(oddsA.getLine())) {
+                continue;
+            }
+            if (isInOddsRange(optionalOddsA, oddsA.getOdds())) {
+                log.debug("网站A:{} 当前赔率赔率:{}不在设定范围内", websiteIdA, oddsA.getFormatted());
+                continue;
+            }
+            if (isInOddsRange(optionalOddsB, oddsB.getOdds())) {
+                log.debug("网站B:{} 当前赔率赔率:{}不在设定范围内", websiteIdB, oddsB.getFormatted());
+                continue;
+            }
+            if (!localAdded.add(line.getDedupKey())) {
+                // 本轮重复 → 跳过
+                continue;
+            }
 
-                // ✅ 优化：直接找到对立类型，避免内层循环
-                String oppositeType = oppositeTypes.get(ballTypeA);
-                if (oppositeType == null || !letBallB.containsKey(oppositeType)) {
-                    continue;
+            // 定点计算水位（负赔率 +2，截断保留 3 位小数）
+            long waterMilli = line.getWaterMilli();
+            double finalValue = OddsMatcher.toDouble(waterMilli);
+
+            // 判断赔率水位是否在指定区间内
+            if (oddsScan.getWaterLevelFrom() <= finalValue && finalValue <= oddsScan.getWaterLevelTo()) {
+                SweepwaterDTO sweepwaterDTO = createSweepwaterDTO(username, getOddsTime, courtType, key,
+                        leagueNameA, leagueNameB, reTime, websiteIdA, websiteIdB, leagueIdA, leagueIdB, eventIdA, eventIdB,
+                        nameA, nameB, eventA.getScore(), eventB.getScore(), oddsA, oddsB, waterMilli);
+                stampOddsAge(sweepwaterDTO, eventA, eventB);
+                results.add(sweepwaterDTO);
+                // 更新 lastTime
+                updateLastTime(username, sweepwaterDTO, oddsA.getExactOdds(), oddsB.getExactOdds());
+                // 异步写入 Redis
+                saveSweepwater(username, sweepwaterDTO);
+                if (sweepwaterDTO.getLastOddsTimeA() == sweepwaterDTO.getLastOddsTimeB()) {
+                    // 如果两个都是旧或者新,则不进行投注,不需要在前端显示
+                    continue; // 直接跳过
                 }
-
-                JSONObject ballJsonA = letBallA.getJSONObject(ballTypeA);
-                JSONObject ballJsonB = letBallB.getJSONObject(oppositeType);
-
-                for (String valueAStr : ballJsonA.keySet()) {
-                    JSONObject valueAJson = ballJsonA.getJSONObject(valueAStr);
-                    if (valueAJson.containsKey("odds") && StringUtils.isNotBlank(valueAJson.getStr("odds"))) {
-                        BigDecimal valueA = valueAJson.getBigDecimal("odds");
-                        if (isInOddsRange(optionalOddsA, valueA)) {
-                            log.info("网站A:{} 当前赔率赔率:{}不在设定范围内", WebsiteType.getById(websiteIdA).getDescription(), valueA);
-                            continue;
-                        }
-                        String decimalOddsA = valueAJson.containsKey("decimalOdds") ? valueAJson.getStr("decimalOdds") : null;
-
-                        // ✅ 优化：直接检查对立类型的相同盘口值
-                        if (ballJsonB.containsKey(valueAStr)) {
-                            JSONObject valueBJson = ballJsonB.getJSONObject(valueAStr);
-
-                            if (valueBJson.containsKey("odds") && StringUtils.isNotBlank(valueBJson.getStr("odds"))) {
-                                BigDecimal valueB = valueBJson.getBigDecimal("odds");
-                                if (isInOddsRange(optionalOddsB, valueB)) {
-                                    log.info("网站B:{} 当前赔率赔率:{}不在设定范围内", WebsiteType.getById(websiteIdB).getDescription(), valueB);
-                                    continue;
-                                }
-
-                                log.info("扫水完成准备进入赔率比对步骤valueBJson:{}", valueBJson);
-                                Boolean isHomeA = valueAJson.containsKey("isHome") ? valueAJson.getBool("isHome") : null;
-                                Boolean isHomeB = valueBJson.containsKey("isHome") ? valueBJson.getBool("isHome") : null;
-                                String teamNameA = valueAJson.containsKey("teamName") ? valueAJson.getStr("teamName") : null;
-                                String teamNameB = valueBJson.containsKey("teamName") ? valueBJson.getStr("teamName") : null;
-                                // 特殊情况，如果网站是平博，那么对应的oddsId需要把最后一个|的值删掉后再做对比
-                                String oddsIdA = valueAJson.getStr("id");
-                                String oddsIdB = valueBJson.getStr("id");
-                                if (WebsiteType.PINGBO.getId().equals(websiteIdA)) {
-                                    int oldIdx = oddsIdA.lastIndexOf("|");
-                                    oddsIdA = oldIdx != -1 ? oddsIdA.substring(0, oldIdx + 1) : oddsIdA;
-                                }
-                                if (WebsiteType.PINGBO.getId().equals(websiteIdB)) {
-                                    int oldIdx = oddsIdB.lastIndexOf("|");
-                                    oddsIdB = oldIdx != -1 ? oddsIdB.substring(0, oldIdx + 1) : oddsIdB;
-                                }
-                                String resultKey = username + "|" + key + "|" + oddsIdA + "|" + oddsIdB;
-                                if (!localAdded.add(resultKey)) {
-                                    // 本轮重复 → 跳过
-                                    continue;
-                                }
-
-                                // 计算初始水位（两边相加）
-                                BigDecimal water = valueA.add(valueB);
-
-                                // 一方赔率为负数，则在结果上加 2,如果两个都是负数，就等于加4
-                                if (valueA.compareTo(BigDecimal.ZERO) < 0) {
-                                    water = water.add(BigDecimal.valueOf(2));
-                                }
-                                if (valueB.compareTo(BigDecimal.ZERO) < 0) {
-                                    water = water.add(BigDecimal.valueOf(2));
-                                }
-                                // ✅ 仅保留 3 位小数（不四舍五入）
-                                water = water.setScale(3, RoundingMode.DOWN);
-                                double finalValue = water.doubleValue();
-                                String decimalOddsB = valueBJson.containsKey("decimalOdds") ? valueBJson.getStr("decimalOdds") : null;
-
-                                // 判断赔率水位是否在指定区间内
-                                if (oddsScan.getWaterLevelFrom() <= finalValue && finalValue <= oddsScan.getWaterLevelTo()) {
-                                    JSONObject betInfoA = null;
-                                    JSONObject betInfoB = null;
-                                /*try {
-                                    betInfoA = buildBetInfo(websiteIdA, eventAJson.getJSONArray("events"), teamA, eventAJson.getStr("league"), key, valueAJson, amountDTO);
-                                    betInfoB = buildBetInfo(websiteIdB, eventBJson.getJSONArray("events"), teamB, eventBJson.getStr("league"), key, valueBJson, amountDTO);
-                                } catch (Exception e) {
-                                    log.info("通过赔率手动解析betInfo失败: ", e);
-                                }*/
-                                    String handicapA = valueAJson.containsKey("handicap") ? valueAJson.getStr("handicap") : "";
-                                    String handicapB = valueBJson.containsKey("handicap") ? valueBJson.getStr("handicap") : "";
-                                    SweepwaterDTO sweepwaterDTO = createSweepwaterDTO(username, valueAJson.getStr("id"), valueBJson.getStr("id"), getOddsTime, valueAJson.getStr("selectionId"), valueBJson.getStr("selectionId"), courtType, key, eventAJson, eventBJson, teamA, teamB, websiteIdA, websiteIdB, leagueIdA, leagueIdB, eventIdA, eventIdB, nameA, nameB, handicapA, handicapB, valueA, valueB, finalValue, decimalOddsA, decimalOddsB, scoreA, scoreB,
-                                            valueAJson.getStr("oddFType"), valueBJson.getStr("oddFType"), valueAJson.getStr("gtype"), valueBJson.getStr("gtype"), valueAJson.getStr("wtype"), valueBJson.getStr("wtype"), valueAJson.getStr("rtype"), valueBJson.getStr("rtype"), valueAJson.getStr("choseTeam"), valueBJson.getStr("choseTeam"), valueAJson.getStr("con"), valueBJson.getStr("con"), valueAJson.getStr("ratio"), valueBJson.getStr("ratio"),
-                                            betInfoA, betInfoB, isHomeA, isHomeB, teamNameA, teamNameB
-                                    );
-                                    results.add(sweepwaterDTO);
-                                    // 更新 lastTime
-                                    updateLastTime(username, sweepwaterDTO, valueA, valueB);
-                                    // 写入 Redis
-                                    saveSweepwater(username, sweepwaterDTO);
-                                    if (sweepwaterDTO.getLastOddsTimeA() == sweepwaterDTO.getLastOddsTimeB()) {
-                                        // 如果两个都是旧或者新,则不进行投注,不需要在前端显示
-                                        continue; // 直接跳过
-                                    }
-                                    // 把投注放在这里的目的是让扫水到数据后马上进行投注，防止因为时间问题导致赔率变更的情况
-                                    if ("letBall".equals(key)) {
-                                        if (finalValue >= profit.getRollingLetBall()) {
-                                            // 满足利润设置的让球盘水位才进行投注
-                                            CompletableFuture.runAsync(() -> {
-                                                try {
-                                                    tryBet(username, sweepwaterDTO);
-                                                } catch (Exception e) {
-                                                    log.error("立即投注异常,扫水id={}", sweepwaterDTO.getId(), e);
-                                                }
-                                            }, threadPoolHolder.getBetExecutor());
-                                        }
-                                    } else if ("overSize".equals(key)) {
-                                        if (finalValue >= profit.getRollingSize()) {
-                                            // 满足利润设置的大小盘水位才进行投注
-                                            CompletableFuture.runAsync(() -> {
-                                                try {
-                                                    tryBet(username, sweepwaterDTO);
-                                                } catch (Exception e) {
-                                                    log.error("立即投注异常,扫水id={}", sweepwaterDTO.getId(), e);
-                                                }
-                                            }, threadPoolHolder.getBetExecutor());
-                                        }
-                                    }
-                                }
-                                logInfo("letBall".equals(key) ? "让球盘" : "大小盘", nameA, ballTypeA, valueA, nameB, oppositeType, valueB, finalValue, oddsScan);
-                            }
-                        }
-                    }
+                // 把投注放在这里的目的是让扫水到数据后马上进行投注，防止因为时间问题导致赔率变更的情况
+                double minWater = letBall ? profit.getRollingLetBall() : profit.getRollingSize();
+                if (finalValue >= minWater) {
+                    // 满足利润设置的让球盘/大小盘水位才进行投注，按水位和排队时长排序派发
+                    betDispatchQueue.submit(username, sweepwaterDTO, waterMilli, () -> tryBet(username, sweepwaterDTO));
                 }
             }
+            if (log.isDebugEnabled()) {
+                logInfo(letBall ? "让球盘" : "大小盘", nameA, sideA.getKey(), oddsA.getExactOdds(), nameB, sideB.getKey(), oddsB.getExactOdds(), finalValue, oddsScan);
+            }
         }
     }
 
     /**
-     * 扫水数据写入后进行长度判断 + 裁剪逻辑
+     * 网站设置是否扫该方向：上盘/下盘/大球/小球
+     */
+    private static boolean isSideEnabled(WebsiteVO website, OddsBook.Side side) {
+        return switch (side) {
+            case UP -> website.getHangingWall() != 0;
+            case DOWN -> website.getFootWall() != 0;
+            case BIG -> website.getBigBall() != 0;
+            case SMALL -> website.getSmallBall() != 0;
+        };
+    }
+
+    /**
+     * 扫水数据交给写入线程批量写入 Redis（长度裁剪也在写入线程中完成），不阻塞扫水线程
      * @param username
      * @param dto
      */
     private void saveSweepwater(String username, SweepwaterDTO dto) {
-        String sweepWaterKey = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
-        RList<String> sweepList = businessPlatformRedissonClient.getList(sweepWaterKey);
-        // 写入扫水数据
-        sweepList.add(JSONUtil.toJsonStr(dto));
-        // 最大保留条数
-        int maxSize = 1000;
-        // 缓冲区（减少频繁 trim）
-        int buffer = 100;
-        // 超过阈值才裁剪
-        if (sweepList.size() > maxSize + buffer) {
-            sweepList.trim(sweepList.size() - maxSize, sweepList.size() - 1);
-        }
+        sweepwaterWriter.submit(username, dto);
     }
 
     /**
@@ -1854,12 +1492,12 @@ public class SweepwaterService {
      * @param odds      当前赔率
      * @return
      */
-    private boolean isInOddsRange(Optional<OddsRangeDTO> rangeOpt, BigDecimal odds) {
-        return rangeOpt.map(range -> {
-            // 使用 BigDecimal 的比较方法
-            return odds.compareTo(BigDecimal.valueOf(range.getOddsGreater())) >= 0 &&
-                    odds.compareTo(BigDecimal.valueOf(range.getOddsLess())) <= 0;
-        }).orElse(false);
+    private boolean isInOddsRange(Optional<OddsRangeDTO> rangeOpt, double odds) {
+        if (rangeOpt.isEmpty()) {
+            return false;
+        }
+        OddsRangeDTO range = rangeOpt.get();
+        return odds >= range.getOddsGreater() && odds <= range.getOddsLess();
     }
 
     /**
@@ -1957,36 +1595,51 @@ public class SweepwaterService {
         }
     }
 
+    /**
+     * 带上两边赔率的拉取时间，投注前据此判断赔率是否过期
+     */
+    private static void stampOddsAge(SweepwaterDTO dto, OddsBook.Event eventA, OddsBook.Event eventB) {
+        dto.setOddsFetchedNanosA(eventA.getFetchedNanos());
+        dto.setOddsFetchedNanosB(eventB.getFetchedNanos());
+        dto.setOddsServerTimeA(eventA.getServerTimeMillis() > 0 ? eventA.getServerTimeMillis() : null);
+        dto.setOddsServerTimeB(eventB.getServerTimeMillis() > 0 ? eventB.getServerTimeMillis() : null);
+    }
+
     // 创建 SweepwaterDTO 对象的简化方法
-    private SweepwaterDTO createSweepwaterDTO(String username, String oddsIdA, String oddsIdB, String getOddsTime, String selectionIdA, String selectionIdB, String courtType, String handicapType, JSONObject eventAJson, JSONObject eventBJson, JSONObject teamA, JSONObject teamB,
-                                                     String websiteIdA, String websiteIdB, String leagueIdA, String leagueIdB, String eventIdA, String eventIdB, String nameA, String nameB, String handicapA, String handicapB,
-                                                     BigDecimal valueA, BigDecimal valueB, double value, String decimalOddsA, String decimalOddsB, String scoreA, String scoreB,
-                                                     String strongA, String strongB, String gTypeA, String gTypeB, String wTypeA, String wTypeB, String rTypeA, String rTypeB, String choseTeamA, String choseTeamB, String conA, String conB, String ratioA, String ratioB,
-                                                     JSONObject betInfoA, JSONObject betInfoB, Boolean isHomeA, Boolean isHomeB,
-                                                     String teamNameA, String teamNameB
-    ) {
-        String reTime = WebsiteType.XINBAO.getId().equals(websiteIdA) ? teamA.getStr("reTime") : teamB.getStr("reTime");
+    private SweepwaterDTO createSweepwaterDTO(String username, String getOddsTime, String courtType, String handicapType,
+                                              String leagueNameA, String leagueNameB, String reTime,
+                                              String websiteIdA, String websiteIdB, String leagueIdA, String leagueIdB, String eventIdA, String eventIdB,
+                                              String nameA, String nameB, String scoreA, String scoreB,
+                                              OddsBook.Odds oddsA, OddsBook.Odds oddsB, long waterMilli) {
+        BigDecimal valueA = oddsA.getExactOdds();
+        BigDecimal valueB = oddsB.getExactOdds();
+        JSONObject betInfoA = null;
+        JSONObject betInfoB = null;
+        Boolean isHomeA = oddsA.getIsHome();
+        Boolean isHomeB = oddsB.getIsHome();
+        String teamNameA = oddsA.getTeamName();
+        String teamNameB = oddsB.getTeamName();
         SweepwaterDTO sweepwaterDTO = new SweepwaterDTO();
         sweepwaterDTO.setId(IdUtil.getSnowflakeNextIdStr());
-        sweepwaterDTO.setOddsIdA(oddsIdA);
-        sweepwaterDTO.setOddsIdB(oddsIdB);
-        sweepwaterDTO.setSelectionIdA(selectionIdA);
-        sweepwaterDTO.setSelectionIdB(selectionIdB);
+        sweepwaterDTO.setOddsIdA(oddsA.getId());
+        sweepwaterDTO.setOddsIdB(oddsB.getId());
+        sweepwaterDTO.setSelectionIdA(oddsA.getSelectionId());
+        sweepwaterDTO.setSelectionIdB(oddsB.getSelectionId());
         sweepwaterDTO.setType(courtType);
         sweepwaterDTO.setHandicapType(handicapType);
-        sweepwaterDTO.setLeague(eventAJson.getStr("league") + " × " + eventBJson.getStr("league"));
-        sweepwaterDTO.setLeagueNameA(eventAJson.getStr("league"));
-        sweepwaterDTO.setLeagueNameB(eventBJson.getStr("league"));
+        sweepwaterDTO.setLeague(leagueNameA + " × " + leagueNameB);
+        sweepwaterDTO.setLeagueNameA(leagueNameA);
+        sweepwaterDTO.setLeagueNameB(leagueNameB);
         sweepwaterDTO.setProject(WebsiteType.getById(websiteIdA).getDescription() + " × " + WebsiteType.getById(websiteIdB).getDescription());
         sweepwaterDTO.setTeam(nameA + " × " + nameB);
         sweepwaterDTO.setTeamA(nameA);
         sweepwaterDTO.setTeamB(nameB);
         sweepwaterDTO.setReTimeA(reTime);
         sweepwaterDTO.setReTimeB(reTime);
-        sweepwaterDTO.setOdds(String.format("%.3f", valueA) + " / " + String.format("%.3f", valueB));
+        sweepwaterDTO.setOdds(oddsA.getFormatted() + " / " + oddsB.getFormatted());
         sweepwaterDTO.setOddsA(valueA);
         sweepwaterDTO.setOddsB(valueB);
-        sweepwaterDTO.setWater(String.format("%.3f", value));
+        sweepwaterDTO.setWater(OddsMatcher.format(waterMilli));
         sweepwaterDTO.setWebsiteIdA(websiteIdA);
         sweepwaterDTO.setWebsiteIdB(websiteIdB);
         sweepwaterDTO.setWebsiteNameA(WebsiteType.getById(websiteIdA).getDescription());
@@ -1995,10 +1648,10 @@ public class SweepwaterService {
         sweepwaterDTO.setLeagueIdB(leagueIdB);
         sweepwaterDTO.setEventIdA(eventIdA);
         sweepwaterDTO.setEventIdB(eventIdB);
-        sweepwaterDTO.setDecimalOddsA(decimalOddsA);
-        sweepwaterDTO.setDecimalOddsB(decimalOddsB);
-        sweepwaterDTO.setHandicapA(handicapA);
-        sweepwaterDTO.setHandicapB(handicapB);
+        sweepwaterDTO.setDecimalOddsA(oddsA.getDecimalOdds());
+        sweepwaterDTO.setDecimalOddsB(oddsB.getDecimalOdds());
+        sweepwaterDTO.setHandicapA(oddsA.getHandicap());
+        sweepwaterDTO.setHandicapB(oddsB.getHandicap());
         sweepwaterDTO.setScoreA(scoreA);
         sweepwaterDTO.setScoreB(scoreB);
         sweepwaterDTO.setBetInfoA(betInfoA);
@@ -2007,20 +1660,20 @@ public class SweepwaterService {
         sweepwaterDTO.setIsHomeA(isHomeA);
         sweepwaterDTO.setIsHomeB(isHomeB);
 
-        sweepwaterDTO.setStrongA(strongA);
-        sweepwaterDTO.setStrongB(strongB);
-        sweepwaterDTO.setGTypeA(gTypeA);
-        sweepwaterDTO.setGTypeB(gTypeB);
-        sweepwaterDTO.setWTypeA(wTypeA);
-        sweepwaterDTO.setWTypeB(wTypeB);
-        sweepwaterDTO.setRTypeA(rTypeA);
-        sweepwaterDTO.setRTypeB(rTypeB);
-        sweepwaterDTO.setChoseTeamA(choseTeamA);
-        sweepwaterDTO.setChoseTeamB(choseTeamB);
-        sweepwaterDTO.setConA(conA);
-        sweepwaterDTO.setConB(conB);
-        sweepwaterDTO.setRatioA(ratioA);
-        sweepwaterDTO.setRatioB(ratioB);
+        sweepwaterDTO.setStrongA(oddsA.getOddFType());
+        sweepwaterDTO.setStrongB(oddsB.getOddFType());
+        sweepwaterDTO.setGTypeA(oddsA.getGtype());
+        sweepwaterDTO.setGTypeB(oddsB.getGtype());
+        sweepwaterDTO.setWTypeA(oddsA.getWtype());
+        sweepwaterDTO.setWTypeB(oddsB.getWtype());
+        sweepwaterDTO.setRTypeA(oddsA.getRtype());
+        sweepwaterDTO.setRTypeB(oddsB.getRtype());
+        sweepwaterDTO.setChoseTeamA(oddsA.getChoseTeam());
+        sweepwaterDTO.setChoseTeamB(oddsB.getChoseTeam());
+        sweepwaterDTO.setConA(oddsA.getCon());
+        sweepwaterDTO.setConB(oddsB.getCon());
+        sweepwaterDTO.setRatioA(oddsA.getRatio());
+        sweepwaterDTO.setRatioB(oddsB.getRatio());
 
         sweepwaterDTO.setTeamVSHA(betInfoA != null ? betInfoA.getStr("teamVSH") : null);
         sweepwaterDTO.setTeamVSAA(betInfoA != null ? betInfoA.getStr("teamVSA") : null);
@@ -2127,37 +1780,6 @@ public class SweepwaterService {
         }
     }
 
-    /**
-     *
-     * @param username
-     * @param sweepwaterDTO
-     */
-    private void submitImmediateBet(String username, SweepwaterDTO sweepwaterDTO) {
-        try {
-            ThreadPoolExecutor betExecutor = (ThreadPoolExecutor) threadPoolHolder.getBetExecutor();
-
-            // 流量控制
-            if (betExecutor.getQueue().size() > 150) {
-                log.warn("投注队列繁忙({}/200)，丢弃机会: {}",
-                        betExecutor.getQueue().size(), sweepwaterDTO.getId());
-                return;
-            }
-
-            CompletableFuture.runAsync(() -> {
-                try {
-                    tryBet(username, sweepwaterDTO);
-                } catch (Exception e) {
-                    log.error("立即投注异常,扫水id={}", sweepwaterDTO.getId(), e);
-                    // 可选：在异常时移除，允许重试
-                    // processedIds.remove(sweepwaterDTO.getId());
-                }
-            }, threadPoolHolder.getBetExecutor());
-
-        } catch (Exception e) {
-            log.error("提交投注任务异常: {}", sweepwaterDTO.getId(), e);
-        }
-    }
-
     /**
      * 尝试投注
      * @param username      平台用户名
@@ -0,0 +1,247 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RListAsync;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 扫水结果异步批量写入
+ * 扫水线程只把结果放入有界队列，由单独的写线程按刷新间隔取出，同一批次内每个用户一次 HSET 记录 + RPUSH 扫水id + LTRIM，
+ * 整批通过 RBatch 一次提交；队列满时直接丢弃并计数，扫水线程不会因 Redis 变慢而阻塞
+ * 记录按扫水id存放在 hash 中，列表只保存扫水id作为有序索引，按id更新单条记录不需要读取整个列表
+ */
+@Slf4j
+@Component
+public class SweepwaterWriter implements InitializingBean, DisposableBean {
+
+    /**
+     * 每个用户最多保留的扫水条数
+     */
+    public static final int MAX_SIZE = 1000;
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    @Resource
+    private SweepwaterFeed sweepwaterFeed;
+
+    /**
+     * 待写入队列容量，满了之后新结果直接丢弃
+     */
+    @Value("${sweepwater.writer.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+
+    /**
+     * 刷新间隔(毫秒)，队列空闲时写线程最多等待这么久
+     */
+    @Value("${sweepwater.writer.flush-ms:50}")
+    private long flushMs = 50;
+
+    /**
+     * 单个批次最多写入条数
+     */
+    @Value("${sweepwater.writer.batch-size:500}")
+    private int batchSize = 500;
+
+    private BlockingQueue<Entry> queue;
+
+    private ExecutorService worker;
+
+    private volatile boolean running;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    private record Entry(String username, String id, String json) {
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("sweepwater-writer-%d").setDaemon(true).build());
+        worker.execute(this::drainLoop);
+        log.info("扫水结果写入线程启动,队列容量:{},刷新间隔:{}ms,批次大小:{}", queueCapacity, flushMs, batchSize);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        worker.shutdown();
+        if (!worker.awaitTermination(5, TimeUnit.SECONDS)) {
+            worker.shutdownNow();
+        }
+        // 写线程退出后把剩余的结果写完
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            flush(rest);
+        }
+        log.info("扫水结果写入线程停止,{}", stats());
+    }
+
+    /**
+     * 提交一条扫水结果，不等待 Redis
+     * @param username 平台用户名
+     * @param dto 扫水结果
+     * @return false 表示队列已满，该结果被丢弃
+     */
+    public boolean submit(String username, SweepwaterDTO dto) {
+        // 在扫水线程上序列化，保证写入的是命中时的快照（之后投注流程可能修改 dto）
+        Entry entry = new Entry(username, dto.getId(), JSONUtil.toJsonStr(dto));
+        if (queue.offer(entry)) {
+            submitted.increment();
+            return true;
+        }
+        dropped.increment();
+        long total = dropped.sum();
+        // 避免队列持续满时刷屏
+        if (total == 1 || total % 1000 == 0) {
+            log.warn("扫水结果写入队列已满,丢弃扫水id={},累计丢弃{}条", dto.getId(), total);
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        List<Entry> pending = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(flushMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                pending.add(first);
+                queue.drainTo(pending, batchSize - 1);
+                flush(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("扫水结果写入线程异常", e);
+            } finally {
+                pending.clear();
+            }
+        }
+    }
+
+    /**
+     * 按用户合并后一次 RBatch 提交：每个用户 HSET 全部记录、RPUSH 扫水id，再 LTRIM 保留最后 MAX_SIZE 个id；
+     * 被裁掉的id在同一批次中先用 LRANGE 取出，提交后再删除对应记录；写入成功后更新扫水列表视图
+     */
+    private void flush(List<Entry> entries) {
+        Map<String, Map<String, String>> byUser = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            byUser.computeIfAbsent(entry.username(), k -> new LinkedHashMap<>()).put(entry.id(), entry.json());
+        }
+        Map<String, RFuture<List<String>>> overflows = new LinkedHashMap<>();
+        try {
+            RBatch batch = businessPlatformRedissonClient.createBatch();
+            for (Map.Entry<String, Map<String, String>> e : byUser.entrySet()) {
+                String username = e.getKey();
+                batch.<String, String>getMap(recordKey(username)).putAllAsync(e.getValue());
+                RListAsync<String> index = batch.getList(indexKey(username));
+                index.addAllAsync(new ArrayList<>(e.getValue().keySet()));
+                overflows.put(username, index.rangeAsync(0, -MAX_SIZE - 1));
+                index.trimAsync(-MAX_SIZE, -1);
+            }
+            batch.execute();
+            written.add(entries.size());
+        } catch (Exception e) {
+            failed.add(entries.size());
+            log.error("扫水结果批量写入失败,丢弃{}条,用户数:{}", entries.size(), byUser.size(), e);
+            return;
+        } finally {
+            flushes.increment();
+        }
+        byUser.forEach(sweepwaterFeed::onWritten);
+        removeTrimmed(overflows);
+    }
+
+    /**
+     * 删除已被裁出索引的记录
+     */
+    private void removeTrimmed(Map<String, RFuture<List<String>>> overflows) {
+        RBatch batch = null;
+        for (Map.Entry<String, RFuture<List<String>>> e : overflows.entrySet()) {
+            List<String> ids = e.getValue().toCompletableFuture().getNow(null);
+            if (ids == null || ids.isEmpty()) {
+                continue;
+            }
+            if (batch == null) {
+                batch = businessPlatformRedissonClient.createBatch();
+            }
+            batch.<String, String>getMap(recordKey(e.getKey())).fastRemoveAsync(ids.toArray(new String[0]));
+        }
+        if (batch == null) {
+            return;
+        }
+        try {
+            batch.execute();
+        } catch (Exception e) {
+            // 残留的记录由 CacheCleanerTask 清理
+            log.warn("扫水记录裁剪失败,用户数:{}", overflows.size(), e);
+        }
+    }
+
+    /**
+     * 扫水id列表（按写入顺序），最多 MAX_SIZE 个
+     */
+    public static String indexKey(String username) {
+        return KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
+    }
+
+    /**
+     * 扫水记录 hash：扫水id -> 扫水数据 JSON
+     */
+    public static String recordKey(String username) {
+        return KeyUtil.genKey(RedisConstants.SWEEPWATER_RECORD_PREFIX, username);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public int getPending() {
+        return queue.size();
+    }
+
+    public String stats() {
+        return String.format("submitted=%d, written=%d, dropped=%d, failed=%d, flushes=%d, pending=%d",
+                submitted.sum(), written.sum(), dropped.sum(), failed.sum(), flushes.sum(), queue.size());
+    }
+}
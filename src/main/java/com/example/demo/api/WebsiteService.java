@@ -17,7 +17,6 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -33,6 +32,9 @@ public class WebsiteService {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private SettingsNearCache settingsNearCache;
+
     /**
      * 获取指定网站
      * @param username
@@ -68,25 +70,26 @@ public class WebsiteService {
     }
 
     /**
-     * 获取网站列表
+     * 获取网站列表（近端缓存，返回的列表只读，调用方需要过滤时先复制）
      * @param username
      * @return
      */
     public List<WebsiteVO> getWebsites(String username) {
+        return settingsNearCache.get(username, RedisConstants.PLATFORM_WEBSITE_ALL_PREFIX, () -> {
+            String key = KeyUtil.genKey(RedisConstants.PLATFORM_WEBSITE_ALL_PREFIX, username);
 
-        String key = KeyUtil.genKey(RedisConstants.PLATFORM_WEBSITE_ALL_PREFIX, username);
+            // 从 Redis 中获取 List 数据
+            List<String> jsonList = businessPlatformRedissonClient.getList(key);
 
-        // 从 Redis 中获取 List 数据
-        List<String> jsonList = businessPlatformRedissonClient.getList(key);
+            if (jsonList == null || jsonList.isEmpty()) {
+                return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
+            }
 
-        if (jsonList == null || jsonList.isEmpty()) {
-            return Collections.emptyList();  // 如果 Redis 中没有数据，返回一个空列表
-        }
-
-        // 将 List 中的 JSON 字符串反序列化为 WebSiteVO 列表
-        return jsonList.stream()
-                .map(json -> JSONUtil.toBean(json, WebsiteVO.class))
-                .collect(Collectors.toList());
+            // 将 List 中的 JSON 字符串反序列化为 WebSiteVO 列表
+            return jsonList.stream()
+                    .map(json -> JSONUtil.toBean(json, WebsiteVO.class))
+                    .toList();
+        });
     }
 
     /**
@@ -131,6 +134,7 @@ public class WebsiteService {
             // 如果网站不存在，直接新增
             websiteList.add(JSONUtil.parse(websiteVO).toString());
         }
+        settingsNearCache.invalidate(username);
     }
 
     /**
@@ -149,6 +153,7 @@ public class WebsiteService {
                 .filter(json -> JSONUtil.toBean(json, WebsiteVO.class).getId().equals(websiteId))
                 .findFirst()
                 .ifPresent(json -> businessPlatformRedissonClient.getList(key).remove(json));
+        settingsNearCache.invalidate(username);
     }
 
 }
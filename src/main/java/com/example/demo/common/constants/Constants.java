@@ -16,4 +16,9 @@ public class Constants {
     public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/147.0.0.0 Safari/537.36";
     public static final String USER_AGENT_ANDROID = "Mozilla/5.0 (Linux; Android 13; SM-G981B) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/145.0.0.0 Mobile Safari/537.36";
     public static final String SEC_CH_UA = "\"Google Chrome\";v=\"147\", \"Not.A/Brand\";v=\"8\", \"Chromium\";v=\"147\"";
+
+    /**
+     * 911proxy 取自动代理接口，life=5 分钟，返回 host:port
+     */
+    public static final String AUTO_PROXY_API_URL = "https://api.911proxy.com/web_v1/ip/get-ip-v3?app_key=93fb3931ffbf8baad407b45325db3659&pt=9&num=1&ep=hk&cc=HK&state=&city=&life=5&protocol=1&format=txt&lb=";
 }
@@ -11,6 +11,21 @@ public class RedisConstants {
      */
     public static final String PLATFORM_ADMIN_GROUP_PREFIX = "platform:group";
 
+    /**
+     * 平台用户名索引（Set），避免 SCAN platform:user:*
+     */
+    public static final String PLATFORM_USER_INDEX = "platform:index:user";
+
+    /**
+     * 平台小组索引（Set），避免 SCAN platform:group:*
+     */
+    public static final String PLATFORM_ADMIN_GROUP_INDEX = "platform:index:group";
+
+    /**
+     * 平台用户变更通知 topic
+     */
+    public static final String PLATFORM_USER_CHANGED_TOPIC = "platform:user:changed";
+
     /**
      * 网站列表前缀
      */
@@ -71,11 +86,19 @@ public class RedisConstants {
      * 网站设置-非正常投注检测 前缀
      */
     public static final String PLATFORM_SETTINGS_ABNORMAL_DETECTION_PREFIX = "platform:settings:abnormal:detection";
+    /**
+     * 网站设置变更通知 topic，消息内容为用户名
+     */
+    public static final String PLATFORM_SETTINGS_INVALIDATE_TOPIC = "platform:settings:invalidate";
 
     /**
      * 球队字典-绑定球队 前缀
      */
     public static final String PLATFORM_BIND_DICT_TEAM_PREFIX = "platform:bind:dict:team";
+    /**
+     * 球队字典绑定变更通知 topic，消息内容为 实例id|用户名
+     */
+    public static final String PLATFORM_BIND_DICT_INVALIDATE_TOPIC = "platform:bind:dict:invalidate";
 
     /**
      * 角球字典-绑定球队 前缀
@@ -87,6 +110,26 @@ public class RedisConstants {
      */
     public static final String SWEEPWATER_PREFIX = "platform:sweepwater";
 
+    /**
+     * 扫水记录 前缀（hash：扫水id -> 扫水数据），扫水列表只保存按写入顺序排列的扫水id
+     */
+    public static final String SWEEPWATER_RECORD_PREFIX = "platform:sweepwater:record";
+
+    /**
+     * 扫水记录变更广播 topic（新增/投注/删除/清空），各实例据此更新内存中的扫水列表
+     */
+    public static final String SWEEPWATER_FEED_TOPIC = "platform:sweepwater:feed";
+
+    /**
+     * 扫水节点表（zset：节点id -> 最近心跳时间），用于多实例分片
+     */
+    public static final String SWEEPWATER_NODES = "platform:sweepwater:nodes";
+
+    /**
+     * 扫水用户租约 前缀（值为持有的节点id，带过期时间），同一时刻只有持有租约的实例扫该用户
+     */
+    public static final String SWEEPWATER_LEASE_PREFIX = "platform:sweepwater:lease";
+
     /**
      * 投注列表 前缀
      */
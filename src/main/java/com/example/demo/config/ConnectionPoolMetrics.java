@@ -0,0 +1,109 @@
+package com.example.demo.config;
+
+import cn.hutool.json.JSONObject;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OkHttp 连接复用统计
+ * 每次请求获取连接都会触发 connectionAcquired，只有新建连接才会经历 connectStart -> connectEnd（TCP + 代理握手 + TLS），
+ * 两者之差即为复用次数，复用次数 * 平均握手耗时 即为节省的握手时间
+ */
+public class ConnectionPoolMetrics {
+
+    private final LongAdder acquiredCount = new LongAdder();
+    private final LongAdder connectedCount = new LongAdder();
+    private final LongAdder connectFailedCount = new LongAdder();
+    private final LongAdder handshakeNanos = new LongAdder();
+
+    private final EventListener.Factory factory = call -> new MetricsListener();
+
+    public EventListener.Factory factory() {
+        return factory;
+    }
+
+    public long getAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    public long getConnectedCount() {
+        return connectedCount.sum();
+    }
+
+    public long getReusedCount() {
+        return Math.max(0, acquiredCount.sum() - connectedCount.sum());
+    }
+
+    /**
+     * 连接复用率（0~1）
+     */
+    public double getReuseRatio() {
+        long acquired = acquiredCount.sum();
+        return acquired == 0 ? 0 : (double) getReusedCount() / acquired;
+    }
+
+    /**
+     * 新建连接平均握手耗时（毫秒）
+     */
+    public double getAvgHandshakeMs() {
+        long connected = connectedCount.sum();
+        return connected == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(handshakeNanos.sum()) / 1000.0 / connected;
+    }
+
+    /**
+     * 估算因复用节省的握手时间（毫秒）
+     */
+    public long getSavedHandshakeMs() {
+        return Math.round(getReusedCount() * getAvgHandshakeMs());
+    }
+
+    public JSONObject snapshot() {
+        JSONObject json = new JSONObject();
+        json.putOpt("acquired", getAcquiredCount());
+        json.putOpt("connected", getConnectedCount());
+        json.putOpt("connectFailed", connectFailedCount.sum());
+        json.putOpt("reused", getReusedCount());
+        json.putOpt("reuseRatio", BigDecimal.valueOf(getReuseRatio()).setScale(4, RoundingMode.HALF_UP));
+        json.putOpt("avgHandshakeMs", BigDecimal.valueOf(getAvgHandshakeMs()).setScale(2, RoundingMode.HALF_UP));
+        json.putOpt("savedHandshakeMs", getSavedHandshakeMs());
+        return json;
+    }
+
+    /**
+     * 单次 Call 的监听器，同一个 Call 内的事件是串行的
+     */
+    private class MetricsListener extends EventListener {
+        private long connectStartNanos;
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            connectedCount.increment();
+            handshakeNanos.add(System.nanoTime() - connectStartNanos);
+        }
+
+        @Override
+        public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+            connectFailedCount.increment();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            acquiredCount.increment();
+        }
+    }
+}
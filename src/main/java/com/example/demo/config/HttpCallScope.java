@@ -0,0 +1,128 @@
+package com.example.demo.config;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 上游请求的取消范围：扫水轮次/联赛/赛事各一个，超时或轮次取消时 cancel，
+ * 范围内在途的 OkHttp Call 立即中断（释放线程、连接和账号的请求配额），之后的请求直接失败，不再重试
+ * 同步请求通过 {@link #bind()} 绑定到当前线程，{@link OkHttpProxyDispatcher} 发起的 Call 自动登记到当前范围
+ */
+@Slf4j
+public final class HttpCallScope {
+
+    private static final ThreadLocal<HttpCallScope> CURRENT = new ThreadLocal<>();
+
+    private final List<Call> calls = new ArrayList<>();
+    private final List<Runnable> cancelListeners = new ArrayList<>();
+    private volatile boolean cancelled;
+
+    /**
+     * 当前线程绑定的范围，没有时返回 null
+     */
+    public static HttpCallScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 当前线程绑定的范围是否已取消
+     */
+    public static boolean isCurrentCancelled() {
+        HttpCallScope scope = CURRENT.get();
+        return scope != null && scope.isCancelled();
+    }
+
+    /**
+     * 绑定到当前线程，close 时恢复之前的范围，配合 try-with-resources 使用
+     */
+    public Binding bind() {
+        HttpCallScope previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 子范围：本范围取消时一并取消，子范围单独取消不影响本范围
+     */
+    public HttpCallScope newChild() {
+        HttpCallScope child = new HttpCallScope();
+        onCancel(child::cancel);
+        return child;
+    }
+
+    /**
+     * 取消时回调（例如取消等待中的 future），已取消则立即执行
+     */
+    public void onCancel(Runnable listener) {
+        synchronized (this) {
+            if (!cancelled) {
+                cancelListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * 登记在途的 Call，范围已取消时直接取消该 Call
+     */
+    void register(Call call) {
+        synchronized (this) {
+            if (!cancelled) {
+                calls.add(call);
+                return;
+            }
+        }
+        call.cancel();
+    }
+
+    void unregister(Call call) {
+        synchronized (this) {
+            calls.remove(call);
+        }
+    }
+
+    public void cancel() {
+        List<Call> inFlight;
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            inFlight = new ArrayList<>(calls);
+            listeners = new ArrayList<>(cancelListeners);
+            calls.clear();
+            cancelListeners.clear();
+        }
+        inFlight.forEach(Call::cancel);
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                log.warn("[HttpCallScope] 取消回调异常", e);
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 线程绑定，close 不抛受检异常
+     */
+    public interface Binding extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -1,7 +1,10 @@
 package com.example.demo.config;
 
+import cn.hutool.json.JSONObject;
 import com.example.demo.common.constants.Constants;
 import com.example.demo.common.enmu.RequestPlatform;
+import com.example.demo.core.replay.HttpReplayServer;
+import com.example.demo.core.replay.HttpTrafficRecorder;
 import com.example.demo.model.vo.ConfigAccountVO;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,21 +18,36 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -41,12 +59,21 @@ import org.springframework.context.annotation.Lazy;
 
 @Slf4j
 @Component
-public class OkHttpProxyDispatcher {
+public class OkHttpProxyDispatcher implements InitializingBean, DisposableBean {
 
     @Resource
     @Lazy
     private ConfigAccountService accountService;
 
+    @Resource
+    private HttpTrafficRecorder httpTrafficRecorder;
+
+    @Resource
+    private HttpReplayServer httpReplayServer;
+
+    @Resource
+    private ProxyPool proxyPool;
+
     private static final int MAX_FAIL = 3;
     private static final long COOLDOWN_MS = 10 * 1000;  // 10秒冷却
     private static final int MAX_RETRY = 2;             // 最多重试次数（共 3 次尝试）
@@ -55,14 +82,46 @@ public class OkHttpProxyDispatcher {
     private static final long PROXY_EXPIRE_BUFFER_MS = 60_000;
     /** 与 AutoProxyTask 保持一致 */
     private static final int AUTO_PROXY_LIFE_MINUTES = 4;
+    /** 每个代理独立连接池，最多保留的空闲 keep-alive 连接数 */
+    private static final int POOL_MAX_IDLE = 5;
+    /** 无代理客户端为所有盘口共用，空闲连接上限放大 */
+    private static final int DEFAULT_POOL_MAX_IDLE = 32;
+    /** 空闲连接保活时长，需小于代理/盘口侧的空闲断开时间（一般 60s） */
+    private static final long POOL_KEEP_ALIVE_SECONDS = 30;
+
+    private static final String CANCELED_MESSAGE = "请求已取消";
+    private static final Pattern TOKEN_COOKIE = Pattern.compile("token=([^;]+)");
+
+    /**
+     * 异步请求同时在途总数上限
+     */
+    @Value("${sweepwater.http.max-requests:256}")
+    private int maxRequests = 256;
 
-    // 自动代理API地址
-    private static final String AUTO_PROXY_API_URL = "https://api.911proxy.com/web_v1/ip/get-ip-v3?app_key=93fb3931ffbf8baad407b45325db3659&pt=9&num=1&ep=hk&cc=HK&state=&city=&life=5&protocol=1&format=txt&lb=";
+    /**
+     * 同一盘口域名同时在途的异步请求数上限，所有代理客户端共用
+     */
+    @Value("${sweepwater.http.max-requests-per-host:32}")
+    private int maxRequestsPerHost = 32;
 
     private final ConcurrentHashMap<String, ProxyState> proxyStateMap = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<String, OkHttpClient> clientMap = new ConcurrentHashMap<>();
     /** 运行时代理缓存，避免每次 HTTP 都调 911proxy */
     private final ConcurrentHashMap<String, AutoProxyEntry> autoProxyCache = new ConcurrentHashMap<>();
+    /** 连接复用统计（所有客户端共用） */
+    private final ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+
+    /** 当前线程最近一次同步请求的服务器时间（响应头 Date，毫秒）；异步请求的服务器时间只放在 HttpResult 里 */
+    private static final ThreadLocal<Long> SERVER_TIME = new ThreadLocal<>();
+
+    /** 所有盘口客户端共用的异步调度器，按域名限制在途请求数 */
+    private final Dispatcher asyncDispatcher = newAsyncDispatcher();
+    /** 异步请求的重试定时器，只负责到点后重新入队 */
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("okhttp-retry-%d").setDaemon(true).build());
+
+    /** 所有盘口客户端共用：录制模式下记录往返，回放模式下改发到本地回放服务 */
+    private final Interceptor trafficInterceptor = this::interceptTraffic;
 
     // 用于获取自动代理的OkHttpClient
     private final OkHttpClient proxyFetchClient = new OkHttpClient.Builder()
@@ -72,6 +131,12 @@ public class OkHttpProxyDispatcher {
             .retryOnConnectionFailure(false)
             .build();
 
+    /** 已经完成过请求的连接，再次被取出使用即为复用的 keep-alive 连接；连接关闭后随 GC 移除 */
+    private final Set<Connection> servedConnections = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final Interceptor staleConnectionMarker = this::markStaleConnection;
+
+    private final ConnectionPool defaultPool = new ConnectionPool(DEFAULT_POOL_MAX_IDLE, POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+
     // 全局默认无代理的OkHttpClient，单例即可
     private final OkHttpClient defaultClient = new OkHttpClient.Builder()
             .followRedirects(false) // 禁用自动重定向，方便拿location
@@ -79,17 +144,40 @@ public class OkHttpProxyDispatcher {
             .readTimeout(10, TimeUnit.SECONDS)
             .callTimeout(10, TimeUnit.SECONDS)   // 整个调用最大超时
             .retryOnConnectionFailure(false)            // 🚫 禁用自动重试--开启（true）	网络不稳定、代理环境频繁断连、希望提升请求成功率///关闭（false）	业务请求非幂等、严格控制重试次数、希望错误直接抛出给业务层处理
-//            .connectionPool(new ConnectionPool(20, 5, TimeUnit.MINUTES)) // 🚀 高并发支持
-            .connectionPool(new ConnectionPool(0, 1, TimeUnit.SECONDS)) // 连接池大小为 0，避免复用
+            .connectionPool(defaultPool)
+            .dispatcher(asyncDispatcher)
+            .eventListenerFactory(poolMetrics.factory())
+            .addInterceptor(staleConnectionRetry(defaultPool))
+            .addInterceptor(trafficInterceptor)
+            .addNetworkInterceptor(staleConnectionMarker)
             .build();
 
+    @Override
+    public void afterPropertiesSet() {
+        asyncDispatcher.setMaxRequests(maxRequests);
+        asyncDispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+    }
+
+    @Override
+    public void destroy() {
+        retryScheduler.shutdownNow();
+        asyncDispatcher.cancelAll();
+        asyncDispatcher.executorService().shutdown();
+    }
+
+    private Dispatcher newAsyncDispatcher() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        return dispatcher;
+    }
+
     private OkHttpClient defaultClient() {
         return defaultClient;
     }
 
     private String autoProxyCacheKey(ConfigAccountVO config) {
-        String websiteId = config.getWebsiteId() != null ? config.getWebsiteId() : "";
-        return websiteId + ":" + config.getAccount();
+        return ProxyPool.key(config.getWebsiteId(), config.getAccount());
     }
 
     private void applyAutoProxyCache(ConfigAccountVO config) {
@@ -117,10 +205,13 @@ public class OkHttpProxyDispatcher {
     }
 
     /**
-     * 自动代理(type=3)：未过期则复用，过期或 forceRefresh 时才调 911proxy 换新。
+     * 自动代理(type=3)：开启代理池时从池中取（不阻塞），池中暂无可用代理或未开启时，未过期则复用，过期或 forceRefresh 时才调 911proxy 换新。
      */
     private boolean refreshAutoProxyIfNeeded(ConfigAccountVO config, boolean forceRefresh) {
-        if (config.getProxyType() == null || config.getProxyType() != 3) {
+        if (config.getProxyType() == null || config.getProxyType() != 3 || isReplaying()) {
+            return true;
+        }
+        if (proxyPool != null && proxyPool.isEnabled() && applyPooledProxy(config, forceRefresh)) {
             return true;
         }
         applyAutoProxyCache(config);
@@ -133,7 +224,7 @@ public class OkHttpProxyDispatcher {
                     forceRefresh ? "请求失败" : "代理过期或缺失");
 
             Request request = new Request.Builder()
-                    .url(AUTO_PROXY_API_URL)
+                    .url(Constants.AUTO_PROXY_API_URL)
                     .get()
                     .addHeader("User-Agent", Constants.USER_AGENT)
                     .build();
@@ -157,7 +248,7 @@ public class OkHttpProxyDispatcher {
                 }
 
                 String oldKey = config.getProxyKey();
-                clientMap.remove(oldKey);
+                evictClient(oldKey);
 
                 config.setProxyHost(arr[0]);
                 config.setProxyPort(Integer.parseInt(arr[1]));
@@ -177,6 +268,28 @@ public class OkHttpProxyDispatcher {
         }
     }
 
+    /**
+     * 使用代理池分配给账号的代理，换了代理时丢弃旧代理的客户端
+     * @return 池中暂无可用代理时返回 false
+     */
+    private boolean applyPooledProxy(ConfigAccountVO config, boolean forceRefresh) {
+        String key = autoProxyCacheKey(config);
+        ProxyPool.Lease lease = proxyPool.acquire(key, forceRefresh);
+        if (lease == null) {
+            return false;
+        }
+        if (!lease.host().equals(config.getProxyHost()) || !Integer.valueOf(lease.port()).equals(config.getProxyPort())) {
+            evictClient(config.getProxyKey());
+            config.setProxyHost(lease.host());
+            config.setProxyPort(lease.port());
+            config.setProxyUsername(null);
+            config.setProxyPassword(null);
+        }
+        config.setProxyExpireTime(lease.expireTime());
+        autoProxyCache.put(key, new AutoProxyEntry(lease.host(), lease.port(), lease.expireTime()));
+        return true;
+    }
+
     private boolean isRetryableProxyError(Throwable e) {
         String msg = e.getMessage();
         if (msg == null) {
@@ -203,8 +316,8 @@ public class OkHttpProxyDispatcher {
     public OkHttpClient getClient(ConfigAccountVO config) {
         String key = config.getProxyKey();
 
-        // ✅ 无代理：直接返回默认客户端
-        if ("no-proxy".equals(key)) {
+        // ✅ 无代理：直接返回默认客户端（回放时请求都发往本地，不走代理）
+        if ("no-proxy".equals(key) || isReplaying()) {
             return defaultClient();
         }
 
@@ -213,14 +326,22 @@ public class OkHttpProxyDispatcher {
 
         // ✅ SOCKS5 且带用户名密码认证：使用自定义 SocketFactory 生成 OkHttpClient
         if (type == 2 && config.hasAuth()) {
-            return clientMap.computeIfAbsent(key, k ->
-                    Socks5ProxyClientBuilder.createSocks5Client(
-                            config.getProxyHost(),
-                            config.getProxyPort(),
-                            config.getProxyUsername(),
-                            config.getProxyPassword()
-                    )
-            );
+            return clientMap.computeIfAbsent(key, k -> {
+                ConnectionPool pool = newProxyConnectionPool();
+                return Socks5ProxyClientBuilder.createSocks5Client(
+                        config.getProxyHost(),
+                        config.getProxyPort(),
+                        config.getProxyUsername(),
+                        config.getProxyPassword(),
+                        pool,
+                        poolMetrics.factory(),
+                        trafficInterceptor,
+                        asyncDispatcher
+                ).newBuilder()
+                        .addInterceptor(staleConnectionRetry(pool))
+                        .addNetworkInterceptor(staleConnectionMarker)
+                        .build();
+            });
         }
 
         // ✅ 其他（HTTP代理、SOCKS5无认证）
@@ -230,6 +351,7 @@ public class OkHttpProxyDispatcher {
                     new InetSocketAddress(config.getProxyHost(), config.getProxyPort())
             );
 
+            ConnectionPool pool = newProxyConnectionPool();
             OkHttpClient.Builder builder = new OkHttpClient.Builder()
                     .proxy(proxy)
                     .followRedirects(false) // 禁用自动重定向，方便拿location
@@ -237,8 +359,12 @@ public class OkHttpProxyDispatcher {
                     .readTimeout(10, TimeUnit.SECONDS)
                     .callTimeout(10, TimeUnit.SECONDS)   // 整个调用最大超时
                     .retryOnConnectionFailure(false)            // 🚫 禁用自动重试
-                    //.connectionPool(new ConnectionPool(20, 5, TimeUnit.MINUTES)); // 🚀 高并发支持
-                    .connectionPool(new ConnectionPool(0, 1, TimeUnit.SECONDS)); // 连接池大小为 0，避免复用
+                    .connectionPool(pool)   // 按代理隔离的 keep-alive 连接池
+                    .dispatcher(asyncDispatcher)
+                    .eventListenerFactory(poolMetrics.factory())
+                    .addInterceptor(staleConnectionRetry(pool))
+                    .addInterceptor(trafficInterceptor)
+                    .addNetworkInterceptor(staleConnectionMarker);
 
             // 仅 HTTP 代理认证支持
             if (type == 1 && config.hasAuth()) {
@@ -254,6 +380,204 @@ public class OkHttpProxyDispatcher {
         });
     }
 
+    private boolean isReplaying() {
+        return httpReplayServer != null && httpReplayServer.isEnabled();
+    }
+
+    private Response interceptTraffic(Interceptor.Chain chain) throws IOException {
+        if (isReplaying()) {
+            return chain.proceed(httpReplayServer.redirect(chain.request()));
+        } else if (httpTrafficRecorder != null) {
+            return httpTrafficRecorder.intercept(chain);
+        }
+        return chain.proceed(chain.request());
+    }
+
+    /**
+     * 同步请求成功后记下服务器时间，供调用线程随后 {@link #takeServerTime} 取出
+     * 异步请求的回调跑在 OkHttp 的调度线程上，不写线程变量，避免遗留给该线程上的其它请求
+     */
+    private static void rememberServerTime(HttpResult result) {
+        if (result.getServerTimeMillis() > 0) {
+            SERVER_TIME.set(result.getServerTimeMillis());
+        }
+    }
+
+    /**
+     * 取出并清除当前线程最近一次同步请求的服务器时间（毫秒），没有时返回 0
+     * 同步请求在调用线程上执行，拉取赔率前后各调用一次即可得到本次拉取的服务器时间；异步请求取 {@link HttpResult#getServerTimeMillis}
+     */
+    public static long takeServerTime() {
+        Long time = SERVER_TIME.get();
+        SERVER_TIME.remove();
+        return time != null ? time : 0;
+    }
+
+    /**
+     * 连接池里的 keep-alive 连接可能已被代理/盘口空闲断开，复用时读到流结束或连接被重置，这不是代理本身的问题
+     * GET 请求遇到这类错误时清掉该客户端的空闲连接，在新连接上重试一次，仍失败才交给上层计入代理失败；
+     * POST 可能是投注等非幂等请求，不在这里重试；新建的连接上出错说明代理或盘口确实有问题，也不重试
+     */
+    private Interceptor staleConnectionRetry(ConnectionPool pool) {
+        return chain -> {
+            Request request = chain.request();
+            try {
+                return chain.proceed(request);
+            } catch (StaleConnectionException e) {
+                if (!"GET".equals(request.method()) || chain.call().isCanceled()) {
+                    throw e;
+                }
+                log.info("[OkHttpProxyDispatcher] 复用的空闲连接已断开，新建连接重试，URL={}，错误：{}", request.url(), e.getMessage());
+                pool.evictAll();
+                return chain.proceed(request);
+            }
+        };
+    }
+
+    /**
+     * 网络层：标记复用连接上的断开错误，交给 {@link #staleConnectionRetry} 重试
+     */
+    private Response markStaleConnection(Interceptor.Chain chain) throws IOException {
+        Connection connection = chain.connection();
+        boolean reused = connection != null && !servedConnections.add(connection);
+        try {
+            return chain.proceed(chain.request());
+        } catch (IOException e) {
+            if (reused && isStaleConnectionError(e)) {
+                throw new StaleConnectionException(e);
+            }
+            throw e;
+        }
+    }
+
+    private static boolean isStaleConnectionError(IOException e) {
+        if (e instanceof SocketTimeoutException || e instanceof ConnectException) {
+            return false;
+        }
+        String msg = e.getMessage();
+        if (msg == null) {
+            return e instanceof EOFException;
+        }
+        String lower = msg.toLowerCase();
+        return lower.contains("unexpected end of stream")
+                || lower.contains("connection reset")
+                || lower.contains("broken pipe");
+    }
+
+    /**
+     * 复用的 keep-alive 连接已被对端断开，保留原错误信息，重试仍失败时按原错误处理
+     */
+    private static class StaleConnectionException extends IOException {
+        private StaleConnectionException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    private ConnectionPool newProxyConnectionPool() {
+        return new ConnectionPool(POOL_MAX_IDLE, POOL_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 淘汰代理对应的客户端及其空闲连接，下次请求重新建连
+     * 无代理客户端为全局共用，只清理空闲连接
+     */
+    private void evictClient(String key) {
+        if ("no-proxy".equals(key)) {
+            defaultClient.connectionPool().evictAll();
+            return;
+        }
+        OkHttpClient client = clientMap.remove(key);
+        if (client != null) {
+            client.connectionPool().evictAll();
+        }
+    }
+
+    /**
+     * 记录成功，重置失败计数
+     */
+    private void markSuccess(ProxyState state, ConfigAccountVO config) {
+        state.reset();
+        reportPooledProxy(config, true);
+    }
+
+    /**
+     * 记录失败，失败次数达到上限进入冷却时同时淘汰该代理的连接池，避免冷却结束后复用坏连接
+     */
+    private void markFail(ProxyState state, String key, ConfigAccountVO config) {
+        state.fail();
+        reportPooledProxy(config, false);
+        if (state.getFailCount() >= MAX_FAIL) {
+            evictClient(key);
+        }
+    }
+
+    /**
+     * 代理池分配的自动代理：请求结果回报给代理池，计入该代理的失败率
+     */
+    private void reportPooledProxy(ConfigAccountVO config, boolean success) {
+        if (proxyPool == null || !proxyPool.isEnabled() || isReplaying()
+                || config.getProxyType() == null || config.getProxyType() != 3
+                || StringUtils.isBlank(config.getProxyHost()) || config.getProxyPort() == null) {
+            return;
+        }
+        proxyPool.report(config.getProxyHost(), config.getProxyPort(), success);
+    }
+
+    /**
+     * 预热连接：登录成功后异步向盘口发一次 HEAD 请求，提前完成 TCP/代理/TLS 握手放入连接池，
+     * 首次扫水/投注请求直接复用
+     * @param config 账户代理配置
+     * @param url    盘口地址
+     */
+    public void warmUp(ConfigAccountVO config, String url) {
+        if (StringUtils.isBlank(url)) {
+            return;
+        }
+        String key = config.getProxyKey();
+        ProxyState state = proxyStateMap.get(key);
+        if (state != null && !state.isAvailable()) {
+            return;
+        }
+        try {
+            Request request = new Request.Builder()
+                    .url(url)
+                    .head()
+                    .addHeader("User-Agent", Constants.USER_AGENT)
+                    .build();
+            getClient(config).newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    log.debug("[OkHttpProxyDispatcher] 连接预热失败，URL={}，代理={}，错误：{}", url, key, e.getMessage());
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    response.close();
+                    log.debug("[OkHttpProxyDispatcher] 连接预热完成，URL={}，代理={}", url, key);
+                }
+            });
+        } catch (Exception e) {
+            log.debug("[OkHttpProxyDispatcher] 连接预热异常，URL={}，代理={}，错误：{}", url, key, e.getMessage());
+        }
+    }
+
+    /**
+     * 连接池统计：复用率、节省的握手耗时、当前连接数
+     */
+    public JSONObject getPoolStats() {
+        JSONObject stats = poolMetrics.snapshot();
+        int idle = defaultClient.connectionPool().idleConnectionCount();
+        int total = defaultClient.connectionPool().connectionCount();
+        for (OkHttpClient client : clientMap.values()) {
+            idle += client.connectionPool().idleConnectionCount();
+            total += client.connectionPool().connectionCount();
+        }
+        stats.putOpt("proxyClients", clientMap.size());
+        stats.putOpt("idleConnections", idle);
+        stats.putOpt("totalConnections", total);
+        return stats;
+    }
+
     /**
      * 执行请求,并返回结果
      * @param method
@@ -275,6 +599,9 @@ public class OkHttpProxyDispatcher {
         boolean forceRefresh = false;
 
         for (int attempt = 0; attempt <= MAX_RETRY; attempt++) {
+            if (HttpCallScope.isCurrentCancelled()) {
+                throw new IOException(CANCELED_MESSAGE);
+            }
             if (!refreshAutoProxyIfNeeded(config, forceRefresh)) {
                 throw new IOException("自动代理获取失败");
             }
@@ -292,94 +619,40 @@ public class OkHttpProxyDispatcher {
                         method, url, key, proxyTypeStr, attempt + 1);
 
                 OkHttpClient client = getClient(config);
-
-                Request.Builder requestBuilder = new Request.Builder().url(url);
-                if ("POST".equalsIgnoreCase(method)) {
-                    String contentType = headers.getOrDefault("content-type", "application/json");
-                    // 确保请求体 MIME 和 Header 一致
-                    RequestBody requestBody = RequestBody.create(
-                            StringUtils.isBlank(body) ? "" : body,
-                            MediaType.parse(contentType)
-                    );
-                    // OkHttp 不自动设置 Content-Type 头，所以手动设置
-                    requestBuilder.addHeader("Content-Type", contentType);
-                    requestBuilder.post(requestBody);
-                } else if ("GET".equalsIgnoreCase(method)) {
-                    requestBuilder.get();
-                } else {
-                    throw new UnsupportedOperationException("仅支持 GET 和 POST 方法");
-                }
-
-                if (headers != null) {
-                    headers.forEach((k, v) -> {
-                        if (k != null && v != null) {
-                            requestBuilder.addHeader(k, v);
-                        }
-                    });
-                }
+                Request request = buildRequest(method, url, body, headers, false);
 
                 // ⭐ 在这里注入平台伪装
                 // applyPlatformHeaders(requestBuilder, RequestPlatform.PC);
 
                 long start = System.currentTimeMillis(); // ✅ 请求开始时间
-                try (Response response = client.newCall(requestBuilder.build()).execute()) {
-                    long cost = System.currentTimeMillis() - start; // ✅ 请求耗时
-                    int code = response.code();
-                    String respBody;
-                    String contentType = Objects.requireNonNull(response.header("Content-Type", "")).toLowerCase();
-
-                    if (contentType.contains("application/json")) {
-                        respBody = response.body() != null ? response.body().string() : null;
-                    } else {
-                        byte[] bytes = response.body() != null ? response.body().bytes() : new byte[0];
-                        Charset charset = StandardCharsets.UTF_8; // 默认
-
-                        if (contentType.contains("gbk") || contentType.contains("gb2312")) {
-                            charset = Charset.forName("GBK");
-                        }
-
-                        respBody = new String(bytes, charset);
-                    }
-
-                    Map<String, List<String>> respHeaders = response.headers().toMultimap();
-
-                    // 提取特定 Cookie（示例，如果需要）
-                    String cookieToken = null;
-                    List<String> setCookies = respHeaders.get("Set-Cookie");
-                    if (setCookies != null) {
-                        for (String cookie : setCookies) {
-                            Matcher matcher = Pattern.compile("token=([^;]+)").matcher(cookie);
-                            if (matcher.find()) {
-                                cookieToken = matcher.group(1);
-                                break;
-                            }
-                        }
-                    }
+                try (Response response = executeCall(client, request)) {
+                    HttpResult result = readResult(response, System.currentTimeMillis() - start, false);
+                    rememberServerTime(result);
 
                     // ✅ 若是“仅校验连通性”，不做任何状态码校验
                     if (checkOnlyConnection) {
                         // 成功，重置失败计数
-                        state.reset();
-                        return new HttpResult(respBody, respHeaders, code, cookieToken, cost);
+                        markSuccess(state, config);
+                        return result;
                     }
-                    //if (code >= 200 && code < 300) {
-                        // 成功，重置失败计数
-                        state.reset();
-                        log.info("[OkHttpProxyDispatcher] 请求成功，方法={}，URL={}，账户={}，代理=[{}]，耗时={}m", method, url, config.getAccount(), proxyTypeStr, cost);
-                        return new HttpResult(respBody, respHeaders, code, cookieToken, cost);
-                    /*} else {
-                        throw new IOException("响应失败，状态码：" + code + "，响应体：" + respBody);
-                    }*/
+                    // 成功，重置失败计数
+                    markSuccess(state, config);
+                    log.info("[OkHttpProxyDispatcher] 请求成功，方法={}，URL={}，账户={}，代理=[{}]，耗时={}m", method, url, config.getAccount(), proxyTypeStr, result.getDurationMs());
+                    return result;
                 }
             } catch (Exception e) {
-                state.fail();
+                if (HttpCallScope.isCurrentCancelled()) {
+                    // 扫水已放弃该请求，不计入代理失败
+                    throw new IOException(CANCELED_MESSAGE, e);
+                }
+                markFail(state, key, config);
                 log.warn("[OkHttpProxyDispatcher] 请求失败，方法={}，URL={}，账户={}，代理={}[{}]，失败次数={}/{}, 错误：{}",
                         method, url, config.getAccount(), key, (config.getProxyType() == null || config.getProxyType() == 0) ? "无代理" : (config.getProxyType() == 1 ? "HTTP" : "SOCKS"), state.getFailCount(), MAX_FAIL, e.getMessage());
                 if (attempt == MAX_RETRY || !isRetryableProxyError(e)) {
                     throw new IOException("请求全部重试失败：" + e.getMessage(), e);
                 }
                 forceRefresh = true;
-                clientMap.remove(config.getProxyKey());
+                evictClient(key);
                 sleepBeforeRetry();
             }
         }
@@ -405,6 +678,9 @@ public class OkHttpProxyDispatcher {
         boolean forceRefresh = false;
 
         for (int attempt = 0; attempt <= MAX_RETRY; attempt++) {
+            if (HttpCallScope.isCurrentCancelled()) {
+                throw new IOException(CANCELED_MESSAGE);
+            }
             if (!refreshAutoProxyIfNeeded(config, forceRefresh)) {
                 throw new IOException("自动代理获取失败");
             }
@@ -422,101 +698,281 @@ public class OkHttpProxyDispatcher {
                         method, url, key, proxyTypeStr, attempt + 1);
 
                 OkHttpClient client = getClient(config);
-
-                Request.Builder requestBuilder = new Request.Builder().url(url);
-                if ("POST".equalsIgnoreCase(method)) {
-                    String contentType = headers.getOrDefault("content-type", "application/json");
-                    RequestBody requestBody = RequestBody.create(
-                            StringUtils.isBlank(body) ? "" : body,
-                            MediaType.parse(contentType)
-                    );
-                    requestBuilder.addHeader("Content-Type", contentType);
-                    requestBuilder.post(requestBody);
-                } else if ("GET".equalsIgnoreCase(method)) {
-                    requestBuilder.get();
-                } else {
-                    throw new UnsupportedOperationException("仅支持 GET 和 POST 方法");
-                }
-
-                if (headers != null) {
-                    headers.forEach(requestBuilder::addHeader);
-                }
+                Request request = buildRequest(method, url, body, headers, true);
 
                 // ⭐ 在这里注入平台伪装
                 // applyPlatformHeaders(requestBuilder, RequestPlatform.ANDROID);
 
-                // 添加默认伪装头（若 headers 中未指定）
-                // 默认 OkHttp 会自动添加并解压 gzip
-                if (!requestBuilder.build().headers().names().contains("Accept-Encoding")) {
-                    requestBuilder.header("Accept-Encoding", "gzip, deflate, br, zstd");
-                }
-
                 long start = System.currentTimeMillis(); // ✅ 请求开始时间
-                try (Response response = client.newCall(requestBuilder.build()).execute()) {
-                    long cost = System.currentTimeMillis() - start;
-                    int code = response.code();
-                    ResponseBody responseBody = response.body();
-                    byte[] bytes = responseBody != null ? responseBody.bytes() : new byte[0];
-
-                    // 1. 调试信息：打印关键响应头
-                    log.debug("Content-Type: {}", response.header("Content-Type"));
-                    log.debug("Content-Encoding: {}", response.header("Content-Encoding"));
-
-                    // 手动处理 Gzip（即使服务器未声明）
-                    if (isGzipCompressed(bytes)) {
-                        bytes = decompressGzip(bytes);
-                    }
-
-                    // 2. 确定编码
-                    // String charset = determineCharset(response, bytes);
-
-                    // 3. 使用正确编码解码
-                    // String respBody = new String(bytes, charset);
-                    // 强制 UTF-8 解码
-                    String html = new String(bytes, StandardCharsets.UTF_8);
-
-                    // 检查是否是有效内容
-                    if (html.contains("<!DOCTYPE html") || html.contains("<html")) {
-                        // log.info("成功获取 HTML 内容");
-                    } else {
-                        // log.info("响应可能不是 HTML: {}", html.substring(0, Math.min(100, html.length())));
-                    }
-
-                    // 5. 返回结果（包含响应头、状态码等）
-                    Map<String, List<String>> respHeaders = response.headers().toMultimap();
-
-                    // 提取特定 Cookie（示例，如果需要）
-                    String cookieToken = null;
-                    List<String> setCookies = respHeaders.get("Set-Cookie");
-                    if (setCookies != null) {
-                        for (String cookie : setCookies) {
-                            Matcher matcher = Pattern.compile("token=([^;]+)").matcher(cookie);
-                            if (matcher.find()) {
-                                cookieToken = matcher.group(1);
-                                break;
-                            }
-                        }
-                    }
-                    state.reset();
+                try (Response response = executeCall(client, request)) {
+                    HttpResult result = readResult(response, System.currentTimeMillis() - start, true);
+                    rememberServerTime(result);
+                    markSuccess(state, config);
                     log.info("[OkHttpProxyDispatcher] 请求成功，URL={}", url);
-                    return new HttpResult(html, respHeaders, code, cookieToken, cost);
-
+                    return result;
                 }
             } catch (Exception e) {
-                state.fail();
+                if (HttpCallScope.isCurrentCancelled()) {
+                    // 扫水已放弃该请求，不计入代理失败
+                    throw new IOException(CANCELED_MESSAGE, e);
+                }
+                markFail(state, key, config);
                 log.warn("[OkHttpProxyDispatcher] 请求失败，方法={}，URL={}，代理={}[{}]，失败次数={}/{}, 错误：{}",
                         method, url, key, config.getProxyType() == 1 ? "HTTP" : "SOCKS", state.getFailCount(), MAX_FAIL, e.getMessage());
                 if (attempt == MAX_RETRY || !isRetryableProxyError(e)) {
                     throw new IOException("请求全部重试失败：" + e.getMessage(), e);
                 }
                 forceRefresh = true;
-                clientMap.remove(config.getProxyKey());
+                evictClient(key);
                 sleepBeforeRetry();
             }
         }
         throw new IOException("请求执行失败，未命中任何有效结果");
     }
 
+    /**
+     * 异步执行请求，与 {@link #execute} 返回相同的结果
+     * 请求交给 OkHttp 的异步调度器，调用线程不阻塞；失败重试按间隔定时重新入队，不占用线程休眠
+     * 同一盘口域名同时在途的异步请求数受 max-requests-per-host 限制，超出的在调度器中排队
+     * 取消返回的 future 会中断在途的 Call；服务器时间取 {@link HttpResult#getServerTimeMillis}，不写线程变量
+     * 自动代理需要换新时，代理接口在调度器线程上调用，不在调用线程上
+     * 目前生产代码尚无调用方，盘口请求仍走同步的 {@link #execute}；连通性校验也只走同步接口
+     */
+    public CompletableFuture<HttpResult> executeAsync(String method,
+                                                      String url,
+                                                      String body,
+                                                      Map<String, String> headers,
+                                                      ConfigAccountVO config) {
+        AsyncExchange exchange = new AsyncExchange(method, url, body, headers, config, false);
+        startAsync(exchange);
+        return exchange.result;
+    }
+
+    /**
+     * 异步执行请求，与 {@link #executeFull} 返回相同的结果（gzip 手动解压、UTF-8 解码）
+     */
+    public CompletableFuture<HttpResult> executeFullAsync(String method,
+                                                          String url,
+                                                          String body,
+                                                          Map<String, String> headers,
+                                                          ConfigAccountVO config) {
+        AsyncExchange exchange = new AsyncExchange(method, url, body, headers, config, true);
+        startAsync(exchange);
+        return exchange.result;
+    }
+
+    /**
+     * 调用方取消返回的 future，或当前线程的取消范围被取消时，中断在途的 Call 并不再重试
+     */
+    private void startAsync(AsyncExchange exchange) {
+        exchange.result.whenComplete((r, e) -> {
+            Call call = exchange.call;
+            if (exchange.result.isCancelled() && call != null) {
+                call.cancel();
+            }
+        });
+        HttpCallScope scope = HttpCallScope.current();
+        if (scope != null) {
+            scope.onCancel(() -> exchange.result.cancel(false));
+        }
+        if (!isAutoProxy(exchange.config)) {
+            attemptAsync(exchange, 0, false);
+            return;
+        }
+        // 自动代理可能要同步调用代理接口换新，交给调度器线程发起，调用线程不阻塞
+        try {
+            asyncDispatcher.executorService().execute(() -> attemptAsync(exchange, 0, false));
+        } catch (RejectedExecutionException rejected) {
+            exchange.result.completeExceptionally(new IOException("异步请求已停止", rejected));
+        }
+    }
+
+    private boolean isAutoProxy(ConfigAccountVO config) {
+        return config.getProxyType() != null && config.getProxyType() == 3 && !isReplaying();
+    }
+
+    private void attemptAsync(AsyncExchange exchange, int attempt, boolean forceRefresh) {
+        if (exchange.result.isDone()) {
+            return;
+        }
+        ConfigAccountVO config = exchange.config;
+        if (!refreshAutoProxyIfNeeded(config, forceRefresh)) {
+            exchange.result.completeExceptionally(new IOException("自动代理获取失败"));
+            return;
+        }
+        String key = config.getProxyKey();
+        ProxyState state = proxyStateMap.computeIfAbsent(key, k -> new ProxyState());
+        if (!state.isAvailable()) {
+            exchange.result.completeExceptionally(new IOException(String.format("[OkHttpProxyDispatcher] 代理 %s 冷却中，拒绝请求", key)));
+            return;
+        }
+        try {
+            log.info("[OkHttpProxyDispatcher] 尝试异步请求，方法={}，URL={}，代理={}[{}]，第{}次尝试",
+                    exchange.method, exchange.url, key, proxyTypeName(config), attempt + 1);
+            Request request = buildRequest(exchange.method, exchange.url, exchange.body, exchange.headers, exchange.full);
+            long start = System.currentTimeMillis();
+            Call asyncCall = getClient(config).newCall(request);
+            exchange.call = asyncCall;
+            if (exchange.result.isCancelled()) {
+                // 赋值前已被取消
+                asyncCall.cancel();
+            }
+            asyncCall.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    retryAsync(exchange, attempt, state, key, e);
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        HttpResult result = readResult(response, System.currentTimeMillis() - start, exchange.full);
+                        markSuccess(state, config);
+                        log.info("[OkHttpProxyDispatcher] 异步请求成功，方法={}，URL={}，账户={}，代理=[{}]，耗时={}m",
+                                exchange.method, exchange.url, config.getAccount(), proxyTypeName(config), result.getDurationMs());
+                        exchange.result.complete(result);
+                    } catch (Exception e) {
+                        retryAsync(exchange, attempt, state, key, e);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            retryAsync(exchange, attempt, state, key, e);
+        }
+    }
+
+    /**
+     * 与同步请求相同的失败处理，只是重试不在当前线程休眠，而是到点后交给调度器线程重新发起
+     */
+    private void retryAsync(AsyncExchange exchange, int attempt, ProxyState state, String key, Exception e) {
+        if (exchange.result.isDone()) {
+            // 调用方已放弃，取消导致的失败不计入代理失败
+            return;
+        }
+        markFail(state, key, exchange.config);
+        log.warn("[OkHttpProxyDispatcher] 异步请求失败，方法={}，URL={}，账户={}，代理={}[{}]，失败次数={}/{}, 错误：{}",
+                exchange.method, exchange.url, exchange.config.getAccount(), key, proxyTypeName(exchange.config), state.getFailCount(), MAX_FAIL, e.getMessage());
+        if (attempt == MAX_RETRY || !isRetryableProxyError(e)) {
+            exchange.result.completeExceptionally(new IOException("请求全部重试失败：" + e.getMessage(), e));
+            return;
+        }
+        evictClient(key);
+        try {
+            // 刷新自动代理是同步请求，不能放在定时线程上执行
+            retryScheduler.schedule(() -> asyncDispatcher.executorService().execute(() -> attemptAsync(exchange, attempt + 1, true)),
+                    RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException rejected) {
+            exchange.result.completeExceptionally(new IOException("请求全部重试失败：" + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * 同步执行 Call，登记到当前线程的取消范围，范围取消时 Call 立即中断
+     */
+    private Response executeCall(OkHttpClient client, Request request) throws IOException {
+        HttpCallScope scope = HttpCallScope.current();
+        Call call = client.newCall(request);
+        if (scope == null) {
+            return call.execute();
+        }
+        scope.register(call);
+        try {
+            return call.execute();
+        } finally {
+            scope.unregister(call);
+        }
+    }
+
+    /**
+     * 构建请求，仅支持 GET 和 POST
+     * @param full 完整响应模式，未指定 Accept-Encoding 时声明支持压缩，由 {@link #readResult} 手动解压
+     */
+    private Request buildRequest(String method, String url, String body, Map<String, String> headers, boolean full) {
+        Request.Builder requestBuilder = new Request.Builder().url(url);
+        if ("POST".equalsIgnoreCase(method)) {
+            String contentType = headers != null ? headers.getOrDefault("content-type", "application/json") : "application/json";
+            // 确保请求体 MIME 和 Header 一致
+            RequestBody requestBody = RequestBody.create(
+                    StringUtils.isBlank(body) ? "" : body,
+                    MediaType.parse(contentType)
+            );
+            // OkHttp 不自动设置 Content-Type 头，所以手动设置
+            requestBuilder.addHeader("Content-Type", contentType);
+            requestBuilder.post(requestBody);
+        } else if ("GET".equalsIgnoreCase(method)) {
+            requestBuilder.get();
+        } else {
+            throw new UnsupportedOperationException("仅支持 GET 和 POST 方法");
+        }
+
+        if (headers != null) {
+            headers.forEach((k, v) -> {
+                if (k != null && v != null) {
+                    requestBuilder.addHeader(k, v);
+                }
+            });
+        }
+
+        // 添加默认伪装头（若 headers 中未指定）
+        if (full && !requestBuilder.build().headers().names().contains("Accept-Encoding")) {
+            requestBuilder.header("Accept-Encoding", "gzip, deflate, br, zstd");
+        }
+        return requestBuilder.build();
+    }
+
+    /**
+     * 读取响应体并解码
+     * 普通模式：JSON 按声明编码读取，其余按 Content-Type 中的 GBK/UTF-8 解码
+     * 完整模式：手动处理 Gzip（即使服务器未声明），强制 UTF-8 解码
+     */
+    private HttpResult readResult(Response response, long cost, boolean full) throws IOException {
+        int code = response.code();
+        String respBody;
+        if (full) {
+            ResponseBody responseBody = response.body();
+            byte[] bytes = responseBody != null ? responseBody.bytes() : new byte[0];
+            log.debug("Content-Type: {}", response.header("Content-Type"));
+            log.debug("Content-Encoding: {}", response.header("Content-Encoding"));
+            if (isGzipCompressed(bytes)) {
+                bytes = decompressGzip(bytes);
+            }
+            respBody = new String(bytes, StandardCharsets.UTF_8);
+        } else {
+            String contentType = Objects.requireNonNull(response.header("Content-Type", "")).toLowerCase();
+            if (contentType.contains("application/json")) {
+                respBody = response.body() != null ? response.body().string() : null;
+            } else {
+                byte[] bytes = response.body() != null ? response.body().bytes() : new byte[0];
+                Charset charset = StandardCharsets.UTF_8; // 默认
+                if (contentType.contains("gbk") || contentType.contains("gb2312")) {
+                    charset = Charset.forName("GBK");
+                }
+                respBody = new String(bytes, charset);
+            }
+        }
+
+        Map<String, List<String>> respHeaders = response.headers().toMultimap();
+
+        // 提取特定 Cookie（示例，如果需要）
+        String cookieToken = null;
+        List<String> setCookies = respHeaders.get("Set-Cookie");
+        if (setCookies != null) {
+            for (String cookie : setCookies) {
+                Matcher matcher = TOKEN_COOKIE.matcher(cookie);
+                if (matcher.find()) {
+                    cookieToken = matcher.group(1);
+                    break;
+                }
+            }
+        }
+        Date serverDate = response.headers().getDate("Date");
+        return new HttpResult(respBody, respHeaders, code, cookieToken, cost, serverDate != null ? serverDate.getTime() : 0);
+    }
+
+    private static String proxyTypeName(ConfigAccountVO config) {
+        return (config.getProxyType() == null || config.getProxyType() == 0) ? "无代理" : (config.getProxyType() == 1 ? "HTTP" : "SOCKS");
+    }
+
     /**
      * 执行请求，返回图片字节数组
      * @param method GET/POST，一般请求验证码用GET
@@ -536,6 +992,9 @@ public class OkHttpProxyDispatcher {
         boolean forceRefresh = false;
 
         for (int attempt = 0; attempt <= MAX_RETRY; attempt++) {
+            if (HttpCallScope.isCurrentCancelled()) {
+                throw new IOException(CANCELED_MESSAGE);
+            }
             if (!refreshAutoProxyIfNeeded(config, forceRefresh)) {
                 throw new IOException("自动代理获取失败");
             }
@@ -587,7 +1046,7 @@ public class OkHttpProxyDispatcher {
                     requestBuilder.header("Accept-Language", "zh-CN,zh;q=0.9");
                 }
 
-                try (Response response = client.newCall(requestBuilder.build()).execute()) {
+                try (Response response = executeCall(client, requestBuilder.build())) {
                     int code = response.code();
                     ResponseBody responseBody = response.body();
 
@@ -596,7 +1055,7 @@ public class OkHttpProxyDispatcher {
                         if (bytes.length == 0) {
                             throw new IOException("响应体为空");
                         }
-                        state.reset();
+                        markSuccess(state, config);
                         log.info("[OkHttpProxyDispatcher] 请求成功，方法={}，URL={}，代理={}[{}]", method, url, key, config.getProxyType() == 1 ? "HTTP" : "SOCKS");
 
                         ImageResult result = new ImageResult();
@@ -610,14 +1069,18 @@ public class OkHttpProxyDispatcher {
                     }
                 }
             } catch (Exception e) {
-                state.fail();
+                if (HttpCallScope.isCurrentCancelled()) {
+                    // 扫水已放弃该请求，不计入代理失败
+                    throw new IOException(CANCELED_MESSAGE, e);
+                }
+                markFail(state, key, config);
                 log.warn("[OkHttpProxyDispatcher] 请求失败，方法={}，URL={}，代理={}[{}]，失败次数={}/{}, 错误：{}",
                         method, url, key, config.getProxyType() == 1 ? "HTTP" : "SOCKS", state.getFailCount(), MAX_FAIL, e.getMessage());
                 if (attempt == MAX_RETRY || !isRetryableProxyError(e)) {
                     throw new IOException("请求全部重试失败：" + e.getMessage(), e);
                 }
                 forceRefresh = true;
-                clientMap.remove(config.getProxyKey());
+                evictClient(key);
                 sleepBeforeRetry();
             }
         }
@@ -654,6 +1117,11 @@ public class OkHttpProxyDispatcher {
         private int status;
         private String cookieToken;     // 如果需要提取特定 Cookie
         private final long durationMs;  // 耗时
+        private long serverTimeMillis;  // 服务器时间（响应头 Date，毫秒），没有时为 0
+
+        public HttpResult(String body, Map<String, List<String>> headers, int status, String cookieToken, long durationMs) {
+            this(body, headers, status, cookieToken, durationMs, 0);
+        }
     }
     @Data
     public class ImageResult {
@@ -673,6 +1141,31 @@ public class OkHttpProxyDispatcher {
         }
     }
 
+    /**
+     * 一次异步请求（含重试）的参数和结果
+     */
+    private static class AsyncExchange {
+        private final String method;
+        private final String url;
+        private final String body;
+        private final Map<String, String> headers;
+        private final ConfigAccountVO config;
+        private final boolean full;
+        private final CompletableFuture<HttpResult> result = new CompletableFuture<>();
+        /** 当前尝试的 Call */
+        private volatile Call call;
+
+        private AsyncExchange(String method, String url, String body, Map<String, String> headers,
+                              ConfigAccountVO config, boolean full) {
+            this.method = method;
+            this.url = url;
+            this.body = body;
+            this.headers = headers;
+            this.config = config;
+            this.full = full;
+        }
+    }
+
     private static class ProxyState {
         private int failCount = 0;
         private long lastFailTime = 0;
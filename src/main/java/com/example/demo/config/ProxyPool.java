@@ -0,0 +1,487 @@
+package com.example.demo.config;
+
+import com.example.demo.common.constants.Constants;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * 自动代理池(type=3)：后台提前从代理商拉取 size 个代理并验证连通，按建连耗时和失败率打分，
+ * 账号取代理时直接拿分数最好的空闲代理，不在请求线程上调代理商接口
+ * 分配给账号的代理在过期前 refresh-before-ms 换新，请求失败换下来的代理不再放回池中
+ * 请求结果由 {@link OkHttpProxyDispatcher} 通过 {@link #report} 回报，统计按 host:port 保留，代理商再次下发同一 IP 时沿用
+ */
+@Slf4j
+@Component
+public class ProxyPool implements InitializingBean, DisposableBean {
+
+    public static final String IDLE = "idle";
+    public static final String ASSIGNED = "assigned";
+    public static final String OK = "ok";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    /** 建连耗时的指数移动平均权重 */
+    private static final double EWMA_ALPHA = 0.3;
+    /** 代理商连续拉取失败时的最长退避(毫秒) */
+    private static final long MAX_FETCH_BACKOFF_MS = 60_000;
+
+    /**
+     * 是否开启代理池，关闭时自动代理仍在过期后同步拉取
+     */
+    @Value("${sweepwater.proxy-pool.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 池中保持的已验证空闲代理数
+     */
+    @Value("${sweepwater.proxy-pool.size:4}")
+    private int size = 4;
+
+    /**
+     * 代理商取 IP 接口，返回 host:port（每行一个），为空时使用 911proxy
+     */
+    @Value("${sweepwater.proxy-pool.provider-url:}")
+    private String providerUrl;
+
+    /**
+     * 代理有效期(毫秒)，与代理商 life 对齐并留出余量
+     */
+    @Value("${sweepwater.proxy-pool.life-ms:240000}")
+    private long lifeMs = 240_000;
+
+    /**
+     * 过期前多久(毫秒)换新
+     */
+    @Value("${sweepwater.proxy-pool.refresh-before-ms:60000}")
+    private long refreshBeforeMs = 60_000;
+
+    /**
+     * 后台检查间隔(毫秒)：剔除过期代理、复测空闲代理、补足数量
+     */
+    @Value("${sweepwater.proxy-pool.check-ms:5000}")
+    private long checkMs = 5000;
+
+    /**
+     * 验证代理时的建连超时(毫秒)
+     */
+    @Value("${sweepwater.proxy-pool.connect-timeout-ms:3000}")
+    private int connectTimeoutMs = 3000;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    private final Object lock = new Object();
+    /** 已验证、未分配的代理 */
+    private final List<PooledProxy> idle = new ArrayList<>();
+    /** 账号(网站:账号) → 分配给它的代理 */
+    private final Map<String, PooledProxy> assigned = new HashMap<>();
+    /** host:port → 建连耗时和请求成败统计，代理换下后保留到过期后一个 life-ms */
+    private final Map<String, ProxyStats> stats = new HashMap<>();
+    private final AtomicBoolean refillQueued = new AtomicBoolean();
+    /** 代理商连续拉取失败次数，只在维护线程上读写 */
+    private int fetchFailures;
+    /** 拉取失败后的退避截止时间，期间不向代理商补充，取代理也不触发补充 */
+    private volatile long fetchBackoffUntil;
+
+    private final OkHttpClient providerClient = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(10, TimeUnit.SECONDS)
+            .callTimeout(10, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(false)
+            .build();
+
+    private ScheduledExecutorService maintainer;
+    private LongSupplier clock = System::currentTimeMillis;
+    /** 验证代理：返回建连耗时(毫秒)，不可用返回 -1 */
+    private ToLongFunction<PooledProxy> prober = this::connect;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        sweepMetrics.gaugeProxyPool(IDLE, this, ProxyPool::idleCount);
+        sweepMetrics.gaugeProxyPool(ASSIGNED, this, ProxyPool::assignedCount);
+        maintainer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("proxy-pool-%d").setDaemon(true).build());
+        maintainer.scheduleWithFixedDelay(this::maintainQuietly, 0, checkMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 代理池中账号的标识，与 {@link OkHttpProxyDispatcher} 的自动代理缓存一致
+     */
+    public static String key(String websiteId, String account) {
+        return (websiteId != null ? websiteId : "") + ":" + account;
+    }
+
+    /**
+     * 取账号当前使用的代理，没有或即将过期时分配分数最好的空闲代理，不阻塞
+     * 到了换新时间但池中暂无空闲代理时，继续使用当前代理直到过期
+     * @param replace 当前代理请求失败，换一个新的；池中暂无空闲代理时也换下，不再使用
+     * @return 池中暂无可用代理时返回 null（同时触发后台补充）
+     */
+    public Lease acquire(String key, boolean replace) {
+        PooledProxy chosen;
+        synchronized (lock) {
+            long now = clock.getAsLong();
+            PooledProxy current = assigned.get(key);
+            if (current != null && !replace && current.isFresh(now)) {
+                return current.lease();
+            }
+            chosen = pollBest(now);
+            if (chosen != null) {
+                assigned.put(key, chosen);
+                if (replace && current != null) {
+                    log.info("[ProxyPool] 账号 {} 的代理 {}:{} 请求失败，换为 {}:{}", key, current.host, current.port, chosen.host, chosen.port);
+                }
+            } else if (current != null && !replace && current.isAlive(now)) {
+                chosen = current;
+            } else if (current != null) {
+                assigned.remove(key);
+                log.info("[ProxyPool] 账号 {} 的代理 {}:{} {}，暂无空闲代理可换", key, current.host, current.port, replace ? "请求失败" : "已过期");
+            }
+        }
+        requestRefill();
+        if (chosen == null) {
+            log.warn("[ProxyPool] 暂无可用代理，账号={}", key);
+            return null;
+        }
+        return chosen.lease();
+    }
+
+    /**
+     * 回报一次经该代理发出的请求结果，计入代理的失败率
+     */
+    public void report(String host, int port, boolean success) {
+        synchronized (lock) {
+            ProxyStats stat = stats.get(host + ":" + port);
+            if (stat != null) {
+                stat.report(success);
+            }
+        }
+    }
+
+    /**
+     * 账号不再使用自动代理时归还（未过期的代理放回池中）
+     */
+    public void release(String key) {
+        synchronized (lock) {
+            PooledProxy proxy = assigned.remove(key);
+            if (proxy != null && proxy.isFresh(clock.getAsLong())) {
+                idle.add(proxy);
+            }
+        }
+    }
+
+    int idleCount() {
+        synchronized (lock) {
+            return idle.size();
+        }
+    }
+
+    int assignedCount() {
+        synchronized (lock) {
+            return assigned.size();
+        }
+    }
+
+    int failureCount(String host, int port) {
+        synchronized (lock) {
+            ProxyStats stat = stats.get(host + ":" + port);
+            return stat != null ? stat.failures : 0;
+        }
+    }
+
+    private PooledProxy pollBest(long now) {
+        idle.removeIf(p -> !p.isFresh(now));
+        PooledProxy best = null;
+        for (PooledProxy p : idle) {
+            if (best == null || p.score() < best.score()) {
+                best = p;
+            }
+        }
+        if (best != null) {
+            idle.remove(best);
+        }
+        return best;
+    }
+
+    /**
+     * 取走空闲代理后在后台补充，同一时间最多排队一次；代理商拉取失败的退避期内不补充，等定时检查
+     */
+    private void requestRefill() {
+        ScheduledExecutorService executor = maintainer;
+        if (executor == null || clock.getAsLong() < fetchBackoffUntil || !refillQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(this::maintainQuietly);
+        } catch (RejectedExecutionException e) {
+            refillQueued.set(false);
+        }
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (Exception e) {
+            log.error("[ProxyPool] 维护代理池异常", e);
+        }
+    }
+
+    /**
+     * 剔除过期代理，复测空闲代理，再从代理商补足：空闲数 = size + 下个检查周期内需要换新的已分配代理数
+     * 代理商拉取失败（请求异常、非 2xx、返回为空）时本轮不再拉取，之后按 check-ms 指数退避，最长 1 分钟
+     */
+    void maintain() {
+        refillQueued.set(false);
+        List<PooledProxy> toProbe;
+        int target;
+        synchronized (lock) {
+            long now = clock.getAsLong();
+            idle.removeIf(p -> !p.isFresh(now));
+            // 代理商在一个 life 内可能再次下发同一 IP，统计多留一个 life
+            stats.values().removeIf(stat -> stat.expireAt + lifeMs < now);
+            toProbe = new ArrayList<>(idle);
+            int rotating = (int) assigned.values().stream().filter(p -> !p.isFresh(now + checkMs)).count();
+            target = size + rotating;
+        }
+
+        for (PooledProxy proxy : toProbe) {
+            if (!probe(proxy)) {
+                synchronized (lock) {
+                    idle.remove(proxy);
+                }
+                log.info("[ProxyPool] 空闲代理 {}:{} 复测不可用，剔除", proxy.host, proxy.port);
+            }
+        }
+
+        int missing;
+        synchronized (lock) {
+            missing = target - idle.size();
+        }
+        if (missing > 0 && clock.getAsLong() < fetchBackoffUntil) {
+            log.debug("[ProxyPool] 代理商拉取退避中，缺 {} 个代理", missing);
+            return;
+        }
+        // 代理商偶尔返回不可用的 IP，多给一倍的拉取次数
+        for (int attempt = 0; missing > 0 && attempt < target * 2; attempt++) {
+            List<PooledProxy> fetched = fetch();
+            if (fetched.isEmpty()) {
+                backOffFetch();
+                return;
+            }
+            fetchFailures = 0;
+            for (PooledProxy proxy : fetched) {
+                if (!probe(proxy)) {
+                    sweepMetrics.countProxyFetch(INVALID);
+                    log.info("[ProxyPool] 新代理 {}:{} 验证失败，丢弃", proxy.host, proxy.port);
+                    continue;
+                }
+                sweepMetrics.countProxyFetch(OK);
+                synchronized (lock) {
+                    idle.add(proxy);
+                    missing = target - idle.size();
+                }
+                log.info("[ProxyPool] 新代理 {}:{} 入池，建连 {}ms", proxy.host, proxy.port, Math.round(proxy.latencyMs()));
+            }
+        }
+    }
+
+    private void backOffFetch() {
+        fetchFailures++;
+        long backoff = Math.min(MAX_FETCH_BACKOFF_MS, checkMs << Math.min(fetchFailures - 1, 10));
+        fetchBackoffUntil = clock.getAsLong() + backoff;
+        log.warn("[ProxyPool] 代理商连续 {} 次拉取失败，{}ms 内不再拉取", fetchFailures, backoff);
+    }
+
+    /**
+     * 从代理商拉取代理，失败返回空列表
+     */
+    private List<PooledProxy> fetch() {
+        List<PooledProxy> proxies = new ArrayList<>();
+        String url = StringUtils.isNotBlank(providerUrl) ? providerUrl : Constants.AUTO_PROXY_API_URL;
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .addHeader("User-Agent", Constants.USER_AGENT)
+                .build();
+        try (Response response = providerClient.newCall(request).execute()) {
+            String text = response.body() != null ? response.body().string().trim() : "";
+            if (!response.isSuccessful() || text.isEmpty()) {
+                sweepMetrics.countProxyFetch(FAILED);
+                log.warn("[ProxyPool] 代理商返回异常，状态码={}，内容={}", response.code(), text);
+                return proxies;
+            }
+            long expireAt = clock.getAsLong() + lifeMs;
+            for (String line : text.split("\\s+")) {
+                String[] arr = line.trim().split(":");
+                if (arr.length != 2 || !StringUtils.isNumeric(arr[1])) {
+                    sweepMetrics.countProxyFetch(INVALID);
+                    log.warn("[ProxyPool] 代理格式非法: {}", line);
+                    continue;
+                }
+                proxies.add(newProxy(arr[0], Integer.parseInt(arr[1]), expireAt));
+            }
+        } catch (IOException e) {
+            sweepMetrics.countProxyFetch(FAILED);
+            log.warn("[ProxyPool] 拉取代理失败: {}", e.getMessage());
+        }
+        return proxies;
+    }
+
+    /**
+     * 新拉取的代理，沿用同一 host:port 之前的统计
+     */
+    private PooledProxy newProxy(String host, int port, long expireAt) {
+        synchronized (lock) {
+            ProxyStats stat = stats.computeIfAbsent(host + ":" + port, k -> new ProxyStats());
+            stat.expireAt = Math.max(stat.expireAt, expireAt);
+            return new PooledProxy(host, port, expireAt, stat);
+        }
+    }
+
+    private boolean probe(PooledProxy proxy) {
+        long latency = prober.applyAsLong(proxy);
+        synchronized (lock) {
+            proxy.record(latency);
+        }
+        return latency >= 0;
+    }
+
+    private long connect(PooledProxy proxy) {
+        long start = System.nanoTime();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(proxy.host, proxy.port), connectTimeoutMs);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 分配给账号的代理
+     * @param expireTime 代理过期时间
+     * @param refreshAt  代理池为该账号换新的时间
+     */
+    public record Lease(String host, int port, long expireTime, long refreshAt) {
+    }
+
+    /**
+     * 同一 host:port 的统计：建连耗时 EWMA，复测和请求的成败次数
+     */
+    private static final class ProxyStats {
+        private double latencyMs = -1;
+        private int successes;
+        private int failures;
+        /** 最近一次下发的该代理的过期时间 */
+        private long expireAt;
+
+        void record(long latency) {
+            if (latency < 0) {
+                failures++;
+                return;
+            }
+            successes++;
+            latencyMs = latencyMs < 0 ? latency : EWMA_ALPHA * latency + (1 - EWMA_ALPHA) * latencyMs;
+        }
+
+        void report(boolean success) {
+            if (success) {
+                successes++;
+            } else {
+                failures++;
+            }
+        }
+
+        double score() {
+            double failureRate = (double) failures / Math.max(1, successes + failures);
+            return Math.max(1, latencyMs) * (1 + 4 * failureRate);
+        }
+    }
+
+    /**
+     * 池中的代理：分数 = 建连耗时 EWMA × (1 + 4 × 失败率)，越小越好
+     */
+    final class PooledProxy {
+        private final String host;
+        private final int port;
+        private final long expireAt;
+        private final ProxyStats stats;
+
+        PooledProxy(String host, int port, long expireAt, ProxyStats stats) {
+            this.host = host;
+            this.port = port;
+            this.expireAt = expireAt;
+            this.stats = stats;
+        }
+
+        String host() {
+            return host;
+        }
+
+        int port() {
+            return port;
+        }
+
+        void record(long latency) {
+            stats.record(latency);
+        }
+
+        double score() {
+            return stats.score();
+        }
+
+        double latencyMs() {
+            return stats.latencyMs;
+        }
+
+        boolean isFresh(long now) {
+            return expireAt - refreshBeforeMs > now;
+        }
+
+        boolean isAlive(long now) {
+            return expireAt > now;
+        }
+
+        Lease lease() {
+            return new Lease(host, port, expireAt, expireAt - refreshBeforeMs);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.demo.config;
 
 import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 
 import javax.net.SocketFactory;
@@ -19,15 +22,22 @@ import java.util.concurrent.TimeUnit;
 public class Socks5ProxyClientBuilder {
 
     /**
-     * 创建支持 SOCKS5 认证的 OkHttpClient
-     * @param proxyHost 代理服务器地址
-     * @param proxyPort 代理端口（通常 1080）
-     * @param username  认证用户名（可为空）
-     * @param password  认证密码（可为空）
-     * @return 配置好的 OkHttpClient 实例
+     * 创建支持 SOCKS5 认证的 OkHttpClient，使用指定的连接池（按代理隔离的 keep-alive 连接）
+     * @param proxyHost       代理服务器地址
+     * @param proxyPort       代理端口（通常 1080）
+     * @param username        认证用户名（可为空）
+     * @param password        认证密码（可为空）
+     * @param connectionPool  连接池
+     * @param listenerFactory 连接事件监听（复用率统计）
+     * @param interceptor     应用层拦截器（请求录制/回放）
+     * @param dispatcher      异步调度器（各代理客户端共用，按域名限制在途请求数）
      */
     public static OkHttpClient createSocks5Client(String proxyHost, int proxyPort,
-                                                  String username, String password) {
+                                                  String username, String password,
+                                                  ConnectionPool connectionPool,
+                                                  EventListener.Factory listenerFactory,
+                                                  Interceptor interceptor,
+                                                  Dispatcher dispatcher) {
         return new OkHttpClient.Builder()
                 .socketFactory(new Socks5SocketFactory(proxyHost, proxyPort, username, password))
                 .proxy(Proxy.NO_PROXY) // 必须设置 NO_PROXY，否则 OkHttp 会尝试系统代理
@@ -36,7 +46,10 @@ public class Socks5ProxyClientBuilder {
                 .readTimeout(10, TimeUnit.SECONDS)
                 .callTimeout(10, TimeUnit.SECONDS)
                 .retryOnConnectionFailure(false)
-                .connectionPool(new ConnectionPool(0, 1, TimeUnit.MINUTES))
+                .connectionPool(connectionPool)
+                .eventListenerFactory(listenerFactory)
+                .addInterceptor(interceptor)
+                .dispatcher(dispatcher)
                 .build();
     }
 
@@ -221,6 +234,22 @@ public class Socks5ProxyClientBuilder {
             @Override public boolean isConnected() {
                 return proxySocket != null && proxySocket.isConnected();
             }
+            // 连接池复用前会检查 socket 状态和读超时，需要转发给真实连接
+            @Override public boolean isClosed() {
+                return proxySocket != null && proxySocket.isClosed();
+            }
+            @Override public boolean isInputShutdown() {
+                return proxySocket != null && proxySocket.isInputShutdown();
+            }
+            @Override public boolean isOutputShutdown() {
+                return proxySocket != null && proxySocket.isOutputShutdown();
+            }
+            @Override public synchronized void setSoTimeout(int timeout) throws SocketException {
+                if (proxySocket != null) proxySocket.setSoTimeout(timeout);
+            }
+            @Override public synchronized int getSoTimeout() throws SocketException {
+                return proxySocket != null ? proxySocket.getSoTimeout() : 0;
+            }
             // 其他需要重写的 Socket 方法...
         }
     }
@@ -11,6 +11,7 @@ import com.example.demo.common.enmu.WebsiteType;
 import com.example.demo.common.enmu.XinBaoOddsFormatType;
 import com.example.demo.common.utils.WebDriverFactory;
 import com.example.demo.config.HttpProxyConfig;
+import com.example.demo.config.OkHttpProxyDispatcher;
 import com.example.demo.core.exception.BusinessException;
 import com.example.demo.core.result.Result;
 import com.example.demo.core.support.BaseController;
@@ -58,6 +59,17 @@ public class ProxyController extends BaseController {
     @Resource
     private WebsiteService websiteService;
 
+    @Resource
+    private OkHttpProxyDispatcher dispatcher;
+
+    /**
+     * 代理连接池统计：连接复用率、节省的握手耗时、当前连接数
+     */
+    @GetMapping("/pool/stats")
+    public Result poolStats() {
+        return Result.success(dispatcher.getPoolStats());
+    }
+
     /**
      * 构建 Cookie 参数
      * @param account
@@ -18,10 +18,12 @@ package com.example.demo.controller;
 
 import cn.hutool.json.JSONArray;
 import com.example.demo.api.SweepwaterService;
+import com.example.demo.api.SweepwaterWriter;
 import com.example.demo.core.result.Result;
 import com.example.demo.core.support.BaseController;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.SweepwaterPageVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.annotation.Resource;
@@ -30,7 +32,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
-
 @Slf4j
 @Tag(name = "扫水列表")
 @RequestMapping("/api")
@@ -47,6 +48,18 @@ public class SweepwaterController extends BaseController {
         return Result.success(sweepwaterService.getSweepwaters(admin.getUsername()));
     }
 
+    // 按到达顺序倒序；轮询时传上次返回的 since，只返回新到达的记录；向后翻页传上次返回的 before
+    // 游标是本实例视图的到达序号，多实例部署时需要按用户会话粘滞，请求落到其它实例时游标无效，会从最新一条重新开始
+    @Operation(summary = "按游标获取扫水列表")
+    @GetMapping("/sweepwaters/page")
+    public Result<SweepwaterPageVO> pageWebsites(@RequestParam(required = false) Long since,
+                                                 @RequestParam(required = false) Long before,
+                                                 @RequestParam(defaultValue = "1000") Integer limit) {
+        AdminLoginDTO admin = getUser();
+        int size = Math.max(1, Math.min(limit, SweepwaterWriter.MAX_SIZE));
+        return Result.success(sweepwaterService.getSweepwaters(admin.getUsername(), since, before, size));
+    }
+
     @Operation(summary = "清空扫水列表")
     @DeleteMapping("/sweepwaters")
     public Result delWebsites() {
@@ -0,0 +1,248 @@
+package com.example.demo.core.bet;
+
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 扫水投注派发队列：比对命中的投注机会按 水位 - 排队时长扣减 排序，高水位、新鲜的先投
+ * 每个机会带截止时间，排队超过 deadline-ms 的直接丢弃（赔率大概率已变），不再发给盘口
+ * 队列满时淘汰排序最靠后的机会
+ * 排序值 = 水位(千分位) - 每秒扣减 * 排队秒数，所有机会按同样速率扣减，相对顺序不随时间变化，入队时算一次即可
+ */
+@Slf4j
+@Component
+public class BetDispatchQueue implements InitializingBean, DisposableBean {
+
+    public static final String DROPPED_METER = "sweepwater.bet.dropped";
+
+    /**
+     * 派发线程数，即同时进行中的扫水投注数
+     */
+    @Value("${sweepwater.bet-dispatch.workers:100}")
+    private int workers = 100;
+
+    @Value("${sweepwater.bet-dispatch.capacity:200}")
+    private int capacity = 200;
+
+    /**
+     * 从比对命中到开始投注的最长等待(毫秒)
+     */
+    @Value("${sweepwater.bet-dispatch.deadline-ms:1500}")
+    private long deadlineMs = 1500;
+
+    /**
+     * 每排队 1 秒扣减的水位(千分位)
+     */
+    @Value("${sweepwater.bet-dispatch.age-penalty-per-second:10}")
+    private long agePenaltyPerSecond = 10;
+
+    /**
+     * priority=按水位和排队时长，fifo=按命中顺序（回退用）
+     */
+    @Value("${sweepwater.bet-dispatch.ordering:priority}")
+    private String ordering = "priority";
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    private final PriorityQueue<Opportunity> queue = new PriorityQueue<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final List<Thread> threads = new ArrayList<>();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    private Counter expiredCounter;
+    private Counter evictedCounter;
+    private boolean fifo;
+    private volatile boolean running;
+
+    @Override
+    public void afterPropertiesSet() {
+        fifo = "fifo".equalsIgnoreCase(ordering);
+        expiredCounter = Counter.builder(DROPPED_METER).description("超过截止时间未投注的机会").tag("reason", "expired").register(meterRegistry);
+        evictedCounter = Counter.builder(DROPPED_METER).description("队列已满被淘汰的机会").tag("reason", "evicted").register(meterRegistry);
+        running = true;
+        for (int i = 0; i < workers; i++) {
+            Thread thread = new Thread(this::work, "bet-dispatch-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        log.info("扫水投注派发队列启动，线程数={}，容量={}，截止时间={}ms，排序={}", workers, capacity, deadlineMs, fifo ? "fifo" : "priority");
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+    }
+
+    /**
+     * 提交投注机会
+     * @param waterMilli 水位(千分位)
+     * @param bet        投注动作
+     * @return 是否入队（队列已满且排序最靠后时不入队）
+     */
+    public boolean submit(String username, SweepwaterDTO dto, long waterMilli, Runnable bet) {
+        long now = System.nanoTime();
+        long nowMs = TimeUnit.NANOSECONDS.toMillis(now);
+        long rank = fifo ? -now : waterMilli * 1000 + agePenaltyPerSecond * nowMs;
+        Opportunity opportunity = new Opportunity(username, dto, rank, now, now + TimeUnit.MILLISECONDS.toNanos(deadlineMs), bet);
+        lock.lock();
+        try {
+            if (queue.size() >= capacity) {
+                purgeExpired(now);
+            }
+            if (queue.size() >= capacity) {
+                Opportunity worst = worst();
+                if (worst.rank >= rank) {
+                    drop(evictedCounter, evicted, opportunity, "队列已满");
+                    return false;
+                }
+                queue.remove(worst);
+                drop(evictedCounter, evicted, worst, "队列已满");
+            }
+            queue.offer(opportunity);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    private void work() {
+        while (running) {
+            Opportunity opportunity;
+            try {
+                opportunity = take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (System.nanoTime() - opportunity.deadlineNanos > 0) {
+                drop(expiredCounter, expired, opportunity, "超过截止时间");
+                continue;
+            }
+            SweepwaterDTO dto = opportunity.dto;
+            sweepMetrics.stop(SweepMetrics.Stage.BET_WAIT, dto.getWebsiteIdA(), dto.getWebsiteIdB(), opportunity.username, opportunity.detectedNanos);
+            dispatched.increment();
+            long betStart = sweepMetrics.start();
+            try {
+                opportunity.bet.run();
+            } catch (Exception e) {
+                log.error("立即投注异常,扫水id={}", dto.getId(), e);
+            } finally {
+                sweepMetrics.stop(SweepMetrics.Stage.BET, dto.getWebsiteIdA(), dto.getWebsiteIdB(), opportunity.username, betStart);
+            }
+        }
+    }
+
+    private Opportunity take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (queue.isEmpty()) {
+                notEmpty.await();
+            }
+            return queue.poll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void purgeExpired(long now) {
+        Iterator<Opportunity> it = queue.iterator();
+        while (it.hasNext()) {
+            Opportunity opportunity = it.next();
+            if (now - opportunity.deadlineNanos > 0) {
+                it.remove();
+                drop(expiredCounter, expired, opportunity, "超过截止时间");
+            }
+        }
+    }
+
+    private Opportunity worst() {
+        Opportunity worst = null;
+        for (Opportunity opportunity : queue) {
+            if (worst == null || opportunity.compareTo(worst) > 0) {
+                worst = opportunity;
+            }
+        }
+        return worst;
+    }
+
+    private static void drop(Counter counter, LongAdder adder, Opportunity opportunity, String reason) {
+        counter.increment();
+        adder.increment();
+        log.info("放弃投注机会，原因={}，用户={}，扫水id={}，水位={}，已等待={}ms", reason, opportunity.username,
+                opportunity.dto.getId(), opportunity.dto.getWater(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - opportunity.detectedNanos));
+    }
+
+    /**
+     * 排队中的投注机会，rank 越大越先投，相同时截止时间早的先投
+     */
+    private static final class Opportunity implements Comparable<Opportunity> {
+        private final String username;
+        private final SweepwaterDTO dto;
+        private final long rank;
+        private final long detectedNanos;
+        private final long deadlineNanos;
+        private final Runnable bet;
+
+        private Opportunity(String username, SweepwaterDTO dto, long rank, long detectedNanos, long deadlineNanos, Runnable bet) {
+            this.username = username;
+            this.dto = dto;
+            this.rank = rank;
+            this.detectedNanos = detectedNanos;
+            this.deadlineNanos = deadlineNanos;
+            this.bet = bet;
+        }
+
+        @Override
+        public int compareTo(Opportunity o) {
+            int c = Long.compare(o.rank, rank);
+            return c != 0 ? c : Long.compare(deadlineNanos, o.deadlineNanos);
+        }
+    }
+}
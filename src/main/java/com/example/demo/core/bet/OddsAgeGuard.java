@@ -0,0 +1,55 @@
+package com.example.demo.core.bet;
+
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 投注前的赔率年龄检查：两边赔率从拉取完成到现在按单调时钟计算，不受服务器对时影响
+ * 任一边超过 max-age-ms 即放弃投注，不再请求盘口预览；没有拉取时间戳的（如手动投注）不检查
+ */
+@Slf4j
+@Component
+public class OddsAgeGuard {
+
+    /**
+     * 赔率最大年龄(毫秒)，0 表示不检查
+     */
+    @Value("${sweepwater.odds.max-age-ms:3000}")
+    private long maxAgeMs = 3000;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    /**
+     * 记录两边赔率年龄
+     * @return 两边赔率都在最大年龄内
+     */
+    public boolean isFresh(String username, SweepwaterDTO dto) {
+        long now = System.nanoTime();
+        boolean freshA = check(username, dto, dto.getWebsiteIdA(), dto.getOddsFetchedNanosA(), dto.getOddsServerTimeA(), now);
+        boolean freshB = check(username, dto, dto.getWebsiteIdB(), dto.getOddsFetchedNanosB(), dto.getOddsServerTimeB(), now);
+        return freshA && freshB;
+    }
+
+    private boolean check(String username, SweepwaterDTO dto, String websiteId, long fetchedNanos, Long serverTime, long now) {
+        if (fetchedNanos == 0) {
+            return true;
+        }
+        long ageNanos = now - fetchedNanos;
+        sweepMetrics.recordOddsAge(websiteId, ageNanos);
+        long ageMs = TimeUnit.NANOSECONDS.toMillis(ageNanos);
+        if (maxAgeMs <= 0 || ageMs <= maxAgeMs) {
+            return true;
+        }
+        sweepMetrics.countStaleOdds(websiteId);
+        log.info("赔率过期放弃投注，用户={}，扫水id={}，网站={}，赔率年龄={}ms，上限={}ms，盘口服务器时间={}",
+                username, dto.getId(), websiteId, ageMs, maxAgeMs, serverTime);
+        return false;
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.demo.core.cluster;
+
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.IdUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RBatch;
+import org.redisson.api.RFuture;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 扫水用户分片（多实例部署）
+ * 各实例定时把自己写入 Redis 节点表（zset，分数为心跳时间），按存活节点构建一致性哈希环，
+ * 平台用户只由环上的所属节点扫水；节点加入/离开时只有少部分用户迁移。
+ * 交接期间靠每个用户一个租约避免重复扫水：所属节点用 SET NX PX 获取租约，原节点在该用户没有进行中的扫水后才释放，
+ * 新节点拿到租约之前不会扫该用户
+ */
+@Slf4j
+@Component
+public class SweepShardManager implements InitializingBean, DisposableBean {
+
+    @Resource(name = "businessPlatformRedissonClient")
+    private RedissonClient businessPlatformRedissonClient;
+
+    /**
+     * 是否开启分片，关闭时本实例扫所有用户（单实例部署）
+     */
+    @Value("${sweepwater.cluster.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 节点标识，不配置时使用 主机名-随机串
+     */
+    @Value("${sweepwater.cluster.node-id:}")
+    private String nodeId;
+
+    /**
+     * 心跳间隔(毫秒)，同时也是租约续期、成员变更检查的间隔
+     */
+    @Value("${sweepwater.cluster.heartbeat-ms:1000}")
+    private long heartbeatMs = 1000;
+
+    /**
+     * 超过多久(毫秒)没有心跳视为节点离开
+     */
+    @Value("${sweepwater.cluster.node-ttl-ms:5000}")
+    private long nodeTtlMs = 5000;
+
+    /**
+     * 用户租约有效期(毫秒)，需大于心跳间隔的数倍，节点宕机后最多这么久由新节点接手
+     */
+    @Value("${sweepwater.cluster.lease-ms:10000}")
+    private long leaseMs = 10000;
+
+    /**
+     * 每个节点的虚拟节点数
+     */
+    @Value("${sweepwater.cluster.virtual-nodes:160}")
+    private int virtualNodes = 160;
+
+    /**
+     * 多久(毫秒)没有再出现在扫水用户中的用户不再维护租约
+     */
+    private static final long CANDIDATE_IDLE_MS = 30_000;
+
+    @Getter
+    private volatile ConsistentHashRing ring = new ConsistentHashRing(List.of(), 1);
+
+    // 用户 -> 本实例持有的租约到期时间（按发出续期请求的时间计算，早于 Redis 中的实际到期时间）
+    private final Map<String, Long> leases = new ConcurrentHashMap<>();
+    // 用户 -> 本实例进行中的扫水数
+    private final Map<String, AtomicInteger> inflight = new ConcurrentHashMap<>();
+    // 最近请求过扫水的用户 -> 最后请求时间
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService heartbeat;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            log.info("扫水分片未开启，本实例扫所有用户");
+            return;
+        }
+        if (StringUtils.isBlank(nodeId)) {
+            nodeId = NetUtil.getLocalHostName() + "-" + IdUtil.fastSimpleUUID().substring(0, 8);
+        }
+        // 先注册并构建一次哈希环，启动后第一轮扫水即可判断归属
+        heartbeat();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("sweep-shard-heartbeat-%d").setDaemon(true).build());
+        heartbeat.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        log.info("扫水分片已开启，节点:{}，心跳:{}ms，租约:{}ms", nodeId, heartbeatMs, leaseMs);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (heartbeat == null) {
+            return;
+        }
+        heartbeat.shutdown();
+        heartbeat.awaitTermination(heartbeatMs * 2, TimeUnit.MILLISECONDS);
+        try {
+            nodes().remove(nodeId);
+            // 退出时释放所有租约，其它节点在下一次心跳即可接手
+            long now = System.currentTimeMillis();
+            RBatch batch = businessPlatformRedissonClient.createBatch();
+            leases.forEach((username, until) -> {
+                if (until > now) {
+                    batch.getBucket(leaseKey(username)).deleteAsync();
+                }
+            });
+            batch.execute();
+        } catch (Exception e) {
+            log.warn("扫水分片退出时释放租约失败，等待租约自然过期", e);
+        }
+        leases.clear();
+        log.info("扫水分片节点已退出:{}", nodeId);
+    }
+
+    /**
+     * 本轮是否由本实例扫该用户；返回 true 时扫完必须调用 {@link #end(String)}
+     * @param username 平台用户名
+     */
+    public boolean tryBegin(String username) {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        candidates.put(username, now);
+        if (!nodeId.equals(ring.nodeFor(username))) {
+            return false;
+        }
+        // 留一个心跳间隔的余量，避免扫水过程中租约过期
+        Long until = leases.get(username);
+        if (until == null || until - heartbeatMs <= now) {
+            return false;
+        }
+        inflight.computeIfAbsent(username, u -> new AtomicInteger()).incrementAndGet();
+        return true;
+    }
+
+    public void end(String username) {
+        if (!enabled) {
+            return;
+        }
+        AtomicInteger count = inflight.get(username);
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 本实例当前持有租约的用户数
+     */
+    public int getLeaseCount() {
+        long now = System.currentTimeMillis();
+        return (int) leases.values().stream().filter(until -> until > now).count();
+    }
+
+    void heartbeat() {
+        try {
+            refreshMembers();
+            refreshLeases();
+        } catch (Exception e) {
+            // 续期失败时本地租约会自然到期，到期后本实例停止扫这些用户
+            log.warn("扫水分片心跳失败，节点:{}", nodeId, e);
+        }
+    }
+
+    private void refreshMembers() {
+        long now = System.currentTimeMillis();
+        RScoredSortedSet<String> nodes = nodes();
+        nodes.add(now, nodeId);
+        nodes.removeRangeByScore(0, true, now - nodeTtlMs, false);
+        Set<String> members = new HashSet<>(nodes.readAll());
+        members.add(nodeId);
+        if (!members.equals(ring.getNodes())) {
+            log.info("扫水分片节点变更:{} -> {}", ring.getNodes(), members);
+            ring = new ConsistentHashRing(members, virtualNodes);
+        }
+    }
+
+    private void refreshLeases() {
+        long now = System.currentTimeMillis();
+        candidates.values().removeIf(seen -> seen < now - CANDIDATE_IDLE_MS);
+
+        List<String> renew = new ArrayList<>();
+        List<String> acquire = new ArrayList<>();
+        List<String> release = new ArrayList<>();
+        Set<String> users = new HashSet<>(candidates.keySet());
+        users.addAll(leases.keySet());
+        for (String username : users) {
+            Long until = leases.get(username);
+            boolean held = until != null && until > now;
+            boolean owner = nodeId.equals(ring.nodeFor(username)) && candidates.containsKey(username);
+            if (!held) {
+                leases.remove(username);
+                if (owner) {
+                    acquire.add(username);
+                }
+            } else if (owner || busy(username)) {
+                // 不再归属本实例但仍在扫水的用户继续续期，扫完后再释放
+                renew.add(username);
+            } else {
+                release.add(username);
+            }
+        }
+        if (renew.isEmpty() && acquire.isEmpty() && release.isEmpty()) {
+            return;
+        }
+
+        RBatch batch = businessPlatformRedissonClient.createBatch();
+        for (String username : renew) {
+            // 持有期间 key 不会过期，其它节点无法获取，这里直接覆盖续期
+            batch.getBucket(leaseKey(username)).setAsync(nodeId, leaseMs, TimeUnit.MILLISECONDS);
+        }
+        Map<String, RFuture<Boolean>> acquired = new LinkedHashMap<>();
+        for (String username : acquire) {
+            acquired.put(username, batch.getBucket(leaseKey(username)).setIfAbsentAsync(nodeId, Duration.ofMillis(leaseMs)));
+        }
+        for (String username : release) {
+            batch.getBucket(leaseKey(username)).deleteAsync();
+        }
+        batch.execute();
+
+        long until = now + leaseMs;
+        renew.forEach(username -> leases.put(username, until));
+        acquired.forEach((username, future) -> {
+            if (Boolean.TRUE.equals(future.toCompletableFuture().getNow(false))) {
+                leases.put(username, until);
+            }
+        });
+        release.forEach(leases::remove);
+        if (!acquire.isEmpty() || !release.isEmpty()) {
+            log.info("扫水分片租约变更，节点:{}，获取:{}/{}，释放:{}", nodeId,
+                    acquired.values().stream().filter(f -> Boolean.TRUE.equals(f.toCompletableFuture().getNow(false))).count(),
+                    acquire.size(), release.size());
+        }
+    }
+
+    private boolean busy(String username) {
+        AtomicInteger count = inflight.get(username);
+        return count != null && count.get() > 0;
+    }
+
+    private RScoredSortedSet<String> nodes() {
+        return businessPlatformRedissonClient.getScoredSortedSet(RedisConstants.SWEEPWATER_NODES);
+    }
+
+    private static String leaseKey(String username) {
+        return KeyUtil.genKey(RedisConstants.SWEEPWATER_LEASE_PREFIX, username);
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.demo.core.holder;
+
+import com.example.demo.core.metrics.SweepMetrics;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 盘口请求自适应限速 + 熔断
+ * 按账号、按网站各一个令牌桶，速率按 AIMD 学习：未降速前不限速，降速时以最近 1 秒的实际请求量为基准，之后按经过的时间加性恢复
+ * 429 是盘口按账号的配额，只降该账号的速率并熔断 open-ms（连续熔断翻倍），期间请求直接换其它账号；响应变慢说明盘口整体拥塞，账号和网站一起轻微降速
+ * 只有网络异常、5xx、429 计入熔断；盘口正常应答的业务失败（token 过期、参数错误等）不熔断，由账号登录状态处理
+ * 所有判断都是非阻塞的，拿不到许可立即返回 false，不在调用线程上休眠等待
+ */
+@Slf4j
+@Component
+public class AdaptiveRateLimiter {
+
+    public static final String OK = "ok";
+    public static final String THROTTLED = "throttled";
+    public static final String FAILED = "failed";
+    public static final String REJECTED = "rejected";
+    public static final String RATE = "rate";
+    public static final String OPEN = "open";
+
+    /** 响应变慢时的降速系数，比 429 温和 */
+    private static final double SLOW_FACTOR = 0.9;
+    /** 同一个桶两次降速的最小间隔，避免同一批在途请求的 429 把速率连续砍到底 */
+    private static final long DECREASE_GUARD_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 是否启用限速和熔断，关闭后只统计指标
+     */
+    @Value("${sweepwater.rate-limit.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * 每个账号每秒请求数上限，0 表示不设上限（收到 429 后才开始限速）
+     */
+    @Value("${sweepwater.rate-limit.account-max-rate:0}")
+    private double accountMaxRate;
+
+    /**
+     * 每个网站每秒请求数上限，0 表示不设上限
+     */
+    @Value("${sweepwater.rate-limit.website-max-rate:0}")
+    private double websiteMaxRate;
+
+    /**
+     * 降速后的最低速率(每秒)
+     */
+    @Value("${sweepwater.rate-limit.min-rate:0.5}")
+    private double minRate = 0.5;
+
+    /**
+     * 加性恢复：每秒提高的速率
+     */
+    @Value("${sweepwater.rate-limit.increase-per-second:1}")
+    private double increasePerSecond = 1;
+
+    /**
+     * 乘性降速：账号收到 429 时速率乘以该系数
+     */
+    @Value("${sweepwater.rate-limit.decrease-factor:0.5}")
+    private double decreaseFactor = 0.5;
+
+    /**
+     * 成功请求超过该耗时(毫秒)视为盘口拥塞，账号和网站轻微降速，0 表示不按耗时降速
+     */
+    @Value("${sweepwater.rate-limit.slow-ms:2000}")
+    private long slowMs = 2000;
+
+    /**
+     * 连续失败多少次熔断
+     */
+    @Value("${sweepwater.rate-limit.failure-threshold:3}")
+    private int failureThreshold = 3;
+
+    /**
+     * 熔断时长(毫秒)，连续熔断时翻倍，最长 max-open-ms
+     */
+    @Value("${sweepwater.rate-limit.open-ms:1000}")
+    private long openMs = 1000;
+
+    @Value("${sweepwater.rate-limit.max-open-ms:30000}")
+    private long maxOpenMs = 30000;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    private final Map<String, AccountState> accounts = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> websites = new ConcurrentHashMap<>();
+    private LongSupplier clock = System::nanoTime;
+
+    /**
+     * 非阻塞获取一次请求许可
+     * @return 账号熔断中或账号/网站令牌不足时返回 false，调用方换下一个账号
+     */
+    public boolean tryAcquire(String websiteId, String account) {
+        if (!enabled) {
+            return true;
+        }
+        long now = clock.getAsLong();
+        AccountState state = account(websiteId, account);
+        if (!state.breaker.tryPass(now)) {
+            sweepMetrics.countRateLimited(websiteId, OPEN);
+            return false;
+        }
+        if (!state.bucket.tryTake(now)) {
+            state.breaker.releaseProbe();
+            sweepMetrics.countRateLimited(websiteId, RATE);
+            return false;
+        }
+        if (!website(websiteId).tryTake(now)) {
+            state.bucket.refund();
+            state.breaker.releaseProbe();
+            sweepMetrics.countRateLimited(websiteId, RATE);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 拿到许可后没有真正发出请求（如并发已满、请求被取消），退还账号和网站令牌及熔断探测名额
+     */
+    public void release(String websiteId, String account) {
+        if (!enabled) {
+            return;
+        }
+        AccountState state = account(websiteId, account);
+        state.bucket.refund();
+        website(websiteId).refund();
+        state.breaker.releaseProbe();
+    }
+
+    /**
+     * 请求成功：关闭熔断，耗时超过 slow-ms 时轻微降速
+     */
+    public void onSuccess(String websiteId, String account, long latencyNanos) {
+        sweepMetrics.countUpstream(websiteId, OK);
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        AccountState state = account(websiteId, account);
+        state.breaker.onSuccess();
+        if (slowMs > 0 && latencyNanos > TimeUnit.MILLISECONDS.toNanos(slowMs)) {
+            state.bucket.decrease(now, SLOW_FACTOR);
+            website(websiteId).decrease(now, SLOW_FACTOR);
+        }
+    }
+
+    /**
+     * 盘口返回 429：账号立即熔断并乘性降速，网站速率不变，其它账号照常使用
+     */
+    public void onThrottled(String websiteId, String account) {
+        sweepMetrics.countUpstream(websiteId, THROTTLED);
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        AccountState state = account(websiteId, account);
+        state.bucket.decrease(now, decreaseFactor);
+        long open = state.breaker.trip(now);
+        if (open > 0) {
+            log.info("盘口限流，网站:{}，账号:{}，账号速率降为 {}/s，熔断 {}ms", websiteId, account, String.format("%.1f", state.bucket.currentRate()), open);
+        }
+    }
+
+    /**
+     * 请求失败（网络异常或盘口 5xx），连续 failure-threshold 次后熔断
+     */
+    public void onFailure(String websiteId, String account) {
+        sweepMetrics.countUpstream(websiteId, FAILED);
+        if (!enabled) {
+            return;
+        }
+        long open = account(websiteId, account).breaker.onFailure(clock.getAsLong());
+        if (open > 0) {
+            log.info("盘口请求连续失败，网站:{}，账号:{}，熔断 {}ms", websiteId, account, open);
+        }
+    }
+
+    /**
+     * 盘口正常应答但业务失败（token 过期、参数错误、没有数据等）：只计数，不计入熔断也不降速，退还半开状态的探测名额
+     */
+    public void onRejected(String websiteId, String account) {
+        sweepMetrics.countUpstream(websiteId, REJECTED);
+        if (!enabled) {
+            return;
+        }
+        account(websiteId, account).breaker.releaseProbe();
+    }
+
+    /**
+     * 请求发出后被取消（对冲的另一个请求先返回或扫水已放弃），结果不计成败，只退还熔断探测名额；令牌已实际用掉，不退
+     */
+    public void onCancelled(String websiteId, String account) {
+        if (!enabled) {
+            return;
+        }
+        account(websiteId, account).breaker.releaseProbe();
+    }
+
+    /**
+     * 账号当前速率(每秒)，0 表示未限速
+     */
+    public double accountRate(String websiteId, String account) {
+        AccountState state = accounts.get(websiteId + ":" + account);
+        return state == null ? 0 : state.bucket.currentRate();
+    }
+
+    /**
+     * 网站当前速率(每秒)，0 表示未限速
+     */
+    public double websiteRate(String websiteId) {
+        Bucket bucket = websites.get(websiteId);
+        return bucket == null ? 0 : bucket.currentRate();
+    }
+
+    private AccountState account(String websiteId, String account) {
+        return accounts.computeIfAbsent(websiteId + ":" + account, k -> new AccountState(new Bucket(accountMaxRate, clock.getAsLong()), new Breaker()));
+    }
+
+    private Bucket website(String websiteId) {
+        Bucket bucket = websites.get(websiteId);
+        if (bucket != null) {
+            return bucket;
+        }
+        return websites.computeIfAbsent(websiteId, k -> {
+            Bucket created = new Bucket(websiteMaxRate, clock.getAsLong());
+            sweepMetrics.gaugeUpstreamRate(websiteId, created, Bucket::currentRate);
+            return created;
+        });
+    }
+
+    private record AccountState(Bucket bucket, Breaker breaker) {
+    }
+
+    /**
+     * AIMD 令牌桶：limited=false 时不限速，只统计最近 1 秒的请求量，作为第一次降速的基准
+     */
+    private final class Bucket {
+        private final double maxRate;
+        private boolean limited;
+        private double rate;
+        private double tokens;
+        private long refillNanos;
+        private long increaseNanos;
+        private long decreaseNanos;
+        private long windowStart;
+        private int windowCount;
+        private int lastWindowCount;
+
+        private Bucket(double maxRate, long now) {
+            this.maxRate = maxRate;
+            this.limited = maxRate > 0;
+            this.rate = maxRate;
+            this.tokens = capacity();
+            this.refillNanos = now;
+            this.increaseNanos = now;
+            this.decreaseNanos = now - DECREASE_GUARD_NANOS;
+            this.windowStart = now;
+        }
+
+        synchronized boolean tryTake(long now) {
+            if (limited) {
+                refill(now);
+                increase(now);
+                if (tokens < 1) {
+                    return false;
+                }
+                tokens -= 1;
+            }
+            count(now);
+            return true;
+        }
+
+        synchronized void refund() {
+            windowCount = Math.max(0, windowCount - 1);
+            if (limited) {
+                tokens = Math.min(capacity(), tokens + 1);
+            }
+        }
+
+        /**
+         * 加性恢复：有请求时按经过的时间提速，与成功次数无关，速率降得很低时也能按 increase-per-second 恢复
+         */
+        private void increase(long now) {
+            // 空闲很久之后的第一次请求最多按 1 秒恢复
+            double seconds = Math.min(1.0, (double) (now - increaseNanos) / WINDOW_NANOS);
+            increaseNanos = now;
+            rate += increasePerSecond * seconds;
+            if (maxRate > 0) {
+                rate = Math.min(maxRate, rate);
+            }
+        }
+
+        synchronized void decrease(long now, double factor) {
+            if (now - decreaseNanos < DECREASE_GUARD_NANOS) {
+                return;
+            }
+            refill(now);
+            double base = limited ? rate : observedRate(now);
+            rate = Math.max(minRate, base * factor);
+            limited = true;
+            tokens = Math.min(tokens, capacity());
+            decreaseNanos = now;
+            increaseNanos = now;
+        }
+
+        synchronized double currentRate() {
+            return limited ? rate : 0;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity(), tokens + rate * (now - refillNanos) / WINDOW_NANOS);
+            refillNanos = now;
+        }
+
+        /** 最多攒 1 秒的令牌 */
+        private double capacity() {
+            return Math.max(1, rate);
+        }
+
+        private void count(long now) {
+            roll(now);
+            windowCount++;
+        }
+
+        private double observedRate(long now) {
+            roll(now);
+            return Math.max(Math.max(lastWindowCount, windowCount), minRate);
+        }
+
+        private void roll(long now) {
+            long elapsed = now - windowStart;
+            if (elapsed >= WINDOW_NANOS) {
+                lastWindowCount = elapsed >= 2 * WINDOW_NANOS ? 0 : windowCount;
+                windowCount = 0;
+                windowStart = now;
+            }
+        }
+    }
+
+    /**
+     * 账号熔断器：CLOSED 正常；OPEN 期间全部拒绝；到期后 HALF_OPEN 只放行一个探测请求，成功关闭、失败再次熔断（时长翻倍）
+     */
+    private final class Breaker {
+        private static final int CLOSED = 0;
+        private static final int OPEN = 1;
+        private static final int HALF_OPEN = 2;
+
+        private int state = CLOSED;
+        private int failures;
+        private int trips;
+        private long openUntil;
+        /** 探测请求发出的时间，0 表示没有在途探测；探测结果迟迟不回报时 open-ms 后再放行一个 */
+        private long probeNanos;
+
+        synchronized boolean tryPass(long now) {
+            if (state == CLOSED) {
+                return true;
+            }
+            if (state == OPEN) {
+                if (now < openUntil) {
+                    return false;
+                }
+                state = HALF_OPEN;
+                probeNanos = 0;
+            }
+            if (probeNanos != 0 && now - probeNanos < TimeUnit.MILLISECONDS.toNanos(openMs)) {
+                return false;
+            }
+            probeNanos = now;
+            return true;
+        }
+
+        /** 通过熔断检查后没有真正发出请求，退还探测名额 */
+        synchronized void releaseProbe() {
+            if (state == HALF_OPEN) {
+                probeNanos = 0;
+            }
+        }
+
+        synchronized void onSuccess() {
+            state = CLOSED;
+            failures = 0;
+            trips = 0;
+        }
+
+        /**
+         * @return 本次触发熔断时返回熔断时长(毫秒)，否则返回 0
+         */
+        synchronized long onFailure(long now) {
+            failures++;
+            if (state == HALF_OPEN || failures >= failureThreshold) {
+                return trip(now);
+            }
+            return 0;
+        }
+
+        synchronized long trip(long now) {
+            if (state == OPEN && now < openUntil) {
+                // 同一批在途请求的失败不重复翻倍
+                return 0;
+            }
+            trips++;
+            long duration = Math.min(maxOpenMs, openMs << Math.min(trips - 1, 16));
+            state = OPEN;
+            openUntil = now + TimeUnit.MILLISECONDS.toNanos(duration);
+            failures = 0;
+            probeNanos = 0;
+            return duration;
+        }
+    }
+}
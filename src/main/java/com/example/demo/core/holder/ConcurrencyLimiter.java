@@ -0,0 +1,100 @@
+package com.example.demo.core.holder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 盘口请求并发限制
+ * 按网站、按盘口账号限制同时在途的请求数，代替用线程池大小间接限流；虚拟线程模式下线程数不再受限，必须靠它兜底
+ */
+@Slf4j
+@Component
+public class ConcurrencyLimiter {
+
+    /** 未限流时返回的空许可 */
+    private static final Permit UNLIMITED = new Permit(null, null);
+
+    /**
+     * 每个网站同时在途的请求数，0 表示不限
+     */
+    @Value("${sweepwater.executor.website-permits:0}")
+    private int websitePermits;
+
+    /**
+     * 每个盘口账号同时在途的请求数，0 表示不限
+     */
+    @Value("${sweepwater.executor.account-permits:0}")
+    private int accountPermits;
+
+    private final Map<String, Semaphore> websites = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> accounts = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimiter() {
+    }
+
+    public ConcurrencyLimiter(int websitePermits, int accountPermits) {
+        this.websitePermits = websitePermits;
+        this.accountPermits = accountPermits;
+    }
+
+    /**
+     * 非阻塞获取网站 + 账号的请求许可，名额已满立即返回 null，由调用方换下一个账号，不在调用线程上等待
+     * @return 许可，用完必须 close；名额已满返回 null
+     */
+    public Permit tryAcquire(String websiteId, String account) {
+        if (websitePermits <= 0 && accountPermits <= 0) {
+            return UNLIMITED;
+        }
+        Semaphore website = websitePermits > 0 ? websites.computeIfAbsent(websiteId, k -> new Semaphore(websitePermits)) : null;
+        Semaphore acc = accountPermits > 0 ? accounts.computeIfAbsent(websiteId + ":" + account, k -> new Semaphore(accountPermits)) : null;
+        // 先拿账号再拿网站，账号忙时不占用网站名额
+        if (acc != null && !acc.tryAcquire()) {
+            return null;
+        }
+        if (website != null && !website.tryAcquire()) {
+            if (acc != null) {
+                acc.release();
+            }
+            return null;
+        }
+        return new Permit(website, acc);
+    }
+
+    /**
+     * 某个网站当前在途请求数
+     */
+    public int inFlight(String websiteId) {
+        Semaphore website = websites.get(websiteId);
+        return website == null ? 0 : websitePermits - website.availablePermits();
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final Semaphore website;
+        private final Semaphore account;
+        private boolean released;
+
+        private Permit(Semaphore website, Semaphore account) {
+            this.website = website;
+            this.account = account;
+        }
+
+        @Override
+        public void close() {
+            if (this == UNLIMITED || released) {
+                return;
+            }
+            released = true;
+            if (website != null) {
+                website.release();
+            }
+            if (account != null) {
+                account.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.demo.core.holder;
+
+import com.example.demo.config.HttpCallScope;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 赔率请求对冲：首个账号超过该网站近期耗时的 percentile 分位仍未返回时，换一个账号/代理再发一次，
+ * 先返回的结果生效，另一个请求通过 {@link HttpCallScope} 中断
+ * 首个请求在调用线程上执行，只有真正发出备用请求时才占用额外线程；备用请求按 budget-ratio 限量，避免盘口整体变慢时请求量翻倍
+ */
+@Slf4j
+@Component
+public class OddsHedger implements DisposableBean {
+
+    public static final String FIRED = "fired";
+    public static final String WON = "won";
+
+    private static final int PENDING = 0;
+    private static final int HEDGED = 1;
+    private static final int CLOSED = 2;
+
+    /**
+     * 是否开启对冲
+     */
+    @Value("${sweepwater.hedge.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 超过近期耗时的该分位仍未返回时发出备用请求
+     */
+    @Value("${sweepwater.hedge.percentile:0.9}")
+    private double percentile = 0.9;
+
+    /**
+     * 备用请求最早的发出时间(毫秒)
+     */
+    @Value("${sweepwater.hedge.min-delay-ms:30}")
+    private long minDelayMs = 30;
+
+    /**
+     * 每个网站保留的最近耗时样本数
+     */
+    @Value("${sweepwater.hedge.window:200}")
+    private int window = 200;
+
+    /**
+     * 样本不足时不对冲
+     */
+    @Value("${sweepwater.hedge.min-samples:20}")
+    private int minSamples = 20;
+
+    /**
+     * 每个请求积累的备用请求额度，0.1 表示备用请求最多占请求量的 10%
+     */
+    @Value("${sweepwater.hedge.budget-ratio:0.1}")
+    private double budgetRatio = 0.1;
+
+    /**
+     * 同时进行中的备用请求上限
+     */
+    @Value("${sweepwater.hedge.max-backups:32}")
+    private int maxBackups = 32;
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("odds-hedge-timer-%d").setDaemon(true).build());
+    private volatile ThreadPoolExecutor backupExecutor;
+
+    /**
+     * 执行请求，开启对冲时在 hedge 延迟后调用 backup 选一个备用账号（取不到返回 null）再请求一次
+     * @param primary 首个账号的请求，失败返回 null
+     * @param backup  选择备用账号并占用其请求配额，返回备用请求；没有可用账号返回 null
+     * @return 先成功的结果，都失败返回 null
+     */
+    public <T> T execute(String websiteId, Supplier<T> primary, Supplier<Supplier<T>> backup) {
+        if (!enabled) {
+            return primary.get();
+        }
+        budget(websiteId).deposit(budgetRatio);
+        long delayMs = hedgeDelayMs(websiteId);
+        if (delayMs < 0) {
+            return timed(websiteId, primary);
+        }
+
+        HttpCallScope parent = HttpCallScope.current();
+        HttpCallScope primaryScope = parent != null ? parent.newChild() : new HttpCallScope();
+        HttpCallScope backupScope = parent != null ? parent.newChild() : new HttpCallScope();
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        CompletableFuture<T> backupDone = new CompletableFuture<>();
+        AtomicInteger state = new AtomicInteger(PENDING);
+        long start = System.nanoTime();
+
+        ScheduledFuture<?> hedge = timer.schedule(() -> {
+            if (!budget(websiteId).withdraw()) {
+                return;
+            }
+            if (!state.compareAndSet(PENDING, HEDGED)) {
+                budget(websiteId).refund();
+                return;
+            }
+            try {
+                backupExecutor().execute(() -> runBackup(websiteId, backup, backupScope, primaryScope, winner, backupDone, start));
+            } catch (RejectedExecutionException e) {
+                // 备用线程已满，额度退回
+                budget(websiteId).refund();
+                backupDone.complete(null);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+
+        T result;
+        try (HttpCallScope.Binding ignored = primaryScope.bind()) {
+            result = primary.get();
+        } catch (RuntimeException e) {
+            // 备用请求胜出后首个请求被中断
+            result = null;
+            if (!winner.isDone()) {
+                log.info("赔率对冲-首个请求异常，网站:{}，异常:{}", websiteId, e.getMessage());
+            }
+        } finally {
+            // 被中断的请求也计入，只记胜出方会让分位越来越低、对冲越来越多
+            record(websiteId, System.nanoTime() - start);
+        }
+        hedge.cancel(false);
+        boolean hedged = !state.compareAndSet(PENDING, CLOSED);
+
+        if (result != null && winner.complete(result)) {
+            backupScope.cancel();
+            return result;
+        }
+        if (winner.isDone()) {
+            return winner.join();
+        }
+        if (!hedged) {
+            return null;
+        }
+        // 首个请求失败，等备用请求的结果
+        T backupResult = backupDone.join();
+        return backupResult != null ? backupResult : winner.getNow(null);
+    }
+
+    private <T> void runBackup(String websiteId, Supplier<Supplier<T>> backup, HttpCallScope backupScope,
+                               HttpCallScope primaryScope, CompletableFuture<T> winner, CompletableFuture<T> backupDone,
+                               long start) {
+        T result = null;
+        try (HttpCallScope.Binding ignored = backupScope.bind()) {
+            if (winner.isDone() || backupScope.isCancelled()) {
+                return;
+            }
+            Supplier<T> call = backup.get();
+            if (call == null) {
+                // 没有空闲的备用账号，额度退回
+                budget(websiteId).refund();
+                return;
+            }
+            sweepMetrics.countHedge(websiteId, FIRED);
+            try {
+                result = call.get();
+            } finally {
+                // 从首个请求发出时算起，与调用方看到的耗时一致
+                record(websiteId, System.nanoTime() - start);
+            }
+            if (result != null && winner.complete(result)) {
+                sweepMetrics.countHedge(websiteId, WON);
+                primaryScope.cancel();
+            }
+        } catch (RuntimeException e) {
+            log.info("赔率对冲-备用请求异常，网站:{}，异常:{}", websiteId, e.getMessage());
+        } finally {
+            backupDone.complete(result);
+        }
+    }
+
+    private <T> T timed(String websiteId, Supplier<T> primary) {
+        long start = System.nanoTime();
+        try {
+            return primary.get();
+        } finally {
+            record(websiteId, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 当前对冲延迟(毫秒)，样本不足时返回 -1
+     */
+    public long hedgeDelayMs(String websiteId) {
+        LatencyWindow latency = latencies.get(websiteId);
+        if (latency == null) {
+            return -1;
+        }
+        long nanos = latency.percentile(percentile, minSamples);
+        if (nanos < 0) {
+            return -1;
+        }
+        return Math.max(minDelayMs, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    /**
+     * 记录一次请求从发出到结束（成功、失败或被中断）的耗时
+     */
+    public void record(String websiteId, long nanos) {
+        latencies.computeIfAbsent(websiteId, k -> new LatencyWindow(window)).add(nanos);
+    }
+
+    private Budget budget(String websiteId) {
+        return budgets.computeIfAbsent(websiteId, k -> new Budget());
+    }
+
+    private ThreadPoolExecutor backupExecutor() {
+        ThreadPoolExecutor executor = backupExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = backupExecutor;
+                if (executor == null) {
+                    executor = new ThreadPoolExecutor(0, maxBackups, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                            new ThreadFactoryBuilder().setNameFormat("odds-hedge-%d").setDaemon(true).build());
+                    backupExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        ThreadPoolExecutor executor = backupExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 最近 N 次请求的耗时（环形缓冲）
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        private LatencyWindow(int size) {
+            this.samples = new long[Math.max(1, size)];
+        }
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized long percentile(double p, int minSamples) {
+            if (count < Math.max(1, minSamples)) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int idx = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.min(count - 1, Math.max(0, idx))];
+        }
+    }
+
+    /**
+     * 备用请求额度：每个请求积累 ratio，发一次备用请求消耗 1，最多攒 10 次
+     */
+    private static final class Budget {
+        private static final double MAX_TOKENS = 10;
+        /** 累加 0.1 十次得 0.9999...，比较时留出浮点误差 */
+        private static final double EPSILON = 1e-9;
+        private double tokens;
+
+        synchronized void deposit(double ratio) {
+            tokens = Math.min(MAX_TOKENS, tokens + ratio);
+        }
+
+        synchronized boolean withdraw() {
+            if (tokens + EPSILON < 1) {
+                return false;
+            }
+            tokens = Math.max(0, tokens - 1);
+            return true;
+        }
+
+        synchronized void refund() {
+            tokens = Math.min(MAX_TOKENS, tokens + 1);
+        }
+    }
+}
@@ -3,9 +3,14 @@ package com.example.demo.core.holder;
 import com.example.demo.common.utils.ThreadPoolMonitor;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -14,6 +19,8 @@ import java.util.concurrent.TimeUnit;
 /**
  * 扫水时的线程池
  * 单例复用（全局共享），因为扫水需要每0.1秒执行一次的高实时性，所以用单例
+ * sweepwater.executor.mode=virtual 时改用每任务一个虚拟线程（需 JDK 21+，否则回退到线程池），
+ * 此时并发由 {@link ConcurrencyLimiter} 按网站/账号限制
  */
 @Slf4j
 @Component
@@ -39,16 +46,45 @@ public class SweepWaterThreadPoolHolder {
     // 投注线程池
     private final ExecutorService betExecutor;
 
-    private ThreadPoolMonitor orchestratorMonitor;
-    private ThreadPoolMonitor userSweepMonitor;
-    private ThreadPoolMonitor leagueMonitor;
-    private ThreadPoolMonitor eventMonitor;
-    private ThreadPoolMonitor oddsMonitor;
-    private ThreadPoolMonitor configMonitor;
-    private ThreadPoolMonitor betMonitor;
+    private final List<ThreadPoolMonitor> monitors = new ArrayList<>();
+
+    /**
+     * 实际生效的执行模式
+     */
+    @Getter
+    private final Mode mode;
+
+    public enum Mode {
+        /** 平台线程池（默认） */
+        POOLS,
+        /** 虚拟线程，每任务一个线程 */
+        VIRTUAL
+    }
 
     public SweepWaterThreadPoolHolder() {
-        int cpuCoreCount = Math.min(Runtime.getRuntime().availableProcessors() * 4, 100);
+        this(Mode.POOLS.name());
+    }
+
+    @Autowired
+    public SweepWaterThreadPoolHolder(@Value("${sweepwater.executor.mode:pools}") String mode) {
+        Mode requested = Mode.valueOf(mode.trim().toUpperCase());
+        if (requested == Mode.VIRTUAL && !VirtualThreads.isSupported()) {
+            log.warn("当前 JDK {} 不支持虚拟线程，扫水执行模式回退为线程池", Runtime.version());
+            requested = Mode.POOLS;
+        }
+        this.mode = requested;
+
+        if (this.mode == Mode.VIRTUAL) {
+            this.sweepOrchestratorExecutor = VirtualThreads.newExecutor("sweep-orchestrator-");
+            this.userSweepExecutor = VirtualThreads.newExecutor("user-sweep-");
+            this.leagueExecutor = VirtualThreads.newExecutor("league-vt-");
+            this.eventExecutor = VirtualThreads.newExecutor("event-vt-");
+            this.teamOddsExecutor = VirtualThreads.newExecutor("odds-vt-");
+            this.configExecutor = VirtualThreads.newExecutor("config-vt-");
+            this.betExecutor = VirtualThreads.newExecutor("bet-vt-");
+            log.info("扫水执行模式: 虚拟线程");
+            return;
+        }
 
         // ✅ 扫水调度 orchestrator 线程池
         this.sweepOrchestratorExecutor = new ThreadPoolExecutor(
@@ -114,21 +150,15 @@ public class SweepWaterThreadPoolHolder {
         );
 
         // 监控器初始化
-        orchestratorMonitor = new ThreadPoolMonitor("扫水定时任务线程", (ThreadPoolExecutor) sweepOrchestratorExecutor, 30);
-        userSweepMonitor = new ThreadPoolMonitor("扫水平台用户线程", (ThreadPoolExecutor) userSweepExecutor, 30);
-        leagueMonitor = new ThreadPoolMonitor("扫水联赛列表任务线程", (ThreadPoolExecutor) leagueExecutor, 30);
-        eventMonitor = new ThreadPoolMonitor("扫水赛事任务线程", (ThreadPoolExecutor) eventExecutor, 30);
-        oddsMonitor = new ThreadPoolMonitor("扫水球队赔率线程", (ThreadPoolExecutor) teamOddsExecutor, 30);
-        configMonitor = new ThreadPoolMonitor("扫水基础设置线程", (ThreadPoolExecutor) configExecutor, 30);
-        betMonitor = new ThreadPoolMonitor("投注线程", (ThreadPoolExecutor) betExecutor, 30);
-
-        orchestratorMonitor.start();
-        userSweepMonitor.start();
-        leagueMonitor.start();
-        eventMonitor.start();
-        oddsMonitor.start();
-        configMonitor.start();
-        betMonitor.start();
+        monitors.add(new ThreadPoolMonitor("扫水定时任务线程", (ThreadPoolExecutor) sweepOrchestratorExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("扫水平台用户线程", (ThreadPoolExecutor) userSweepExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("扫水联赛列表任务线程", (ThreadPoolExecutor) leagueExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("扫水赛事任务线程", (ThreadPoolExecutor) eventExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("扫水球队赔率线程", (ThreadPoolExecutor) teamOddsExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("扫水基础设置线程", (ThreadPoolExecutor) configExecutor, 30));
+        monitors.add(new ThreadPoolMonitor("投注线程", (ThreadPoolExecutor) betExecutor, 30));
+        monitors.forEach(ThreadPoolMonitor::start);
+        log.info("扫水执行模式: 线程池");
     }
 
     public ExecutorService getSweepOrchestratorExecutor() {
@@ -165,13 +195,7 @@ public class SweepWaterThreadPoolHolder {
     public void shutdown() {
 
         // 关闭监控
-        orchestratorMonitor.stop();
-        userSweepMonitor.stop();
-        leagueMonitor.stop();
-        eventMonitor.stop();
-        oddsMonitor.stop();
-        configMonitor.stop();
-        betMonitor.stop();
+        monitors.forEach(ThreadPoolMonitor::stop);
 
         // 关闭线程池
         shutdownExecutor(sweepOrchestratorExecutor);
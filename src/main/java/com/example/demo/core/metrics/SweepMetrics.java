@@ -0,0 +1,248 @@
+package com.example.demo.core.metrics;
+
+import com.example.demo.common.enmu.WebsiteType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 扫水流水线各阶段耗时（Micrometer 计时器，带 p50/p99 和直方图）
+ * 标签：stage=阶段，website=网站（或网站A-网站B），user=平台用户（最多 max-users 个，超出的归为 other）
+ * 计时器按标签组合缓存，热路径上只有一次 map 查找和一次 record，不再每次构建 Meter.Id
+ */
+@Component
+public class SweepMetrics {
+
+    public static final String METER_NAME = "sweepwater.stage";
+    public static final String OTHER = "other";
+    public static final String NONE = "none";
+    public static final String ODDS_AGE_METER = "sweepwater.odds.age";
+    public static final String ODDS_STALE_METER = "sweepwater.odds.stale";
+    public static final String ODDS_HEDGE_METER = "sweepwater.odds.hedge";
+    public static final String UPSTREAM_METER = "sweepwater.upstream.requests";
+    public static final String UPSTREAM_REJECTED_METER = "sweepwater.upstream.rejected";
+    public static final String UPSTREAM_RATE_METER = "sweepwater.upstream.rate";
+    public static final String PROXY_POOL_METER = "sweepwater.proxy.pool";
+    public static final String PROXY_FETCH_METER = "sweepwater.proxy.fetch";
+
+    /**
+     * 扫水阶段
+     */
+    @Getter
+    public enum Stage {
+        ROUND("round", "单个平台用户一轮扫水总耗时"),
+        SETTINGS("settings", "加载扫水配置"),
+        BIND("bind", "读取并过滤绑定字典"),
+        FETCH("fetch", "向盘口请求赔率（上游 HTTP）"),
+        PARSE("parse", "赔率 JSON 转换为赔率簿"),
+        WAIT_ODDS("wait_odds", "赛事任务等待双方赔率"),
+        MATCH("match", "赔率比对"),
+        FAN_OUT("fan_out", "共享扫水按平台用户设置过滤比对结果"),
+        BET_WAIT("bet_wait", "比对命中到开始投注的排队等待"),
+        BET("bet", "提交投注");
+
+        private final String tag;
+        private final String description;
+
+        Stage(String tag, String description) {
+            this.tag = tag;
+            this.description = description;
+        }
+    }
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    /**
+     * user 标签最多区分的平台用户数，控制指标基数
+     */
+    @Value("${sweepwater.metrics.max-users:50}")
+    private int maxUsers = 50;
+
+    /**
+     * 是否发布直方图桶（供 Prometheus 等按桶聚合计算跨实例分位数）
+     */
+    @Value("${sweepwater.metrics.histogram:true}")
+    private boolean histogram = true;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> oddsAgeTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> staleCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> hedgeCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> upstreamCounters = new ConcurrentHashMap<>();
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 记录从 {@link #start()} 到现在的耗时
+     * @param websiteId 网站id，与网站无关的阶段传 null
+     * @param username  平台用户名，与用户无关的阶段传 null
+     */
+    public void stop(Stage stage, String websiteId, String username, long startNanos) {
+        // 先取耗时，首次创建计时器的开销不计入
+        long elapsed = System.nanoTime() - startNanos;
+        timer(stage, website(websiteId), user(username)).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 比对阶段按网站对打标签
+     */
+    public void stop(Stage stage, String websiteIdA, String websiteIdB, String username, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        timer(stage, website(websiteIdA) + "-" + website(websiteIdB), user(username)).record(elapsed, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录投注前赔率的年龄（从拉取完成到准备投注，单调时钟）
+     */
+    public void recordOddsAge(String websiteId, long ageNanos) {
+        String website = website(websiteId);
+        oddsAgeTimers.computeIfAbsent(website, k -> Timer.builder(ODDS_AGE_METER)
+                .description("投注前赔率年龄（拉取完成到准备投注）")
+                .tag("website", website)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram(histogram)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry)).record(ageNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 赔率超过最大年龄、投注前被放弃的次数
+     */
+    public void countStaleOdds(String websiteId) {
+        String website = website(websiteId);
+        staleCounters.computeIfAbsent(website, k -> Counter.builder(ODDS_STALE_METER)
+                .description("赔率过期放弃投注的次数")
+                .tag("website", website)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 对冲请求计数
+     * @param result fired=发出了备用请求，won=备用请求先返回
+     */
+    public void countHedge(String websiteId, String result) {
+        String website = website(websiteId);
+        hedgeCounters.computeIfAbsent(website + ":" + result, k -> Counter.builder(ODDS_HEDGE_METER)
+                .description("赔率对冲请求次数")
+                .tag("website", website)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 盘口请求结果计数，吞吐量和 429 比例由此计算
+     * @param result ok=成功，throttled=盘口限流(429)，failed=失败
+     */
+    public void countUpstream(String websiteId, String result) {
+        String website = website(websiteId);
+        upstreamCounters.computeIfAbsent(UPSTREAM_METER + ":" + website + ":" + result, k -> Counter.builder(UPSTREAM_METER)
+                .description("盘口请求次数")
+                .tag("website", website)
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 被自适应限速拦下、没有发给盘口的请求次数
+     * @param reason rate=令牌不足，open=账号熔断中
+     */
+    public void countRateLimited(String websiteId, String reason) {
+        String website = website(websiteId);
+        upstreamCounters.computeIfAbsent(UPSTREAM_REJECTED_METER + ":" + website + ":" + reason, k -> Counter.builder(UPSTREAM_REJECTED_METER)
+                .description("限速或熔断拦下的盘口请求次数")
+                .tag("website", website)
+                .tag("reason", reason)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 网站当前学习到的请求速率(每秒)，0 表示未限速
+     */
+    public <T> void gaugeUpstreamRate(String websiteId, T state, ToDoubleFunction<T> rate) {
+        Gauge.builder(UPSTREAM_RATE_METER, state, rate)
+                .description("网站自适应限速速率(每秒)，0 表示未限速")
+                .tag("website", website(websiteId))
+                .register(meterRegistry);
+    }
+
+    /**
+     * 自动代理池中的代理数
+     * @param state idle=已验证未分配，assigned=已分配给账号
+     */
+    public <T> void gaugeProxyPool(String state, T pool, ToDoubleFunction<T> count) {
+        Gauge.builder(PROXY_POOL_METER, pool, count)
+                .description("自动代理池中的代理数")
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 代理池从代理商拉取代理的次数
+     * @param result ok=验证通过入池，invalid=格式非法或验证失败，failed=代理商接口失败
+     */
+    public void countProxyFetch(String result) {
+        upstreamCounters.computeIfAbsent(PROXY_FETCH_METER + ":" + result, k -> Counter.builder(PROXY_FETCH_METER)
+                .description("代理池拉取代理次数")
+                .tag("result", result)
+                .register(meterRegistry)).increment();
+    }
+
+    /**
+     * 已创建的全部计时器
+     */
+    public Collection<Timer> getTimers() {
+        return timers.values();
+    }
+
+    Timer timer(Stage stage, String website, String user) {
+        return timers.computeIfAbsent(stage.tag + '|' + website + '|' + user, k -> Timer.builder(METER_NAME)
+                .description(stage.description)
+                .tag("stage", stage.tag)
+                .tag("website", website)
+                .tag("user", user)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram(histogram)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry));
+    }
+
+    private static String website(String websiteId) {
+        if (websiteId == null) {
+            return NONE;
+        }
+        WebsiteType type = WebsiteType.getById(websiteId);
+        return type != null ? type.name().toLowerCase() : OTHER;
+    }
+
+    private String user(String username) {
+        if (username == null) {
+            return NONE;
+        }
+        if (users.contains(username)) {
+            return username;
+        }
+        if (users.size() < maxUsers && users.add(username)) {
+            return username;
+        }
+        return OTHER;
+    }
+}
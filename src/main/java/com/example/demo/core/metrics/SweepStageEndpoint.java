@@ -0,0 +1,62 @@
+package com.example.demo.core.metrics;
+
+import cn.hutool.json.JSONObject;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.Resource;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扫水各阶段耗时一览：GET /actuator/sweepstages[?stage=fetch]
+ * 每行一个 阶段/网站/用户 组合，p50/p99 为最近一个统计窗口（默认 2 分钟）内的值
+ */
+@Component
+@Endpoint(id = "sweepstages")
+public class SweepStageEndpoint {
+
+    @Resource
+    private SweepMetrics sweepMetrics;
+
+    @ReadOperation
+    public List<Map<String, Object>> stages(@Nullable String stage) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Timer timer : sweepMetrics.getTimers()) {
+            String stageTag = timer.getId().getTag("stage");
+            if (stage != null && !stage.equals(stageTag)) {
+                continue;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            JSONObject row = new JSONObject(true);
+            row.putOpt("stage", stageTag);
+            row.putOpt("website", timer.getId().getTag("website"));
+            row.putOpt("user", timer.getId().getTag("user"));
+            row.putOpt("count", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                row.putOpt("p" + Math.round(percentile.percentile() * 100) + "Ms", ms(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            row.putOpt("meanMs", ms(snapshot.mean(TimeUnit.MILLISECONDS)));
+            row.putOpt("maxMs", ms(snapshot.max(TimeUnit.MILLISECONDS)));
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparing((Map<String, Object> row) -> (String) row.get("stage"))
+                .thenComparing(row -> (String) row.get("website"))
+                .thenComparing(row -> (String) row.get("user")));
+        return rows;
+    }
+
+    private static BigDecimal ms(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.demo.core.odds;
+
+import com.example.demo.common.enmu.WebsiteType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一组绑定（网站A/B、联赛A/B、球队名A/B）的比对结果，与平台用户设置无关
+ * 共享扫水模式下同一组绑定每轮只算一次，再按各平台用户的设置过滤；单用户扫水也走同一份结果，两种模式结果一致
+ */
+@Getter
+public final class BindingScan {
+
+    private final OddsBook.League leagueA;
+    private final OddsBook.League leagueB;
+    private final List<Row> rows;
+
+    private BindingScan(OddsBook.League leagueA, OddsBook.League leagueB, List<Row> rows) {
+        this.leagueA = leagueA;
+        this.leagueB = leagueB;
+        this.rows = rows;
+    }
+
+    /**
+     * 只有绑定的球队参与比对
+     */
+    public static BindingScan of(OddsBook.League leagueA, OddsBook.League leagueB,
+                                 String bindTeamNameA, String bindTeamNameB,
+                                 String websiteIdA, String websiteIdB) {
+        List<OddsBook.Event> eventsA = leagueA.events(bindTeamNameA);
+        List<OddsBook.Event> eventsB = leagueB.events(bindTeamNameB);
+        if (eventsA.isEmpty() || eventsB.isEmpty()) {
+            return new BindingScan(leagueA, leagueB, Collections.emptyList());
+        }
+
+        // 比赛时间以新二盘口的为主：A是新二时，B的第一场赛事取A的比赛时间；否则A的赛事都取B第一场的比赛时间
+        // 赔率簿是共享只读数据，这里只计算生效的比赛时间，不回写
+        boolean reTimeXinEr = WebsiteType.XINBAO.getId().equals(websiteIdA);
+        String reTimeFromA = null;
+        for (OddsBook.Event eventA : eventsA) {
+            if (eventA.getReTime() != null) {
+                reTimeFromA = eventA.getReTime();
+            }
+        }
+        String reTimeFromB = eventsB.get(0).getReTime();
+
+        List<Row> rows = new ArrayList<>(eventsA.size());
+        for (OddsBook.Event eventA : eventsA) {
+            String reTimeA = !reTimeXinEr && reTimeFromB != null ? reTimeFromB : eventA.getReTime();
+            List<Pair> pairs = new ArrayList<>(eventsB.size());
+            for (int i = 0; i < eventsB.size(); i++) {
+                OddsBook.Event eventB = eventsB.get(i);
+                String reTimeB = reTimeXinEr && i == 0 && reTimeFromA != null ? reTimeFromA : eventB.getReTime();
+                // 扫水记录的比赛时间取新二盘口
+                String reTime = reTimeXinEr ? eventA.getReTime() : eventB.getReTime();
+                pairs.add(new Pair(eventB, reTimeB, reTime,
+                        PeriodMatch.of(eventA, eventB, OddsBook.Period.FULL_COURT, websiteIdA, websiteIdB),
+                        PeriodMatch.of(eventA, eventB, OddsBook.Period.FIRST_HALF, websiteIdA, websiteIdB)));
+            }
+            rows.add(new Row(eventA, reTimeA, Collections.unmodifiableList(pairs)));
+        }
+        return new BindingScan(leagueA, leagueB, Collections.unmodifiableList(rows));
+    }
+
+    public boolean isEmpty() {
+        return rows.isEmpty();
+    }
+
+    /**
+     * A 的一场赛事及其生效的比赛时间
+     */
+    @Getter
+    public static final class Row {
+        private final OddsBook.Event eventA;
+        private final String reTimeA;
+        private final List<Pair> pairs;
+
+        private Row(OddsBook.Event eventA, String reTimeA, List<Pair> pairs) {
+            this.eventA = eventA;
+            this.reTimeA = reTimeA;
+            this.pairs = pairs;
+        }
+    }
+
+    /**
+     * 与 A 配对的 B 赛事，以及两个时段的比对结果
+     */
+    @Getter
+    public static final class Pair {
+        private final OddsBook.Event eventB;
+        private final String reTimeB;
+        /** 扫水记录的比赛时间 */
+        private final String reTime;
+        private final PeriodMatch fullCourt;
+        private final PeriodMatch firstHalf;
+
+        private Pair(OddsBook.Event eventB, String reTimeB, String reTime, PeriodMatch fullCourt, PeriodMatch firstHalf) {
+            this.eventB = eventB;
+            this.reTimeB = reTimeB;
+            this.reTime = reTime;
+            this.fullCourt = fullCourt;
+            this.firstHalf = firstHalf;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.demo.core.odds;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 扫水用的只读赔率簿：联赛 -> 赛事 -> (全场/上半场, 盘口方向) -> 盘口值 -> 赔率
+ * 由盘口解析结果转换一次，全局快照内所有平台用户共享，比对过程不再读写 JSON
+ */
+@Slf4j
+public final class OddsBook {
+
+    public static final OddsBook EMPTY = new OddsBook(Collections.emptyMap());
+
+    /**
+     * 全场 / 上半场
+     */
+    public enum Period {
+        FULL_COURT("fullCourt"),
+        FIRST_HALF("firstHalf");
+
+        @Getter
+        private final String key;
+
+        Period(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 盘口类型：让球盘 / 大小盘
+     */
+    public enum Market {
+        LET_BALL("letBall"),
+        OVER_SIZE("overSize");
+
+        @Getter
+        private final String key;
+
+        Market(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * 盘口方向：上盘/下盘、大/小，扫水时与对立方向配对
+     */
+    public enum Side {
+        UP(Market.LET_BALL, "up"),
+        DOWN(Market.LET_BALL, "down"),
+        BIG(Market.OVER_SIZE, "big"),
+        SMALL(Market.OVER_SIZE, "small");
+
+        @Getter
+        private final Market market;
+        @Getter
+        private final String key;
+
+        Side(Market market, String key) {
+            this.market = market;
+            this.key = key;
+        }
+
+        public Side opposite() {
+            return switch (this) {
+                case UP -> DOWN;
+                case DOWN -> UP;
+                case BIG -> SMALL;
+                case SMALL -> BIG;
+            };
+        }
+    }
+
+    // 联赛id -> 联赛，保持盘口返回顺序
+    private final Map<String, League> leagues;
+
+    private OddsBook(Map<String, League> leagues) {
+        this.leagues = leagues;
+    }
+
+    public League league(String leagueId) {
+        return leagues.get(leagueId);
+    }
+
+    public boolean isEmpty() {
+        return leagues.isEmpty();
+    }
+
+    public int size() {
+        return leagues.size();
+    }
+
+    /**
+     * 从盘口 eventsOdds 的解析结果构建赔率簿（联赛数组，结构见各网站 EventsOdds 处理类），拉取时间记为当前
+     */
+    public static OddsBook of(JSONArray leagueArray) {
+        return of(leagueArray, System.nanoTime(), 0);
+    }
+
+    /**
+     * 构建赔率簿，每场赛事带上赔率拉取时间
+     * @param fetchedNanos     拉取完成时刻（System.nanoTime）
+     * @param serverTimeMillis 盘口服务器时间（毫秒），取不到传 0
+     */
+    public static OddsBook of(JSONArray leagueArray, long fetchedNanos, long serverTimeMillis) {
+        if (leagueArray == null || leagueArray.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, League> leagues = new LinkedHashMap<>(leagueArray.size() * 2);
+        for (Object obj : leagueArray) {
+            if (!(obj instanceof JSONObject leagueJson)) {
+                continue;
+            }
+            JSONArray eventArray = leagueJson.getJSONArray("events");
+            List<Event> events = new ArrayList<>(eventArray == null ? 0 : eventArray.size());
+            if (eventArray != null) {
+                for (Object eventObj : eventArray) {
+                    if (eventObj instanceof JSONObject eventJson) {
+                        events.add(new Event(eventJson, fetchedNanos, serverTimeMillis));
+                    }
+                }
+            }
+            String id = leagueJson.getStr("id");
+            // 与 buildLeagueMap 一致：同一联赛id后出现的覆盖前面的
+            leagues.put(id, new League(id, leagueJson.getStr("league"), events));
+        }
+        return new OddsBook(Collections.unmodifiableMap(leagues));
+    }
+
+    @Getter
+    public static final class League {
+        private final String id;
+        private final String league;
+        private final List<Event> events;
+        // 赛事名称 -> 赛事，配对时按名称直接取
+        @Getter(AccessLevel.NONE)
+        private final Map<String, List<Event>> byName;
+
+        private League(String id, String league, List<Event> events) {
+            this.id = id;
+            this.league = league;
+            this.events = Collections.unmodifiableList(events);
+            Map<String, List<Event>> index = new HashMap<>(events.size() * 2);
+            for (Event event : events) {
+                if (event.name != null) {
+                    index.computeIfAbsent(event.name, k -> new ArrayList<>(1)).add(event);
+                }
+            }
+            index.replaceAll((k, v) -> Collections.unmodifiableList(v));
+            this.byName = index;
+        }
+
+        /**
+         * 指定名称的赛事（同名可能有多条，保持盘口返回顺序）
+         */
+        public List<Event> events(String name) {
+            return byName.getOrDefault(name, Collections.emptyList());
+        }
+    }
+
+    @Getter
+    public static final class Event {
+        private final String id;
+        private final String name;
+        private final String score;
+        private final String reTime;
+        private final String session;
+        /** 赔率拉取完成时刻（System.nanoTime），用于计算赔率年龄 */
+        private final long fetchedNanos;
+        /** 盘口服务器时间（毫秒），0 表示取不到 */
+        private final long serverTimeMillis;
+        // [period][side] -> 盘口值 -> 赔率
+        @Getter(AccessLevel.NONE)
+        private final Map<String, Odds>[] lines;
+        // [period] -> 盘口返回中出现的方向，保持返回顺序（同一对盘口id去重时先出现的生效）
+        @Getter(AccessLevel.NONE)
+        private final List<Side>[] sides;
+
+        @SuppressWarnings("unchecked")
+        private Event(JSONObject eventJson, long fetchedNanos, long serverTimeMillis) {
+            this.fetchedNanos = fetchedNanos;
+            this.serverTimeMillis = serverTimeMillis;
+            this.id = eventJson.getStr("id");
+            this.name = eventJson.getStr("name");
+            this.score = eventJson.getStr("score");
+            this.reTime = eventJson.getStr("reTime");
+            this.session = eventJson.getStr("session");
+            this.lines = new Map[Period.values().length * Side.values().length];
+            this.sides = new List[Period.values().length];
+            for (Period period : Period.values()) {
+                JSONObject court = eventJson.get(period.key) instanceof JSONObject json ? json : null;
+                for (Side side : Side.values()) {
+                    lines[index(period, side)] = parseLines(court, side);
+                }
+                sides[period.ordinal()] = sideOrder(court);
+            }
+        }
+
+        /**
+         * 某个时段下有盘口的方向，按盘口返回顺序
+         */
+        public List<Side> sides(Period period) {
+            return sides[period.ordinal()];
+        }
+
+        /**
+         * 某个时段、某个方向下的全部盘口，key 为盘口值（例如 "0.5"、"2.5"）
+         */
+        public Map<String, Odds> lines(Period period, Side side) {
+            return lines[index(period, side)];
+        }
+
+        private static int index(Period period, Side side) {
+            return period.ordinal() * Side.values().length + side.ordinal();
+        }
+
+        private static List<Side> sideOrder(JSONObject court) {
+            if (court == null || court.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<Side> order = new ArrayList<>(Side.values().length);
+            for (Map.Entry<String, Object> marketEntry : court.entrySet()) {
+                if (!(marketEntry.getValue() instanceof JSONObject market)) {
+                    continue;
+                }
+                for (String sideKey : market.keySet()) {
+                    for (Side side : Side.values()) {
+                        if (side.market.key.equals(marketEntry.getKey()) && side.key.equals(sideKey) && !order.contains(side)) {
+                            order.add(side);
+                        }
+                    }
+                }
+            }
+            return Collections.unmodifiableList(order);
+        }
+
+        private static Map<String, Odds> parseLines(JSONObject court, Side side) {
+            if (court == null || !(court.get(side.market.key) instanceof JSONObject market)
+                    || !(market.get(side.key) instanceof JSONObject sideJson) || sideJson.isEmpty()) {
+                return Collections.emptyMap();
+            }
+            Map<String, Odds> result = new LinkedHashMap<>(sideJson.size() * 2);
+            for (Map.Entry<String, Object> entry : sideJson.entrySet()) {
+                if (!(entry.getValue() instanceof JSONObject oddsJson)) {
+                    continue;
+                }
+                // 没有赔率的盘口不参与比对
+                if (!oddsJson.containsKey("odds") || StringUtils.isBlank(oddsJson.getStr("odds"))) {
+                    continue;
+                }
+                try {
+                    result.put(entry.getKey(), new Odds(entry.getKey(), oddsJson));
+                } catch (Exception e) {
+                    log.warn("赔率簿-赔率解析失败,忽略该盘口:{}", oddsJson, e);
+                }
+            }
+            return result.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(result);
+        }
+    }
+
+    /**
+     * 单个盘口的赔率及投注所需字段
+     */
+    @Getter
+    public static final class Odds {
+        /** 盘口值，同一方向下的 key */
+        private final String line;
+        private final String id;
+        /** 赔率 */
+        private final double odds;
+        /** 赔率原值（与盘口返回一致，生成扫水记录用） */
+        private final BigDecimal exactOdds;
+        /** 赔率定点值（百万分之一），小数超过 6 位时无效 */
+        private final long micro;
+        private final boolean fixedPoint;
+        /** 保留 3 位小数的展示值 */
+        private final String formatted;
+        private final String decimalOdds;
+        private final String handicap;
+        private final String selectionId;
+        private final Boolean isHome;
+        private final String teamName;
+        private final String oddFType;
+        private final String gtype;
+        private final String wtype;
+        private final String rtype;
+        private final String choseTeam;
+        private final String con;
+        private final String ratio;
+
+        private Odds(String line, JSONObject json) {
+            this.line = line;
+            this.id = json.getStr("id");
+            this.exactOdds = json.getBigDecimal("odds");
+            this.odds = exactOdds.doubleValue();
+            this.fixedPoint = exactOdds.scale() <= OddsMatcher.MICRO_SCALE && exactOdds.abs().compareTo(OddsMatcher.MAX_FIXED) < 0;
+            this.micro = fixedPoint ? exactOdds.movePointRight(OddsMatcher.MICRO_SCALE).longValueExact() : 0L;
+            this.formatted = String.format("%.3f", exactOdds);
+            this.decimalOdds = json.containsKey("decimalOdds") ? json.getStr("decimalOdds") : null;
+            this.handicap = json.containsKey("handicap") ? json.getStr("handicap") : "";
+            this.selectionId = json.getStr("selectionId");
+            this.isHome = json.containsKey("isHome") ? json.getBool("isHome") : null;
+            this.teamName = json.containsKey("teamName") ? json.getStr("teamName") : null;
+            this.oddFType = json.getStr("oddFType");
+            this.gtype = json.getStr("gtype");
+            this.wtype = json.getStr("wtype");
+            this.rtype = json.getStr("rtype");
+            this.choseTeam = json.getStr("choseTeam");
+            this.con = json.getStr("con");
+            this.ratio = json.getStr("ratio");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.core.odds;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 扫水水位计算（定点整数）
+ * 赔率按百万分之一存为 long，水位 = A + B，负赔率一方再 +2，结果截断保留 3 位小数（不四舍五入），
+ * 与原 BigDecimal 算法逐位一致；小数超过 6 位的赔率退回 BigDecimal 计算
+ */
+public final class OddsMatcher {
+
+    /** 定点赔率的小数位数 */
+    static final int MICRO_SCALE = 6;
+    /** 定点赔率的绝对值上限，保证相加不会溢出 */
+    static final BigDecimal MAX_FIXED = BigDecimal.valueOf(1_000_000_000L);
+
+    private static final long MICRO = 1_000_000L;
+    private static final long MICRO_PER_MILLI = 1_000L;
+    private static final long NEGATIVE_BONUS = 2 * MICRO;
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private OddsMatcher() {
+    }
+
+    /**
+     * 两边赔率的水位，单位千分之一
+     */
+    public static long waterMilli(OddsBook.Odds a, OddsBook.Odds b) {
+        if (!a.isFixedPoint() || !b.isFixedPoint()) {
+            return waterMilli(a.getExactOdds(), b.getExactOdds());
+        }
+        long sum = a.getMicro() + b.getMicro();
+        // 一方赔率为负数，则在结果上加 2,如果两个都是负数，就等于加4
+        if (a.getMicro() < 0) {
+            sum += NEGATIVE_BONUS;
+        }
+        if (b.getMicro() < 0) {
+            sum += NEGATIVE_BONUS;
+        }
+        // long 除法向零截断，等同 RoundingMode.DOWN
+        return sum / MICRO_PER_MILLI;
+    }
+
+    /**
+     * BigDecimal 版本，定点放不下时使用
+     */
+    static long waterMilli(BigDecimal a, BigDecimal b) {
+        BigDecimal water = a.add(b);
+        if (a.signum() < 0) {
+            water = water.add(TWO);
+        }
+        if (b.signum() < 0) {
+            water = water.add(TWO);
+        }
+        return water.setScale(3, RoundingMode.DOWN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * 千分之一水位转 double，与 BigDecimal(scale=3).doubleValue() 相同（都是精确值的最近 double）
+     */
+    public static double toDouble(long waterMilli) {
+        return waterMilli / 1000.0;
+    }
+
+    /**
+     * 千分之一水位格式化为 3 位小数，与 String.format("%.3f", toDouble(waterMilli)) 相同
+     */
+    public static String format(long waterMilli) {
+        long abs = Math.abs(waterMilli);
+        long fraction = abs % 1000;
+        StringBuilder sb = new StringBuilder(12);
+        if (waterMilli < 0) {
+            sb.append('-');
+        }
+        sb.append(abs / 1000).append('.');
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.core.odds;
+
+import com.example.demo.common.enmu.WebsiteType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 两场赛事同一时段的全部可比对盘口：A 的每个方向对 B 的对立方向、相同盘口值，水位已算好
+ * 不含任何平台用户设置（方向开关、平手盘、赔率区间、水位区间），按用户过滤时保持这里的顺序
+ */
+@Getter
+public final class PeriodMatch {
+
+    private final OddsBook.Period period;
+    private final List<Line> lines;
+
+    private PeriodMatch(OddsBook.Period period, List<Line> lines) {
+        this.period = period;
+        this.lines = lines;
+    }
+
+    public static PeriodMatch of(OddsBook.Event eventA, OddsBook.Event eventB, OddsBook.Period period,
+                                 String websiteIdA, String websiteIdB) {
+        List<Line> lines = null;
+        for (OddsBook.Side sideA : eventA.sides(period)) {
+            OddsBook.Side sideB = sideA.opposite();
+            Map<String, OddsBook.Odds> linesA = eventA.lines(period, sideA);
+            Map<String, OddsBook.Odds> linesB = eventB.lines(period, sideB);
+            if (linesA.isEmpty() || linesB.isEmpty()) {
+                continue;
+            }
+            String key = sideA.getMarket().getKey();
+            for (OddsBook.Odds oddsA : linesA.values()) {
+                // 直接取对立方向的相同盘口值
+                OddsBook.Odds oddsB = linesB.get(oddsA.getLine());
+                if (oddsB == null) {
+                    continue;
+                }
+                if (lines == null) {
+                    lines = new ArrayList<>();
+                }
+                String dedupKey = key + "|" + dedupId(websiteIdA, oddsA.getId()) + "|" + dedupId(websiteIdB, oddsB.getId());
+                lines.add(new Line(sideA, sideB, oddsA, oddsB, OddsMatcher.waterMilli(oddsA, oddsB), dedupKey));
+            }
+        }
+        return new PeriodMatch(period, lines == null ? Collections.emptyList() : Collections.unmodifiableList(lines));
+    }
+
+    /**
+     * 特殊情况，如果网站是平博，那么对应的oddsId需要把最后一个|的值删掉后再做对比
+     */
+    private static String dedupId(String websiteId, String oddsId) {
+        if (WebsiteType.PINGBO.getId().equals(websiteId)) {
+            int idx = oddsId.lastIndexOf("|");
+            return idx != -1 ? oddsId.substring(0, idx + 1) : oddsId;
+        }
+        return oddsId;
+    }
+
+    /**
+     * 一条可比对的盘口
+     */
+    @Getter
+    public static final class Line {
+        private final OddsBook.Side sideA;
+        private final OddsBook.Side sideB;
+        private final OddsBook.Odds oddsA;
+        private final OddsBook.Odds oddsB;
+        /** 水位，千分之一 */
+        private final long waterMilli;
+        /** 同一时段内的去重 key：盘口类型|赔率idA|赔率idB */
+        private final String dedupKey;
+
+        private Line(OddsBook.Side sideA, OddsBook.Side sideB, OddsBook.Odds oddsA, OddsBook.Odds oddsB,
+                     long waterMilli, String dedupKey) {
+            this.sideA = sideA;
+            this.sideB = sideB;
+            this.oddsA = oddsA;
+            this.oddsB = oddsB;
+            this.waterMilli = waterMilli;
+            this.dedupKey = dedupKey;
+        }
+    }
+}
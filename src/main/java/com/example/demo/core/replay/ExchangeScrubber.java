@@ -0,0 +1,211 @@
+package com.example.demo.core.replay;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import okhttp3.HttpUrl;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 录制数据脱敏 + 回放匹配签名
+ * 字段名包含下列关键字的值一律替换为 ***（账号、密码、uid、token、cookie 等），请求头整体不录制
+ * 回放时按 方法 + 域名 + 路径 + 非敏感非易变参数 匹配录制的响应
+ */
+public final class ExchangeScrubber {
+
+    public static final String MASK = "***";
+
+    private static final List<String> SENSITIVE = List.of(
+            "pass", "pwd", "token", "uid", "session", "cookie", "auth", "username", "loginid", "blackbox", "captcha");
+
+    /**
+     * 每次请求都会变的参数（时间戳、随机数、版本号），不参与匹配
+     */
+    private static final Set<String> VOLATILE = Set.of("_", "t", "ts", "timestamp", "ver", "r", "rnd", "random");
+
+    private static final Pattern FORM = Pattern.compile("(^|[?&\\s])([\\w\\-.\\[\\]]+)=([^&\\s]*)");
+    private static final Pattern JSON = Pattern.compile("\"([^\"]+)\"(\\s*:\\s*)(\"(?:[^\"\\\\]|\\\\.)*\"|[^,}\\]\\s]+)");
+    private static final Pattern XML = Pattern.compile("<([\\w\\-]+)>([^<]*)</\\1>");
+    private static final Pattern MULTIPART = Pattern.compile("(name=\"([^\"]+)\"\\r\\n\\r\\n)([^\\r]*)");
+    private static final Pattern TIMESTAMP = Pattern.compile("\\d{10,}");
+
+    private ExchangeScrubber() {
+    }
+
+    public static boolean isSensitive(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String keyword : SENSITIVE) {
+            if (lower.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 请求体/响应体脱敏：表单、JSON、XML、multipart 中的敏感字段
+     */
+    public static String scrub(String text) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        text = replace(FORM, text, m -> isSensitive(m.group(2)) ? m.group(1) + m.group(2) + "=" + MASK : m.group());
+        text = replace(JSON, text, m -> isSensitive(m.group(1)) ? "\"" + m.group(1) + "\"" + m.group(2) + "\"" + MASK + "\"" : m.group());
+        text = replace(XML, text, m -> isSensitive(m.group(1)) ? "<" + m.group(1) + ">" + MASK + "</" + m.group(1) + ">" : m.group());
+        return replace(MULTIPART, text, m -> isSensitive(m.group(2)) ? m.group(1) + MASK : m.group());
+    }
+
+    /**
+     * query 脱敏：参数名敏感的整体替换；参数值解码后按表单/JSON 规则脱敏，有改动时重新编码
+     * 盛帆 variables=%7B%22query%22...%22oddsToken%22...%7D 这类编码后的 JSON 直接匹配不到 oddsToken
+     * @param encodedQuery 编码后的 query（不含 ?）
+     */
+    public static String scrubQuery(String encodedQuery) {
+        if (encodedQuery == null || encodedQuery.isEmpty()) {
+            return encodedQuery;
+        }
+        StringJoiner joiner = new StringJoiner("&");
+        for (String pair : encodedQuery.split("&", -1)) {
+            int eq = pair.indexOf('=');
+            if (eq < 0) {
+                joiner.add(pair);
+                continue;
+            }
+            String name = pair.substring(0, eq);
+            if (isSensitive(decode(name))) {
+                joiner.add(name + "=" + MASK);
+                continue;
+            }
+            String value = decode(pair.substring(eq + 1));
+            String scrubbed = scrub(value);
+            joiner.add(scrubbed.equals(value) ? pair : name + "=" + URLEncoder.encode(scrubbed, StandardCharsets.UTF_8));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * 响应头脱敏：Set-Cookie 只保留名称，敏感头整体替换
+     */
+    public static Map<String, List<String>> scrubHeaders(Map<String, List<String>> headers) {
+        Map<String, List<String>> scrubbed = new LinkedHashMap<>();
+        headers.forEach((name, values) -> {
+            if ("set-cookie".equalsIgnoreCase(name)) {
+                List<String> cookies = new ArrayList<>();
+                for (String cookie : values) {
+                    int eq = cookie.indexOf('=');
+                    cookies.add((eq < 0 ? cookie : cookie.substring(0, eq)) + "=" + MASK);
+                }
+                scrubbed.put(name, cookies);
+            } else if (isSensitive(name) || name.toLowerCase(Locale.ROOT).contains("app-data")) {
+                scrubbed.put(name, List.of(MASK));
+            } else {
+                scrubbed.put(name, values);
+            }
+        });
+        return scrubbed;
+    }
+
+    public static String origin(HttpUrl url) {
+        String origin = url.scheme() + "://" + url.host();
+        return url.port() == HttpUrl.defaultPort(url.scheme()) ? origin : origin + ":" + url.port();
+    }
+
+    /**
+     * 回放匹配签名
+     * @param path 编码后的 path + query
+     */
+    public static String signature(String method, String origin, String path, String body) {
+        int q = path.indexOf('?');
+        StringBuilder sb = new StringBuilder(method).append(' ').append(route(origin, path));
+        params(q < 0 ? null : path.substring(q + 1), body).forEach((k, v) -> sb.append(k).append('=').append(v).append('&'));
+        return sb.toString();
+    }
+
+    /**
+     * 方法 + 域名 + 路径（不含参数），签名匹配不上时在同一路由下找最接近的
+     */
+    public static String route(String origin, String path) {
+        int q = path.indexOf('?');
+        return origin + (q < 0 ? path : path.substring(0, q)) + "?";
+    }
+
+    /**
+     * 参与匹配的参数：query + 表单/JSON 请求体的顶层字段，去掉敏感和易变的
+     */
+    public static Map<String, String> params(String query, String body) {
+        Map<String, String> params = new TreeMap<>();
+        putForm(params, query);
+        if (body != null && !body.isBlank()) {
+            String trimmed = body.trim();
+            if (trimmed.startsWith("{") && JSONUtil.isTypeJSONObject(trimmed)) {
+                JSONObject json = JSONUtil.parseObj(trimmed);
+                json.forEach((k, v) -> {
+                    if (!(v instanceof Map) && !(v instanceof List)) {
+                        put(params, k, String.valueOf(v));
+                    }
+                });
+            } else if (trimmed.indexOf('=') > 0 && trimmed.indexOf('\n') < 0) {
+                putForm(params, trimmed);
+            }
+        }
+        return params;
+    }
+
+    private static void putForm(Map<String, String> params, String form) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                // 解码后脱敏再比较：录制时编码值中的敏感字段已替换，回放时的请求同样处理
+                put(params, decode(pair.substring(0, eq)), scrub(decode(pair.substring(eq + 1))));
+            }
+        }
+    }
+
+    private static void put(Map<String, String> params, String key, String value) {
+        if (isSensitive(key) || VOLATILE.contains(key.toLowerCase(Locale.ROOT)) || TIMESTAMP.matcher(value).matches()) {
+            return;
+        }
+        params.put(key, value);
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            // 非法的 % 转义，按原文处理
+            return value;
+        }
+    }
+
+    private static String replace(Pattern pattern, String text, Function<Matcher, String> replacement) {
+        Matcher m = pattern.matcher(text);
+        StringBuilder sb = null;
+        while (m.find()) {
+            if (sb == null) {
+                sb = new StringBuilder(text.length());
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(replacement.apply(m)));
+        }
+        if (sb == null) {
+            return text;
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.demo.core.replay;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 盘口请求回放：本地 HTTP 服务按录制文件返回响应，OkHttpProxyDispatcher 在回放模式下把所有盘口请求改发到这里
+ * speed=1 按录制时的节奏（赔率随时间变化、响应耗时与线上一致），speed=10 时间轴和耗时都压缩 10 倍，
+ * speed=0 不等待，同一请求依次返回录制的每个响应，到头后从头循环，用于压测和对比不同版本的单轮耗时
+ */
+@Slf4j
+@Component
+public class HttpReplayServer implements InitializingBean, DisposableBean {
+
+    /**
+     * 改发时带上原始 scheme://host[:port]
+     */
+    public static final String ORIGIN_HEADER = "X-Replay-Origin";
+
+    private static final Set<String> SKIP_HEADERS = Set.of("content-length", "transfer-encoding", "connection", "keep-alive", "date");
+
+    @Value("${sweepwater.replay.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sweepwater.replay.file:}")
+    private String file;
+
+    @Value("${sweepwater.replay.speed:1}")
+    private double speed;
+
+    @Value("${sweepwater.replay.port:0}")
+    private int port;
+
+    private final Map<String, Sequence> bySignature = new HashMap<>();
+    private final Map<String, List<Sequence>> byRoute = new HashMap<>();
+    private final AtomicLong startNanos = new AtomicLong();
+    private final LongAdder served = new LongAdder();
+    private final LongAdder approximated = new LongAdder();
+    private final LongAdder missed = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (file == null || file.isBlank()) {
+            throw new IllegalStateException("回放模式需要配置 sweepwater.replay.file");
+        }
+        List<RecordedExchange> exchanges = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                exchanges.add(JSONUtil.toBean(line, RecordedExchange.class));
+            }
+        }
+        load(exchanges);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "replay-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("盘口请求回放已开启，文件={}，录制请求数={}，不同请求数={}，速度={}，地址=127.0.0.1:{}",
+                file, exchanges.size(), bySignature.size(), speed <= 0 ? "不限" : speed + "x", getPort());
+    }
+
+    @Override
+    public void destroy() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            log.info("盘口请求回放结束：{}", getStats());
+        }
+    }
+
+    public boolean isEnabled() {
+        return server != null;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 把发往盘口的请求改发到本地回放服务
+     */
+    public Request redirect(Request request) {
+        HttpUrl url = request.url();
+        HttpUrl.Builder builder = url.newBuilder().scheme("http").host("127.0.0.1").port(getPort());
+        if (url.encodedQuery() != null) {
+            builder.encodedQuery(uriSafe(url.encodedQuery()));
+        }
+        HttpUrl local = builder.build();
+        return request.newBuilder()
+                .url(local)
+                .header(ORIGIN_HEADER, ExchangeScrubber.origin(url))
+                .build();
+    }
+
+    /**
+     * JDK HttpServer 按 java.net.URI 解析请求行，盛帆 query 中未编码的 {} 等字符会被拒绝，转发前补上编码（解码后的值不变，不影响匹配）
+     */
+    static String uriSafe(String encodedQuery) {
+        StringBuilder sb = new StringBuilder(encodedQuery.length());
+        for (int i = 0; i < encodedQuery.length(); i++) {
+            char c = encodedQuery.charAt(i);
+            if ("{}|\\^`[]".indexOf(c) >= 0) {
+                sb.append('%').append(String.format("%02X", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    public JSONObject getStats() {
+        JSONObject stats = new JSONObject();
+        stats.putOpt("served", served.sum());
+        stats.putOpt("approximated", approximated.sum());
+        stats.putOpt("missed", missed.sum());
+        return stats;
+    }
+
+    void load(List<RecordedExchange> exchanges) {
+        long firstOffset = exchanges.stream().mapToLong(RecordedExchange::getOffsetMs).min().orElse(0);
+        for (RecordedExchange exchange : exchanges) {
+            exchange.setOffsetMs(exchange.getOffsetMs() - firstOffset);
+            String signature = ExchangeScrubber.signature(exchange.getMethod(), exchange.getOrigin(), exchange.getPath(), exchange.getRequestBody());
+            bySignature.computeIfAbsent(signature, k -> {
+                Sequence sequence = new Sequence(params(exchange.getPath(), exchange.getRequestBody()));
+                byRoute.computeIfAbsent(exchange.getMethod() + " " + ExchangeScrubber.route(exchange.getOrigin(), exchange.getPath()),
+                        r -> new ArrayList<>()).add(sequence);
+                return sequence;
+            }).exchanges.add(exchange);
+        }
+        bySignature.values().forEach(sequence -> sequence.exchanges.sort(Comparator.comparingLong(RecordedExchange::getOffsetMs)));
+    }
+
+    private void handle(HttpExchange http) throws IOException {
+        try (http) {
+            String origin = http.getRequestHeaders().getFirst(ORIGIN_HEADER);
+            String path = http.getRequestURI().getRawPath()
+                    + (http.getRequestURI().getRawQuery() == null ? "" : "?" + http.getRequestURI().getRawQuery());
+            String body = new String(http.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            RecordedExchange exchange = origin == null ? null : pick(http.getRequestMethod(), origin, path, body);
+            if (exchange == null) {
+                missed.increment();
+                log.debug("回放未命中，方法={}，地址={}{}", http.getRequestMethod(), origin, path);
+                http.sendResponseHeaders(404, -1);
+                return;
+            }
+            served.increment();
+            if (speed > 0 && exchange.getDurationMs() > 0) {
+                Thread.sleep((long) (exchange.getDurationMs() / speed));
+            }
+            respond(http, exchange);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 先按签名精确匹配，匹配不上时在同一路由下找参数重合最多的（例如投注请求的金额、盘口不同）
+     */
+    RecordedExchange pick(String method, String origin, String path, String body) {
+        Sequence sequence = bySignature.get(ExchangeScrubber.signature(method, origin, path, body));
+        if (sequence == null) {
+            List<Sequence> candidates = byRoute.get(method + " " + ExchangeScrubber.route(origin, path));
+            if (candidates == null) {
+                return null;
+            }
+            Map<String, String> params = params(path, body);
+            sequence = candidates.stream().max(Comparator.comparingLong(candidate -> overlap(candidate.params, params))).orElseThrow();
+            approximated.increment();
+        }
+        return sequence.next();
+    }
+
+    private void respond(HttpExchange http, RecordedExchange exchange) throws IOException {
+        byte[] bytes = exchange.getBody() != null
+                ? exchange.getBody().getBytes(StandardCharsets.UTF_8)
+                : exchange.getBodyBase64() != null ? Base64.decode(exchange.getBodyBase64()) : new byte[0];
+        if (exchange.isGzip()) {
+            bytes = ZipUtil.gzip(bytes);
+        }
+        if (exchange.getResponseHeaders() != null) {
+            exchange.getResponseHeaders().forEach((name, values) -> {
+                if (!SKIP_HEADERS.contains(name.toLowerCase())) {
+                    http.getResponseHeaders().put(name, values);
+                }
+            });
+        }
+        boolean noBody = bytes.length == 0 || "HEAD".equals(http.getRequestMethod());
+        http.sendResponseHeaders(exchange.getStatus(), noBody ? -1 : bytes.length);
+        if (!noBody) {
+            try (OutputStream out = http.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static Map<String, String> params(String path, String body) {
+        int q = path.indexOf('?');
+        return ExchangeScrubber.params(q < 0 ? null : path.substring(q + 1), body);
+    }
+
+    private static long overlap(Map<String, String> a, Map<String, String> b) {
+        return a.entrySet().stream().filter(e -> e.getValue().equals(b.get(e.getKey()))).count();
+    }
+
+    /**
+     * 同一签名的录制响应（按录制时间排序）
+     */
+    private class Sequence {
+        private final Map<String, String> params;
+        private final List<RecordedExchange> exchanges = new ArrayList<>();
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        private Sequence(Map<String, String> params) {
+            this.params = params;
+        }
+
+        /**
+         * 不限速时依次循环返回；按倍速回放时返回回放时间轴上最近一次录制的响应
+         */
+        private RecordedExchange next() {
+            if (speed <= 0) {
+                return exchanges.get(Math.floorMod(cursor.getAndIncrement(), exchanges.size()));
+            }
+            startNanos.compareAndSet(0, System.nanoTime());
+            long clockMs = (long) (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos.get()) * speed);
+            int low = 0;
+            int high = exchanges.size() - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (exchanges.get(mid).getOffsetMs() <= clockMs) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return exchanges.get(low);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo.core.replay;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.date.DateUtil;
+import cn.hutool.core.util.ZipUtil;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.Buffer;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * 盘口 HTTP 往返录制：挂在 OkHttpProxyDispatcher 所有客户端上，开启后把脱敏后的请求/响应逐行写入
+ * {dir}/traffic-yyyyMMdd-HHmmss.jsonl，供 HttpReplayServer 离线回放
+ */
+@Slf4j
+@Component
+public class HttpTrafficRecorder implements Interceptor, InitializingBean, DisposableBean {
+
+    /**
+     * 单个响应体最多录制的字节数
+     */
+    private static final long MAX_BODY_BYTES = 16L * 1024 * 1024;
+
+    @Value("${sweepwater.replay.record:false}")
+    private boolean enabled;
+
+    @Value("${sweepwater.replay.dir:logs/replay}")
+    private String dir;
+
+    private volatile BufferedWriter writer;
+    private Path file;
+    private long startMillis;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(Paths.get(dir));
+        file = Paths.get(dir, "traffic-" + DateUtil.format(new Date(), "yyyyMMdd-HHmmss") + ".jsonl");
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        startMillis = System.currentTimeMillis();
+        log.info("盘口请求录制已开启，写入 {}", file.toAbsolutePath());
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (writer != null) {
+            synchronized (this) {
+                writer.close();
+                writer = null;
+            }
+            log.info("盘口请求录制结束，文件 {}", file.toAbsolutePath());
+        }
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        if (writer == null) {
+            return response;
+        }
+        try {
+            write(toExchange(request, response));
+        } catch (Exception e) {
+            // 录制失败不影响业务请求
+            log.warn("录制盘口请求失败，URL={}，错误：{}", request.url(), e.getMessage());
+        }
+        return response;
+    }
+
+    private RecordedExchange toExchange(Request request, Response response) throws IOException {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setOffsetMs(response.sentRequestAtMillis() - startMillis);
+        exchange.setDurationMs(response.receivedResponseAtMillis() - response.sentRequestAtMillis());
+        exchange.setMethod(request.method());
+        exchange.setOrigin(ExchangeScrubber.origin(request.url()));
+        String query = request.url().encodedQuery();
+        exchange.setPath(request.url().encodedPath() + (query == null ? "" : "?" + ExchangeScrubber.scrubQuery(query)));
+        if (request.body() != null && !request.body().isOneShot()) {
+            Buffer buffer = new Buffer();
+            request.body().writeTo(buffer);
+            exchange.setRequestBody(ExchangeScrubber.scrub(buffer.readUtf8()));
+        }
+        exchange.setStatus(response.code());
+        exchange.setResponseHeaders(ExchangeScrubber.scrubHeaders(response.headers().toMultimap()));
+
+        byte[] bytes = response.peekBody(MAX_BODY_BYTES).bytes();
+        // 显式要求 gzip 时 OkHttp 不会自动解压，解压后脱敏，回放时再压缩
+        if (isGzip(bytes)) {
+            bytes = ZipUtil.unGzip(bytes);
+            exchange.setGzip(true);
+        }
+        if (isUtf8Text(response, bytes)) {
+            exchange.setBody(ExchangeScrubber.scrub(new String(bytes, StandardCharsets.UTF_8)));
+        } else if (bytes.length > 0) {
+            exchange.setBodyBase64(Base64.encode(bytes));
+        }
+        return exchange;
+    }
+
+    static boolean isGzip(byte[] bytes) {
+        return bytes.length >= 2 && bytes[0] == (byte) 0x1F && bytes[1] == (byte) 0x8B;
+    }
+
+    /**
+     * 只有 UTF-8 文本才按文本录制并脱敏，其余原样保存
+     */
+    private static boolean isUtf8Text(Response response, byte[] bytes) {
+        MediaType type = response.body() == null ? null : response.body().contentType();
+        if (type == null) {
+            return false;
+        }
+        Charset charset = type.charset();
+        if (charset != null && !StandardCharsets.UTF_8.equals(charset)) {
+            return false;
+        }
+        String subtype = type.subtype().toLowerCase(Locale.ROOT);
+        return "text".equals(type.type()) || subtype.contains("json") || subtype.contains("xml")
+                || subtype.contains("javascript") || subtype.contains("x-www-form-urlencoded");
+    }
+
+    private void write(RecordedExchange exchange) throws IOException {
+        String line = JSONUtil.toJsonStr(exchange);
+        synchronized (this) {
+            if (writer == null) {
+                return;
+            }
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.core.replay;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 录制的一次 HTTP 往返（已脱敏），录制文件每行一条
+ */
+@Data
+public class RecordedExchange {
+
+    /**
+     * 相对录制开始的毫秒数
+     */
+    private long offsetMs;
+
+    /**
+     * 请求发出到收到响应头的耗时(毫秒)
+     */
+    private long durationMs;
+
+    private String method;
+
+    /**
+     * scheme://host[:port]
+     */
+    private String origin;
+
+    /**
+     * 编码后的 path + query
+     */
+    private String path;
+
+    private String requestBody;
+
+    private int status;
+
+    private Map<String, List<String>> responseHeaders;
+
+    /**
+     * 原始响应体是否 gzip 压缩（body/bodyBase64 保存的是解压后的内容）
+     */
+    private boolean gzip;
+
+    /**
+     * 文本响应体，与 bodyBase64 二选一
+     */
+    private String body;
+
+    /**
+     * 二进制（图片、非 UTF-8 编码）响应体
+     */
+    private String bodyBase64;
+}
@@ -16,15 +16,19 @@ import com.example.demo.config.PriorityTaskExecutor;
 import com.example.demo.core.exception.BusinessException;
 import com.example.demo.core.factory.ApiHandler;
 import com.example.demo.model.vo.ConfigAccountVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.LongSupplier;
 
 /**
  * 盛帆网站 - 赛事赔率 API具体实现 用于扫水时获取赔率信息
@@ -37,6 +41,26 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
     private final WebsiteService websiteService;
     private final ApiUrlService apiUrlService;
 
+    /**
+     * 盛帆 CDN 接口地址
+     */
+    @Value("${sbo.cdn-api:" + SboCdnApiConstants.API + "}")
+    private String cdnApi = SboCdnApiConstants.API;
+
+    /**
+     * 赛事列表共享时长（毫秒）：同一账号在此时间内的所有赛事赔率请求共用一次 EventsQuery
+     */
+    @Value("${sweepwater.sbo.event-list-ttl-ms:1000}")
+    private long eventListTtlMs = 1000;
+
+    // 账号:过滤条件 -> 赛事列表（进行中的请求也放在这里，实现 single-flight）
+    private final Cache<String, CompletableFuture<EventList>> eventListCache = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofMinutes(1))
+            .build();
+    /** 单调时钟（纳秒），测试中替换 */
+    private LongSupplier clock = System::nanoTime;
+
     @Autowired
     public WebsiteSboEventOddsHandler(OkHttpProxyDispatcher dispatcher, WebsiteService websiteService, ApiUrlService apiUrlService) {
         this.dispatcher = dispatcher;
@@ -110,7 +134,7 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
                 encodeJsonParam(variables_step3),
                 encodeJsonParam(extensions_step3)
         );
-        String fullUrl_step3 = String.format("%s?%s", SboCdnApiConstants.API, queryParams_step3);
+        String fullUrl_step3 = String.format("%s?%s", cdnApi, queryParams_step3);
 
         OkHttpProxyDispatcher.HttpResult resultHttp;
         try {
@@ -156,20 +180,9 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
         }
         Long dictEventId = params.getLong("eventId");
         try {
-            // --- 第一步：获取赛事基本列表 ---
-            log.info("开始执行第一步：获取赛事基本列表");
-            String variables_step1 = "{\"query\":{\"sport\":\"Soccer\",\"filter\":{\"presetFilter\":\""+presetFilter+"\",\"date\":\""+date+"\"},\"oddsCategory\":\"All\",\"eventIds\":[],\"tournamentIds\":[],\"tournamentNames\":[],\"timeZone\":\"UTC__4\"}}";
-            String extensions_step1 = "{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"3d1d1962ced90cab9f42457169c2ac98098e955265382d94ca3af288a0d401d8\"}}";
-
-            String queryParams_step1 = String.format("operationName=%s&variables=%s&extensions=%s",
-                    SboCdnApiConstants.OPERATION_NAME_EVENTS_QUERY,
-                    encodeJsonParam(variables_step1),
-                    encodeJsonParam(extensions_step1)
-            );
-            String fullUrl_step1 = String.format("%s?%s", SboCdnApiConstants.API, queryParams_step1);
-
-            OkHttpProxyDispatcher.HttpResult resultStep1 = dispatcher.execute("GET", fullUrl_step1, null, requestHeaders, userConfig, false);
-            JSONObject step1Response = this.parseResponse(params, resultStep1);
+            // --- 第一步：获取赛事基本列表（同一账号在共享时长内只请求一次） ---
+            EventList events = getEventList(userConfig, params, requestHeaders, presetFilter, date);
+            JSONObject step1Response = events.response;
             if (step1Response.containsKey("errors")) {
                 log.info("获取赛事列表数据第一步失败: {}", step1Response);
                 finalResult.putOpt("success", false);
@@ -177,42 +190,36 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
                 finalResult.putOpt("msg", step1Response);
                 return finalResult;
             }
-            if (!step1Response.getBool("success", false) && resultStep1.getStatus() != 200) {
+            if (!step1Response.getBool("success", false) && events.status != 200) {
                 return step1Response;
             }
-            JSONArray eventList = step1Response.getJSONObject("data").getJSONArray("events");
-            log.info("获取赛事列表数据第一步成功: {}", eventList);
-            JSONObject basicEventInfo = new JSONObject();
-            for (int i = 0; i < eventList.size(); i++) {
-                basicEventInfo = eventList.getJSONObject(i);
-                Long eventId = basicEventInfo.getLong("id");
-                if (!Objects.equals(eventId, dictEventId)) {
-                    continue;
-                }
+            // 找不到绑定赛事时沿用原逻辑：取列表最后一场，返回空 events
+            JSONObject basicEventInfo = events.byId.get(dictEventId);
+            JSONArray eventOdds = null;
+            if (basicEventInfo == null) {
+                basicEventInfo = events.last;
+            } else {
                 // 获取赔率信息
-                JSONObject oddsInfo = step3GetOddsForEvent(userConfig, params, requestHeaders, eventId, presetFilter);
+                JSONObject oddsInfo = step3GetOddsForEvent(userConfig, params, requestHeaders, dictEventId, presetFilter);
                 log.info("获取赛事列表数据第二步: {}", oddsInfo);
-                if (oddsInfo != null) {
-                    if (oddsInfo.containsKey("errors")) {
-                        log.info("获取赛事列表数据第二步失败: {}", oddsInfo);
-                        finalResult.putOpt("success", false);
-                        finalResult.putOpt("code", 400);
-                        finalResult.putOpt("msg", oddsInfo);
-                        return finalResult;
-                    }
-                    basicEventInfo.putOpt("eventOdds", oddsInfo.getJSONObject("data").getJSONArray("eventOdds"));
-                    break;
+                if (oddsInfo.containsKey("errors")) {
+                    log.info("获取赛事列表数据第二步失败: {}", oddsInfo);
+                    finalResult.putOpt("success", false);
+                    finalResult.putOpt("code", 400);
+                    finalResult.putOpt("msg", oddsInfo);
+                    return finalResult;
                 }
+                eventOdds = oddsInfo.getJSONObject("data").getJSONArray("eventOdds");
             }
             // --- 转换逻辑开始 ---
             JSONObject league = new JSONObject();
             league.putOpt("id", basicEventInfo.getJSONObject("tournament").getStr("id"));
 
             JSONArray eventsArray = new JSONArray();
-            if (!basicEventInfo.isEmpty() && basicEventInfo.containsKey("eventOdds")) {
+            if (!basicEventInfo.isEmpty() && eventOdds != null) {
                 league.putOpt("league", getLeagueName(basicEventInfo.getJSONObject("tournament"), "ZH_CN"));
                 // home
-                JSONObject home = convertOdds(basicEventInfo, true);
+                JSONObject home = convertOdds(basicEventInfo, eventOdds, true);
                 eventsArray.add(home);
             }
             league.putOpt("events", eventsArray);
@@ -224,6 +231,12 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
             finalResult.putOpt("msg", "获取赛事赔率数据成功");
             finalResult.putOpt("leagues", oddsArray); // 直接返回平铺后的赔率数组
 
+        } catch (CompletionException e) {
+            // 共享的赛事列表请求失败
+            log.info("执行完整流程未知异常: {}", e.getCause() != null ? e.getCause().getMessage() : e.getMessage(), e);
+            finalResult.putOpt("success", false);
+            finalResult.putOpt("code", e.getCause() instanceof BusinessException ? 400 : 500);
+            finalResult.putOpt("msg", e.getCause() instanceof BusinessException ? e.getCause().getMessage() : "系统内部错误，获取赛事数据失败");
         } catch (BusinessException e) {
             log.error("业务流程异常: {}", e.getMessage(), e);
             finalResult.putOpt("success", false);
@@ -239,6 +252,90 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
         return finalResult;
     }
 
+    /**
+     * 获取赛事基本列表：同一账号同一过滤条件在 eventListTtlMs 内共用一次请求，并发调用只会有一个真正发出
+     * 列表为只读共享数据，调用方不得修改
+     */
+    private EventList getEventList(ConfigAccountVO userConfig, JSONObject params, Map<String, String> headers,
+                                   String presetFilter, String date) {
+        String cacheKey = userConfig.getAccount() + ":" + presetFilter;
+        CompletableFuture<EventList> created = new CompletableFuture<>();
+        CompletableFuture<EventList> future = eventListCache.asMap().compute(cacheKey,
+                (k, old) -> old != null && isUsable(old) ? old : created);
+        if (future == created) {
+            try {
+                created.complete(fetchEventList(userConfig, params, headers, presetFilter, date));
+            } catch (Exception e) {
+                created.completeExceptionally(e);
+            }
+        }
+        return future.join();
+    }
+
+    private boolean isUsable(CompletableFuture<EventList> future) {
+        if (!future.isDone()) {
+            // 进行中：等待同一个请求
+            return true;
+        }
+        if (future.isCompletedExceptionally()) {
+            return false;
+        }
+        EventList list = future.join();
+        return list.cacheable && TimeUnit.NANOSECONDS.toMillis(clock.getAsLong() - list.fetchedNanos) < eventListTtlMs;
+    }
+
+    private EventList fetchEventList(ConfigAccountVO userConfig, JSONObject params, Map<String, String> headers,
+                                     String presetFilter, String date) throws Exception {
+        log.info("开始执行第一步：获取赛事基本列表");
+        String variables_step1 = "{\"query\":{\"sport\":\"Soccer\",\"filter\":{\"presetFilter\":\""+presetFilter+"\",\"date\":\""+date+"\"},\"oddsCategory\":\"All\",\"eventIds\":[],\"tournamentIds\":[],\"tournamentNames\":[],\"timeZone\":\"UTC__4\"}}";
+        String extensions_step1 = "{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"3d1d1962ced90cab9f42457169c2ac98098e955265382d94ca3af288a0d401d8\"}}";
+
+        String queryParams_step1 = String.format("operationName=%s&variables=%s&extensions=%s",
+                SboCdnApiConstants.OPERATION_NAME_EVENTS_QUERY,
+                encodeJsonParam(variables_step1),
+                encodeJsonParam(extensions_step1)
+        );
+        String fullUrl_step1 = String.format("%s?%s", cdnApi, queryParams_step1);
+
+        OkHttpProxyDispatcher.HttpResult resultStep1 = dispatcher.execute("GET", fullUrl_step1, null, headers, userConfig, false);
+        JSONObject step1Response = this.parseResponse(params, resultStep1);
+        boolean ok = resultStep1.getStatus() == 200 && !step1Response.containsKey("errors");
+
+        Map<Long, JSONObject> byId = new HashMap<>();
+        JSONObject last = new JSONObject();
+        if (ok) {
+            JSONArray eventList = step1Response.getJSONObject("data").getJSONArray("events");
+            log.info("获取赛事列表数据第一步成功: {}", eventList);
+            for (int i = 0; i < eventList.size(); i++) {
+                last = eventList.getJSONObject(i);
+                byId.putIfAbsent(last.getLong("id"), last);
+            }
+        }
+        return new EventList(step1Response, resultStep1.getStatus(), byId, last, ok, clock.getAsLong());
+    }
+
+    /**
+     * 一次 EventsQuery 的结果，按赛事id建索引
+     */
+    private static class EventList {
+        final JSONObject response;
+        final int status;
+        final Map<Long, JSONObject> byId;
+        final JSONObject last;
+        final boolean cacheable;
+        final long fetchedNanos;
+
+        EventList(JSONObject response, int status, Map<Long, JSONObject> byId, JSONObject last,
+                  boolean cacheable, long fetchedNanos) {
+            this.response = response;
+            this.status = status;
+            this.byId = byId;
+            this.last = last;
+            this.cacheable = cacheable;
+            this.fetchedNanos = fetchedNanos;
+        }
+    }
+
     /**
      * 获取赛事名称（支持多语言）
      */
@@ -272,7 +369,7 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
     /**
      * 把 basicEventInfo 转换成需要的目标结构
      */
-    private JSONObject convertOdds(JSONObject basicEventInfo, boolean isHome) {
+    private JSONObject convertOdds(JSONObject basicEventInfo, JSONArray eventOdds, boolean isHome) {
         JSONObject team = new JSONObject();
 
         int period = basicEventInfo.getJSONObject("mainMarketEventResult").getJSONObject("extraInfo").getInt("period");
@@ -307,7 +404,7 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
             session = "FT";
             reTime = 0;
         }
-        JSONArray eventResult = basicEventInfo.getJSONArray("eventOdds");
+        JSONArray eventResult = eventOdds;
         if (eventResult != null && !eventResult.isEmpty()) {
             int homeScore = eventResult.getJSONObject(0).getJSONObject("eventResult").getInt("liveHomeScore");
             int awayScore = eventResult.getJSONObject(0).getJSONObject("eventResult").getInt("liveAwayScore");
@@ -334,8 +431,8 @@ public class WebsiteSboEventOddsHandler implements ApiHandler {
         JSONObject halfBig = new JSONObject();
         JSONObject halfSmall = new JSONObject();
 
-        for (int i = 0; i < basicEventInfo.getJSONArray("eventOdds").size(); i++) {
-            JSONObject o = basicEventInfo.getJSONArray("eventOdds").getJSONObject(i);
+        for (int i = 0; i < eventOdds.size(); i++) {
+            JSONObject o = eventOdds.getJSONObject(i);
             String type = o.getStr("marketType");   // e.g. "Handicap" / "FH_Handicap" / "OverUnder" / "FH_OverUnder"
             double point = o.getDouble("point");
 
@@ -1,8 +1,6 @@
 package com.example.demo.core.sites.xinbao;
 
 import cn.hutool.core.util.NumberUtil;
-import cn.hutool.core.util.ObjectUtil;
-import cn.hutool.core.util.XmlUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
@@ -21,9 +19,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
 
-import javax.xml.xpath.XPathConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
 import java.util.*;
 import java.util.function.BiConsumer;
 
@@ -176,9 +174,15 @@ public class WebsiteXinBaoEventOddsNewHandler implements ApiHandler {
             return responseJson;
         }
 
-        Document docResult = XmlUtil.readXML(response.getBody());
-        Object original = XmlUtil.getByXPath("//serverresponse/original", docResult, XPathConstants.STRING);
-        if (ObjectUtil.isEmpty(original)) {
+        // 流式解析 serverresponse/original，直接得到按 key 升序的盘口列表
+        List<XinBaoGame> games;
+        try {
+            games = XinBaoGameListDecoder.decode(response.getBody());
+        } catch (XMLStreamException | IOException e) {
+            log.error("新二赛事赔率解析异常: {}", e.getMessage(), e);
+            throw new BusinessException(SystemError.SYS_400);
+        }
+        if (games == null) {
             responseJson.putOpt("success", false);
             responseJson.putOpt("msg", "获取账户赛事失败");
             return responseJson;
@@ -186,73 +190,63 @@ public class WebsiteXinBaoEventOddsNewHandler implements ApiHandler {
 
         // oddsFormatType 由上游 params 提供（用于赔率转换）
         String oddsFormatType = params.getStr("oddsFormatType");
-        JSONObject originalJson = JSONUtil.parseObj(original);
         Map<String, JSONObject> leagueMap = new LinkedHashMap<>(); // 保持联赛顺序
+        Map<String, JSONObject> eventIndex = new HashMap<>();       // lid:ecid -> event，同一赛事的多条盘口合并
+
+        // 每条条目对应一场比赛的一组盘口（同一 ecid 可能有多条：主盘 + 副盘）
+        for (XinBaoGame game : games) {
+            String lid = game.getLid();
+            String ecid = game.getEcid();  // 事件唯一 id（用于 event.id）
+            String home = game.getTeamH();
+            String away = game.getTeamC();
+            String score = StringUtils.defaultString(game.getScoreH()) + "-" + StringUtils.defaultString(game.getScoreC());
+            String session = game.getNowModel();
+
+            // session -> 显示值映射（HT/FT/其它）
+            String sessionValue;
+            if ("HT".equals(session)) {
+                sessionValue = "1H";
+            } else if ("FT".equals(session)) {
+                sessionValue = "2H";
+            } else {
+                sessionValue = "HT";
+            }
+            if ("Y".equals(game.getMidfield())) sessionValue = "HT";
+
+            // 获取或创建联赛容器（保持顺序）
+            JSONObject league = leagueMap.computeIfAbsent(lid, k -> {
+                JSONObject obj = new JSONObject();
+                obj.putOpt("id", lid);
+                obj.putOpt("ecid", ecid);
+                obj.putOpt("league", game.getLeague());
+                obj.putOpt("events", new JSONArray());
+                return obj;
+            });
 
-        // 遍历原始数据，每条条目生成一个 event（即一场比赛）
-        originalJson.entrySet().stream()
-            .sorted(Comparator.comparing(Map.Entry::getKey)) // 按 key 升序
-            .forEach(entry -> {
-                JSONObject gameJson = JSONUtil.parseObj(entry.getValue());
-
-                String lid = gameJson.getStr("LID");
-                String gid = gameJson.getStr("GID");    // 全场盘口 id (用于 letBall / overSize 的 id 字段)
-                String hgid = gameJson.getStr("HGID");  // 半场盘口 id
-                String ecid = gameJson.getStr("ECID");  // 事件唯一 id（示例中用于 event.id）
-                String leagueName = gameJson.getStr("LEAGUE");
-                String home = gameJson.getStr("TEAM_H");
-                String away = gameJson.getStr("TEAM_C");
-                String score = gameJson.getStr("SCORE_H", "") + "-" + gameJson.getStr("SCORE_C", "");
-                String session = gameJson.getStr("NOW_MODEL");
-                String midfield = gameJson.getStr("MIDFIELD");
-                String reTimeSet = gameJson.getStr("RETIMESET");
-
-                // session -> 显示值映射（HT/FT/其它）
-                String sessionValue;
-                if ("HT".equals(session)) {
-                    sessionValue = "1H";
-                } else if ("FT".equals(session)) {
-                    sessionValue = "2H";
-                } else {
-                    sessionValue = "HT";
-                }
-                if ("Y".equals(midfield)) sessionValue = "HT";
-
-                // 获取或创建联赛容器（保持顺序）
-                JSONObject league = leagueMap.computeIfAbsent(lid, k -> {
-                    JSONObject obj = new JSONObject();
-                    obj.putOpt("id", lid);
-                    obj.putOpt("ecid", ecid);
-                    obj.putOpt("league", leagueName);
-                    obj.putOpt("events", new JSONArray());
-                    return obj;
-                });
-
-                // 查找是否已存在同 ecid 的 event（合并逻辑）
-                JSONArray events = league.getJSONArray("events");
-                JSONObject event = findEventById(events, ecid);
-
-                if (event == null) {
-                    // 不存在则创建新 event（注意：不在此处无条件覆盖 fullCourt / firstHalf）
-                    event = new JSONObject();
-                    event.putOpt("id", ecid);             // 使用 ecid 作为 event.id（可按需改）
-                    event.putOpt("name", home + " -vs- " + away);
-                    event.putOpt("homeTeam", home);
-                    event.putOpt("awayTeam", away);
-                    event.putOpt("score", score);
-                    event.putOpt("session", sessionValue);
-                    event.putOpt("reTime", extractMatchMinute(reTimeSet));
-                    // 不要用 new JSONObject() 覆盖已有节点，parseOddsBlock 会按需创建子容器
-                    // event.putOpt("fullCourt", new JSONObject());
-                    // event.putOpt("firstHalf", new JSONObject());
-
-                    events.add(event);
+            // 查找是否已存在同 ecid 的 event（合并逻辑）
+            String eventKey = lid + ":" + ecid;
+            JSONObject event = ecid == null ? null : eventIndex.get(eventKey);
+
+            if (event == null) {
+                // 不存在则创建新 event（注意：不在此处无条件覆盖 fullCourt / firstHalf）
+                event = new JSONObject();
+                event.putOpt("id", ecid);             // 使用 ecid 作为 event.id（可按需改）
+                event.putOpt("name", home + " -vs- " + away);
+                event.putOpt("homeTeam", home);
+                event.putOpt("awayTeam", away);
+                event.putOpt("score", score);
+                event.putOpt("session", sessionValue);
+                event.putOpt("reTime", extractMatchMinute(game.getReTimeSet()));
+
+                league.getJSONArray("events").add(event);
+                if (ecid != null) {
+                    eventIndex.put(eventKey, event);
                 }
+            }
 
-                // 解析盘口并写入 event（包含 fullCourt 与 firstHalf）
-                parseOddsBlock(gameJson, gid, hgid, oddsFormatType, event);
-
-            });
+            // 解析盘口并写入 event（包含 fullCourt 与 firstHalf）
+            parseOddsBlock(game, oddsFormatType, event);
+        }
 
         // 构造最终响应
         JSONArray data = new JSONArray();
@@ -280,327 +274,167 @@ public class WebsiteXinBaoEventOddsNewHandler implements ApiHandler {
      * </ul>
      * <p>大小盘 overSize.big/small 逻辑见下方，与本规则无关。</p>
      */
-    private void parseOddsBlock(JSONObject gameJson, String gid, String hgid, String oddsFormatType, JSONObject event) {
-        // 原始字段 key（来源于上游数据）
-        String ratioFull = "RATIO_RE";
-        String keyHomeOddsFullLetBall = "IOR_REH";
-        String keyAwayOddsFullLetBall = "IOR_REC";
+    private void parseOddsBlock(XinBaoGame game, String oddsFormatType, JSONObject event) {
+        String gid = game.getGid();    // 全场盘口 id
+        String hgid = game.getHgid();  // 半场盘口 id
+        String gtype = game.getMtGtype();
 
-        String homeRatioFullOverSize = "RATIO_ROUO";
-        String awayRatioFullOverSize = "RATIO_ROUU";
-        String keyHomeOddsFullOverSize = "IOR_ROUC";
-        String keyAwayOddsFullOverSize = "IOR_ROUH";
+        // ---------- 确保 fullCourt / firstHalf 容器存在（若已存在则复用） ----------
+        JSONObject fullCourt = (JSONObject) event.computeIfAbsent("fullCourt", k -> new JSONObject());
+        JSONObject firstHalf = (JSONObject) event.computeIfAbsent("firstHalf", k -> new JSONObject());
 
-        String ratioFirst = "RATIO_HRE";
-        String keyHomeOddsFirstLetBall = "IOR_HREH";
-        String keyAwayOddsFirstLetBall = "IOR_HREC";
+        // ---------------- 全场让球 ----------------
+        // 全场 ratio 沿用原有取值：按字段名 RATIO_RE 计算（非区间盘，恒为 ±100）
+        if (StringUtils.isNotBlank(game.getIorReh()) || StringUtils.isNotBlank(game.getIorRec())) {
+            parseLetBall(fullCourt, game, gid, gtype, "RE", game.getRatioRe(), game.getStrong(), "RATIO_RE",
+                    game.getIorReh(), game.getIorRec(), oddsFormatType);
+        }
 
-        String homeRatioFirstOverSize = "RATIO_HROUO";
-        String awayRatioFirstOverSize = "RATIO_HROUU";
-        String keyHomeOddsFirstOverSize = "IOR_HROUC";
-        String keyAwayOddsFirstOverSize = "IOR_HROUH";
+        // ---------------- 全场大小：overSize.big / small ----------------
+        if (StringUtils.isNotBlank(game.getIorRouc()) || StringUtils.isNotBlank(game.getIorRouh())) {
+            parseOverSize(fullCourt, gid, gtype, "ROU", game.getRatioRouo(), game.getIorRouc(),
+                    game.getRatioRouu(), game.getIorRouh(), oddsFormatType);
+        }
 
-        String homeTeam = gameJson.getStr("TEAM_H");
-        String awayTeam = gameJson.getStr("TEAM_C");
+        // ---------------- 半场让球（规则同全场，用 HSTRONG） ----------------
+        if (StringUtils.isNotBlank(game.getIorHreh()) || StringUtils.isNotBlank(game.getIorHrec())) {
+            parseLetBall(firstHalf, game, hgid, gtype, "HRE", game.getRatioHre(), game.getHStrong(), game.getRatioHre(),
+                    game.getIorHreh(), game.getIorHrec(), oddsFormatType);
+        }
 
-        // ---------- 确保 fullCourt / firstHalf 容器存在（若已存在则复用） ----------
-        JSONObject fullCourt;
-        if (event.containsKey("fullCourt") && event.get("fullCourt") instanceof JSONObject) {
-            fullCourt = event.getJSONObject("fullCourt");
-        } else {
-            fullCourt = new JSONObject();
-            event.putOpt("fullCourt", fullCourt);
+        // ---------------- 半场大小（firstHalf.overSize.big / small） ----------------
+        if (StringUtils.isNotBlank(game.getIorHrouc()) || StringUtils.isNotBlank(game.getIorHrouh())) {
+            parseOverSize(firstHalf, hgid, gtype, "HROU", game.getRatioHrouo(), game.getIorHrouc(),
+                    game.getRatioHrouu(), game.getIorHrouh(), oddsFormatType);
         }
+    }
 
-        JSONObject firstHalf;
-        if (event.containsKey("firstHalf") && event.get("firstHalf") instanceof JSONObject) {
-            firstHalf = event.getJSONObject("firstHalf");
+    /**
+     * 让球盘：STRONG 先换算 homeHandicap/awayHandicap 正负号，再按 "-" 或零盘主客槽位归入 up/down
+     * @param ratio      盘口值
+     * @param strong     让球方 H/C
+     * @param ratioInput 计算 ratio 用的盘口值
+     */
+    private void parseLetBall(JSONObject court, XinBaoGame game, String id, String gtype, String wtype,
+                              String ratio, String strong, String ratioInput,
+                              String homeOdds, String awayOdds, String oddsFormatType) {
+        // 先计算主/客的 handicap 表示（根据 STRONG 决定谁让球）
+        String homeHandicap;
+        String awayHandicap;
+        if ("0".equals(ratio)) {
+            homeHandicap = ratio;
+            awayHandicap = ratio;
+        } else if ("H".equals(strong)) {
+            homeHandicap = "-" + ratio;
+            awayHandicap = ratio;
+        } else if ("C".equals(strong)) {
+            homeHandicap = ratio;
+            awayHandicap = "-" + ratio;
         } else {
-            firstHalf = new JSONObject();
-            event.putOpt("firstHalf", firstHalf);
+            homeHandicap = ratio;
+            awayHandicap = ratio;
         }
 
-        // ---------------- 全场让球 ----------------
-        // STRONG 先换算 homeHandicap/awayHandicap 正负号，再按 "-" 或零盘主客槽位归入 up/down
-        if ((gameJson.containsKey(keyHomeOddsFullLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFullLetBall)))
-                || (gameJson.containsKey(keyAwayOddsFullLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFullLetBall)))) {
-
-            // 先计算主/客的 handicap 表示（保留原逻辑，根据 STRONG 决定谁让球）
-            String homeHandicap;
-            String awayHandicap;
-            if ("0".equals(gameJson.getStr(ratioFull))) {
-                homeHandicap = gameJson.getStr(ratioFull);
-                awayHandicap = gameJson.getStr(ratioFull);
-            } else if ("H".equals(gameJson.getStr("STRONG"))) {
-                homeHandicap = "-" + gameJson.getStr(ratioFull);
-                awayHandicap = gameJson.getStr(ratioFull);
-            } else if ("C".equals(gameJson.getStr("STRONG"))) {
-                homeHandicap = gameJson.getStr(ratioFull);
-                awayHandicap = "-" + gameJson.getStr(ratioFull);
+        // 确保 letBall.up/down 容器存在
+        JSONObject letBall = (JSONObject) court.computeIfAbsent("letBall", k -> new JSONObject());
+        JSONObject up = (JSONObject) letBall.computeIfAbsent("up", k -> new JSONObject());     // 上盘（让球方）
+        JSONObject down = (JSONObject) letBall.computeIfAbsent("down", k -> new JSONObject()); // 下盘（受让方）
+
+        // 处理主队 letBall（如果有赔率）
+        if (StringUtils.isNotBlank(homeOdds)) {
+            JSONObject item = newOddsItem(id, homeOdds, oddsFormatType, gtype, wtype, wtype + "H", "H");
+            // con 与 ratio 的符号约定：让球方为正（getMiddleValue），受让方为负（-Math.abs(...)）
+            item.putOpt("con", getMiddleValue(homeHandicap));
+            item.putOpt("ratio", getRatio(ratioInput, "主队"));
+            item.putOpt("handicap", homeHandicap);
+            item.putOpt("teamName", game.getTeamH());
+            item.putOpt("isHome", true);
+
+            // 零盘：主队 → up；非零：带 "-" → up，否则 → down
+            if (homeHandicap.equals("0")) {
+                item.putOpt("isZero", true);
+                item.putOpt("wall", "hanging");
+                up.putOpt(getHandicapRange(homeHandicap), item);
+            } else if (homeHandicap.startsWith("-")) {
+                item.putOpt("wall", "hanging");
+                up.putOpt(getHandicapRange(homeHandicap), item);
             } else {
-                homeHandicap = gameJson.getStr(ratioFull);
-                awayHandicap = gameJson.getStr(ratioFull);
-            }
-
-            // 确保 fullCourt.letBall.up/down 容器存在
-            JSONObject letBall = (JSONObject) fullCourt.computeIfAbsent("letBall", k -> new JSONObject());
-            JSONObject up = (JSONObject) letBall.computeIfAbsent("up", k -> new JSONObject());     // 上盘（让球方）
-            JSONObject down = (JSONObject) letBall.computeIfAbsent("down", k -> new JSONObject()); // 下盘（受让方）
-
-            // 处理主队 letBall（如果有赔率）
-            if (gameJson.containsKey(keyHomeOddsFullLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFullLetBall))) {
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyHomeOddsFullLetBall));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", gid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "RE");
-                item.putOpt("rtype", "REH");           // 主队对应 REH（示例惯例）
-                item.putOpt("choseTeam", "H");         // 主队为 H
-                // con 与 ratio 的符号约定：让球方为正（getMiddleValue），受让方为负（-Math.abs(...)）
-                item.putOpt("con", getMiddleValue(homeHandicap));
-                item.putOpt("ratio", getRatio(ratioFull, "主队"));
-                item.putOpt("handicap", homeHandicap);
-                item.putOpt("teamName", homeTeam);
-                item.putOpt("isHome", true);
-
-                // 零盘：主队 → up；非零：带 "-" → up，否则 → down
-                if (homeHandicap.equals("0")) {
-                    item.putOpt("isZero", true);
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(homeHandicap), item);
-                } else if (homeHandicap.startsWith("-")) {
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(homeHandicap), item);
-                } else {
-                    item.putOpt("wall", "foot");
-                    // 主队为受让方，con/ratio 需要为负表示受让（覆盖前面 con 的正值）
-                    item.putOpt("con", -Math.abs(getMiddleValue(homeHandicap)));
-                    item.putOpt("ratio", -getRatio(ratioFull, "主队"));
-                    down.putOpt(getHandicapRange(homeHandicap), item);
-                }
-            }
-
-            // 处理客队 letBall（如果有赔率）
-            if (gameJson.containsKey(keyAwayOddsFullLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFullLetBall))) {
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyAwayOddsFullLetBall));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", gid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "RE");
-                item.putOpt("rtype", "REC");           // 客队对应 REC（示例惯例）
-                item.putOpt("choseTeam", "C");         // 客队为 C
-                item.putOpt("con", getMiddleValue(awayHandicap));
-                item.putOpt("ratio", getRatio(ratioFull, "客队"));
-                item.putOpt("handicap", awayHandicap);
-                item.putOpt("teamName", awayTeam);
-                item.putOpt("isHome", false);
-
-                // 零盘：客队 → down；非零：客队 handicap 带 "-" → up
-                if (homeHandicap.equals("0")) {
-                    item.putOpt("isZero", true);
-                    item.putOpt("wall", "foot");
-                    down.putOpt(getHandicapRange(awayHandicap), item);
-                } else if (awayHandicap.startsWith("-")) {
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(awayHandicap), item);
-                } else {
-                    item.putOpt("wall", "foot");
-                    item.putOpt("con", -Math.abs(getMiddleValue(awayHandicap)));
-                    item.putOpt("ratio", -getRatio(ratioFull, "客队"));
-                    down.putOpt(getHandicapRange(awayHandicap), item);
-                }
-            }
-        }
-
-        // ---------------- 全场大小：overSize.big / small ----------------
-        if ((gameJson.containsKey(keyHomeOddsFullOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFullOverSize)))
-                || (gameJson.containsKey(keyAwayOddsFullOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFullOverSize)))) {
-
-            JSONObject overSize = (JSONObject) fullCourt.computeIfAbsent("overSize", k -> new JSONObject());
-            JSONObject big = (JSONObject) overSize.computeIfAbsent("big", k -> new JSONObject());
-            JSONObject small = (JSONObject) overSize.computeIfAbsent("small", k -> new JSONObject());
-
-            // 主队大小 -> big（示例中主队对应 big）
-            if (gameJson.containsKey(keyHomeOddsFullOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFullOverSize))) {
-                String ratio = gameJson.getStr(homeRatioFullOverSize);
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyHomeOddsFullOverSize));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", gid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "ROU");
-                item.putOpt("rtype", "ROUH");
-                item.putOpt("choseTeam", "C");
-                item.putOpt("con", -Math.abs(getMiddleValue(ratio)));
-                item.putOpt("ratio", -getRatio(ratio, "大"));
-                item.putOpt("handicap", ratio);
-
-                big.putOpt(getHandicapRange(ratio), item);
-            }
-
-            // 客队大小 -> small（示例中客队对应 small）
-            if (gameJson.containsKey(keyAwayOddsFullOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFullOverSize))) {
-                String ratio = gameJson.getStr(awayRatioFullOverSize);
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyAwayOddsFullOverSize));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", gid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "ROU");
-                item.putOpt("rtype", "ROUC");
-                item.putOpt("choseTeam", "H");
-                item.putOpt("con", getMiddleValue(ratio));
-                item.putOpt("ratio", getRatio(ratio, "小"));
-                item.putOpt("handicap", ratio);
-
-                small.putOpt(getHandicapRange(ratio), item);
+                item.putOpt("wall", "foot");
+                // 主队为受让方，con/ratio 需要为负表示受让（覆盖前面 con 的正值）
+                item.putOpt("con", -Math.abs(getMiddleValue(homeHandicap)));
+                item.putOpt("ratio", -getRatio(ratioInput, "主队"));
+                down.putOpt(getHandicapRange(homeHandicap), item);
             }
         }
 
-        // ---------------- 半场让球（规则同全场，用 HSTRONG） ----------------
-        if ((gameJson.containsKey(keyHomeOddsFirstLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFirstLetBall)))
-                || (gameJson.containsKey(keyAwayOddsFirstLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFirstLetBall)))) {
-
-            // 计算半场主/客 handicap（根据 HSTRONG 字段）
-            String homeHandicap;
-            String awayHandicap;
-            if ("0".equals(gameJson.getStr(ratioFirst))) {
-                homeHandicap = gameJson.getStr(ratioFirst);
-                awayHandicap = gameJson.getStr(ratioFirst);
-            } else if ("H".equals(gameJson.getStr("HSTRONG"))) {
-                homeHandicap = "-" + gameJson.getStr(ratioFirst);
-                awayHandicap = gameJson.getStr(ratioFirst);
-            } else if ("C".equals(gameJson.getStr("HSTRONG"))) {
-                homeHandicap = gameJson.getStr(ratioFirst);
-                awayHandicap = "-" + gameJson.getStr(ratioFirst);
+        // 处理客队 letBall（如果有赔率）
+        if (StringUtils.isNotBlank(awayOdds)) {
+            JSONObject item = newOddsItem(id, awayOdds, oddsFormatType, gtype, wtype, wtype + "C", "C");
+            item.putOpt("con", getMiddleValue(awayHandicap));
+            item.putOpt("ratio", getRatio(ratioInput, "客队"));
+            item.putOpt("handicap", awayHandicap);
+            item.putOpt("teamName", game.getTeamC());
+            item.putOpt("isHome", false);
+
+            // 零盘：客队 → down；非零：客队 handicap 带 "-" → up
+            if (homeHandicap.equals("0")) {
+                item.putOpt("isZero", true);
+                item.putOpt("wall", "foot");
+                down.putOpt(getHandicapRange(awayHandicap), item);
+            } else if (awayHandicap.startsWith("-")) {
+                item.putOpt("wall", "hanging");
+                up.putOpt(getHandicapRange(awayHandicap), item);
             } else {
-                homeHandicap = gameJson.getStr(ratioFirst);
-                awayHandicap = gameJson.getStr(ratioFirst);
-            }
-
-            JSONObject letBall = (JSONObject) firstHalf.computeIfAbsent("letBall", k -> new JSONObject());
-            JSONObject up = (JSONObject) letBall.computeIfAbsent("up", k -> new JSONObject());
-            JSONObject down = (JSONObject) letBall.computeIfAbsent("down", k -> new JSONObject());
-
-            // 主队半场 letBall
-            if (gameJson.containsKey(keyHomeOddsFirstLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFirstLetBall))) {
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyHomeOddsFirstLetBall));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", hgid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "HRE");
-                item.putOpt("rtype", "HREH");
-                item.putOpt("choseTeam", "H");
-                item.putOpt("con", getMiddleValue(homeHandicap));
-                item.putOpt("ratio", getRatio(gameJson.getStr(ratioFirst), "主队"));
-                item.putOpt("handicap", homeHandicap);
-                item.putOpt("teamName", homeTeam);
-                item.putOpt("isHome", true);
-
-                if (homeHandicap.equals("0")) {
-                    item.putOpt("isZero", true);
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(homeHandicap), item);
-                } else if (homeHandicap.startsWith("-")) {
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(homeHandicap), item);
-                } else {
-                    item.putOpt("wall", "foot");
-                    item.putOpt("con", -Math.abs(getMiddleValue(homeHandicap)));
-                    item.putOpt("ratio", -getRatio(gameJson.getStr(ratioFirst), "主队"));
-                    down.putOpt(getHandicapRange(homeHandicap), item);
-                }
+                item.putOpt("wall", "foot");
+                item.putOpt("con", -Math.abs(getMiddleValue(awayHandicap)));
+                item.putOpt("ratio", -getRatio(ratioInput, "客队"));
+                down.putOpt(getHandicapRange(awayHandicap), item);
             }
+        }
+    }
 
-            // 客队半场 letBall
-            if (gameJson.containsKey(keyAwayOddsFirstLetBall) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFirstLetBall))) {
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyAwayOddsFirstLetBall));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", hgid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "HRE");
-                item.putOpt("rtype", "HREC");
-                item.putOpt("choseTeam", "C");
-                item.putOpt("con", getMiddleValue(awayHandicap));
-                item.putOpt("ratio", getRatio(gameJson.getStr(ratioFirst), "客队"));
-                item.putOpt("handicap", awayHandicap);
-                item.putOpt("teamName", awayTeam);
-                item.putOpt("isHome", false);
-
-                if (homeHandicap.equals("0")) {
-                    item.putOpt("isZero", true);
-                    item.putOpt("wall", "foot");
-                    down.putOpt(getHandicapRange(awayHandicap), item);
-                } else if (awayHandicap.startsWith("-")) {
-                    item.putOpt("wall", "hanging");
-                    up.putOpt(getHandicapRange(awayHandicap), item);
-                } else {
-                    item.putOpt("wall", "foot");
-                    item.putOpt("con", -Math.abs(getMiddleValue(awayHandicap)));
-                    item.putOpt("ratio", -getRatio(gameJson.getStr(ratioFirst), "客队"));
-                    down.putOpt(getHandicapRange(awayHandicap), item);
-                }
-            }
+    /**
+     * 大小盘：IOR_*OUC -> big，IOR_*OUH -> small
+     */
+    private void parseOverSize(JSONObject court, String id, String gtype, String wtype,
+                               String bigRatio, String bigOdds, String smallRatio, String smallOdds,
+                               String oddsFormatType) {
+        JSONObject overSize = (JSONObject) court.computeIfAbsent("overSize", k -> new JSONObject());
+        JSONObject big = (JSONObject) overSize.computeIfAbsent("big", k -> new JSONObject());
+        JSONObject small = (JSONObject) overSize.computeIfAbsent("small", k -> new JSONObject());
+
+        if (StringUtils.isNotBlank(bigOdds)) {
+            JSONObject item = newOddsItem(id, bigOdds, oddsFormatType, gtype, wtype, wtype + "H", "C");
+            item.putOpt("con", -Math.abs(getMiddleValue(bigRatio)));
+            item.putOpt("ratio", -getRatio(bigRatio, "大"));
+            item.putOpt("handicap", bigRatio);
+
+            big.putOpt(getHandicapRange(bigRatio), item);
         }
 
-        // ---------------- 半场大小（firstHalf.overSize.big / small） ----------------
-        if ((gameJson.containsKey(keyHomeOddsFirstOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFirstOverSize)))
-                || (gameJson.containsKey(keyAwayOddsFirstOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFirstOverSize)))) {
-
-            JSONObject overSize = (JSONObject) firstHalf.computeIfAbsent("overSize", k -> new JSONObject());
-            JSONObject big = (JSONObject) overSize.computeIfAbsent("big", k -> new JSONObject());
-            JSONObject small = (JSONObject) overSize.computeIfAbsent("small", k -> new JSONObject());
-
-            // 主队半场大小 -> big
-            if (gameJson.containsKey(keyHomeOddsFirstOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyHomeOddsFirstOverSize))) {
-                String ratio = gameJson.getStr(homeRatioFirstOverSize);
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyHomeOddsFirstOverSize));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", hgid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "HROU");
-                item.putOpt("rtype", "HROUH");
-                item.putOpt("choseTeam", "C");
-                item.putOpt("con", -Math.abs(getMiddleValue(ratio)));
-                item.putOpt("ratio", -getRatio(ratio, "大"));
-                item.putOpt("handicap", ratio);
-
-                big.putOpt(getHandicapRange(ratio), item);
-            }
+        if (StringUtils.isNotBlank(smallOdds)) {
+            JSONObject item = newOddsItem(id, smallOdds, oddsFormatType, gtype, wtype, wtype + "C", "H");
+            item.putOpt("con", getMiddleValue(smallRatio));
+            item.putOpt("ratio", getRatio(smallRatio, "小"));
+            item.putOpt("handicap", smallRatio);
 
-            // 客队半场大小 -> small
-            if (gameJson.containsKey(keyAwayOddsFirstOverSize) && StringUtils.isNotBlank(gameJson.getStr(keyAwayOddsFirstOverSize))) {
-                String ratio = gameJson.getStr(awayRatioFirstOverSize);
-                String odds = calculateOddsValue(oddsFormatType, gameJson.getDouble(keyAwayOddsFirstOverSize));
-                JSONObject item = new JSONObject();
-                item.putOpt("id", hgid);
-                item.putOpt("odds", odds);
-                item.putOpt("oddFType", oddsFormatType);
-                item.putOpt("gtype", gameJson.getStr("MT_GTYPE"));
-                item.putOpt("wtype", "HROU");
-                item.putOpt("rtype", "HROUC");
-                item.putOpt("choseTeam", "H");
-                item.putOpt("con", getMiddleValue(ratio));
-                item.putOpt("ratio", getRatio(ratio, "小"));
-                item.putOpt("handicap", ratio);
-
-                small.putOpt(getHandicapRange(ratio), item);
-            }
+            small.putOpt(getHandicapRange(smallRatio), item);
         }
     }
 
+    private JSONObject newOddsItem(String id, String rawOdds, String oddsFormatType, String gtype,
+                                   String wtype, String rtype, String choseTeam) {
+        JSONObject item = new JSONObject();
+        item.putOpt("id", id);
+        item.putOpt("odds", calculateOddsValue(oddsFormatType, Double.parseDouble(rawOdds.trim())));
+        item.putOpt("oddFType", oddsFormatType);
+        item.putOpt("gtype", gtype);
+        item.putOpt("wtype", wtype);
+        item.putOpt("rtype", rtype);
+        item.putOpt("choseTeam", choseTeam);
+        return item;
+    }
+
     /**
      * 发送账户额度请求并返回结果
      * @param params 请求参数
@@ -693,20 +527,6 @@ public class WebsiteXinBaoEventOddsNewHandler implements ApiHandler {
         return result;
     }
 
-    /**
-     * 根据 id 在 events 数组中查找已有 event，找不到返回 null
-     */
-    private JSONObject findEventById(JSONArray events, String id) {
-        if (events == null || id == null) return null;
-        for (int i = 0; i < events.size(); i++) {
-            JSONObject e = events.getJSONObject(i);
-            if (id.equals(e.getStr("id"))) {
-                return e;
-            }
-        }
-        return null;
-    }
-
     private void mergeHandicap(JSONObject target, JSONObject source) {
         for (String key : source.keySet()) {
             JSONObject targetGroup = (JSONObject) target.computeIfAbsent(key, k -> new JSONObject());
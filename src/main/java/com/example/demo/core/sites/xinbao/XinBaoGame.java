@@ -0,0 +1,101 @@
+package com.example.demo.core.sites.xinbao;
+
+import lombok.Data;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 新二 get_game_list 单条盘口数据
+ * 只保留扫水用到的字段，其余字段解析时直接跳过
+ */
+@Data
+public class XinBaoGame {
+    /** 联赛id */
+    private String lid;
+    /** 联赛名称 */
+    private String league;
+    /** 全场盘口id */
+    private String gid;
+    /** 半场盘口id */
+    private String hgid;
+    /** 赛事唯一id */
+    private String ecid;
+    private String teamH;
+    private String teamC;
+    private String scoreH;
+    private String scoreC;
+    /** HT=上半场 FT=下半场 */
+    private String nowModel;
+    /** Y=中场休息 */
+    private String midfield;
+    /** 比赛时间，如 1H^23:41 */
+    private String reTimeSet;
+    /** 全场让球方 H/C */
+    private String strong;
+    /** 半场让球方 H/C */
+    private String hStrong;
+    private String mtGtype;
+
+    // 全场让球
+    private String ratioRe;
+    private String iorReh;
+    private String iorRec;
+    // 全场大小
+    private String ratioRouo;
+    private String ratioRouu;
+    private String iorRouc;
+    private String iorRouh;
+    // 半场让球
+    private String ratioHre;
+    private String iorHreh;
+    private String iorHrec;
+    // 半场大小
+    private String ratioHrouo;
+    private String ratioHrouu;
+    private String iorHrouc;
+    private String iorHrouh;
+
+    /** 上游字段名 -> 赋值 */
+    private static final Map<String, BiConsumer<XinBaoGame, String>> SETTERS = new HashMap<>(64);
+
+    static {
+        SETTERS.put("LID", (g, v) -> g.lid = v);
+        SETTERS.put("LEAGUE", (g, v) -> g.league = v);
+        SETTERS.put("GID", (g, v) -> g.gid = v);
+        SETTERS.put("HGID", (g, v) -> g.hgid = v);
+        SETTERS.put("ECID", (g, v) -> g.ecid = v);
+        SETTERS.put("TEAM_H", (g, v) -> g.teamH = v);
+        SETTERS.put("TEAM_C", (g, v) -> g.teamC = v);
+        SETTERS.put("SCORE_H", (g, v) -> g.scoreH = v);
+        SETTERS.put("SCORE_C", (g, v) -> g.scoreC = v);
+        SETTERS.put("NOW_MODEL", (g, v) -> g.nowModel = v);
+        SETTERS.put("MIDFIELD", (g, v) -> g.midfield = v);
+        SETTERS.put("RETIMESET", (g, v) -> g.reTimeSet = v);
+        SETTERS.put("STRONG", (g, v) -> g.strong = v);
+        SETTERS.put("HSTRONG", (g, v) -> g.hStrong = v);
+        SETTERS.put("MT_GTYPE", (g, v) -> g.mtGtype = v);
+        SETTERS.put("RATIO_RE", (g, v) -> g.ratioRe = v);
+        SETTERS.put("IOR_REH", (g, v) -> g.iorReh = v);
+        SETTERS.put("IOR_REC", (g, v) -> g.iorRec = v);
+        SETTERS.put("RATIO_ROUO", (g, v) -> g.ratioRouo = v);
+        SETTERS.put("RATIO_ROUU", (g, v) -> g.ratioRouu = v);
+        SETTERS.put("IOR_ROUC", (g, v) -> g.iorRouc = v);
+        SETTERS.put("IOR_ROUH", (g, v) -> g.iorRouh = v);
+        SETTERS.put("RATIO_HRE", (g, v) -> g.ratioHre = v);
+        SETTERS.put("IOR_HREH", (g, v) -> g.iorHreh = v);
+        SETTERS.put("IOR_HREC", (g, v) -> g.iorHrec = v);
+        SETTERS.put("RATIO_HROUO", (g, v) -> g.ratioHrouo = v);
+        SETTERS.put("RATIO_HROUU", (g, v) -> g.ratioHrouu = v);
+        SETTERS.put("IOR_HROUC", (g, v) -> g.iorHrouc = v);
+        SETTERS.put("IOR_HROUH", (g, v) -> g.iorHrouh = v);
+    }
+
+    /**
+     * 上游字段对应的赋值器，非扫水字段返回 null（解析时跳过，不创建字符串）
+     */
+    static BiConsumer<XinBaoGame, String> setter(String field) {
+        return SETTERS.get(field);
+    }
+}
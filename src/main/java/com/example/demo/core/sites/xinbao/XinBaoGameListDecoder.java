@@ -0,0 +1,140 @@
+package com.example.demo.core.sites.xinbao;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 新二 get_game_list 响应流式解析
+ * StAX 单遍读取 serverresponse/original 文本，再用 Jackson 流式解析其中的 JSON，直接生成 {@link XinBaoGame}，
+ * 不构建 DOM，也不生成中间 JSONObject
+ */
+public final class XinBaoGameListDecoder {
+
+    private static final XMLInputFactory XML_FACTORY = XMLInputFactory.newFactory();
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    static {
+        // 禁用 DTD / 外部实体，防止 XXE
+        XML_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XML_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private XinBaoGameListDecoder() {
+    }
+
+    /**
+     * 解析赛事盘口列表
+     * @param xml 响应体
+     * @return 按原始 key 升序排列的盘口列表；没有 original 节点或内容为空时返回 null
+     */
+    public static List<XinBaoGame> decode(String xml) throws XMLStreamException, IOException {
+        String original = readOriginal(xml);
+        if (original == null || original.isBlank()) {
+            return null;
+        }
+        return readGames(original);
+    }
+
+    /**
+     * 读取第一个 serverresponse/original 节点的文本内容（含 CDATA 与子节点文本）
+     */
+    static String readOriginal(String xml) throws XMLStreamException {
+        XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(new StringReader(xml));
+        try {
+            Deque<String> path = new ArrayDeque<>();
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("original".equals(name) && "serverresponse".equals(path.peek())) {
+                        return readText(reader);
+                    }
+                    path.push(name);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    path.pop();
+                }
+            }
+            return null;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                default -> {
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * original 为 {key: 盘口} 结构，盘口可能是对象也可能是 JSON 字符串
+     */
+    static List<XinBaoGame> readGames(String original) throws IOException {
+        // 与原实现一致：按 key 升序，重复 key 以后出现的为准
+        Map<String, XinBaoGame> sorted = new TreeMap<>();
+        try (JsonParser parser = JSON_FACTORY.createParser(original)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("original 不是 JSON 对象");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    sorted.put(key, readGame(parser));
+                } else if (token == JsonToken.VALUE_STRING) {
+                    try (JsonParser nested = JSON_FACTORY.createParser(parser.getText())) {
+                        if (nested.nextToken() == JsonToken.START_OBJECT) {
+                            sorted.put(key, readGame(nested));
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new ArrayList<>(sorted.values());
+    }
+
+    private static XinBaoGame readGame(JsonParser parser) throws IOException {
+        XinBaoGame game = new XinBaoGame();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if (token.isStructStart()) {
+                parser.skipChildren();
+            } else if (token != JsonToken.VALUE_NULL) {
+                BiConsumer<XinBaoGame, String> setter = XinBaoGame.setter(field);
+                if (setter != null) {
+                    setter.accept(game, parser.getText());
+                }
+            }
+        }
+        return game;
+    }
+}
@@ -71,6 +71,10 @@ public class SweepwaterDTO {
     private String teamVSAB;         // 盛帆网站的专属参数 客队名称
 
     private String water;           // 水位
+    private transient long oddsFetchedNanosA;  // 赔率拉取完成时刻（System.nanoTime，只在本进程内有效，不序列化）
+    private transient long oddsFetchedNanosB;  // 赔率拉取完成时刻（System.nanoTime，只在本进程内有效，不序列化）
+    private Long oddsServerTimeA;   // 盘口服务器返回赔率的时间（毫秒，响应头 Date），取不到为空
+    private Long oddsServerTimeB;   // 盘口服务器返回赔率的时间（毫秒，响应头 Date），取不到为空
     private String startTime;       // 创建时间
     private String createTime;      // 创建时间
 }
@@ -0,0 +1,34 @@
+package com.example.demo.model.vo;
+
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 扫水列表游标分页结果
+ * 游标是记录进入本实例视图的到达序号，不是扫水id（雪花id跨实例、跨线程生成，到达顺序和id大小不一致）
+ * 到达序号只在发出它的实例上有意义，各实例的序号互不相关；负载均衡后面需要按用户会话粘滞，
+ * 否则游标带到其它实例上可能漏掉或重复返回记录
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepwaterPageVO {
+    /**
+     * 当前页数据，按到达顺序倒序（最新的在前）
+     */
+    private List<SweepwaterDTO> records;
+
+    /**
+     * 轮询游标：下次作为 since 传入，只返回之后到达的记录
+     */
+    private Long since;
+
+    /**
+     * 翻页游标：下次作为 before 传入，返回更早到达的记录；没有数据时为空
+     */
+    private Long before;
+}
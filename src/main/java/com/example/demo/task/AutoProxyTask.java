@@ -3,6 +3,7 @@ package com.example.demo.task;
 import com.example.demo.api.ConfigAccountService;
 import com.example.demo.common.constants.Constants;
 import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.config.ProxyPool;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.example.demo.model.vo.ConfigAccountVO;
 import jakarta.annotation.PostConstruct;
@@ -33,17 +34,13 @@ public class AutoProxyTask {
     @Lazy
     private ConfigAccountService accountService;
 
+    @Resource
+    private ProxyPool proxyPool;
+
     private static final int SUCCESS_DELAY_MIN = 4;
     private static final int FAIL_RETRY_SECONDS = 10;
     private static final int MAX_FAIL_RETRY = 5;
 
-    // 端口范围
-    private static final int PORT_MIN = 443;
-    private static final int PORT_MAX = 3000;
-
-    // 全局端口游标（线程安全）
-    private final AtomicInteger proxyPortCursor = new AtomicInteger(PORT_MIN);
-
     private ScheduledExecutorService proxyExecutor;
     private final ConcurrentHashMap<String, ScheduledFuture<?>> accountTaskMap = new ConcurrentHashMap<>();
     private final OkHttpClient client = new OkHttpClient.Builder()
@@ -59,20 +56,6 @@ public class AutoProxyTask {
         proxyExecutor = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors() * 2);
     }
 
-    /**
-     * 获取下一个端口
-     * @return
-     */
-    private int nextProxyPort() {
-        while (true) {
-            int current = proxyPortCursor.get();
-            int next = (current >= PORT_MAX) ? PORT_MIN : current + 1;
-            if (proxyPortCursor.compareAndSet(current, next)) {
-                return current;
-            }
-        }
-    }
-
     public void updateAccountTask(ConfigAccountVO account, String websiteId, AdminLoginDTO adminLogin) {
         String taskKey = getTaskKey(adminLogin.getUsername(), websiteId, account.getId());
 
@@ -138,12 +121,35 @@ public class AutoProxyTask {
                     || adminLogin.getStopBet() == 1) {
 
                 cancelTask(taskKey);
+                if (proxyPool.isEnabled()) {
+                    proxyPool.release(ProxyPool.key(websiteId, latestAccount.getAccount()));
+                }
                 log.info("自动获取代理-账户不再需要自动代理拉取,取消任务: {}", taskKey);
                 return;
             }
 
+            // 开启代理池时直接取池中分配给该账号的代理，在代理池换新时再同步一次
+            ProxyPool.Lease lease = proxyPool.isEnabled()
+                    ? proxyPool.acquire(ProxyPool.key(websiteId, latestAccount.getAccount()), false)
+                    : null;
+            if (lease != null) {
+                latestAccount.setProxyHost(lease.host());
+                latestAccount.setProxyPort(lease.port());
+                latestAccount.setProxyUsername(null);
+                latestAccount.setProxyPassword(null);
+                latestAccount.setProxyExpireTime(lease.expireTime());
+                accountService.saveAccount(adminLogin.getUsername(), websiteId, latestAccount);
+
+                long delayMillis = Math.max(TimeUnit.SECONDS.toMillis(1), lease.refreshAt() - System.currentTimeMillis());
+                reschedule(taskKey, adminLogin, websiteId, latestAccount, delayMillis, TimeUnit.MILLISECONDS);
+                failRetryCountMap.remove(taskKey);
+                log.info("自动获取代理-使用代理池代理 {}:{},账户={},网站={},用户名={}",
+                        lease.host(), lease.port(), latestAccount.getId(), websiteId, adminLogin.getUsername());
+                return;
+            }
+
             Request request = new Request.Builder()
-                    .url("https://api.911proxy.com/web_v1/ip/get-ip-v3?app_key=93fb3931ffbf8baad407b45325db3659&pt=9&num=1&ep=hk&cc=HK&state=&city=&life=5&protocol=1&format=txt&lb=\\r\\n")
+                    .url(Constants.AUTO_PROXY_API_URL)
                     .get()
                     .addHeader("User-Agent", Constants.USER_AGENT)
                     .build();
@@ -6,6 +6,7 @@ import com.example.demo.api.AdminService;
 import com.example.demo.api.BetService;
 import com.example.demo.api.SweepwaterService;
 import com.example.demo.config.PriorityTaskExecutor;
+import com.example.demo.core.cluster.SweepShardManager;
 import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -49,8 +50,14 @@ public class AutoSweepwaterTask {
     @Resource
     private SweepWaterThreadPoolHolder threadPoolHolder;
 
-    @Value("${sweepwater.server.count}")
-    private int serverCount;
+    @Resource
+    private SweepShardManager sweepShardManager;
+
+    /**
+     * per-user=每个平台用户各自扫水，shared=合并所有平台用户的绑定共享扫水
+     */
+    @Value("${sweepwater.scan.mode:per-user}")
+    private String scanMode = "per-user";
 
     private static final int MAX_CONCURRENT_SWEEPS = 240;
     private final Semaphore sweepPermits = new Semaphore(MAX_CONCURRENT_SWEEPS);
@@ -103,8 +110,11 @@ public class AutoSweepwaterTask {
             long startTime = System.currentTimeMillis();
             try {
                 activeTasks.increment(); // ✅ 真正执行前再加
-                executeSweepwater(); // ✅ 旧方法 - 每个账户单独执行扫水
-//                executeSweepwaterNew(); // ✅ 新方法 - 合并所有账户的字典，统一使用扫水账户扫水
+                if ("shared".equalsIgnoreCase(scanMode)) {
+                    executeSweepwaterNew(); // ✅ 新方法 - 合并所有账户的字典，统一使用扫水账户扫水
+                } else {
+                    executeSweepwater(); // ✅ 旧方法 - 每个账户单独执行扫水
+                }
             } catch (Exception e) {
                 log.info("本轮扫水-执行异常", e);
             } finally {
@@ -119,8 +129,6 @@ public class AutoSweepwaterTask {
     }
 
     private void executeSweepwaterNew() {
-        log.info("开始执行自动扫水...");
-
         if (Thread.currentThread().isInterrupted()) {
             log.info("executeSweepwater检测到中断，提前退出");
             return;
@@ -129,7 +137,7 @@ public class AutoSweepwaterTask {
         List<AdminLoginDTO> adminUsers = adminService.getUsers(null);
         adminUsers.removeIf(adminUser -> adminUser.getStatus() == 0);
         if (adminUsers.isEmpty()) {
-            log.info("没有开启投注的平台用户!!!");
+            // 没有开启投注的平台用户
             return;
         }
 
@@ -137,34 +145,34 @@ public class AutoSweepwaterTask {
                 .filter(adminUser -> adminUser.getRoles().contains("sweepwater"))
                 .toList();
         if (sweepwaterUsers.isEmpty()) {
-            log.info("没有扫水的平台用户!!!");
+            // 没有扫水的平台用户
             return;
         }
 
         adminUsers.removeIf(adminUser -> adminUser.getRoles().contains("sweepwater"));
         if (adminUsers.isEmpty()) {
-            log.info("没有开启投注的平台用户!!!");
+            // 没有开启投注的平台用户
             return;
         }
 
-        // 轮次id，用于记录本轮的id
-        String roundId = IdUtil.getSnowflakeNextIdStr();
-        if (Thread.currentThread().isInterrupted()) {
-            log.info("子任务检测到中断，提前返回");
+        // 多实例部署时只扫一致性哈希环上归属本实例、且已持有租约的用户
+        List<AdminLoginDTO> myUsers = adminUsers.stream()
+                .filter(u -> sweepShardManager.tryBegin(u.getUsername()))
+                .toList();
+        if (myUsers.isEmpty()) {
+            // 当前实例分片没有扫水用户
             return;
         }
 
+        // 轮次id，用于记录本轮的id
+        String roundId = IdUtil.getSnowflakeNextIdStr();
         try {
-            long sweepStart = System.currentTimeMillis();
-            sweepwaterService.sweepwaterNew(adminUsers, sweepwaterUsers);
-            long cost = System.currentTimeMillis() - sweepStart;
-
-            log.info("本轮扫水-用户:{},轮次id:{} 扫水任务耗时: {}ms", adminUsers, roundId, cost);
+            sweepwaterService.sweepwaterNew(myUsers, sweepwaterUsers, roundId);
         } catch (Exception e) {
-            log.error("本轮扫水-用户:{},轮次id:{} 执行 sweepwater 异常", adminUsers, roundId, e);
+            log.error("共享扫水-轮次id:{} 执行 sweepwaterNew 异常", roundId, e);
         } finally {
-            // 清理本轮网站赔率缓存
-            // sweepwaterService.clearCacheForRound(roundId);
+            // 无论成功与否都要结束，否则租约一直续期不会交接
+            myUsers.forEach(u -> sweepShardManager.end(u.getUsername()));
         }
     }
 
@@ -197,25 +205,21 @@ public class AutoSweepwaterTask {
             return;
         }
 
-        // 获取本机标识（机器ID、IP、或自定义ID）
-        /*String serverId = System.getProperty("server.id", "0");
-        int serverIndex = Integer.parseInt(serverId); // 直接用数字索引
-        // 分配账户：比如通过 hash 或 Redis 列表分片
+        // 多实例部署时只扫一致性哈希环上归属本实例、且已持有租约的用户
         List<AdminLoginDTO> myUsers = adminUsers.stream()
-                .filter(u -> Math.abs(u.getUsername().hashCode()) % serverCount == serverIndex)
+                .filter(u -> sweepShardManager.tryBegin(u.getUsername()))
                 .toList();
-
         if (myUsers.isEmpty()) {
-            // 当前服务器分片没有扫水用户
+            // 当前实例分片没有扫水用户
             return;
-        }*/
+        }
 
         // 使用工作窃取线程池替代固定线程池
         ExecutorService executorAdminUserService = threadPoolHolder.getUserSweepExecutor();
         // 轮次id，用于记录本轮的id
         String roundId = IdUtil.getSnowflakeNextIdStr();
         try {
-            List<CompletableFuture<Void>> adminFutures = adminUsers.stream()
+            List<CompletableFuture<Void>> adminFutures = myUsers.stream()
                     .map(adminUser -> {
                         return CompletableFuture.runAsync(() -> {
                             if (Thread.currentThread().isInterrupted()) {
@@ -232,7 +236,9 @@ public class AutoSweepwaterTask {
                             } catch (Exception e) {
                                 log.error("本轮扫水-用户:{},轮次id:{} 执行 sweepwater 异常", adminUser.getUsername(), roundId, e);
                             }
-                        }, executorAdminUserService);
+                        }, executorAdminUserService)
+                                // 无论是否被拒绝执行都要结束，否则租约一直续期不会交接
+                                .whenComplete((v, e) -> sweepShardManager.end(adminUser.getUsername()));
                     })
                     .toList();
 
@@ -1,15 +1,17 @@
 package com.example.demo.task;
 
 import cn.hutool.core.date.DatePattern;
+import cn.hutool.core.util.NumberUtil;
 import cn.hutool.json.JSONUtil;
 import com.example.demo.api.AdminService;
-import com.example.demo.common.constants.RedisConstants;
-import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.api.SweepwaterFeed;
+import com.example.demo.api.SweepwaterWriter;
 import com.example.demo.model.dto.AdminLoginDTO;
 import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.api.RList;
+import org.redisson.api.RMap;
 import org.redisson.api.RedissonClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
@@ -19,7 +21,9 @@ import org.springframework.stereotype.Component;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Component
@@ -31,6 +35,9 @@ public class CacheCleanerTask {
     @Resource(name = "businessPlatformRedissonClient")
     private RedissonClient businessPlatformRedissonClient;
 
+    @Resource
+    private SweepwaterFeed sweepwaterFeed;
+
     @Value("${sweepwater.server.count}")
     private int serverCount;
 
@@ -60,10 +67,11 @@ public class CacheCleanerTask {
 
         for (AdminLoginDTO admin : adminUsers) {
             String username = admin.getUsername();
-            String key = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
-            RList<String> sweepList = businessPlatformRedissonClient.getList(key);
+            RList<String> sweepList = businessPlatformRedissonClient.getList(SweepwaterWriter.indexKey(username));
+            RMap<String, String> records = businessPlatformRedissonClient.getMap(SweepwaterWriter.recordKey(username));
 
-            if (sweepList == null || sweepList.isEmpty()) continue;
+            List<String> ids = sweepList.readAll();
+            if (ids.isEmpty()) continue;
 
             // 先清理超过3千条的记录 移除：已在写入扫水数据时进行了实时控制
             /*int currentSize = sweepList.size();
@@ -75,22 +83,40 @@ public class CacheCleanerTask {
                 log.info("清理扫水数据：用户{}，清除超量记录{}条", username, removeCount);
             }*/
 
-            // 再清理超过30分钟的记录
+            // 再清理超过30分钟的记录，以及索引中已没有记录的id
+            Map<String, String> jsonById = records.getAll(new LinkedHashSet<>(ids));
             List<String> toRemove = new ArrayList<>();
-            for (String json : sweepList) {
+            for (String id : ids) {
+                String json = jsonById.get(id);
+                if (json == null) {
+                    toRemove.add(id);
+                    continue;
+                }
                 try {
                     SweepwaterDTO dto = JSONUtil.toBean(json, SweepwaterDTO.class);
                     LocalDateTime createTime = LocalDateTime.parse(dto.getCreateTime(), formatter);
                     if (createTime.plusMinutes(30).isBefore(now)) {
-                        toRemove.add(json);
+                        toRemove.add(id);
                     }
                 } catch (Exception e) {
                     log.info("清理扫水数据失败，无法解析 JSON: {}", json);
                 }
             }
 
+            // 写入线程裁剪失败时残留的记录：扫水id(雪花id)比索引中最早的id还小
+            long oldest = ids.stream().filter(NumberUtil::isLong).mapToLong(Long::parseLong).min().orElse(Long.MIN_VALUE);
+            List<String> orphans = records.readAllKeySet().stream()
+                    .filter(id -> NumberUtil.isLong(id) && Long.parseLong(id) < oldest)
+                    .toList();
+
+            if (!orphans.isEmpty()) {
+                records.fastRemove(orphans.toArray(new String[0]));
+                log.info("清理扫水数据：用户{}，清除残留记录{}条", username, orphans.size());
+            }
             if (!toRemove.isEmpty()) {
                 sweepList.removeAll(toRemove);
+                records.fastRemove(toRemove.toArray(new String[0]));
+                sweepwaterFeed.onRemoved(username, toRemove);
                 log.info("清理扫水数据：用户{}，清除过期记录{}条", username, toRemove.size());
             }
         }
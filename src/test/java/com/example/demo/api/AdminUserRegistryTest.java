@@ -0,0 +1,207 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.model.dto.AdminLoginDTO;
+import com.example.demo.model.vo.AdminUserBetVO;
+import com.example.demo.task.AutoProxyTask;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RBuckets;
+import org.redisson.api.RKeys;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 平台用户注册表：扫水 tick 路径不再 SCAN
+ */
+class AdminUserRegistryTest {
+
+    private final Map<String, Object> store = new TreeMap<>();
+    private final Map<String, Set<String>> sets = new ConcurrentHashMap<>();
+    private final List<MessageListener<String>> listeners = new CopyOnWriteArrayList<>();
+    private RKeys keys;
+    private RBuckets buckets;
+    private RedissonClient redis;
+    private final SettingsNearCache settingsNearCache = mock(SettingsNearCache.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(RedissonClient.class);
+        keys = mock(RKeys.class);
+        when(redis.getKeys()).thenReturn(keys);
+        when(keys.getKeysByPattern(anyString(), anyInt())).thenAnswer(inv -> {
+            String pattern = inv.getArgument(0);
+            String prefix = pattern.substring(0, pattern.indexOf('*'));
+            return new ArrayList<>(store.keySet()).stream().filter(k -> k.startsWith(prefix)).toList();
+        });
+        buckets = mock(RBuckets.class);
+        when(redis.getBuckets()).thenReturn(buckets);
+        when(buckets.get((String[]) any())).thenAnswer(inv -> {
+            Map<String, Object> result = new HashMap<>();
+            for (Object key : inv.getArguments()) {
+                if (store.containsKey(key)) {
+                    result.put((String) key, store.get(key));
+                }
+            }
+            return result;
+        });
+        when(redis.getBucket(anyString())).thenAnswer(inv -> {
+            String key = inv.getArgument(0);
+            RBucket<Object> bucket = mock(RBucket.class);
+            when(bucket.isExists()).thenAnswer(i -> store.containsKey(key));
+            when(bucket.get()).thenAnswer(i -> store.get(key));
+            doAnswer(i -> store.put(key, i.getArgument(0))).when(bucket).set(any());
+            doAnswer(i -> store.remove(key) != null).when(bucket).delete();
+            return bucket;
+        });
+        when(redis.getSet(anyString())).thenAnswer(inv -> {
+            String name = inv.getArgument(0);
+            Set<String> backing = sets.computeIfAbsent(name, n -> ConcurrentHashMap.newKeySet());
+            RSet<String> set = mock(RSet.class);
+            when(set.getName()).thenReturn(name);
+            when(set.readAll()).thenAnswer(i -> new TreeSet<>(backing));
+            when(set.add(anyString())).thenAnswer(i -> backing.add(i.getArgument(0)));
+            when(set.addAll(anyCollection())).thenAnswer(i -> backing.addAll(i.getArgument(0)));
+            when(set.remove(any())).thenAnswer(i -> backing.remove(i.<Object>getArgument(0)));
+            return set;
+        });
+        when(redis.getTopic(anyString())).thenAnswer(inv -> {
+            RTopic topic = mock(RTopic.class);
+            when(topic.addListener(eq(String.class), any(MessageListener.class))).thenAnswer(i -> {
+                listeners.add(i.getArgument(1));
+                return listeners.size() - 1;
+            });
+            when(topic.publish(any())).thenAnswer(i -> {
+                listeners.forEach(l -> l.onMessage(inv.getArgument(0), i.getArgument(0)));
+                return (long) listeners.size();
+            });
+            return topic;
+        });
+    }
+
+    private AdminService newService() {
+        AdminUserRegistry registry = new AdminUserRegistry();
+        ReflectionTestUtils.setField(registry, "businessPlatformRedissonClient", redis);
+        registry.afterPropertiesSet();
+        AdminService service = new AdminService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "adminUserRegistry", registry);
+        ReflectionTestUtils.setField(service, "autoProxyTask", mock(AutoProxyTask.class));
+        ReflectionTestUtils.setField(service, "settingsNearCache", settingsNearCache);
+        return service;
+    }
+
+    private void putUser(String username, int status, String group, String... roles) {
+        AdminLoginDTO user = new AdminLoginDTO();
+        user.setUsername(username);
+        user.setStatus(status);
+        user.setGroup(group);
+        user.setRoles(List.of(roles));
+        store.put(KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, username), JSONUtil.toJsonStr(user));
+    }
+
+    @Test
+    void tickPathIssuesNoScanOnceIndexed() {
+        putUser("sweeper", 1, "g1", "sweepwater");
+        putUser("alice", 1, "g1", "common");
+        putUser("bob", 0, "g2", "common");
+        sets.put(RedisConstants.PLATFORM_USER_INDEX, ConcurrentHashMap.newKeySet());
+        sets.get(RedisConstants.PLATFORM_USER_INDEX).addAll(List.of("sweeper", "alice", "bob"));
+        sets.put(RedisConstants.PLATFORM_ADMIN_GROUP_INDEX, ConcurrentHashMap.newKeySet());
+        sets.get(RedisConstants.PLATFORM_ADMIN_GROUP_INDEX).addAll(List.of("g1", "g2"));
+        AdminService service = newService();
+
+        // 模拟 AutoSweepwaterTask 每 200ms 一次的 tick
+        for (int i = 0; i < 1000; i++) {
+            List<AdminLoginDTO> users = service.getUsers(null);
+            users.removeIf(user -> user.getStatus() == 0);
+            assertEquals(2, users.size());
+        }
+        assertEquals(1, service.getUsers("g2").size());
+        assertEquals(2, service.getEnableUsers().size());
+        assertEquals(List.of("g1", "g2"), service.getGroup());
+
+        verify(keys, never()).getKeysByPattern(anyString(), anyInt());
+        verify(keys, never()).getKeysByPattern(anyString());
+        // 只加载一次
+        verify(buckets, times(1)).get((String[]) any());
+    }
+
+    @Test
+    void legacyDataIsIndexedWithSingleScan() {
+        putUser("alice", 1, "g1", "common");
+        putUser("bob", 1, "g1", "common");
+        store.put(KeyUtil.genKey(RedisConstants.PLATFORM_ADMIN_GROUP_PREFIX, "g1"), 1);
+        AdminService service = newService();
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(2, service.getUsers(null).size());
+            assertEquals(List.of("g1"), service.getGroup());
+        }
+
+        // 用户索引、小组索引各重建一次
+        verify(keys, times(2)).getKeysByPattern(anyString(), anyInt());
+        assertEquals(Set.of("alice", "bob"), sets.get(RedisConstants.PLATFORM_USER_INDEX));
+
+        // 新实例直接使用索引
+        AdminService other = newService();
+        assertEquals(2, other.getUsers(null).size());
+        verify(keys, times(2)).getKeysByPattern(anyString(), anyInt());
+    }
+
+    @Test
+    void changesOnOneInstanceAreVisibleOnAnother() {
+        putUser("alice", 0, "g1", "common");
+        sets.put(RedisConstants.PLATFORM_USER_INDEX, ConcurrentHashMap.newKeySet());
+        sets.get(RedisConstants.PLATFORM_USER_INDEX).add("alice");
+        AdminService writer = newService();
+        AdminService reader = newService();
+        assertEquals(0, reader.getEnableUsers().size());
+
+        AdminUserBetVO bet = new AdminUserBetVO();
+        bet.setStatus(1);
+        bet.setStopBet(0);
+        bet.setSimulateBet(0);
+        writer.editBet("alice", bet);
+        assertEquals(1, reader.getEnableUsers().size());
+
+        writer.addGroup("g9");
+        assertEquals(List.of("g9"), reader.getGroup());
+
+        writer.delUser("alice");
+        assertEquals(0, reader.getUsers(null).size());
+        // 删除用户后丢弃该用户的设置快照
+        verify(settingsNearCache).invalidate("alice");
+        verify(keys, never()).getKeysByPattern(eq(KeyUtil.genKey(RedisConstants.PLATFORM_USER_PREFIX, "*")), anyInt());
+    }
+}
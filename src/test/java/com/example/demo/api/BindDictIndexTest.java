@@ -0,0 +1,247 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.model.vo.dict.BindLeagueVO;
+import com.example.demo.model.vo.dict.BindTeamVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RBuckets;
+import org.redisson.api.RKeys;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 球队绑定索引：首次加载后不再 SCAN，绑定接口增量更新
+ */
+class BindDictIndexTest {
+
+    private static final int PAIRS = 10;
+    private static final int LEAGUES_PER_PAIR = 100;
+    private static final int TEAMS_PER_LEAGUE = 10;
+
+    private final Map<String, Object> store = new TreeMap<>();
+    private final List<MessageListener<String>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private RKeys keys;
+    private RedissonClient redis;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(RedissonClient.class);
+        keys = mock(RKeys.class);
+        when(redis.getKeys()).thenReturn(keys);
+        when(keys.getKeysByPattern(anyString())).thenAnswer(inv -> {
+            String pattern = inv.getArgument(0);
+            String prefix = pattern.substring(0, pattern.indexOf('*'));
+            return new ArrayList<>(store.keySet()).stream().filter(k -> k.startsWith(prefix)).toList();
+        });
+        RBuckets buckets = mock(RBuckets.class);
+        when(redis.getBuckets()).thenReturn(buckets);
+        when(buckets.get((String[]) any())).thenAnswer(inv -> {
+            Map<String, Object> result = new HashMap<>();
+            for (Object key : inv.getArguments()) {
+                result.put((String) key, store.get(key));
+            }
+            return result;
+        });
+        when(redis.getBucket(anyString())).thenAnswer(inv -> {
+            String key = inv.getArgument(0);
+            RBucket<Object> bucket = mock(RBucket.class);
+            doAnswer(i -> store.put(key, i.getArgument(0))).when(bucket).set(any());
+            doAnswer(i -> store.remove(key) != null).when(bucket).delete();
+            return bucket;
+        });
+        when(redis.getTopic(anyString())).thenAnswer(inv -> {
+            RTopic topic = mock(RTopic.class);
+            when(topic.addListener(eq(String.class), any(MessageListener.class))).thenAnswer(i -> {
+                listeners.add(i.getArgument(1));
+                return listeners.size() - 1;
+            });
+            when(topic.publish(any())).thenAnswer(i -> {
+                listeners.forEach(l -> l.onMessage(inv.getArgument(0), i.getArgument(0)));
+                return (long) listeners.size();
+            });
+            return topic;
+        });
+
+        // 10 个网站对 x 100 个联赛 x 10 场 = 10000 场绑定
+        for (int p = 0; p < PAIRS; p++) {
+            store.put(KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, "alice", "A" + p, "B" + p),
+                    JSONUtil.toJsonStr(leagues("A" + p, "B" + p, LEAGUES_PER_PAIR, TEAMS_PER_LEAGUE)));
+        }
+    }
+
+    private BindDictService newService() {
+        BindDictIndex index = new BindDictIndex();
+        ReflectionTestUtils.setField(index, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(index, "clock", (LongSupplier) now::get);
+        index.afterPropertiesSet();
+        BindDictService service = new BindDictService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "bindDictIndex", index);
+        return service;
+    }
+
+    private static List<BindLeagueVO> leagues(String websiteIdA, String websiteIdB, int leagueCount, int teamCount) {
+        List<BindLeagueVO> leagues = new ArrayList<>();
+        for (int l = 0; l < leagueCount; l++) {
+            BindLeagueVO league = new BindLeagueVO();
+            league.setWebsiteIdA(websiteIdA);
+            league.setWebsiteIdB(websiteIdB);
+            league.setLeagueIdA("LA" + l);
+            league.setLeagueIdB("LB" + l);
+            league.setLeagueNameA("联赛A" + l);
+            league.setLeagueNameB("联赛B" + l);
+            List<BindTeamVO> events = new ArrayList<>();
+            for (int t = 0; t < teamCount; t++) {
+                BindTeamVO team = new BindTeamVO();
+                team.setIdA("EA" + l + "_" + t);
+                team.setIdB("EB" + l + "_" + t);
+                team.setNameA("主队" + t);
+                team.setNameB("客队" + t);
+                events.add(team);
+            }
+            league.setEvents(events);
+            leagues.add(league);
+        }
+        return leagues;
+    }
+
+    @Test
+    void roundsReadSnapshotWithoutScan() {
+        BindDictService service = newService();
+
+        List<List<BindLeagueVO>> first = service.getSweepBindDict("alice");
+        assertEquals(PAIRS, first.size());
+        assertEquals(PAIRS * LEAGUES_PER_PAIR * TEAMS_PER_LEAGUE,
+                first.stream().flatMap(List::stream).mapToInt(l -> l.getEvents().size()).sum());
+
+        int rounds = 10_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            assertSame(first, service.getSweepBindDict("alice"));
+        }
+        long avgNanos = (System.nanoTime() - start) / rounds;
+
+        verify(keys, times(1)).getKeysByPattern(anyString());
+        assertTrue(avgNanos < 1_000_000, "avg " + avgNanos + "ns");
+    }
+
+    @Test
+    void bindApisUpdateIndexIncrementally() {
+        BindDictService service = newService();
+        service.getSweepBindDict("alice");
+
+        // 新增一个网站对，第二个联赛的赛事 idB 为空，应被扫水视图剔除
+        List<BindLeagueVO> added = leagues("C", "D", 2, 3);
+        added.get(1).getEvents().forEach(e -> e.setIdB(""));
+        service.bindDict("alice", "C", "D", added);
+        List<List<BindLeagueVO>> groups = service.getSweepBindDict("alice");
+        assertEquals(PAIRS + 1, groups.size());
+        assertEquals(1, groups.get(PAIRS).size());
+
+        service.deleteBindDict("alice", "A0", "B0");
+        assertEquals(PAIRS, service.getSweepBindDict("alice").size());
+
+        service.deleteBindDict("alice");
+        assertTrue(service.getSweepBindDict("alice").isEmpty());
+        assertTrue(service.getAllBindDict("alice").isEmpty());
+
+        verify(keys, times(1)).getKeysByPattern(anyString());
+    }
+
+    @Test
+    void snapshotIsImmutableAndCopiesAreDetached() {
+        BindDictService service = newService();
+
+        List<List<BindLeagueVO>> groups = service.getSweepBindDict("alice");
+        assertThrows(UnsupportedOperationException.class, () -> groups.get(0).clear());
+        assertThrows(UnsupportedOperationException.class, () -> groups.get(0).get(0).getEvents().clear());
+
+        List<List<BindLeagueVO>> copy = service.getAllBindDict("alice");
+        copy.get(0).get(0).getEvents().clear();
+        assertEquals(TEAMS_PER_LEAGUE, service.getSweepBindDict("alice").get(0).get(0).getEvents().size());
+    }
+
+    @Test
+    void otherInstanceDropsSnapshotOnBindChange() {
+        BindDictService writer = newService();
+        BindDictService reader = newService();
+        reader.getSweepBindDict("alice");
+
+        writer.bindDict("alice", "C", "D", leagues("C", "D", 1, 1));
+
+        // reader 丢弃快照后重新加载一次
+        assertEquals(PAIRS + 1, reader.getSweepBindDict("alice").size());
+        verify(keys, times(2)).getKeysByPattern(anyString());
+    }
+
+    @Test
+    void snapshotExpiresAsAFallbackForLostNotifications() {
+        BindDictService service = newService();
+        List<List<BindLeagueVO>> first = service.getSweepBindDict("alice");
+
+        // 其它实例的变更通知丢失，直接改 Redis
+        store.put(KeyUtil.genKey(RedisConstants.PLATFORM_BIND_DICT_TEAM_PREFIX, "alice", "C", "D"),
+                JSONUtil.toJsonStr(leagues("C", "D", 1, 1)));
+        now.addAndGet(59_000);
+        assertSame(first, service.getSweepBindDict("alice"));
+
+        // 增量更新不延长过期时间
+        service.deleteBindDict("alice", "A0", "B0");
+        now.addAndGet(1_000);
+        assertEquals(PAIRS, service.getSweepBindDict("alice").size());
+        verify(keys, times(2)).getKeysByPattern(anyString());
+    }
+
+    @Test
+    void bindChangeDuringLoadIsNotCached() {
+        BindDictService service = newService();
+        BindDictService writer = newService();
+        AtomicBoolean racing = new AtomicBoolean(true);
+        doAnswer(inv -> {
+            String pattern = inv.getArgument(0);
+            List<String> found = new ArrayList<>(store.keySet()).stream().filter(k -> k.startsWith(pattern.substring(0, pattern.indexOf('*')))).toList();
+            // SCAN 之后、MGET 之前另一个实例删除了一个网站对
+            if (racing.getAndSet(false)) {
+                writer.deleteBindDict("alice", "A0", "B0");
+            }
+            return found;
+        }).when(keys).getKeysByPattern(anyString());
+
+        // 本次读取可能带着旧数据，但不缓存
+        service.getSweepBindDict("alice");
+        assertEquals(PAIRS - 1, service.getSweepBindDict("alice").size());
+        assertEquals(PAIRS - 1, service.getSweepBindDict("alice").size());
+        verify(keys, times(2)).getKeysByPattern(anyString());
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.api;
+
+import org.redisson.api.RBatch;
+import org.redisson.api.RKeys;
+import org.redisson.api.RList;
+import org.redisson.api.RListAsync;
+import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 内存版 Redis，只实现扫水记录读写用到的 list / hash / topic 操作（topic 同步投递）；
+ * RBatch 在 execute 时按注入的延迟等待后再依次生效
+ */
+public class FakeSweepwaterRedis {
+
+    public final RedissonClient client = mock(RedissonClient.class);
+    public final Map<String, List<String>> lists = new ConcurrentHashMap<>();
+    public final Map<String, Map<String, String>> maps = new ConcurrentHashMap<>();
+    public final AtomicInteger executions = new AtomicInteger();
+    public volatile boolean fail;
+    private final List<MessageListener<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    public FakeSweepwaterRedis(long delayMs) {
+        when(client.createBatch()).thenAnswer(inv -> batch(delayMs));
+        when(client.getList(anyString())).thenAnswer(inv -> list(inv.getArgument(0)));
+        when(client.getMap(anyString())).thenAnswer(inv -> map(inv.getArgument(0)));
+        RKeys keys = mock(RKeys.class);
+        when(keys.delete((String[]) any())).thenAnswer(inv -> {
+            long deleted = 0;
+            for (Object key : inv.getRawArguments()) {
+                for (String k : key instanceof String[] array ? array : new String[]{(String) key}) {
+                    deleted += (lists.remove(k) != null ? 1 : 0) + (maps.remove(k) != null ? 1 : 0);
+                }
+            }
+            return deleted;
+        });
+        when(client.getKeys()).thenReturn(keys);
+        RTopic topic = mock(RTopic.class);
+        when(topic.addListener(eq(String.class), any())).thenAnswer(inv -> {
+            listeners.add(inv.getArgument(1));
+            return listeners.size() - 1;
+        });
+        when(topic.publish(any())).thenAnswer(inv -> {
+            for (MessageListener<String> listener : listeners) {
+                listener.onMessage("topic", inv.getArgument(0));
+            }
+            return (long) listeners.size();
+        });
+        when(client.getTopic(anyString())).thenReturn(topic);
+    }
+
+    List<String> list(String key, boolean create) {
+        return create ? lists.computeIfAbsent(key, k -> new ArrayList<>()) : lists.getOrDefault(key, new ArrayList<>());
+    }
+
+    Map<String, String> map(String key, boolean create) {
+        return create ? maps.computeIfAbsent(key, k -> new LinkedHashMap<>()) : maps.getOrDefault(key, new LinkedHashMap<>());
+    }
+
+    /**
+     * LRANGE 语义，支持负数下标
+     */
+    static List<String> range(List<String> values, int from, int to) {
+        int size = values.size();
+        int start = Math.max(0, from < 0 ? size + from : from);
+        int end = Math.min(size - 1, to < 0 ? size + to : to);
+        return start > end ? new ArrayList<>() : new ArrayList<>(values.subList(start, end + 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private RList<String> list(String key) {
+        RList<String> list = mock(RList.class);
+        when(list.range(anyInt(), anyInt())).thenAnswer(inv -> {
+            synchronized (this) {
+                return range(list(key, false), inv.getArgument(0), inv.getArgument(1));
+            }
+        });
+        when(list.readAll()).thenAnswer(inv -> {
+            synchronized (this) {
+                return new ArrayList<>(list(key, false));
+            }
+        });
+        when(list.removeAll(any(Collection.class))).thenAnswer(inv -> {
+            synchronized (this) {
+                return list(key, true).removeAll((Collection<String>) inv.getArgument(0));
+            }
+        });
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RMap<String, String> map(String key) {
+        RMap<String, String> map = mock(RMap.class);
+        when(map.get(any())).thenAnswer(inv -> {
+            synchronized (this) {
+                return map(key, false).get(inv.<String>getArgument(0));
+            }
+        });
+        when(map.getAsync(any())).thenAnswer(inv -> {
+            synchronized (this) {
+                return new CompletableFutureWrapper<>(map(key, false).get(inv.<String>getArgument(0)));
+            }
+        });
+        when(map.replaceAsync(any(), any())).thenAnswer(inv -> {
+            synchronized (this) {
+                Map<String, String> values = map(key, false);
+                String id = inv.getArgument(0);
+                String previous = values.containsKey(id) ? values.put(id, inv.getArgument(1)) : null;
+                return new CompletableFutureWrapper<>(previous);
+            }
+        });
+        when(map.getAll(any(Set.class))).thenAnswer(inv -> {
+            synchronized (this) {
+                Map<String, String> values = map(key, false);
+                Map<String, String> result = new LinkedHashMap<>();
+                for (String id : (Set<String>) inv.getArgument(0)) {
+                    if (values.containsKey(id)) {
+                        result.put(id, values.get(id));
+                    }
+                }
+                return result;
+            }
+        });
+        when(map.getAllAsync(any(Set.class))).thenAnswer(inv -> new CompletableFutureWrapper<>(map.getAll(inv.getArgument(0))));
+        when(map.readAllKeySet()).thenAnswer(inv -> {
+            synchronized (this) {
+                return new HashSet<>(map(key, false).keySet());
+            }
+        });
+        when(map.fastRemove((String[]) any())).thenAnswer(inv -> {
+            synchronized (this) {
+                long removed = 0;
+                for (Object id : inv.getRawArguments()) {
+                    for (String k : id instanceof String[] array ? array : new String[]{(String) id}) {
+                        removed += map(key, true).remove(k) != null ? 1 : 0;
+                    }
+                }
+                return removed;
+            }
+        });
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RBatch batch(long delayMs) {
+        List<Runnable> ops = new ArrayList<>();
+        RBatch batch = mock(RBatch.class);
+        when(batch.getMap(anyString())).thenAnswer(g -> {
+            String key = g.getArgument(0);
+            RMapAsync<String, String> map = mock(RMapAsync.class);
+            when(map.putAllAsync(any(Map.class))).thenAnswer(a -> {
+                Map<String, String> values = new LinkedHashMap<>((Map<String, String>) a.getArgument(0));
+                ops.add(() -> map(key, true).putAll(values));
+                return null;
+            });
+            when(map.fastRemoveAsync((String[]) any())).thenAnswer(a -> {
+                List<String> ids = new ArrayList<>();
+                for (Object id : a.getRawArguments()) {
+                    ids.addAll(List.of(id instanceof String[] array ? array : new String[]{(String) id}));
+                }
+                ops.add(() -> ids.forEach(map(key, true)::remove));
+                return null;
+            });
+            return map;
+        });
+        when(batch.getList(anyString())).thenAnswer(g -> {
+            String key = g.getArgument(0);
+            RListAsync<String> list = mock(RListAsync.class);
+            when(list.addAllAsync(any(Collection.class))).thenAnswer(a -> {
+                List<String> values = new ArrayList<>((Collection<String>) a.getArgument(0));
+                ops.add(() -> list(key, true).addAll(values));
+                return null;
+            });
+            when(list.rangeAsync(anyInt(), anyInt())).thenAnswer(a -> {
+                CompletableFuture<List<String>> future = new CompletableFuture<>();
+                int from = a.getArgument(0);
+                int to = a.getArgument(1);
+                ops.add(() -> future.complete(range(list(key, false), from, to)));
+                return new CompletableFutureWrapper<>(future);
+            });
+            when(list.trimAsync(anyInt(), anyInt())).thenAnswer(t -> {
+                int from = t.getArgument(0);
+                int to = t.getArgument(1);
+                ops.add(() -> {
+                    List<String> values = list(key, true);
+                    List<String> kept = range(values, from, to);
+                    values.clear();
+                    values.addAll(kept);
+                });
+                return null;
+            });
+            return list;
+        });
+        when(batch.execute()).thenAnswer(e -> {
+            TimeUnit.MILLISECONDS.sleep(delayMs);
+            if (fail) {
+                throw new IllegalStateException("redis down");
+            }
+            synchronized (this) {
+                ops.forEach(Runnable::run);
+            }
+            executions.incrementAndGet();
+            return null;
+        });
+        return batch;
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.core.factory.ApiHandler;
+import com.example.demo.core.factory.WebsiteApiFactory;
+import com.example.demo.core.factory.WebsiteFactoryManager;
+import com.example.demo.core.holder.AdaptiveRateLimiter;
+import com.example.demo.core.holder.ConcurrencyLimiter;
+import com.example.demo.core.holder.OddsHedger;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.example.demo.model.vo.WebsiteVO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * eventsOdds 对冲：首个账号慢时由另一个账号接管，备用账号同样检查冷却和并发许可，服务器时间随胜出结果带回
+ */
+class HandicapApiHedgeTest {
+
+    private static final String USER = "sweeper";
+    private static final String WEBSITE = WebsiteType.PINGBO.getId();
+    /** 慢账号的响应耗时，远大于首次调用的类加载开销，对冲是否生效不受冷启动影响 */
+    private static final long SLOW_MS = 1000;
+
+    /** 本地盘口：/slow 慢返回（被中断前一直挂着），/fast 快速返回，响应头带 Date */
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    /** 按请求顺序记录发出请求的账号，第一个请求走 /slow，其余走 /fast */
+    private final Queue<String> requested = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private OkHttpProxyDispatcher dispatcher;
+    private OddsHedger hedger;
+    private ConcurrencyLimiter concurrencyLimiter;
+    private HandicapApi api;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> respond(exchange, SLOW_MS));
+        server.createContext("/fast", exchange -> respond(exchange, 10));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        dispatcher = new OkHttpProxyDispatcher();
+
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        hedger = new OddsHedger();
+        ReflectionTestUtils.setField(hedger, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "minDelayMs", 20L);
+        ReflectionTestUtils.setField(hedger, "budgetRatio", 1.0);
+        for (int i = 0; i < 200; i++) {
+            hedger.record(WEBSITE, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "sweepMetrics", metrics);
+        concurrencyLimiter = new ConcurrencyLimiter(0, 1);
+
+        ApiHandler handler = mock(ApiHandler.class);
+        when(handler.execute(any(), any())).thenAnswer(inv -> {
+            ConfigAccountVO account = inv.getArgument(0);
+            requested.add(account.getAccount());
+            String path = calls.getAndIncrement() == 0 ? "/slow" : "/fast";
+            dispatcher.execute("GET", baseUrl + path, null, new HashMap<>(), direct(), false);
+            JSONArray leagues = new JSONArray();
+            leagues.add(new JSONObject().set("account", account.getAccount()));
+            return new JSONObject().set("success", true).set("leagues", leagues);
+        });
+        WebsiteApiFactory factory = mock(WebsiteApiFactory.class);
+        when(factory.getEventsOddsHandler()).thenReturn(handler);
+        WebsiteFactoryManager factoryManager = mock(WebsiteFactoryManager.class);
+        when(factoryManager.getFactory(WEBSITE)).thenReturn(factory);
+        WebsiteService websiteService = mock(WebsiteService.class);
+        when(websiteService.getWebsite(anyString(), anyString())).thenReturn(new WebsiteVO());
+        ConfigAccountService accountService = mock(ConfigAccountService.class);
+        when(accountService.getAccount(USER, WEBSITE)).thenReturn(List.of(account("a"), account("b")));
+
+        api = new HandicapApi();
+        ReflectionTestUtils.setField(api, "websiteService", websiteService);
+        ReflectionTestUtils.setField(api, "accountService", accountService);
+        ReflectionTestUtils.setField(api, "factoryManager", factoryManager);
+        ReflectionTestUtils.setField(api, "oddsHedger", hedger);
+        ReflectionTestUtils.setField(api, "rateLimiter", rateLimiter);
+        ReflectionTestUtils.setField(api, "concurrencyLimiter", concurrencyLimiter);
+        // 轮询从账号 a 开始
+        indexMap().put(USER + ":" + WEBSITE, new AtomicInteger(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedger.destroy();
+        dispatcher.destroy();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void slowAccountIsTakenOverByTheOtherAccount() {
+        long before = System.currentTimeMillis();
+        long start = System.nanoTime();
+        HandicapApi.EventsOdds odds = api.eventsOddsWithServerTime(USER, WEBSITE, "L1", null);
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(odds);
+        assertEquals("b", ((JSONArray) odds.leagues()).getJSONObject(0).getStr("account"));
+        // 不等慢账号返回
+        assertTrue(costMs < SLOW_MS, "耗时 " + costMs + "ms");
+        // 备用请求不会再选首个账号
+        assertEquals(List.of("a", "b"), List.copyOf(requested));
+        assertEquals(1.0, hedgeCount(OddsHedger.WON));
+        // 服务器时间来自备用线程上的响应（Date 头精确到秒）
+        assertTrue(odds.serverTimeMillis() >= before - 1000 && odds.serverTimeMillis() <= System.currentTimeMillis(),
+                "服务器时间 " + odds.serverTimeMillis());
+        // 两个请求的并发许可都已归还
+        assertEquals(0, concurrencyLimiter.inFlight(WEBSITE));
+    }
+
+    @Test
+    void backupSkipsAccountInCooldown() {
+        cooldownMap().put("b", System.currentTimeMillis() + 60_000);
+
+        HandicapApi.EventsOdds odds = api.eventsOddsWithServerTime(USER, WEBSITE, "L1", null);
+
+        // 没有可用的备用账号，等首个账号返回
+        assertEquals("a", ((JSONArray) odds.leagues()).getJSONObject(0).getStr("account"));
+        assertEquals(List.of("a"), List.copyOf(requested));
+        assertNull(registry.find(SweepMetrics.ODDS_HEDGE_METER).tag("result", OddsHedger.FIRED).counter());
+    }
+
+    @Test
+    void backupNeedsAConcurrencyPermit() {
+        // 账号 b 的在途请求已满
+        ConcurrencyLimiter.Permit held = concurrencyLimiter.tryAcquire(WEBSITE, "b");
+        assertNotNull(held);
+        try {
+            HandicapApi.EventsOdds odds = api.eventsOddsWithServerTime(USER, WEBSITE, "L1", null);
+            assertEquals("a", ((JSONArray) odds.leagues()).getJSONObject(0).getStr("account"));
+            assertEquals(List.of("a"), List.copyOf(requested));
+        } finally {
+            held.close();
+        }
+        assertEquals(0, concurrencyLimiter.inFlight(WEBSITE));
+
+        // 许可归还后可以对冲
+        requested.clear();
+        calls.set(0);
+        cooldownMap().clear();
+        HandicapApi.EventsOdds odds = api.eventsOddsWithServerTime(USER, WEBSITE, "L1", null);
+        assertEquals(2, requested.size());
+        assertNotEquals(requested.peek(), ((JSONArray) odds.leagues()).getJSONObject(0).getStr("account"));
+    }
+
+    private double hedgeCount(String result) {
+        Counter counter = registry.find(SweepMetrics.ODDS_HEDGE_METER).tag("result", result).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AtomicInteger> indexMap() {
+        return (Map<String, AtomicInteger>) ReflectionTestUtils.getField(api, "accountIndexMap");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Long> cooldownMap() {
+        return (Map<String, Long>) ReflectionTestUtils.getField(api, "accountCooldownMap");
+    }
+
+    private static ConfigAccountVO account(String name) {
+        ConfigAccountVO account = new ConfigAccountVO();
+        account.setAccount(name);
+        account.setWebsiteId(WEBSITE);
+        account.setIsTokenValid(1);
+        account.setToken(new JSONObject().set("tokens", new JSONObject()));
+        return account;
+    }
+
+    private static ConfigAccountVO direct() {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        return config;
+    }
+
+    private static void respond(HttpExchange exchange, long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+            byte[] bytes = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (InterruptedException | IOException ignored) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+}
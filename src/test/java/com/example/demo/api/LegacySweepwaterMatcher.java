@@ -0,0 +1,722 @@
+package com.example.demo.api;
+
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.constants.RedisConstants;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.common.utils.KeyUtil;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.model.dto.settings.*;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 改造前（df11238）SweepwaterService 的扫水比对流程，方法体原样摘录，作为比对语料的基准
+ * 只保留 aggregateEventOdds 用到的方法；Redis、线程池、投注由测试注入
+ */
+@Slf4j
+class LegacySweepwaterMatcher {
+
+    private final RedissonClient businessPlatformRedissonClient;
+    private final SweepWaterThreadPoolHolder threadPoolHolder;
+    private final BetService betService;
+
+    // 本地缓存（存储每个账户最新一次扫水结果,用于对比赔率是否变动） 每个账户最多 10000 条 oddsKey，60 分钟未访问自动过期
+    private final Cache<String, BigDecimal> lastSweepCache = Caffeine.newBuilder()
+            .maximumSize(10000)
+            .expireAfterAccess(Duration.ofMinutes(60))
+            .build();
+
+    LegacySweepwaterMatcher(RedissonClient businessPlatformRedissonClient, SweepWaterThreadPoolHolder threadPoolHolder, BetService betService) {
+        this.businessPlatformRedissonClient = businessPlatformRedissonClient;
+        this.threadPoolHolder = threadPoolHolder;
+        this.betService = betService;
+    }
+
+    /**
+     * 处理事件赔率聚合
+     *
+     * @param username 用户名
+     * @param oddsScan 赔率扫描配置
+     * @param profit 利润配置
+     * @param interval 时间间隔配置
+     * @param limit 限制配置
+     * @param oddsRanges 赔率范围列表
+     * @param timeFrames 时间段配置列表
+     * @param typeFilter 类型过滤器
+     * @param websiteA 网站A配置
+     * @param websiteB 网站B配置
+     * @param eventAJson 网站A事件JSON
+     * @param eventBJson 网站B事件JSON
+     * @param bindTeamNameA 绑定队伍A名称
+     * @param bindTeamNameB 绑定队伍B名称
+     * @param websiteIdA 网站A ID
+     * @param websiteIdB 网站B ID
+     * @param leagueIdA 联赛A ID
+     * @param leagueIdB 联赛B ID
+     * @param eventIdA 事件A ID
+     * @param eventIdB 事件B ID
+     * @return 扫水结果列表
+     */
+    public List<SweepwaterDTO> aggregateEventOdds(
+            String username, String sweepwaterUsername, String getOddsTime, OddsScanDTO oddsScan, ProfitDTO profit,
+            IntervalDTO interval, LimitDTO limit, List<OddsRangeDTO> oddsRanges,
+            List<TimeFrameDTO> timeFrames, TypeFilterDTO typeFilter,
+            WebsiteVO websiteA, WebsiteVO websiteB,
+            JSONObject eventAJson, JSONObject eventBJson,
+            String bindIdA, String bindIdB,
+            String bindTeamNameA, String bindTeamNameB,
+            String websiteIdA, String websiteIdB,
+            String leagueIdA, String leagueIdB,
+            String eventIdA, String eventIdB) {
+        List<SweepwaterDTO> results = new ArrayList<>();
+        JSONArray eventsA = eventAJson.getJSONArray("events");
+        JSONArray eventsB = eventBJson.getJSONArray("events");
+
+        // 同步更改比赛时间，以新二盘口的时间为主
+        boolean reTimeXinEr = WebsiteType.XINBAO.getId().equals(websiteIdA);
+        for (Object eventObjA : eventsA) {
+            JSONObject eventA = (JSONObject) eventObjA;
+            for (Object eventObjB : eventsB) {
+                JSONObject eventB = (JSONObject) eventObjB;
+                if (eventA.getStr("name").equals(bindTeamNameA) &&
+                        eventB.getStr("name").equals(bindTeamNameB)
+                ) {
+                    // A和B属于同一场比赛
+                    if (reTimeXinEr) {
+                        // A是新二盘口,以新二盘口的比赛时间为主更新B盘口对应的比赛时间
+                        String reTime = eventA.getStr("reTime");
+                        eventB.putOpt("reTime", reTime);
+                    } else {
+                        // B是新二盘口,以新二盘口的比赛时间为主更新A盘口对应的比赛时间
+                        String reTime = eventB.getStr("reTime");
+                        eventA.putOpt("reTime", reTime);
+                    }
+                    // 找到配对后可以跳出内层循环，避免重复修改
+                    break;
+                }
+            }
+        }
+
+        // 处理网站A的所有事件
+        for (Object eventObjA : eventsA) {
+            JSONObject eventA = (JSONObject) eventObjA;
+
+            // 处理事件A数据
+            EventData processedEventA = processSingleEvent(
+                    eventA, websiteA, typeFilter, timeFrames
+            );
+
+            // 如果事件不符合时间范围要求则跳过
+            if (!processedEventA.isValid()) {
+                log.info("扫水,网站A:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事信息:{}", WebsiteType.getById(websiteIdA).getDescription(), eventAJson.getStr("league"), JSONUtil.parseArray(timeFrames), eventA);
+                continue;
+            }
+
+            // 处理网站B的所有事件
+            for (Object eventObjB : eventsB) {
+                JSONObject eventB = (JSONObject) eventObjB;
+
+                // 处理事件B数据
+                EventData processedEventB = processSingleEvent(
+                        eventB, websiteB, typeFilter, timeFrames
+                );
+
+                // 如果事件不符合时间范围要求则跳过
+                if (!processedEventB.isValid()) {
+                    log.info("扫水,网站B:{}-赛事:{},不符合设置的时间范围:{},跳过, 赛事信息:{}", WebsiteType.getById(websiteIdB).getDescription(), eventBJson.getStr("league"), JSONUtil.parseArray(timeFrames), eventB);
+                    continue;
+                }
+
+                // 检查是否是对立队伍组合
+                if (processedEventA.getTeamName().equals(bindTeamNameA) &&
+                    processedEventB.getTeamName().equals(bindTeamNameB)
+                ) {
+                    log.info("准备进入扫水对比, eventA:{}======================================eventB:{}", eventA, eventB);
+                    // 处理全场赔率
+                    processFullCourtOdds(
+                            username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit, oddsRanges,
+                            processedEventA.getFullCourt(), processedEventB.getFullCourt(),
+                            "fullCourt",
+                            processedEventA.getTeamName(), processedEventB.getTeamName(),
+                            eventAJson, eventBJson,
+                            eventA, eventB,
+                            websiteIdA, websiteIdB, leagueIdA, leagueIdB,
+                            eventIdA, eventIdB, results,
+                            processedEventA.getScore(), processedEventB.getScore()
+                    );
+
+                    // 处理上半场赔率
+                    processFullCourtOdds(
+                            username, sweepwaterUsername, getOddsTime, oddsScan, profit, interval, limit, oddsRanges,
+                            processedEventA.getFirstHalf(), processedEventB.getFirstHalf(),
+                            "firstHalf",
+                            processedEventA.getTeamName(), processedEventB.getTeamName(),
+                            eventAJson, eventBJson,
+                            eventA, eventB,
+                            websiteIdA, websiteIdB, leagueIdA, leagueIdB,
+                            eventIdA, eventIdB, results,
+                            processedEventA.getScore(), processedEventB.getScore()
+                    );
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 处理单个事件的数据
+     *
+     * @param eventJson 事件JSON数据
+     * @param website 网站配置
+     * @param typeFilter 类型过滤器
+     * @param timeFrames 时间段配置列表
+     * @return 处理过的事件数据
+     */
+    private EventData processSingleEvent(
+            JSONObject eventJson, WebsiteVO website,
+            TypeFilterDTO typeFilter,
+            List<TimeFrameDTO> timeFrames) {
+
+        // 提取基础信息
+        String id = eventJson.getStr("id");
+        String teamName = eventJson.getStr("name");
+        String score = eventJson.getStr("score");
+        String reTime = eventJson.getStr("reTime");        // 比赛时长
+        String session = eventJson.getStr("session");   // 比赛阶段 1H:上半场，2H:下半场，HT:中场休息
+
+        // 检查时间范围有效性
+        boolean isValid = checkTimeFrameValidity(session, reTime, timeFrames);
+        if (!isValid) {
+            return new EventData(id, teamName, score, null, null, false);
+        }
+
+        // 初始化全场和上半场数据
+        JSONObject fullCourt = new JSONObject();
+        JSONObject firstHalf = new JSONObject();
+
+        // 处理全场数据
+        if (website.getFullCourt() == 1) {
+            fullCourt = eventJson.getJSONObject("fullCourt");
+            cleanOddsData(fullCourt, website, typeFilter);
+        }
+
+        // 处理上半场数据
+        if (website.getFirstHalf() == 1) {
+            firstHalf = eventJson.getJSONObject("firstHalf");
+            cleanOddsData(firstHalf, website, typeFilter);
+        }
+
+        return new EventData(id, teamName, score, fullCourt, firstHalf, true);
+    }
+
+    /**
+     * 检查时间范围有效性
+     *
+     * @param session 赛事阶段
+     * @param reTime 比赛进行时间
+     * @param timeFrames 时间段配置列表
+     * @return 是否在有效时间范围内
+     */
+    private boolean checkTimeFrameValidity(
+            String session, String reTime, List<TimeFrameDTO> timeFrames) {
+
+        if (timeFrames == null || timeFrames.isEmpty() || "中场".equals(reTime)) {
+            return true;
+        }
+        // 场间休息不处理
+        /*if ("HT".equalsIgnoreCase(session)) {
+            log.info("当前赛事为场间休息session:{}，不扫水", session);
+            return false;
+        }*/
+
+        int courseType;
+        if ("1H".equalsIgnoreCase(session)) {
+            courseType = 1; // 上半场
+        } else if ("2H".equalsIgnoreCase(session)) {
+            courseType = 2; // 下半场
+        } else {
+            // HT 中场休息
+            courseType = -1;
+        }
+
+        // 非有效阶段直接返回
+        /*if (courseType == -1) {
+            log.info("当前赛事阶段无效session:{}，不扫水", session);
+            return false;
+        }*/
+        // 查找对应的时间段配置
+        Optional<TimeFrameDTO> timeFrameOpt = timeFrames.stream()
+                .filter(w -> w.getBallType() == 1)
+                .findFirst();
+        int reTimeValue = Integer.parseInt(reTime);
+        // 检查时间是否在配置范围内
+        if (timeFrameOpt.isPresent()) {
+            TimeFrameDTO timeFrame = timeFrameOpt.get();
+            if (reTimeValue < timeFrame.getTimeFormSec() || reTimeValue > timeFrame.getTimeToSec()) {
+                log.info("当前赛事时间:{}不在[{}-{}]范围内",
+                        reTime, timeFrame.getTimeFormSec(), timeFrame.getTimeToSec());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 清理赔率数据
+     *
+     * @param oddsData 赔率数据
+     * @param website 网站配置
+     * @param typeFilter 类型过滤器
+     */
+    private void cleanOddsData(
+            JSONObject oddsData, WebsiteVO website,
+            TypeFilterDTO typeFilter) {
+
+        // 清理大小球数据
+        if (website.getBigBall() == 0) {
+            oddsData.getJSONObject("overSize").putOpt("big", new JSONObject());
+        }
+        if (website.getSmallBall() == 0) {
+            oddsData.getJSONObject("overSize").putOpt("small", new JSONObject());
+        }
+
+        // 清理让球盘数据
+        JSONObject letBall = oddsData.getJSONObject("letBall");
+        if (letBall != null && !letBall.isEmpty()) {
+            // 清理上盘数据
+            if (website.getHangingWall() == 0) {
+                oddsData.getJSONObject("letBall").putOpt("up", new JSONObject());
+                //cleanWallData(letBall, "hanging", oddsData);
+            }
+
+            // 清理下盘数据
+            if (website.getFootWall() == 0) {
+                oddsData.getJSONObject("letBall").putOpt("down", new JSONObject());
+                //cleanWallData(letBall, "foot", oddsData);
+            }
+
+            // 清理平手盘数据
+            if (typeFilter != null &&
+                    typeFilter.getFlatPlate() != null &&
+                    typeFilter.getFlatPlate() == 1) {
+                oddsData.getJSONObject("letBall").getJSONObject("up").putOpt("0", new JSONObject());
+                oddsData.getJSONObject("letBall").getJSONObject("down").putOpt("0", new JSONObject());
+            }
+        }
+    }
+
+    /**
+     * 事件数据封装类
+     */
+    @Getter
+    private static class EventData {
+        // Getters
+        private final String id;
+        private final String teamName;
+        private final String score;
+        private final JSONObject fullCourt;
+        private final JSONObject firstHalf;
+        private final boolean valid;
+
+        public EventData(String id, String teamName, String score,
+                         JSONObject fullCourt, JSONObject firstHalf,
+                         boolean valid) {
+            this.id = id;
+            this.teamName = teamName;
+            this.score = score;
+            this.fullCourt = fullCourt;
+            this.firstHalf = firstHalf;
+            this.valid = valid;
+        }
+
+    }
+
+    // 提取的处理逻辑
+    private void processFullCourtOdds(String username, String sweepwaterUsername, String getOddsTime, OddsScanDTO oddsScan, ProfitDTO profit, IntervalDTO interval, LimitDTO limit, List<OddsRangeDTO> oddsRanges,
+                                      JSONObject fullCourtA, JSONObject fullCourtB, String courtType,
+                                      String nameA, String nameB, JSONObject eventAJson, JSONObject eventBJson, JSONObject teamA, JSONObject teamB,
+                                      String websiteIdA, String websiteIdB, String leagueIdA, String leagueIdB,
+                                      String eventIdA, String eventIdB, List<SweepwaterDTO> results, String scoreA, String scoreB) {
+        Optional<OddsRangeDTO> optionalOddsA = oddsRanges.stream()
+                .filter(w -> w.getWebsiteId().equals(websiteIdA))
+                .findFirst();
+        Optional<OddsRangeDTO> optionalOddsB = oddsRanges.stream()
+                .filter(w -> w.getWebsiteId().equals(websiteIdB))
+                .findFirst();
+        // BetAmountDTO amountDTO = settingsService.getBetAmount(username);
+        Set<String> localAdded = new HashSet<>(); // 本轮去重缓存
+
+        // 预计算对立类型映射
+        Map<String, String> oppositeTypes = Map.of(
+                "up", "down",
+                "down", "up",
+                "big", "small",
+                "small", "big"
+        );
+
+        for (String key : fullCourtA.keySet()) {
+            if (!fullCourtB.containsKey(key)) continue;
+
+            // 处理让球盘和大小盘类型
+            JSONObject letBallA = fullCourtA.getJSONObject(key);
+            JSONObject letBallB = fullCourtB.getJSONObject(key);
+
+            for (String ballTypeA : letBallA.keySet()) {
+                if (StringUtils.isBlank(ballTypeA)) {
+                    continue;
+                }
+
+                // ✅ 优化：直接找到对立类型，避免内层循环
+                String oppositeType = oppositeTypes.get(ballTypeA);
+                if (oppositeType == null || !letBallB.containsKey(oppositeType)) {
+                    continue;
+                }
+
+                JSONObject ballJsonA = letBallA.getJSONObject(ballTypeA);
+                JSONObject ballJsonB = letBallB.getJSONObject(oppositeType);
+
+                for (String valueAStr : ballJsonA.keySet()) {
+                    JSONObject valueAJson = ballJsonA.getJSONObject(valueAStr);
+                    if (valueAJson.containsKey("odds") && StringUtils.isNotBlank(valueAJson.getStr("odds"))) {
+                        BigDecimal valueA = valueAJson.getBigDecimal("odds");
+                        if (isInOddsRange(optionalOddsA, valueA)) {
+                            log.info("网站A:{} 当前赔率赔率:{}不在设定范围内", WebsiteType.getById(websiteIdA).getDescription(), valueA);
+                            continue;
+                        }
+                        String decimalOddsA = valueAJson.containsKey("decimalOdds") ? valueAJson.getStr("decimalOdds") : null;
+
+                        // ✅ 优化：直接检查对立类型的相同盘口值
+                        if (ballJsonB.containsKey(valueAStr)) {
+                            JSONObject valueBJson = ballJsonB.getJSONObject(valueAStr);
+
+                            if (valueBJson.containsKey("odds") && StringUtils.isNotBlank(valueBJson.getStr("odds"))) {
+                                BigDecimal valueB = valueBJson.getBigDecimal("odds");
+                                if (isInOddsRange(optionalOddsB, valueB)) {
+                                    log.info("网站B:{} 当前赔率赔率:{}不在设定范围内", WebsiteType.getById(websiteIdB).getDescription(), valueB);
+                                    continue;
+                                }
+
+                                log.info("扫水完成准备进入赔率比对步骤valueBJson:{}", valueBJson);
+                                Boolean isHomeA = valueAJson.containsKey("isHome") ? valueAJson.getBool("isHome") : null;
+                                Boolean isHomeB = valueBJson.containsKey("isHome") ? valueBJson.getBool("isHome") : null;
+                                String teamNameA = valueAJson.containsKey("teamName") ? valueAJson.getStr("teamName") : null;
+                                String teamNameB = valueBJson.containsKey("teamName") ? valueBJson.getStr("teamName") : null;
+                                // 特殊情况，如果网站是平博，那么对应的oddsId需要把最后一个|的值删掉后再做对比
+                                String oddsIdA = valueAJson.getStr("id");
+                                String oddsIdB = valueBJson.getStr("id");
+                                if (WebsiteType.PINGBO.getId().equals(websiteIdA)) {
+                                    int oldIdx = oddsIdA.lastIndexOf("|");
+                                    oddsIdA = oldIdx != -1 ? oddsIdA.substring(0, oldIdx + 1) : oddsIdA;
+                                }
+                                if (WebsiteType.PINGBO.getId().equals(websiteIdB)) {
+                                    int oldIdx = oddsIdB.lastIndexOf("|");
+                                    oddsIdB = oldIdx != -1 ? oddsIdB.substring(0, oldIdx + 1) : oddsIdB;
+                                }
+                                String resultKey = username + "|" + key + "|" + oddsIdA + "|" + oddsIdB;
+                                if (!localAdded.add(resultKey)) {
+                                    // 本轮重复 → 跳过
+                                    continue;
+                                }
+
+                                // 计算初始水位（两边相加）
+                                BigDecimal water = valueA.add(valueB);
+
+                                // 一方赔率为负数，则在结果上加 2,如果两个都是负数，就等于加4
+                                if (valueA.compareTo(BigDecimal.ZERO) < 0) {
+                                    water = water.add(BigDecimal.valueOf(2));
+                                }
+                                if (valueB.compareTo(BigDecimal.ZERO) < 0) {
+                                    water = water.add(BigDecimal.valueOf(2));
+                                }
+                                // ✅ 仅保留 3 位小数（不四舍五入）
+                                water = water.setScale(3, RoundingMode.DOWN);
+                                double finalValue = water.doubleValue();
+                                String decimalOddsB = valueBJson.containsKey("decimalOdds") ? valueBJson.getStr("decimalOdds") : null;
+
+                                // 判断赔率水位是否在指定区间内
+                                if (oddsScan.getWaterLevelFrom() <= finalValue && finalValue <= oddsScan.getWaterLevelTo()) {
+                                    JSONObject betInfoA = null;
+                                    JSONObject betInfoB = null;
+                                /*try {
+                                    betInfoA = buildBetInfo(websiteIdA, eventAJson.getJSONArray("events"), teamA, eventAJson.getStr("league"), key, valueAJson, amountDTO);
+                                    betInfoB = buildBetInfo(websiteIdB, eventBJson.getJSONArray("events"), teamB, eventBJson.getStr("league"), key, valueBJson, amountDTO);
+                                } catch (Exception e) {
+                                    log.info("通过赔率手动解析betInfo失败: ", e);
+                                }*/
+                                    String handicapA = valueAJson.containsKey("handicap") ? valueAJson.getStr("handicap") : "";
+                                    String handicapB = valueBJson.containsKey("handicap") ? valueBJson.getStr("handicap") : "";
+                                    SweepwaterDTO sweepwaterDTO = createSweepwaterDTO(username, valueAJson.getStr("id"), valueBJson.getStr("id"), getOddsTime, valueAJson.getStr("selectionId"), valueBJson.getStr("selectionId"), courtType, key, eventAJson, eventBJson, teamA, teamB, websiteIdA, websiteIdB, leagueIdA, leagueIdB, eventIdA, eventIdB, nameA, nameB, handicapA, handicapB, valueA, valueB, finalValue, decimalOddsA, decimalOddsB, scoreA, scoreB,
+                                            valueAJson.getStr("oddFType"), valueBJson.getStr("oddFType"), valueAJson.getStr("gtype"), valueBJson.getStr("gtype"), valueAJson.getStr("wtype"), valueBJson.getStr("wtype"), valueAJson.getStr("rtype"), valueBJson.getStr("rtype"), valueAJson.getStr("choseTeam"), valueBJson.getStr("choseTeam"), valueAJson.getStr("con"), valueBJson.getStr("con"), valueAJson.getStr("ratio"), valueBJson.getStr("ratio"),
+                                            betInfoA, betInfoB, isHomeA, isHomeB, teamNameA, teamNameB
+                                    );
+                                    results.add(sweepwaterDTO);
+                                    // 更新 lastTime
+                                    updateLastTime(username, sweepwaterDTO, valueA, valueB);
+                                    // 写入 Redis
+                                    saveSweepwater(username, sweepwaterDTO);
+                                    if (sweepwaterDTO.getLastOddsTimeA() == sweepwaterDTO.getLastOddsTimeB()) {
+                                        // 如果两个都是旧或者新,则不进行投注,不需要在前端显示
+                                        continue; // 直接跳过
+                                    }
+                                    // 把投注放在这里的目的是让扫水到数据后马上进行投注，防止因为时间问题导致赔率变更的情况
+                                    if ("letBall".equals(key)) {
+                                        if (finalValue >= profit.getRollingLetBall()) {
+                                            // 满足利润设置的让球盘水位才进行投注
+                                            CompletableFuture.runAsync(() -> {
+                                                try {
+                                                    tryBet(username, sweepwaterDTO);
+                                                } catch (Exception e) {
+                                                    log.error("立即投注异常,扫水id={}", sweepwaterDTO.getId(), e);
+                                                }
+                                            }, threadPoolHolder.getBetExecutor());
+                                        }
+                                    } else if ("overSize".equals(key)) {
+                                        if (finalValue >= profit.getRollingSize()) {
+                                            // 满足利润设置的大小盘水位才进行投注
+                                            CompletableFuture.runAsync(() -> {
+                                                try {
+                                                    tryBet(username, sweepwaterDTO);
+                                                } catch (Exception e) {
+                                                    log.error("立即投注异常,扫水id={}", sweepwaterDTO.getId(), e);
+                                                }
+                                            }, threadPoolHolder.getBetExecutor());
+                                        }
+                                    }
+                                }
+                                logInfo("letBall".equals(key) ? "让球盘" : "大小盘", nameA, ballTypeA, valueA, nameB, oppositeType, valueB, finalValue, oddsScan);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 扫水数据写入后进行长度判断 + 裁剪逻辑
+     * @param username
+     * @param dto
+     */
+    private void saveSweepwater(String username, SweepwaterDTO dto) {
+        String sweepWaterKey = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
+        RList<String> sweepList = businessPlatformRedissonClient.getList(sweepWaterKey);
+        // 写入扫水数据
+        sweepList.add(JSONUtil.toJsonStr(dto));
+        // 最大保留条数
+        int maxSize = 1000;
+        // 缓冲区（减少频繁 trim）
+        int buffer = 100;
+        // 超过阈值才裁剪
+        if (sweepList.size() > maxSize + buffer) {
+            sweepList.trim(sweepList.size() - maxSize, sweepList.size() - 1);
+        }
+    }
+
+    /**
+     * 判断是否在赔率区间
+     * @param rangeOpt  赔率范围区间对象
+     * @param odds      当前赔率
+     * @return
+     */
+    private boolean isInOddsRange(Optional<OddsRangeDTO> rangeOpt, BigDecimal odds) {
+        return rangeOpt.map(range -> {
+            // 使用 BigDecimal 的比较方法
+            return odds.compareTo(BigDecimal.valueOf(range.getOddsGreater())) >= 0 &&
+                    odds.compareTo(BigDecimal.valueOf(range.getOddsLess())) <= 0;
+        }).orElse(false);
+    }
+
+    // 生成 oddsKey 方法
+    private String generateOddsKey(String username, SweepwaterDTO dto, String oddsId) {
+        // 特殊情况，如果网站是平博，那么对应的oddsId需要把最后一个|的值删掉后再做对比
+        if (WebsiteType.XINBAO.getId().equals(dto.getWebsiteIdA())) {
+            oddsId = oddsId + dto.getChoseTeamA();
+        }
+        if (WebsiteType.XINBAO.getId().equals(dto.getWebsiteIdB())) {
+            oddsId = oddsId + dto.getChoseTeamB();
+        }
+        // 特殊情况，如果网站是平博，那么对应的oddsId需要把最后一个|的值删掉后再做对比
+        if (WebsiteType.PINGBO.getId().equals(dto.getWebsiteIdA())) {
+            int oldIdx = oddsId.lastIndexOf("|");
+            oddsId = oldIdx != -1 ? oddsId.substring(0, oldIdx + 1) : oddsId;
+        }
+        if (WebsiteType.PINGBO.getId().equals(dto.getWebsiteIdB())) {
+            int oldIdx = oddsId.lastIndexOf("|");
+            oddsId = oldIdx != -1 ? oddsId.substring(0, oldIdx + 1) : oddsId;
+        }
+        return String.join("|",
+                username,
+                dto.getHandicapType(),
+                oddsId
+        );
+    }
+
+    // 更新 lastTimeA/B
+    private void updateLastTime(String username, SweepwaterDTO dto, BigDecimal valueA, BigDecimal valueB) {
+        // 网站A
+        String keyA = generateOddsKey(username, dto, dto.getOddsIdA());
+        boolean isNewA = updateOddsCache(keyA, valueA);
+        dto.setLastOddsTimeA(isNewA);
+        log.info("检查赔率更新 - 网站A - 新赔率: {}, 是否新: {}", valueA, isNewA);
+
+        // 网站B
+        String keyB = generateOddsKey(username, dto, dto.getOddsIdB());
+        boolean isNewB = updateOddsCache(keyB, valueB);
+        dto.setLastOddsTimeB(isNewB);
+        log.info("检查赔率更新 - 网站B - 新赔率: {}, 是否新: {}", valueB, isNewB);
+    }
+
+    /**
+     * 原子更新缓存并判断是否为新赔率
+     */
+    private boolean updateOddsCache(String key, BigDecimal newValue) {
+        while (true) {
+            BigDecimal cached = lastSweepCache.getIfPresent(key);
+
+            if (cached == null) {
+                // 缓存为空，尝试放入新值
+                if (lastSweepCache.asMap().putIfAbsent(key, newValue) == null) {
+                    return true; // 新赔率
+                }
+                // 并发情况下可能失败，继续循环
+            } else {
+                // 缓存已有值，判断是否相等
+                if (cached.compareTo(newValue) != 0) {
+                    // 尝试替换旧值
+                    if (lastSweepCache.asMap().replace(key, cached, newValue)) {
+                        return true; // 新赔率
+                    }
+                    // 并发情况下可能失败，继续循环
+                } else {
+                    return false; // 旧赔率
+                }
+            }
+        }
+    }
+
+    // 创建 SweepwaterDTO 对象的简化方法
+    private SweepwaterDTO createSweepwaterDTO(String username, String oddsIdA, String oddsIdB, String getOddsTime, String selectionIdA, String selectionIdB, String courtType, String handicapType, JSONObject eventAJson, JSONObject eventBJson, JSONObject teamA, JSONObject teamB,
+                                                     String websiteIdA, String websiteIdB, String leagueIdA, String leagueIdB, String eventIdA, String eventIdB, String nameA, String nameB, String handicapA, String handicapB,
+                                                     BigDecimal valueA, BigDecimal valueB, double value, String decimalOddsA, String decimalOddsB, String scoreA, String scoreB,
+                                                     String strongA, String strongB, String gTypeA, String gTypeB, String wTypeA, String wTypeB, String rTypeA, String rTypeB, String choseTeamA, String choseTeamB, String conA, String conB, String ratioA, String ratioB,
+                                                     JSONObject betInfoA, JSONObject betInfoB, Boolean isHomeA, Boolean isHomeB,
+                                                     String teamNameA, String teamNameB
+    ) {
+        String reTime = WebsiteType.XINBAO.getId().equals(websiteIdA) ? teamA.getStr("reTime") : teamB.getStr("reTime");
+        SweepwaterDTO sweepwaterDTO = new SweepwaterDTO();
+        sweepwaterDTO.setId(IdUtil.getSnowflakeNextIdStr());
+        sweepwaterDTO.setOddsIdA(oddsIdA);
+        sweepwaterDTO.setOddsIdB(oddsIdB);
+        sweepwaterDTO.setSelectionIdA(selectionIdA);
+        sweepwaterDTO.setSelectionIdB(selectionIdB);
+        sweepwaterDTO.setType(courtType);
+        sweepwaterDTO.setHandicapType(handicapType);
+        sweepwaterDTO.setLeague(eventAJson.getStr("league") + " × " + eventBJson.getStr("league"));
+        sweepwaterDTO.setLeagueNameA(eventAJson.getStr("league"));
+        sweepwaterDTO.setLeagueNameB(eventBJson.getStr("league"));
+        sweepwaterDTO.setProject(WebsiteType.getById(websiteIdA).getDescription() + " × " + WebsiteType.getById(websiteIdB).getDescription());
+        sweepwaterDTO.setTeam(nameA + " × " + nameB);
+        sweepwaterDTO.setTeamA(nameA);
+        sweepwaterDTO.setTeamB(nameB);
+        sweepwaterDTO.setReTimeA(reTime);
+        sweepwaterDTO.setReTimeB(reTime);
+        sweepwaterDTO.setOdds(String.format("%.3f", valueA) + " / " + String.format("%.3f", valueB));
+        sweepwaterDTO.setOddsA(valueA);
+        sweepwaterDTO.setOddsB(valueB);
+        sweepwaterDTO.setWater(String.format("%.3f", value));
+        sweepwaterDTO.setWebsiteIdA(websiteIdA);
+        sweepwaterDTO.setWebsiteIdB(websiteIdB);
+        sweepwaterDTO.setWebsiteNameA(WebsiteType.getById(websiteIdA).getDescription());
+        sweepwaterDTO.setWebsiteNameB(WebsiteType.getById(websiteIdB).getDescription());
+        sweepwaterDTO.setLeagueIdA(leagueIdA);
+        sweepwaterDTO.setLeagueIdB(leagueIdB);
+        sweepwaterDTO.setEventIdA(eventIdA);
+        sweepwaterDTO.setEventIdB(eventIdB);
+        sweepwaterDTO.setDecimalOddsA(decimalOddsA);
+        sweepwaterDTO.setDecimalOddsB(decimalOddsB);
+        sweepwaterDTO.setHandicapA(handicapA);
+        sweepwaterDTO.setHandicapB(handicapB);
+        sweepwaterDTO.setScoreA(scoreA);
+        sweepwaterDTO.setScoreB(scoreB);
+        sweepwaterDTO.setBetInfoA(betInfoA);
+        sweepwaterDTO.setBetInfoB(betInfoB);
+        sweepwaterDTO.setIsBet(0);
+        sweepwaterDTO.setIsHomeA(isHomeA);
+        sweepwaterDTO.setIsHomeB(isHomeB);
+
+        sweepwaterDTO.setStrongA(strongA);
+        sweepwaterDTO.setStrongB(strongB);
+        sweepwaterDTO.setGTypeA(gTypeA);
+        sweepwaterDTO.setGTypeB(gTypeB);
+        sweepwaterDTO.setWTypeA(wTypeA);
+        sweepwaterDTO.setWTypeB(wTypeB);
+        sweepwaterDTO.setRTypeA(rTypeA);
+        sweepwaterDTO.setRTypeB(rTypeB);
+        sweepwaterDTO.setChoseTeamA(choseTeamA);
+        sweepwaterDTO.setChoseTeamB(choseTeamB);
+        sweepwaterDTO.setConA(conA);
+        sweepwaterDTO.setConB(conB);
+        sweepwaterDTO.setRatioA(ratioA);
+        sweepwaterDTO.setRatioB(ratioB);
+
+        sweepwaterDTO.setTeamVSHA(betInfoA != null ? betInfoA.getStr("teamVSH") : null);
+        sweepwaterDTO.setTeamVSAA(betInfoA != null ? betInfoA.getStr("teamVSA") : null);
+        if (Boolean.TRUE.equals(isHomeA)) {
+            sweepwaterDTO.setTeamVSHA(teamNameA);
+            sweepwaterDTO.setTeamVSAA(null);
+        } else if (Boolean.FALSE.equals(isHomeA)) {
+            sweepwaterDTO.setTeamVSHA(null);
+            sweepwaterDTO.setTeamVSAA(teamNameA);
+        }
+        if (Boolean.TRUE.equals(isHomeB)) {
+            sweepwaterDTO.setTeamVSHB(teamNameB);
+            sweepwaterDTO.setTeamVSAB(null);
+        } else if (Boolean.FALSE.equals(isHomeB)) {
+            sweepwaterDTO.setTeamVSHB(null);
+            sweepwaterDTO.setTeamVSAB(teamNameB);
+        } else {
+            // isHomeB 为 null 时的处理
+            sweepwaterDTO.setTeamVSHB(null);
+            sweepwaterDTO.setTeamVSAB(null);
+        }
+
+        sweepwaterDTO.setCreateTime(getOddsTime);
+
+        return sweepwaterDTO;
+    }
+
+    /**
+     * 尝试投注
+     * @param username      平台用户名
+     * @param sweepwaterDTO 扫水数据
+     */
+    public void tryBet(String username, SweepwaterDTO sweepwaterDTO) {
+        /*log.info("扫水匹配到数据-保存扫水数据");
+        String sweepWaterKey = KeyUtil.genKey(RedisConstants.SWEEPWATER_PREFIX, username);
+        businessPlatformRedissonClient.getList(sweepWaterKey).add(JSONUtil.toJsonStr(sweepwaterDTO));*/
+        // 只要扫水有结果就执行下注
+        log.info("扫水匹配到数据-进行投注");
+        betService.betBySweepwater(username, sweepwaterDTO);
+    }
+
+    // 提取的日志输出方法
+    private static void logInfo(String handicapType, String nameA, String key, BigDecimal value1, String nameB, String key2, BigDecimal value2, double value, OddsScanDTO oddsScanDTO) {
+        log.info("比对扫描中,队伍[{}]的{}[{}]赔率是[{}],对比队伍[{}]的{}[{}]赔率[{}],相加结果赔率是[{}],系统设置的区间是[{}]到[{}]", nameA, handicapType, key, value1, nameB, handicapType, key2, value2, value, oddsScanDTO.getWaterLevelFrom(), oddsScanDTO.getWaterLevelTo());
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.config.HttpCallScope;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.core.odds.OddsBook;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 全局赔率快照：多用户同一联赛只请求一次盘口
+ */
+class OddsSnapshotServiceTest {
+
+    /** mock 盘口返回的服务器时间 */
+    private static final long SERVER_TIME = 1_700_000_000_000L;
+
+    private final AtomicInteger upstreamHits = new AtomicInteger();
+    private final AtomicReference<HttpCallScope> slowScope = new AtomicReference<>();
+    private ExecutorService executor;
+    private OddsSnapshotService service;
+    private SweepMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        HandicapApi handicapApi = mock(HandicapApi.class);
+        when(handicapApi.eventsOddsWithServerTime(anyString(), anyString(), any(), any())).thenAnswer(inv -> {
+            upstreamHits.incrementAndGet();
+            if ("SLOW".equals(inv.getArgument(2))) {
+                // 慢盘口：一直等到本次拉取的取消范围被取消
+                HttpCallScope scope = HttpCallScope.current();
+                slowScope.set(scope);
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (!scope.isCancelled() && System.nanoTime() < deadline) {
+                    Thread.sleep(5);
+                }
+                return new HandicapApi.EventsOdds(new JSONArray(), 0);
+            }
+            Thread.sleep(50);
+            JSONArray leagues = new JSONArray();
+            JSONArray events = new JSONArray();
+            events.add(new JSONObject().set("id", "E1").set("name", "主队 -vs- 客队"));
+            leagues.add(new JSONObject().set("id", inv.getArgument(2)).set("events", events));
+            return new HandicapApi.EventsOdds(leagues, SERVER_TIME);
+        });
+        SweepWaterThreadPoolHolder holder = mock(SweepWaterThreadPoolHolder.class);
+        when(holder.getTeamOddsExecutor()).thenReturn(executor);
+
+        metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+
+        service = new OddsSnapshotService();
+        ReflectionTestUtils.setField(service, "handicapApi", handicapApi);
+        ReflectionTestUtils.setField(service, "threadPoolHolder", holder);
+        ReflectionTestUtils.setField(service, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(service, "freshMs", 500L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentUsersShareOneUpstreamCall() throws Exception {
+        int users = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(users);
+        List<CompletableFuture<CompletableFuture<JSONArray>>> results = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return service.getEventsAsync("sweeper", WebsiteType.XINBAO.getId(), "L1", "E1");
+            }, callers));
+        }
+        start.countDown();
+
+        JSONArray first = results.get(0).get().get();
+        for (CompletableFuture<CompletableFuture<JSONArray>> result : results) {
+            assertSame(first, result.get().get());
+        }
+        callers.shutdownNow();
+
+        assertEquals(1, upstreamHits.get());
+        assertEquals(1, service.getLoadCount());
+        assertEquals(users - 1, service.getHitCount());
+    }
+
+    @Test
+    void staleSnapshotIsReloaded() throws Exception {
+        ReflectionTestUtils.setField(service, "freshMs", 20L);
+        service.getEventsAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null).get();
+        Thread.sleep(40);
+        service.getEventsAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null).get();
+
+        assertEquals(2, upstreamHits.get());
+    }
+
+    @Test
+    void sboSnapshotsAreKeyedPerEvent() throws Exception {
+        service.getEventsAsync("sweeper", WebsiteType.SBO.getId(), null, "E1").get();
+        service.getEventsAsync("sweeper", WebsiteType.SBO.getId(), null, "E2").get();
+        service.getEventsAsync("sweeper", WebsiteType.SBO.getId(), null, "E1").get();
+
+        assertEquals(2, upstreamHits.get());
+    }
+
+    @Test
+    void bookEventsCarryMonotonicFetchStamp() throws Exception {
+        long before = System.nanoTime();
+        OddsBook book = service.getBookAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null).get();
+        OddsBook.Event event = book.league("L1").events("主队 -vs- 客队").get(0);
+        // 拉取完成时间在上游返回之后（mock 耗时 50ms），而不是快照创建时
+        assertTrue(event.getFetchedNanos() - before >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(event.getFetchedNanos() <= System.nanoTime());
+        // 服务器时间随请求结果带回
+        assertEquals(SERVER_TIME, event.getServerTimeMillis());
+    }
+
+    @Test
+    void fetchAndParseAreTimedPerWebsite() throws Exception {
+        service.getBookAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null).get();
+        service.getBookAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null).get();
+
+        Timer fetch = timer("fetch");
+        assertEquals(1, fetch.count());
+        assertEquals("pingbo", fetch.getId().getTag("website"));
+        assertTrue(fetch.totalTime(TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(1, timer("parse").count());
+    }
+
+    @Test
+    void upstreamLoadIsCancelledOnlyWhenEveryWaiterGivesUp() throws Exception {
+        CompletableFuture<OddsBook> first = service.getBookAsync("sweeper", WebsiteType.PINGBO.getId(), "SLOW", null);
+        CompletableFuture<JSONArray> second = service.getEventsAsync("sweeper", WebsiteType.PINGBO.getId(), "SLOW", null)
+                .orTimeout(100, TimeUnit.MILLISECONDS);
+        long deadline = System.currentTimeMillis() + 2000;
+        while (slowScope.get() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // 一个等待方超时，另一个还在等：上游请求继续
+        assertTrue(second.handle((r, e) -> e).get(2, TimeUnit.SECONDS) != null);
+        // 超时等待方的释放回调与上面的 handle 顺序不定，等它真正登记放弃后再取消第一个
+        String key = OddsSnapshotService.snapshotKey("sweeper", WebsiteType.PINGBO.getId(), null);
+        deadline = System.currentTimeMillis() + 2000;
+        while (service.waiterCount(key) > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, service.waiterCount(key));
+        assertFalse(slowScope.get().isCancelled());
+        assertEquals(0, service.getAbandonedCount());
+
+        // 最后一个等待方也放弃：中断上游请求，快照淘汰，下次重新拉取
+        first.cancel(false);
+        assertTrue(slowScope.get().isCancelled());
+        assertEquals(1, service.getAbandonedCount());
+        service.getBookAsync("sweeper", WebsiteType.PINGBO.getId(), "SLOW", null).cancel(false);
+        assertEquals(2, service.getLoadCount());
+    }
+
+    private Timer timer(String stage) {
+        return metrics.getTimers().stream()
+                .filter(timer -> stage.equals(timer.getId().getTag("stage")))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.demo.api;
+
+import com.example.demo.model.dto.settings.LimitDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import com.example.demo.model.vo.settings.LimitVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBucket;
+import org.redisson.api.RList;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.listener.MessageListener;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 网站设置近端缓存：内存版 Redis（bucket + topic）模拟两个实例
+ */
+class SettingsNearCacheTest {
+
+    private final Map<String, Object> buckets = new ConcurrentHashMap<>();
+    private final List<MessageListener<String>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicInteger bucketReads = new AtomicInteger();
+    private final Map<String, List<String>> lists = new ConcurrentHashMap<>();
+    private final AtomicInteger listReads = new AtomicInteger();
+    private RedissonClient redis;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redis = mock(RedissonClient.class);
+        when(redis.getBucket(anyString())).thenAnswer(inv -> {
+            String key = inv.getArgument(0);
+            RBucket<Object> bucket = mock(RBucket.class);
+            when(bucket.get()).thenAnswer(i -> {
+                bucketReads.incrementAndGet();
+                return buckets.get(key);
+            });
+            doAnswer(i -> buckets.put(key, i.getArgument(0))).when(bucket).set(any());
+            return bucket;
+        });
+        when(redis.getList(anyString())).thenAnswer(inv -> {
+            listReads.incrementAndGet();
+            List<String> list = lists.computeIfAbsent(inv.getArgument(0), k -> new CopyOnWriteArrayList<>());
+            return mock(RList.class, delegatesTo(list));
+        });
+        when(redis.getTopic(anyString())).thenAnswer(inv -> {
+            String channel = inv.getArgument(0);
+            RTopic topic = mock(RTopic.class);
+            when(topic.addListener(eq(String.class), any(MessageListener.class))).thenAnswer(i -> {
+                listeners.add(i.getArgument(1));
+                return listeners.size() - 1;
+            });
+            when(topic.publish(any())).thenAnswer(i -> {
+                listeners.forEach(l -> l.onMessage(channel, i.getArgument(0)));
+                return (long) listeners.size();
+            });
+            return topic;
+        });
+    }
+
+    private SettingsBetService newInstance() {
+        SettingsNearCache cache = new SettingsNearCache();
+        ReflectionTestUtils.setField(cache, "businessPlatformRedissonClient", redis);
+        cache.afterPropertiesSet();
+        SettingsBetService service = new SettingsBetService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "settingsNearCache", cache);
+        return service;
+    }
+
+    private WebsiteService newWebsiteService() {
+        SettingsNearCache cache = new SettingsNearCache();
+        ReflectionTestUtils.setField(cache, "businessPlatformRedissonClient", redis);
+        cache.afterPropertiesSet();
+        WebsiteService service = new WebsiteService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "settingsNearCache", cache);
+        return service;
+    }
+
+    private static WebsiteVO website(String id, int enable) {
+        WebsiteVO vo = new WebsiteVO();
+        vo.setId(id);
+        vo.setEnable(enable);
+        return vo;
+    }
+
+    private static LimitVO limit(int betLimit) {
+        LimitVO vo = new LimitVO();
+        vo.setBetLimitGame(betLimit);
+        return vo;
+    }
+
+    @Test
+    void repeatedReadsHitRedisOnce() {
+        SettingsBetService service = newInstance();
+
+        assertNull(service.getLimit("alice"));
+        for (int i = 0; i < 100; i++) {
+            service.getLimit("alice");
+        }
+
+        // 空设置同样缓存
+        assertEquals(1, bucketReads.get());
+    }
+
+    @Test
+    void writeOnOneInstanceInvalidatesTheOther() {
+        SettingsBetService writer = newInstance();
+        SettingsBetService reader = newInstance();
+        SettingsNearCache readerCache = (SettingsNearCache) ReflectionTestUtils.getField(reader, "settingsNearCache");
+
+        writer.saveLimit("alice", limit(3));
+        assertEquals(3, reader.getLimit("alice").getBetLimitGame());
+        long version = readerCache.version("alice");
+
+        writer.saveLimit("alice", limit(5));
+        assertEquals(0, readerCache.version("alice"));
+
+        LimitDTO reloaded = reader.getLimit("alice");
+        assertEquals(5, reloaded.getBetLimitGame());
+        assertNotEquals(version, readerCache.version("alice"));
+    }
+
+    @Test
+    void invalidationIsPerUser() {
+        SettingsBetService service = newInstance();
+        service.getLimit("alice");
+        service.getLimit("bob");
+
+        service.saveLimit("alice", limit(1));
+        service.getLimit("alice");
+        service.getLimit("bob");
+
+        assertEquals(3, bucketReads.get());
+    }
+
+    @Test
+    void websitesAreCachedAndInvalidatedOnWrite() {
+        WebsiteService writer = newWebsiteService();
+        WebsiteService reader = newWebsiteService();
+        writer.saveWebsite("alice", website("1", 1));
+
+        listReads.set(0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1, reader.getWebsites("alice").size());
+        }
+        assertEquals(1, listReads.get());
+        // 缓存的列表只读，扫水过滤时需要先复制
+        assertThrows(UnsupportedOperationException.class, () -> reader.getWebsites("alice").add(website("x", 1)));
+
+        writer.saveWebsite("alice", website("2", 0));
+        List<WebsiteVO> websites = new ArrayList<>(reader.getWebsites("alice"));
+        assertEquals(2, websites.size());
+
+        writer.deleteWebsite("alice", "1");
+        assertEquals(List.of("2"), reader.getWebsites("alice").stream().map(WebsiteVO::getId).toList());
+    }
+}
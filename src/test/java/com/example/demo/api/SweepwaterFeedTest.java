@@ -0,0 +1,193 @@
+package com.example.demo.api;
+
+import cn.hutool.json.JSONUtil;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.SweepwaterPageVO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 扫水列表内存视图：只加载一次、按游标分页、多实例之间同步变更
+ */
+class SweepwaterFeedTest {
+
+    private static final String INDEX = "platform:sweepwater:u1";
+    private static final String RECORDS = "platform:sweepwater:record:u1";
+
+    private FakeSweepwaterRedis redis;
+    private SweepwaterFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeSweepwaterRedis(0);
+        feed = feed();
+    }
+
+    @Test
+    void pagesByCursorFromMemory() {
+        write(1, 30);
+
+        SweepwaterPageVO first = feed.page("u1", null, null, 10);
+        assertEquals(ids(30, 21), ids(first));
+        // 轮询：只返回游标之后到达的
+        SweepwaterPageVO poll = feed.page("u1", first.getSince(), null, 10);
+        assertEquals(List.of(), ids(poll));
+        assertEquals(first.getSince(), poll.getSince());
+        // 向后翻页
+        SweepwaterPageVO older = feed.page("u1", null, first.getBefore(), 10);
+        assertEquals(ids(20, 11), ids(older));
+        assertEquals(ids(10, 1), ids(feed.page("u1", null, older.getBefore(), 10)));
+
+        clearInvocations(redis.client);
+        Map<String, String> records = write(31, 33);
+        feed.onWritten("u1", records);
+        poll = feed.page("u1", poll.getSince(), null, 10);
+        assertEquals(ids(33, 31), ids(poll));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(feed.page("u1", poll.getSince(), null, 100).getRecords().isEmpty());
+        }
+        // 视图加载后轮询不访问 Redis
+        verify(redis.client, never()).getList(anyString());
+        verify(redis.client, never()).getMap(anyString());
+        assertEquals(1, feed.getLoads());
+    }
+
+    /**
+     * 雪花id由多个实例生成，晚到的记录id可能比已返回的小，轮询仍然要拿到
+     */
+    @Test
+    void pollingSeesRecordsArrivingWithSmallerIds() {
+        write(100, 105);
+        SweepwaterPageVO page = feed.page("u1", null, null, 10);
+        assertEquals(ids(105, 100), ids(page));
+
+        feed.onWritten("u1", write(50, 51));
+        page = feed.page("u1", page.getSince(), null, 10);
+        assertEquals(List.of("51", "50"), ids(page));
+
+        feed.onWritten("u1", write(106, 106));
+        page = feed.page("u1", page.getSince(), null, 10);
+        assertEquals(List.of("106"), ids(page));
+        assertEquals(List.of("106", "51", "50", "105"), ids(feed.page("u1", null, null, 4)));
+    }
+
+    /**
+     * 游标来自已经过期重建的视图或其它实例时，从最新一条重新开始
+     */
+    @Test
+    void foreignCursorRestartsFromNewest() {
+        write(1, 5);
+        SweepwaterPageVO page = feed.page("u1", null, null, 10);
+        feed.onReset("u1");
+
+        SweepwaterPageVO restarted = feed.page("u1", page.getSince(), null, 10);
+        assertEquals(ids(5, 1), ids(restarted));
+        assertTrue(restarted.getSince() > page.getSince());
+        assertEquals(ids(5, 1), ids(feed.page("u1", Long.MAX_VALUE, null, 10)));
+    }
+
+    @Test
+    void keepsNewestRecordsOnly() {
+        write(1, SweepwaterWriter.MAX_SIZE);
+        feed.page("u1", null, null, 1);
+        feed.onWritten("u1", write(SweepwaterWriter.MAX_SIZE + 1, SweepwaterWriter.MAX_SIZE + 5));
+
+        List<SweepwaterDTO> all = feed.page("u1", null, null, SweepwaterWriter.MAX_SIZE + 10).getRecords();
+        assertEquals(SweepwaterWriter.MAX_SIZE, all.size());
+        assertEquals(String.valueOf(SweepwaterWriter.MAX_SIZE + 5), all.get(0).getId());
+        assertEquals("6", all.get(all.size() - 1).getId());
+    }
+
+    @Test
+    void snapshotReturnsCopies() {
+        write(1, 3);
+        feed.snapshot("u1").forEach(dto -> dto.setBetIdA("changed"));
+        assertTrue(feed.page("u1", null, null, 10).getRecords().stream().allMatch(dto -> dto.getBetIdA() == null));
+        assertEquals(ids(3, 1), ids(feed.snapshot("u1")));
+    }
+
+    @Test
+    void changesReachOtherInstances() {
+        SweepwaterFeed other = feed();
+        write(1, 5);
+        feed.page("u1", null, null, 10);
+        SweepwaterPageVO otherPage = other.page("u1", null, null, 10);
+
+        // 新增：另一实例按 id 从 Redis 取记录
+        feed.onWritten("u1", write(6, 7));
+        assertEquals(ids(7, 6), ids(other.page("u1", otherPage.getSince(), null, 10)));
+        assertEquals(ids(7, 1), ids(other.page("u1", null, null, 10)));
+
+        // 投注标记：保留原来的位置
+        SweepwaterDTO bet = JSONUtil.toBean(redis.maps.get(RECORDS).get("6"), SweepwaterDTO.class);
+        bet.setIsBet(1);
+        feed.onBet("u1", "6", JSONUtil.toJsonStr(bet));
+        assertEquals(ids(7, 1), ids(other.page("u1", null, null, 10)));
+        assertEquals(1, other.page("u1", null, null, 10).getRecords().get(1).getIsBet());
+        assertEquals(1, feed.page("u1", null, null, 10).getRecords().get(1).getIsBet());
+
+        // 清理
+        feed.onRemoved("u1", List.of("1", "2"));
+        assertEquals(ids(7, 3), ids(other.page("u1", null, null, 10)));
+
+        // 清空
+        redis.lists.remove(INDEX);
+        redis.maps.remove(RECORDS);
+        feed.onReset("u1");
+        assertTrue(other.page("u1", null, null, 10).getRecords().isEmpty());
+        assertTrue(feed.page("u1", null, null, 10).getRecords().isEmpty());
+    }
+
+    private SweepwaterFeed feed() {
+        SweepwaterFeed feed = new SweepwaterFeed();
+        ReflectionTestUtils.setField(feed, "businessPlatformRedissonClient", redis.client);
+        feed.afterPropertiesSet();
+        return feed;
+    }
+
+    /**
+     * 直接写入 Redis（相当于写入线程已提交），返回写入的记录
+     */
+    private Map<String, String> write(int from, int to) {
+        Map<String, String> records = new LinkedHashMap<>();
+        for (int i = from; i <= to; i++) {
+            SweepwaterDTO dto = new SweepwaterDTO();
+            dto.setId(String.valueOf(i));
+            dto.setIsBet(0);
+            dto.setWater("1.020");
+            records.put(dto.getId(), JSONUtil.toJsonStr(dto));
+        }
+        redis.lists.computeIfAbsent(INDEX, k -> new ArrayList<>()).addAll(records.keySet());
+        redis.maps.computeIfAbsent(RECORDS, k -> new LinkedHashMap<>()).putAll(records);
+        return records;
+    }
+
+    private static List<String> ids(int from, int downTo) {
+        List<String> ids = new ArrayList<>();
+        for (int i = from; i >= downTo; i--) {
+            ids.add(String.valueOf(i));
+        }
+        return ids;
+    }
+
+    private static List<String> ids(SweepwaterPageVO page) {
+        return ids(page.getRecords());
+    }
+
+    private static List<String> ids(List<SweepwaterDTO> dtos) {
+        return dtos.stream().map(SweepwaterDTO::getId).toList();
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.demo.api;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.odds.OddsBook;
+import com.example.demo.model.dto.settings.OddsRangeDTO;
+import com.example.demo.model.dto.settings.OddsScanDTO;
+import com.example.demo.model.dto.settings.ProfitDTO;
+import com.example.demo.model.dto.settings.TimeFrameDTO;
+import com.example.demo.model.dto.settings.TypeFilterDTO;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.api.RList;
+import org.redisson.api.RedissonClient;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 扫水比对：哈希配对 + 定点水位与改造前（df11238）的 JSON/BigDecimal 流程逐字段一致
+ * 基准代码原样摘录在 {@link LegacySweepwaterMatcher}，赔率区间、方向开关、平手盘过滤、时间范围和网站 A/B 随机组合
+ * 基准：mvn test -Dtest=SweepwaterMatcherCorpusTest -Dsweepwater.loadtest=true
+ */
+class SweepwaterMatcherCorpusTest {
+
+    private static final String XINBAO = WebsiteType.XINBAO.getId();
+    private static final String[] OTHERS = {WebsiteType.PINGBO.getId(), WebsiteType.SBO.getId(), WebsiteType.ZHIBO.getId()};
+    private static final String[] ALL = {XINBAO, WebsiteType.PINGBO.getId(), WebsiteType.SBO.getId(), WebsiteType.ZHIBO.getId()};
+    private static final Map<String, String> OPPOSITE = Map.of("up", "down", "down", "up", "big", "small", "small", "big");
+    private static final String[] ODDS = {"0.93", "0.930", "0.88", "1.02", "-0.97", "-0.955", "0.9125", "0.5", "-1.00", "0.876543", "1.5", "0.07"};
+    private static final String[] SESSIONS = {"1H", "2H", "HT"};
+
+    private SweepwaterService service;
+    private LegacySweepwaterMatcher legacy;
+    private final Map<Class<?>, Level> originalLevels = new HashMap<>();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedissonClient redis = mock(RedissonClient.class);
+        when(redis.getList(anyString())).thenReturn(mock(RList.class));
+        SweepwaterWriter writer = mock(SweepwaterWriter.class);
+        when(writer.submit(anyString(), any())).thenReturn(true);
+        SweepWaterThreadPoolHolder threadPoolHolder = mock(SweepWaterThreadPoolHolder.class);
+        BetService betService = mock(BetService.class);
+        service = new SweepwaterService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "threadPoolHolder", threadPoolHolder);
+        ReflectionTestUtils.setField(service, "betService", betService);
+        ReflectionTestUtils.setField(service, "sweepwaterWriter", writer);
+        legacy = new LegacySweepwaterMatcher(redis, threadPoolHolder, betService);
+        for (Class<?> type : List.of(SweepwaterService.class, LegacySweepwaterMatcher.class)) {
+            Logger logger = (Logger) LoggerFactory.getLogger(type);
+            originalLevels.put(type, logger.getLevel());
+            logger.setLevel(Level.WARN);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        originalLevels.forEach((type, level) -> ((Logger) LoggerFactory.getLogger(type)).setLevel(level));
+    }
+
+    @Test
+    void recordedXinBaoRoundsMatchLegacy() throws IOException {
+        JSONArray recorded = JSONUtil.parseObj(read("/xinbao/game_list_live.H.expected.json")).getJSONArray("leagues");
+        Random random = new Random(7);
+        int compared = 0;
+        for (int round = 0; round < 100; round++) {
+            String other = OTHERS[round % OTHERS.length];
+            JSONArray mirrored = mirror(recorded, other, random);
+            // 录制数据里有的上半场没有大小盘，改造前关大/小球会空指针，这里只随机其余设置
+            Settings settings = Settings.random(random, false);
+            if (random.nextBoolean()) {
+                compared += compareAll(recorded, mirrored, XINBAO, other, settings);
+            } else {
+                compared += compareAll(mirrored, recorded, other, XINBAO, settings);
+            }
+        }
+        assertTrue(compared > 100, "compared " + compared);
+    }
+
+    @Test
+    void randomRoundsMatchLegacy() {
+        Random random = new Random(42);
+        int compared = 0;
+        for (int round = 0; round < 400; round++) {
+            String websiteIdA = ALL[random.nextInt(ALL.length)];
+            String websiteIdB = ALL[random.nextInt(ALL.length)];
+            JSONArray leaguesA = randomLeagues("A", 1 + random.nextInt(4), websiteIdA, random);
+            JSONArray leaguesB = randomLeagues("B", 1 + random.nextInt(4), websiteIdB, random);
+            compared += compareAll(leaguesA, leaguesB, websiteIdA, websiteIdB, Settings.random(random, true));
+        }
+        assertTrue(compared > 1000, "compared " + compared);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+    void benchmark200x200() {
+        Random random = new Random(1);
+        String pingbo = WebsiteType.PINGBO.getId();
+        JSONArray leaguesA = randomLeagues("A", 1, XINBAO, 200, random);
+        JSONArray leaguesB = randomLeagues("B", 1, pingbo, 200, random);
+        JSONObject leagueA = leaguesA.getJSONObject(0);
+        JSONObject leagueB = leaguesB.getJSONObject(0);
+        // 每场比赛一个名称，A、B 按下标一一绑定
+        for (int i = 0; i < 200; i++) {
+            leagueA.getJSONArray("events").getJSONObject(i).set("name", "team" + i);
+            leagueB.getJSONArray("events").getJSONObject(i).set("name", "team" + i);
+        }
+        OddsBook.League bookA = OddsBook.of(leaguesA).league(leagueA.getStr("id"));
+        OddsBook.League bookB = OddsBook.of(leaguesB).league(leagueB.getStr("id"));
+        List<String> names = bookA.getEvents().stream().map(OddsBook.Event::getName).toList();
+        // 水位区间设置成不命中，只比较配对和计算本身
+        Settings settings = Settings.defaults(scan(9.0, 9.5));
+
+        Runnable legacyRound = () -> {
+            for (String name : names) {
+                legacy(leagueA, leagueB, name, name, XINBAO, pingbo, settings);
+            }
+        };
+        Runnable matcherRound = () -> {
+            for (String name : names) {
+                aggregate(bookA, bookB, name, name, XINBAO, pingbo, settings);
+            }
+        };
+        long legacyMs = time(legacyRound);
+        long matcherMs = time(matcherRound);
+        assertTrue(matcherMs < legacyMs, "200x200 events: legacy " + legacyMs + " ms/round, hash matcher " + matcherMs + " ms/round");
+    }
+
+    private static long time(Runnable round) {
+        // 改造前每条 A 赛事都要把 B 的全部赛事清理一遍，200×200 一轮就要数秒，只跑少量轮次
+        round.run();
+        int rounds = 3;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            round.run();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / rounds;
+    }
+
+    /**
+     * 所有 A×B 同名配对逐一比对，返回比对的结果条数
+     */
+    private int compareAll(JSONArray leaguesA, JSONArray leaguesB, String websiteIdA, String websiteIdB, Settings settings) {
+        OddsBook bookA = OddsBook.of(leaguesA);
+        OddsBook bookB = OddsBook.of(leaguesB);
+        int total = 0;
+        for (int l = 0; l < leaguesA.size(); l++) {
+            JSONObject leagueA = leaguesA.getJSONObject(l);
+            JSONObject leagueB = leaguesB.getJSONObject(l % leaguesB.size());
+            OddsBook.League typedA = bookA.league(leagueA.getStr("id"));
+            OddsBook.League typedB = bookB.league(leagueB.getStr("id"));
+            for (Object a : leagueA.getJSONArray("events")) {
+                for (Object b : leagueB.getJSONArray("events")) {
+                    String nameA = ((JSONObject) a).getStr("name");
+                    String nameB = ((JSONObject) b).getStr("name");
+                    List<String> expected = legacy(leagueA, leagueB, nameA, nameB, websiteIdA, websiteIdB, settings).stream()
+                            .map(SweepwaterMatcherCorpusTest::row).toList();
+                    List<String> actual = aggregate(typedA, typedB, nameA, nameB, websiteIdA, websiteIdB, settings).stream()
+                            .map(SweepwaterMatcherCorpusTest::row).toList();
+                    assertEquals(expected, actual, websiteIdA + ":" + nameA + " x " + websiteIdB + ":" + nameB + " " + settings);
+                    total += expected.size();
+                }
+            }
+        }
+        return total;
+    }
+
+    private List<SweepwaterDTO> aggregate(OddsBook.League leagueA, OddsBook.League leagueB, String nameA, String nameB,
+                                          String websiteIdA, String websiteIdB, Settings settings) {
+        return service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", settings.scan, profit(),
+                null, null, settings.oddsRanges, settings.timeFrames, settings.typeFilter,
+                settings.website(websiteIdA, 0), settings.website(websiteIdB, 1),
+                leagueA, leagueB, "e1", "e2", nameA, nameB,
+                websiteIdA, websiteIdB, leagueA.getId(), leagueB.getId(), "e1", "e2");
+    }
+
+    /**
+     * 改造前的调用方式：每个用户先复制一份绑定联赛的 JSON，再交给原 aggregateEventOdds
+     */
+    private List<SweepwaterDTO> legacy(JSONObject leagueA, JSONObject leagueB, String nameA, String nameB,
+                                       String websiteIdA, String websiteIdB, Settings settings) {
+        return legacy.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", settings.scan, profit(),
+                null, null, settings.oddsRanges, settings.timeFrames, settings.typeFilter,
+                settings.website(websiteIdA, 0), settings.website(websiteIdB, 1),
+                copy(leagueA), copy(leagueB), "e1", "e2", nameA, nameB,
+                websiteIdA, websiteIdB, leagueA.getStr("id"), leagueB.getStr("id"), "e1", "e2");
+    }
+
+    /**
+     * 除雪花 id 外的全部字段（含新旧赔率标记）
+     */
+    private static String row(SweepwaterDTO dto) {
+        JSONObject json = JSONUtil.parseObj(dto);
+        json.remove("id");
+        return new TreeMap<>(json).toString();
+    }
+
+    /**
+     * 平台用户的扫水设置，A、B 两个网站各自一套开关
+     */
+    private record Settings(OddsScanDTO scan, List<OddsRangeDTO> oddsRanges, List<TimeFrameDTO> timeFrames,
+                            TypeFilterDTO typeFilter, int[][] toggles) {
+
+        static Settings defaults(OddsScanDTO scan) {
+            return new Settings(scan, List.of(), List.of(), null, new int[][]{{1, 1, 1, 1, 1, 1}, {1, 1, 1, 1, 1, 1}});
+        }
+
+        /**
+         * @param ballToggles 是否随机大球/小球开关
+         */
+        static Settings random(Random random, boolean ballToggles) {
+            List<OddsRangeDTO> oddsRanges = new ArrayList<>();
+            for (String websiteId : ALL) {
+                if (random.nextInt(3) == 0) {
+                    OddsRangeDTO range = new OddsRangeDTO();
+                    range.setWebsiteId(websiteId);
+                    double greater = ODDS_RANGE_BOUNDS[random.nextInt(ODDS_RANGE_BOUNDS.length)];
+                    range.setOddsGreater(greater);
+                    range.setOddsLess(greater + ODDS_RANGE_BOUNDS[random.nextInt(ODDS_RANGE_BOUNDS.length)] + 1);
+                    oddsRanges.add(range);
+                }
+            }
+            List<TimeFrameDTO> timeFrames = new ArrayList<>();
+            if (random.nextInt(3) == 0) {
+                TimeFrameDTO timeFrame = new TimeFrameDTO();
+                timeFrame.setBallType(1);
+                int from = random.nextInt(60);
+                timeFrame.setTimeFormSec(from);
+                timeFrame.setTimeToSec(from + random.nextInt(60));
+                timeFrames.add(timeFrame);
+            }
+            TypeFilterDTO typeFilter = null;
+            if (random.nextBoolean()) {
+                typeFilter = new TypeFilterDTO();
+                typeFilter.setFlatPlate(random.nextInt(3) == 0 ? null : random.nextInt(2));
+            }
+            int[][] toggles = new int[2][6];
+            for (int[] website : toggles) {
+                for (int i = 0; i < website.length; i++) {
+                    boolean ball = i == 2 || i == 3;
+                    website[i] = (ball && !ballToggles) || random.nextInt(5) != 0 ? 1 : 0;
+                }
+            }
+            return new Settings(SweepwaterMatcherCorpusTest.scan(-1.0 + random.nextDouble(), 1.0 + random.nextDouble() * 4), oddsRanges, timeFrames, typeFilter, toggles);
+        }
+
+        WebsiteVO website(String id, int side) {
+            int[] toggle = toggles[side];
+            WebsiteVO website = new WebsiteVO();
+            website.setId(id);
+            website.setFullCourt(toggle[0]);
+            website.setFirstHalf(toggle[1]);
+            website.setBigBall(toggle[2]);
+            website.setSmallBall(toggle[3]);
+            website.setHangingWall(toggle[4]);
+            website.setFootWall(toggle[5]);
+            return website;
+        }
+
+        @Override
+        public String toString() {
+            return "oddsRanges=" + JSONUtil.toJsonStr(oddsRanges) + ", timeFrames=" + JSONUtil.toJsonStr(timeFrames)
+                    + ", flatPlate=" + (typeFilter == null ? null : typeFilter.getFlatPlate())
+                    + ", toggles=" + Arrays.deepToString(toggles);
+        }
+    }
+
+    private static final double[] ODDS_RANGE_BOUNDS = {-1.0, -0.5, 0.0, 0.5, 0.9, 1.0};
+
+    /**
+     * 以录制的新二赔率为 A，按相同盘口值生成对手网站 B 的赔率（方向顺序、赔率精度、盘口 id 随机）
+     */
+    private static JSONArray mirror(JSONArray leaguesA, String websiteIdB, Random random) {
+        JSONArray leaguesB = new JSONArray();
+        for (Object obj : leaguesA) {
+            JSONObject leagueA = (JSONObject) obj;
+            JSONObject leagueB = new JSONObject().set("id", "B" + leagueA.getStr("id")).set("league", "B" + leagueA.getStr("league"));
+            JSONArray events = new JSONArray();
+            for (Object e : leagueA.getJSONArray("events")) {
+                JSONObject eventA = (JSONObject) e;
+                JSONObject eventB = new JSONObject().set("id", "B" + eventA.getStr("id")).set("name", "B" + eventA.getStr("name"))
+                        .set("score", eventA.getStr("score")).set("session", SESSIONS[random.nextInt(SESSIONS.length)]).set("reTime", randomReTime(random));
+                for (String court : List.of("fullCourt", "firstHalf")) {
+                    JSONObject courtA = eventA.getJSONObject(court);
+                    JSONObject courtB = new JSONObject();
+                    for (String market : shuffled(List.of("letBall", "overSize"), random)) {
+                        JSONObject marketA = courtA == null ? null : courtA.getJSONObject(market);
+                        if (marketA == null) continue;
+                        JSONObject marketB = new JSONObject();
+                        for (String side : shuffled(new ArrayList<>(marketA.keySet()), random)) {
+                            JSONObject sideB = new JSONObject();
+                            for (String line : marketA.getJSONObject(side).keySet()) {
+                                sideB.set(line, randomOdds(websiteIdB, eventB.getStr("id"), market, side, line, random));
+                            }
+                            marketB.set(OPPOSITE.get(side), sideB);
+                        }
+                        courtB.set(market, marketB);
+                    }
+                    eventB.set(court, courtB);
+                }
+                events.add(eventB);
+            }
+            leagueB.set("events", events);
+            leaguesB.add(leagueB);
+        }
+        return leaguesB;
+    }
+
+    private static JSONArray randomLeagues(String prefix, int leagueCount, String websiteId, Random random) {
+        return randomLeagues(prefix, leagueCount, websiteId, 1 + random.nextInt(4), random);
+    }
+
+    private static JSONArray randomLeagues(String prefix, int leagueCount, String websiteId, int eventCount, Random random) {
+        JSONArray leagues = new JSONArray();
+        String[] lines = {"0", "0.25", "0.5", "0.5-1", "1", "2.5", "2.5-3", "3"};
+        for (int l = 0; l < leagueCount; l++) {
+            JSONArray events = new JSONArray();
+            for (int e = 0; e < eventCount; e++) {
+                String eventId = prefix + l + "-" + e;
+                // 不同网站的同名赛事互相配对，偶尔出现同名的多条赛事（主盘/副盘拆成两条）
+                String name = "team" + (random.nextInt(5) == 0 ? 0 : e);
+                JSONObject event = new JSONObject().set("id", eventId).set("name", name).set("score", e + "-0")
+                        .set("session", SESSIONS[random.nextInt(SESSIONS.length)]).set("reTime", randomReTime(random));
+                for (String court : List.of("fullCourt", "firstHalf")) {
+                    JSONObject courtJson = new JSONObject();
+                    for (String market : shuffled(List.of("letBall", "overSize"), random)) {
+                        JSONObject marketJson = new JSONObject();
+                        List<String> sides = market.equals("letBall") ? List.of("up", "down") : List.of("big", "small");
+                        for (String side : shuffled(sides, random)) {
+                            JSONObject sideJson = new JSONObject();
+                            for (String line : lines) {
+                                if (random.nextInt(3) != 0) {
+                                    sideJson.set(line, randomOdds(websiteId, eventId, market, side, line, random));
+                                }
+                            }
+                            marketJson.set(side, sideJson);
+                        }
+                        courtJson.set(market, marketJson);
+                    }
+                    event.set(court, courtJson);
+                }
+                events.add(event);
+            }
+            leagues.add(new JSONObject().set("id", prefix + "L" + l).set("league", prefix + "league" + l).set("events", events));
+        }
+        return leagues;
+    }
+
+    private static JSONObject randomOdds(String websiteId, String eventId, String market, String side, String line, Random random) {
+        String id;
+        if (WebsiteType.PINGBO.getId().equals(websiteId)) {
+            id = eventId + "|0|" + market.length() + "|1|" + side.length() + "|" + line;
+        } else {
+            // 同一场比赛的上下盘共用盘口 id，触发去重
+            id = eventId + "-" + (random.nextBoolean() ? market : market + side);
+        }
+        JSONObject odds = new JSONObject().set("id", id).set("odds", ODDS[random.nextInt(ODDS.length)]).set("handicap", line);
+        if (random.nextInt(10) == 0) {
+            odds.set("odds", "");
+        }
+        // 各网站解析器附带的投注字段，有的网站没有
+        if (random.nextBoolean()) {
+            boolean home = side.equals("up") || side.equals("big");
+            odds.set("selectionId", id + "-" + side).set("decimalOdds", odds.getStr("odds"))
+                    .set("isHome", home).set("teamName", eventId + (home ? "-home" : "-away"))
+                    .set("oddFType", "H").set("gtype", "FT").set("wtype", market).set("rtype", market + side)
+                    .set("choseTeam", home ? "H" : "C").set("con", line).set("ratio", 100);
+        }
+        return odds;
+    }
+
+    private static String randomReTime(Random random) {
+        return random.nextInt(10) == 0 ? "中场" : String.valueOf(random.nextInt(90));
+    }
+
+    private static List<String> shuffled(List<String> values, Random random) {
+        List<String> copy = new ArrayList<>(values);
+        if (random.nextBoolean()) {
+            java.util.Collections.reverse(copy);
+        }
+        return copy;
+    }
+
+    /**
+     * 改造前每个用户比对前的复制：按联赛复制出绑定球队的赛事
+     */
+    private JSONObject copy(JSONObject league) {
+        List<String> names = league.getJSONArray("events").stream().map(e -> ((JSONObject) e).getStr("name")).toList();
+        return service.findEventByLeagueName(service.buildLeagueMap(new JSONArray().set(league)), league.getStr("id"), names);
+    }
+
+    private String read(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static OddsScanDTO scan(double from, double to) {
+        OddsScanDTO scan = new OddsScanDTO();
+        scan.setWaterLevelFrom(from);
+        scan.setWaterLevelTo(to);
+        return scan;
+    }
+
+    private static ProfitDTO profit() {
+        ProfitDTO profit = new ProfitDTO();
+        profit.setRollingLetBall(99.0);
+        profit.setRollingSize(99.0);
+        return profit;
+    }
+}
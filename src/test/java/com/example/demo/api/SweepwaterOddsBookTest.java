@@ -0,0 +1,267 @@
+package com.example.demo.api;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.odds.OddsBook;
+import com.example.demo.model.dto.settings.OddsRangeDTO;
+import com.example.demo.model.dto.settings.OddsScanDTO;
+import com.example.demo.model.dto.settings.ProfitDTO;
+import com.example.demo.model.dto.settings.TypeFilterDTO;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 扫水比对基于赔率簿：结果与盘口 JSON 一致，且比对过程不再复制赔率 JSON
+ */
+class SweepwaterOddsBookTest {
+
+    private static final String XINBAO = WebsiteType.XINBAO.getId();
+    private static final String PINGBO = WebsiteType.PINGBO.getId();
+
+    private final List<String> saved = new ArrayList<>();
+    private SweepwaterService service;
+    private Level originalLevel;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedissonClient redis = mock(RedissonClient.class);
+        SweepwaterWriter writer = mock(SweepwaterWriter.class);
+        when(writer.submit(anyString(), org.mockito.ArgumentMatchers.any())).thenAnswer(i -> saved.add(((SweepwaterDTO) i.getArgument(1)).getId()));
+        service = new SweepwaterService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis);
+        ReflectionTestUtils.setField(service, "threadPoolHolder", mock(SweepWaterThreadPoolHolder.class));
+        ReflectionTestUtils.setField(service, "betService", mock(BetService.class));
+        ReflectionTestUtils.setField(service, "sweepwaterWriter", writer);
+
+        Logger logger = (Logger) LoggerFactory.getLogger(SweepwaterService.class);
+        originalLevel = logger.getLevel();
+        logger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger(SweepwaterService.class)).setLevel(originalLevel);
+    }
+
+    @Test
+    void comparesOppositeSidesOnSameLine() {
+        OddsBook bookA = OddsBook.of(leagues("L1", "英超", event("e1", "曼联 -vs- 切尔西", "30",
+                court(side("0.5", odds("g1", "0.95").set("handicap", "-0.5").set("isHome", true).set("teamName", "曼联")),
+                        side("0.5", odds("g1", "0.90").set("handicap", "0.5").set("isHome", false).set("teamName", "切尔西")),
+                        side("2.5", odds("g1", "0.88")),
+                        side("2.5", odds("g1", "-0.97"))))));
+        OddsBook bookB = OddsBook.of(leagues("P1", "EPL", event("p1", "Man Utd -vs- Chelsea", "31",
+                court(side("0.5", odds("111|0|2|1|1|-0.5", "0.93")),
+                        side("0.5", odds("111|0|2|1|0|0.5", "0.94")),
+                        side("2.5", odds("112|0|3|1|1|2.5", "0.99")),
+                        side("2.5", odds("112|0|3|1|0|2.5", "0.96"))))));
+
+        List<SweepwaterDTO> results = aggregate(bookA.league("L1"), bookB.league("P1"), scan(1.0, 3.0), null);
+
+        assertEquals(4, results.size());
+        results.sort(Comparator.comparing(SweepwaterDTO::getWater));
+        assertEquals(List.of("1.830", "1.840", "1.890", "2.020"), results.stream().map(SweepwaterDTO::getWater).toList());
+        SweepwaterDTO upDown = results.get(2);
+        assertEquals("letBall", upDown.getHandicapType());
+        assertEquals("fullCourt", upDown.getType());
+        assertEquals(new BigDecimal("0.95"), upDown.getOddsA());
+        assertEquals("0.950 / 0.940", upDown.getOdds());
+        assertEquals("-0.5", upDown.getHandicapA());
+        assertEquals("曼联", upDown.getTeamVSHA());
+        assertEquals("英超 × EPL", upDown.getLeague());
+        // 新二在 A，比赛时间取 A
+        assertEquals("30", upDown.getReTimeB());
+        // 负赔率 +2
+        assertEquals("overSize", results.get(3).getHandicapType());
+        assertEquals(4, saved.size());
+    }
+
+    @Test
+    void websiteAndTypeFiltersApply() {
+        OddsBook bookA = OddsBook.of(leagues("L1", "英超", event("e1", "A -vs- B", "30",
+                court(side("0", odds("g0", "0.95"), "0.5", odds("g1", "0.95")), side(), side("2.5", odds("g2", "0.90")), side()))));
+        OddsBook bookB = OddsBook.of(leagues("P1", "EPL", event("p1", "A1 -vs- B1", "31",
+                court(side(), side("0", odds("p0", "0.95"), "0.5", odds("p1", "0.95")), side(), side("2.5", odds("p2", "0.90"))))));
+        TypeFilterDTO flat = new TypeFilterDTO();
+        flat.setFlatPlate(1);
+
+        // 平手盘过滤后只剩 0.5 让球盘和大小盘
+        assertEquals(2, aggregate(bookA.league("L1"), bookB.league("P1"), scan(1.0, 3.0), flat).size());
+
+        // B 关闭小球
+        WebsiteVO websiteB = website(PINGBO);
+        websiteB.setSmallBall(0);
+        List<SweepwaterDTO> results = service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", scan(1.0, 3.0), profit(),
+                null, null, List.of(), List.of(), flat, website(XINBAO), websiteB,
+                bookA.league("L1"), bookB.league("P1"), "e1", "p1", "A -vs- B", "A1 -vs- B1",
+                XINBAO, PINGBO, "L1", "P1", "e1", "p1");
+        assertEquals(1, results.size());
+        assertEquals("letBall", results.get(0).getHandicapType());
+
+        // 赔率范围
+        OddsRangeDTO range = new OddsRangeDTO();
+        range.setWebsiteId(PINGBO);
+        range.setOddsGreater(0.9);
+        range.setOddsLess(0.9);
+        results = service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", scan(1.0, 3.0), profit(),
+                null, null, List.of(range), List.of(), null, website(XINBAO), website(PINGBO),
+                bookA.league("L1"), bookB.league("P1"), "e1", "p1", "A -vs- B", "A1 -vs- B1",
+                XINBAO, PINGBO, "L1", "P1", "e1", "p1");
+        assertEquals(2, results.size());
+    }
+
+    @Test
+    void roundAllocatesLessThanCopyingJson() {
+        // 一个联赛 50 场赛事，每个方向 6 个盘口
+        JSONArray jsonA = new JSONArray();
+        JSONArray jsonB = new JSONArray();
+        JSONObject leagueA = leagues("L1", "英超").getJSONObject(0);
+        JSONObject leagueB = leagues("P1", "EPL").getJSONObject(0);
+        for (int e = 0; e < 50; e++) {
+            leagueA.getJSONArray("events").add(event("e" + e, "A" + e + " -vs- B" + e, "30", fullLines("g" + e)));
+            leagueB.getJSONArray("events").add(event("p" + e, "C" + e + " -vs- D" + e, "31", fullLines("p" + e)));
+        }
+        jsonA.add(leagueA);
+        jsonB.add(leagueB);
+        OddsBook bookA = OddsBook.of(jsonA);
+        OddsBook bookB = OddsBook.of(jsonB);
+        // 水位区间设置成不命中，只统计比对本身
+        OddsScanDTO scan = scan(9.0, 9.5);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        int rounds = 2000;
+
+        for (int i = 0; i < rounds; i++) {
+            aggregate(bookA.league("L1"), bookB.league("P1"), "A7 -vs- B7", "C7 -vs- D7", scan);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            aggregate(bookA.league("L1"), bookB.league("P1"), "A7 -vs- B7", "C7 -vs- D7", scan);
+        }
+        long typed = (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+
+        // 旧流程比对前每个用户都要按联赛复制一份赔率 JSON
+        List<String> namesA = List.of("A7 -vs- B7");
+        List<String> namesB = List.of("C7 -vs- D7");
+        for (int i = 0; i < rounds; i++) {
+            service.findEventByLeagueName(service.buildLeagueMap(jsonA), "L1", namesA);
+            service.findEventByLeagueName(service.buildLeagueMap(jsonB), "P1", namesB);
+        }
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            service.findEventByLeagueName(service.buildLeagueMap(jsonA), "L1", namesA);
+            service.findEventByLeagueName(service.buildLeagueMap(jsonB), "P1", namesB);
+        }
+        long copy = (threads.getCurrentThreadAllocatedBytes() - before) / rounds;
+
+        assertTrue(typed < copy, "typed " + typed + " copy " + copy);
+    }
+
+    private List<SweepwaterDTO> aggregate(OddsBook.League leagueA, OddsBook.League leagueB, OddsScanDTO scan, TypeFilterDTO typeFilter) {
+        return service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", scan, profit(),
+                null, null, List.of(), List.of(), typeFilter, website(XINBAO), website(PINGBO),
+                leagueA, leagueB, "e1", "p1",
+                leagueA.getEvents().get(0).getName(), leagueB.getEvents().get(0).getName(),
+                XINBAO, PINGBO, "L1", "P1", "e1", "p1");
+    }
+
+    private List<SweepwaterDTO> aggregate(OddsBook.League leagueA, OddsBook.League leagueB, String nameA, String nameB, OddsScanDTO scan) {
+        return service.aggregateEventOdds("u1", "sweeper", "2026-01-01 00:00:00", scan, profit(),
+                null, null, List.of(), List.of(), null, website(XINBAO), website(PINGBO),
+                leagueA, leagueB, "e1", "p1", nameA, nameB,
+                XINBAO, PINGBO, "L1", "P1", "e1", "p1");
+    }
+
+    private static JSONObject fullLines(String id) {
+        JSONObject[] sides = new JSONObject[4];
+        for (int s = 0; s < 4; s++) {
+            sides[s] = new JSONObject();
+            for (int l = 0; l < 6; l++) {
+                sides[s].set(String.valueOf(l * 0.25), odds(id + "-" + s + "-" + l, "0.9" + l));
+            }
+        }
+        return court(sides[0], sides[1], sides[2], sides[3]);
+    }
+
+    private static JSONArray leagues(String id, String name, JSONObject... events) {
+        JSONObject league = new JSONObject().set("id", id).set("league", name);
+        JSONArray array = new JSONArray();
+        for (JSONObject event : events) {
+            array.add(event);
+        }
+        league.set("events", array);
+        return new JSONArray().set(league);
+    }
+
+    private static JSONObject event(String id, String name, String reTime, JSONObject fullCourt) {
+        return new JSONObject().set("id", id).set("name", name).set("score", "0-0")
+                .set("session", "1H").set("reTime", reTime)
+                .set("fullCourt", fullCourt).set("firstHalf", new JSONObject());
+    }
+
+    private static JSONObject court(JSONObject up, JSONObject down, JSONObject big, JSONObject small) {
+        return new JSONObject()
+                .set("letBall", new JSONObject().set("up", up).set("down", down))
+                .set("overSize", new JSONObject().set("big", big).set("small", small));
+    }
+
+    private static JSONObject side(Object... lineAndOdds) {
+        JSONObject side = new JSONObject();
+        for (int i = 0; i < lineAndOdds.length; i += 2) {
+            side.set((String) lineAndOdds[i], lineAndOdds[i + 1]);
+        }
+        return side;
+    }
+
+    private static JSONObject odds(String id, String odds) {
+        return new JSONObject().set("id", id).set("odds", odds);
+    }
+
+    private static OddsScanDTO scan(double from, double to) {
+        OddsScanDTO scan = new OddsScanDTO();
+        scan.setWaterLevelFrom(from);
+        scan.setWaterLevelTo(to);
+        return scan;
+    }
+
+    private static ProfitDTO profit() {
+        ProfitDTO profit = new ProfitDTO();
+        profit.setRollingLetBall(99.0);
+        profit.setRollingSize(99.0);
+        return profit;
+    }
+
+    private static WebsiteVO website(String id) {
+        WebsiteVO website = new WebsiteVO();
+        website.setId(id);
+        website.setFullCourt(1);
+        website.setFirstHalf(1);
+        website.setHangingWall(1);
+        website.setFootWall(1);
+        website.setBigBall(1);
+        website.setSmallBall(1);
+        return website;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.api;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 扫水记录按id存取：投注标记只更新单条记录，不读取扫水列表
+ */
+class SweepwaterRecordTest {
+
+    private static final String INDEX = "platform:sweepwater:u1";
+    private static final String RECORDS = "platform:sweepwater:record:u1";
+
+    private FakeSweepwaterRedis redis;
+    private SweepwaterFeed feed;
+    private SweepwaterService service;
+    private Level originalLevel;
+
+    @BeforeEach
+    void setUp() {
+        redis = new FakeSweepwaterRedis(0);
+        feed = new SweepwaterFeed();
+        ReflectionTestUtils.setField(feed, "businessPlatformRedissonClient", redis.client);
+        feed.afterPropertiesSet();
+        service = new SweepwaterService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", redis.client);
+        ReflectionTestUtils.setField(service, "sweepwaterFeed", feed);
+        Logger logger = (Logger) LoggerFactory.getLogger(SweepwaterService.class);
+        originalLevel = logger.getLevel();
+        logger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((Logger) LoggerFactory.getLogger(SweepwaterService.class)).setLevel(originalLevel);
+    }
+
+    @Test
+    void writerRecordsAreReadableAndMarkable() throws Exception {
+        SweepwaterWriter writer = new SweepwaterWriter();
+        ReflectionTestUtils.setField(writer, "businessPlatformRedissonClient", redis.client);
+        ReflectionTestUtils.setField(writer, "sweepwaterFeed", feed);
+        ReflectionTestUtils.setField(writer, "flushMs", 10L);
+        writer.afterPropertiesSet();
+        try {
+            for (long id = 1000; id < 1003; id++) {
+                writer.submit("u1", dto(String.valueOf(id)));
+            }
+        } finally {
+            writer.destroy();
+        }
+
+        service.setIsBet("u1", "1001");
+
+        List<SweepwaterDTO> sweepwaters = service.getSweepwaters("u1");
+        assertEquals(List.of("1002", "1001", "1000"), sweepwaters.stream().map(SweepwaterDTO::getId).toList());
+        assertEquals(List.of(0, 1, 0), sweepwaters.stream().map(SweepwaterDTO::getIsBet).toList());
+    }
+
+    @Test
+    void setIsBetTouchesOnlyTheRecord() {
+        populate(50_000);
+        clearInvocations(redis.client);
+
+        service.setIsBet("u1", "1012345");
+
+        verify(redis.client, never()).getList(anyString());
+        assertEquals(1, JSONUtil.toBean(redis.maps.get(RECORDS).get("1012345"), SweepwaterDTO.class).getIsBet());
+        assertEquals(1, redis.maps.get(RECORDS).values().stream().filter(json -> json.contains("\"isBet\":1")).count());
+    }
+
+    @Test
+    void setIsBetDoesNotResurrectTrimmedRecord() {
+        populate(10);
+        service.setIsBet("u1", "999");
+        assertNull(redis.maps.get(RECORDS).get("999"));
+        assertEquals(10, redis.maps.get(RECORDS).size());
+    }
+
+    @Test
+    void delSweepwatersRemovesIndexAndRecords() {
+        populate(10);
+        service.delSweepwaters("u1");
+        assertFalse(redis.lists.containsKey(INDEX));
+        assertFalse(redis.maps.containsKey(RECORDS));
+        assertTrue(service.getSweepwaters("u1").isEmpty());
+    }
+
+    /**
+     * 5 万条历史：旧实现读取整个列表逐条解析查找，新实现按id读写单条记录
+     * 运行：mvn test -Dtest=SweepwaterRecordTest -Dsweepwater.loadtest=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+    void benchmark50k() {
+        for (int history : new int[]{1_000, 10_000, 50_000}) {
+            populate(history);
+            List<String> legacyList = new ArrayList<>(redis.maps.get(RECORDS).values());
+            int rounds = 20;
+            // 预热
+            legacyMark(legacyList, id(history / 2));
+            service.setIsBet("u1", id(history / 2));
+
+            long legacy = 0;
+            long keyed = 0;
+            for (int i = 0; i < rounds; i++) {
+                String id = id(i * history / rounds);
+                long start = System.nanoTime();
+                legacyMark(legacyList, id);
+                legacy += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                service.setIsBet("u1", id);
+                keyed += System.nanoTime() - start;
+            }
+            assertTrue(keyed < legacy, String.format("%d 条历史：旧实现 %dus，按id读写 %dus", history,
+                    TimeUnit.NANOSECONDS.toMicros(legacy / rounds), TimeUnit.NANOSECONDS.toMicros(keyed / rounds)));
+        }
+    }
+
+    /**
+     * 原 setIsBet：读取整个列表，并行解析查找目标id，再按下标写回
+     */
+    private static void legacyMark(List<String> items, String id) {
+        int index = IntStream.range(0, items.size()).parallel()
+                .filter(i -> id.equals(JSONUtil.toBean(items.get(i), SweepwaterDTO.class).getId()))
+                .findAny()
+                .orElseThrow(() -> new CompletionException(new IllegalStateException(id)));
+        SweepwaterDTO dto = JSONUtil.toBean(items.get(index), SweepwaterDTO.class);
+        dto.setIsBet(1);
+        items.set(index, JSONUtil.toJsonStr(dto));
+    }
+
+    private void populate(int count) {
+        List<String> ids = new ArrayList<>(count);
+        Map<String, String> records = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String id = id(i);
+            ids.add(id);
+            records.put(id, JSONUtil.toJsonStr(dto(id)));
+        }
+        redis.lists.put(INDEX, ids);
+        redis.maps.put(RECORDS, records);
+    }
+
+    private static String id(int i) {
+        return String.valueOf(1_000_000 + i);
+    }
+
+    private static SweepwaterDTO dto(String id) {
+        SweepwaterDTO dto = new SweepwaterDTO();
+        dto.setId(id);
+        dto.setIsBet(0);
+        dto.setLeagueNameA("英超");
+        dto.setTeam("曼联 -vs- 切尔西");
+        dto.setWater("1.020");
+        dto.setCreateTime("2026-01-01 12:00:00");
+        return dto;
+    }
+}
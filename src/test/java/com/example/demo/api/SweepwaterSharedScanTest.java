@@ -0,0 +1,448 @@
+package com.example.demo.api;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.bet.BetDispatchQueue;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.core.odds.OddsBook;
+import com.example.demo.model.dto.AdminLoginDTO;
+import com.example.demo.model.dto.settings.IntervalDTO;
+import com.example.demo.model.dto.settings.LimitDTO;
+import com.example.demo.model.dto.settings.OddsRangeDTO;
+import com.example.demo.model.dto.settings.OddsScanDTO;
+import com.example.demo.model.dto.settings.ProfitDTO;
+import com.example.demo.model.dto.settings.TimeFrameDTO;
+import com.example.demo.model.dto.settings.TypeFilterDTO;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import com.example.demo.model.vo.WebsiteVO;
+import com.example.demo.model.vo.dict.BindLeagueVO;
+import com.example.demo.model.vo.dict.BindTeamVO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.api.RedissonClient;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * 共享扫水：同一组绑定只比对一次，按平台用户设置过滤后与逐用户扫水结果一致
+ * 基准：mvn test -Dtest=SweepwaterSharedScanTest -Dsweepwater.loadtest=true
+ */
+class SweepwaterSharedScanTest {
+
+    private static final String XINBAO = WebsiteType.XINBAO.getId();
+    private static final String PINGBO = WebsiteType.PINGBO.getId();
+    private static final String SBO = WebsiteType.SBO.getId();
+    private static final String[] ODDS = {"0.93", "0.88", "1.02", "-0.97", "0.95", "0.91", "0.99", "0.85"};
+    private static final String[] LINES = {"0", "0.5", "1", "2.5"};
+    private static final String[] SIDES_LET = {"up", "down"};
+    private static final String[] SIDES_SIZE = {"big", "small"};
+
+    private final Map<String, OddsBook> books = new HashMap<>();
+    private final List<BindLeagueVO> allBindings = new ArrayList<>();
+    private final Map<String, List<List<BindLeagueVO>>> bindsByUser = new HashMap<>();
+    private final Map<String, Settings> settingsByUser = new HashMap<>();
+    private final List<AdminLoginDTO> sweepers = List.of(user("sweeper"));
+    private final List<ExecutorService> executors = new ArrayList<>();
+    private Level originalLevel;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        addLeaguePair("L1", PINGBO, "P1", random);
+        addLeaguePair("L2", SBO, "S2", random);
+        Logger logger = (Logger) LoggerFactory.getLogger(SweepwaterService.class);
+        originalLevel = logger.getLevel();
+        logger.setLevel(Level.WARN);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executors.forEach(ExecutorService::shutdownNow);
+        ((Logger) LoggerFactory.getLogger(SweepwaterService.class)).setLevel(originalLevel);
+    }
+
+    @Test
+    void sharedScanMatchesPerUserSweep() {
+        Random random = new Random(5);
+        List<AdminLoginDTO> users = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            users.add(randomUser("u" + i, random));
+        }
+
+        Map<String, List<String>> perUser = new ConcurrentHashMap<>();
+        SweepwaterService legacy = service(perUser, new AtomicInteger());
+        for (AdminLoginDTO user : users) {
+            legacy.sweepwater(user.getUsername(), sweepers, "r1");
+        }
+        Map<String, List<String>> shared = new ConcurrentHashMap<>();
+        service(shared, new AtomicInteger()).sweepwaterNew(users, sweepers, "r1");
+
+        int total = 0;
+        for (AdminLoginDTO user : users) {
+            List<String> expected = sorted(perUser.get(user.getUsername()));
+            assertEquals(expected, sorted(shared.get(user.getUsername())), user.getUsername());
+            total += expected.size();
+        }
+        assertTrue(total > 100, "compared " + total);
+    }
+
+    @Test
+    void eachBindingIsFetchedAndMatchedOncePerRound() {
+        List<AdminLoginDTO> users = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            users.add(fullUser("u" + i));
+        }
+        AtomicInteger fetches = new AtomicInteger();
+        Map<String, List<String>> written = new ConcurrentHashMap<>();
+        SweepwaterService service = service(written, fetches);
+        SweepMetrics metrics = (SweepMetrics) ReflectionTestUtils.getField(service, "sweepMetrics");
+
+        service.sweepwaterNew(users, sweepers, "r1");
+
+        // 每组绑定两边各取一次赔率快照
+        assertEquals(allBindingCount() * 2, fetches.get());
+        long matches = metrics.getTimers().stream()
+                .filter(t -> "match".equals(t.getId().getTag("stage")))
+                .mapToLong(t -> t.count())
+                .sum();
+        assertEquals(allBindingCount(), matches);
+        assertEquals(40, written.size());
+        assertEquals(1, written.values().stream().map(List::size).distinct().count());
+    }
+
+    /**
+     * 提前返回和异常结束的轮次也要记录整轮耗时
+     */
+    @Test
+    void roundIsTimedOnEarlyReturnAndFailure() {
+        SweepwaterService service = service(new ConcurrentHashMap<>(), new AtomicInteger());
+        SweepMetrics metrics = (SweepMetrics) ReflectionTestUtils.getField(service, "sweepMetrics");
+
+        // 没有绑定
+        service.sweepwater("nobody", sweepers, "r1");
+        // 没有平台用户
+        service.sweepwaterNew(List.of(), sweepers, "r1");
+        // 没有扫水账号
+        assertThrows(IndexOutOfBoundsException.class, () -> service.sweepwater("nobody", List.of(), "r2"));
+
+        Map<String, Long> rounds = metrics.getTimers().stream()
+                .filter(t -> "round".equals(t.getId().getTag("stage")))
+                .collect(Collectors.toMap(t -> t.getId().getTag("user"), t -> t.count()));
+        assertEquals(Map.of("nobody", 2L, SweepMetrics.NONE, 1L), rounds);
+    }
+
+    /**
+     * 平台用户从 10 增加到 200（绑定相同），共享扫水每轮耗时基本不变，逐用户扫水随用户数线性增长
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+    void roundCostIsFlatInUserCount() {
+        int[] userCounts = {10, 50, 200};
+        long[] shared = new long[userCounts.length];
+        long[] perUser = new long[userCounts.length];
+        for (int n = 0; n < userCounts.length; n++) {
+            int users = userCounts[n];
+            List<AdminLoginDTO> list = new ArrayList<>();
+            for (int i = 0; i < users; i++) {
+                list.add(fullUser("u" + i));
+                // 水位区间不命中，只比较比对和过滤本身
+                settingsByUser.get("u" + i).scan = scan(9.0, 9.5);
+            }
+            SweepwaterService service = service(new ConcurrentHashMap<>(), new AtomicInteger());
+            shared[n] = time(() -> service.sweepwaterNew(list, sweepers, "r"));
+            perUser[n] = time(() -> list.forEach(u -> service.sweepwater(u.getUsername(), sweepers, "r")));
+        }
+        String costs = "共享扫水 " + Arrays.toString(shared) + "us/轮，逐用户扫水 " + Arrays.toString(perUser) + "us/轮";
+        int last = userCounts.length - 1;
+        // 用户多时共享扫水明显更快，且耗时增长远慢于逐用户扫水
+        assertTrue(shared[last] * 2 < perUser[last], costs);
+        assertTrue((double) shared[last] / shared[0] < (double) perUser[last] / perUser[0], costs);
+    }
+
+    private static long time(Runnable round) {
+        for (int i = 0; i < 5; i++) {
+            round.run();
+        }
+        int rounds = 20;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            round.run();
+        }
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start) / rounds;
+    }
+
+    private SweepwaterService service(Map<String, List<String>> written, AtomicInteger fetches) {
+        SweepwaterWriter writer = mock(SweepwaterWriter.class, withSettings().stubOnly());
+        when(writer.submit(anyString(), any())).thenAnswer(inv -> {
+            written.computeIfAbsent(inv.getArgument(0), k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(row(inv.getArgument(1)));
+            return true;
+        });
+        OddsSnapshotService snapshots = mock(OddsSnapshotService.class, withSettings().stubOnly());
+        when(snapshots.getBookAsync(anyString(), anyString(), anyString(), anyString())).thenAnswer(inv -> {
+            fetches.incrementAndGet();
+            return CompletableFuture.completedFuture(books.get(inv.getArgument(1) + "|" + inv.getArgument(2)));
+        });
+        BindDictService bindDictService = mock(BindDictService.class, withSettings().stubOnly());
+        when(bindDictService.getSweepBindDict(anyString())).thenAnswer(inv -> bindsByUser.get(inv.<String>getArgument(0)));
+
+        SettingsService settingsService = mock(SettingsService.class, withSettings().stubOnly());
+        when(settingsService.getOddsScan(anyString())).thenAnswer(inv -> settings(inv).scan);
+        when(settingsService.getProfit(anyString())).thenAnswer(inv -> settings(inv).profit);
+        SettingsBetService settingsBetService = mock(SettingsBetService.class, withSettings().stubOnly());
+        when(settingsBetService.getInterval(anyString())).thenReturn(new IntervalDTO());
+        when(settingsBetService.getLimit(anyString())).thenReturn(new LimitDTO());
+        when(settingsBetService.getTypeFilter(anyString())).thenAnswer(inv -> settings(inv).typeFilter);
+        SettingsFilterService settingsFilterService = mock(SettingsFilterService.class, withSettings().stubOnly());
+        when(settingsFilterService.getOddsRanges(anyString())).thenAnswer(inv -> settings(inv).oddsRanges);
+        when(settingsFilterService.getTimeFrames(anyString())).thenAnswer(inv -> settings(inv).timeFrames);
+        WebsiteService websiteService = mock(WebsiteService.class, withSettings().stubOnly());
+        // 逐用户扫水会就地剔除未启用的网站，每次返回新列表
+        when(websiteService.getWebsites(anyString())).thenAnswer(inv -> new ArrayList<>(settings(inv).websites));
+
+        SweepWaterThreadPoolHolder holder = mock(SweepWaterThreadPoolHolder.class, withSettings().stubOnly());
+        ExecutorService config = executor(16);
+        ExecutorService league = executor(16);
+        ExecutorService event = executor(16);
+        when(holder.getConfigExecutor()).thenReturn(config);
+        when(holder.getLeagueExecutor()).thenReturn(league);
+        when(holder.getEventExecutor()).thenReturn(event);
+
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+
+        SweepwaterService service = new SweepwaterService();
+        ReflectionTestUtils.setField(service, "businessPlatformRedissonClient", mock(RedissonClient.class));
+        ReflectionTestUtils.setField(service, "bindDictService", bindDictService);
+        ReflectionTestUtils.setField(service, "oddsSnapshotService", snapshots);
+        ReflectionTestUtils.setField(service, "settingsService", settingsService);
+        ReflectionTestUtils.setField(service, "settingsBetService", settingsBetService);
+        ReflectionTestUtils.setField(service, "settingsFilterService", settingsFilterService);
+        ReflectionTestUtils.setField(service, "websiteService", websiteService);
+        ReflectionTestUtils.setField(service, "threadPoolHolder", holder);
+        ReflectionTestUtils.setField(service, "sweepwaterWriter", writer);
+        ReflectionTestUtils.setField(service, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(service, "betDispatchQueue", mock(BetDispatchQueue.class));
+        ReflectionTestUtils.setField(service, "betService", mock(BetService.class));
+        return service;
+    }
+
+    private ExecutorService executor(int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        executors.add(executor);
+        return executor;
+    }
+
+    private Settings settings(org.mockito.invocation.InvocationOnMock inv) {
+        return settingsByUser.get(inv.<String>getArgument(0));
+    }
+
+    private static String row(SweepwaterDTO dto) {
+        return String.join(",", dto.getLeagueIdA(), dto.getLeagueIdB(), dto.getEventIdA(), dto.getEventIdB(),
+                dto.getTeam(), dto.getType(), dto.getHandicapType(), dto.getOddsIdA(), dto.getOddsIdB(),
+                dto.getOdds(), dto.getWater(), dto.getReTimeA(), dto.getScoreA(), dto.getScoreB(),
+                String.valueOf(dto.getLastOddsTimeA()), String.valueOf(dto.getLastOddsTimeB()));
+    }
+
+    private static List<String> sorted(List<String> rows) {
+        List<String> copy = rows == null ? new ArrayList<>() : new ArrayList<>(rows);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private int allBindingCount() {
+        return allBindings.stream().mapToInt(b -> b.getEvents().size()).sum();
+    }
+
+    /**
+     * 网站、方向、时段、赔率区间、平手盘、时间范围、水位区间和绑定都随机
+     */
+    private AdminLoginDTO randomUser(String username, Random random) {
+        Settings settings = new Settings();
+        settings.scan = scan(0.5 + random.nextDouble(), 1.8 + random.nextDouble());
+        settings.profit = profit(random.nextBoolean() ? 0.0 : 99.0);
+        settings.typeFilter = new TypeFilterDTO();
+        settings.typeFilter.setFlatPlate(random.nextInt(2));
+        if (random.nextBoolean()) {
+            OddsRangeDTO range = new OddsRangeDTO();
+            range.setWebsiteId(random.nextBoolean() ? XINBAO : PINGBO);
+            range.setOddsGreater(0.9);
+            range.setOddsLess(0.95);
+            settings.oddsRanges = List.of(range);
+        }
+        if (random.nextBoolean()) {
+            TimeFrameDTO frame = new TimeFrameDTO();
+            frame.setBallType(1);
+            frame.setTimeFormSec(0);
+            frame.setTimeToSec(45);
+            settings.timeFrames = List.of(frame);
+        }
+        settings.websites = List.of(website(XINBAO, random), website(PINGBO, random), website(SBO, random));
+        settingsByUser.put(username, settings);
+
+        List<List<BindLeagueVO>> binds = new ArrayList<>();
+        for (BindLeagueVO league : allBindings) {
+            List<BindTeamVO> events = league.getEvents().stream().filter(e -> random.nextInt(3) != 0).toList();
+            if (!events.isEmpty()) {
+                binds.add(List.of(bindLeague(league, events)));
+            }
+        }
+        bindsByUser.put(username, binds);
+        return user(username);
+    }
+
+    private AdminLoginDTO fullUser(String username) {
+        Settings settings = new Settings();
+        settings.scan = scan(0.0, 5.0);
+        settings.profit = profit(99.0);
+        settings.websites = List.of(website(XINBAO, null), website(PINGBO, null), website(SBO, null));
+        settingsByUser.put(username, settings);
+        bindsByUser.put(username, allBindings.stream().map(league -> List.of(bindLeague(league, league.getEvents()))).toList());
+        return user(username);
+    }
+
+    /**
+     * 一对联赛：A 为新二，每场赛事与 B 的同下标赛事绑定；平博的赔率 id 去掉最后一段后上下盘相同，覆盖去重逻辑
+     */
+    private void addLeaguePair(String leagueIdA, String websiteIdB, String leagueIdB, Random random) {
+        JSONArray eventsA = new JSONArray();
+        JSONArray eventsB = new JSONArray();
+        List<BindTeamVO> binds = new ArrayList<>();
+        for (int e = 0; e < 4; e++) {
+            String nameA = leagueIdA + "-A" + e + " -vs- B" + e;
+            String nameB = leagueIdB + "-C" + e + " -vs- D" + e;
+            eventsA.add(event(leagueIdA + "e" + e, nameA, XINBAO, random));
+            eventsB.add(event(leagueIdB + "e" + e, nameB, websiteIdB, random));
+            BindTeamVO bind = new BindTeamVO();
+            bind.setIdA(leagueIdA + "e" + e);
+            bind.setIdB(leagueIdB + "e" + e);
+            bind.setNameA(nameA);
+            bind.setNameB(nameB);
+            binds.add(bind);
+        }
+        books.put(XINBAO + "|" + leagueIdA, OddsBook.of(new JSONArray().set(new JSONObject().set("id", leagueIdA).set("league", leagueIdA).set("events", eventsA))));
+        books.put(websiteIdB + "|" + leagueIdB, OddsBook.of(new JSONArray().set(new JSONObject().set("id", leagueIdB).set("league", leagueIdB).set("events", eventsB))));
+        BindLeagueVO league = new BindLeagueVO();
+        league.setWebsiteIdA(XINBAO);
+        league.setWebsiteIdB(websiteIdB);
+        league.setLeagueIdA(leagueIdA);
+        league.setLeagueIdB(leagueIdB);
+        league.setLeagueNameA(leagueIdA);
+        league.setLeagueNameB(leagueIdB);
+        league.setEvents(binds);
+        allBindings.add(league);
+    }
+
+    private static JSONObject event(String id, String name, String websiteId, Random random) {
+        JSONObject event = new JSONObject().set("id", id).set("name", name).set("score", "0-0")
+                .set("session", "1H").set("reTime", String.valueOf(random.nextInt(90)));
+        for (String period : List.of("fullCourt", "firstHalf")) {
+            JSONObject court = new JSONObject();
+            court.set("letBall", market(id, period, SIDES_LET, websiteId, random));
+            court.set("overSize", market(id, period, SIDES_SIZE, websiteId, random));
+            event.set(period, court);
+        }
+        return event;
+    }
+
+    private static JSONObject market(String id, String period, String[] sides, String websiteId, Random random) {
+        JSONObject market = new JSONObject();
+        for (String side : sides) {
+            JSONObject lines = new JSONObject();
+            for (String line : LINES) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                String oddsId = PINGBO.equals(websiteId) ? id + "|" + period + "|" + line + "|" + side : id + "-" + period + "-" + side + "-" + line;
+                lines.set(line, new JSONObject().set("id", oddsId).set("odds", ODDS[random.nextInt(ODDS.length)]).set("handicap", line));
+            }
+            market.set(side, lines);
+        }
+        return market;
+    }
+
+    private static BindLeagueVO bindLeague(BindLeagueVO source, List<BindTeamVO> events) {
+        BindLeagueVO league = new BindLeagueVO();
+        league.setWebsiteIdA(source.getWebsiteIdA());
+        league.setWebsiteIdB(source.getWebsiteIdB());
+        league.setLeagueIdA(source.getLeagueIdA());
+        league.setLeagueIdB(source.getLeagueIdB());
+        league.setLeagueNameA(source.getLeagueNameA());
+        league.setLeagueNameB(source.getLeagueNameB());
+        league.setEvents(events);
+        return league;
+    }
+
+    private static WebsiteVO website(String id, Random random) {
+        WebsiteVO website = new WebsiteVO();
+        website.setId(id);
+        website.setEnable(random == null || random.nextInt(6) != 0 ? 1 : 0);
+        website.setFullCourt(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        website.setFirstHalf(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        website.setHangingWall(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        website.setFootWall(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        website.setBigBall(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        website.setSmallBall(random == null || random.nextInt(4) != 0 ? 1 : 0);
+        return website;
+    }
+
+    private static OddsScanDTO scan(double from, double to) {
+        OddsScanDTO scan = new OddsScanDTO();
+        scan.setWaterLevelFrom(from);
+        scan.setWaterLevelTo(to);
+        return scan;
+    }
+
+    private static ProfitDTO profit(double water) {
+        ProfitDTO profit = new ProfitDTO();
+        profit.setRollingLetBall(water);
+        profit.setRollingSize(water);
+        return profit;
+    }
+
+    private static AdminLoginDTO user(String username) {
+        AdminLoginDTO user = new AdminLoginDTO();
+        user.setUsername(username);
+        return user;
+    }
+
+    private static final class Settings {
+        private OddsScanDTO scan;
+        private ProfitDTO profit;
+        private TypeFilterDTO typeFilter;
+        private List<OddsRangeDTO> oddsRanges = List.of();
+        private List<TimeFrameDTO> timeFrames = List.of();
+        private List<WebsiteVO> websites;
+    }
+}
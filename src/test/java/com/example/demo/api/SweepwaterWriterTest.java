@@ -0,0 +1,145 @@
+package com.example.demo.api;
+
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 扫水结果异步写入：Redis 变慢不影响扫水线程，队列满时丢弃并计数
+ */
+class SweepwaterWriterTest {
+
+    private SweepwaterWriter writer;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.destroy();
+        }
+    }
+
+    @Test
+    void submitIsIsolatedFromRedisLatency() throws Exception {
+        FakeSweepwaterRedis redis = new FakeSweepwaterRedis(100);
+        writer = writer(redis, 10_000);
+
+        // 预热序列化
+        writer.submit("warm", dto("0"));
+        int count = 3000;
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            assertTrue(writer.submit(i % 2 == 0 ? "u1" : "u2", dto(String.valueOf(i))));
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        long p99Ms = TimeUnit.NANOSECONDS.toMillis(latencies[count * 99 / 100]);
+        // 每次 RBatch 提交耗时 100ms，提交结果的耗时远低于一次 Redis 往返
+        assertTrue(p99Ms < 20, "p99=" + p99Ms + "ms");
+
+        awaitWritten(count + 1);
+        // 批量写入：提交次数远少于结果条数
+        assertTrue(redis.executions.get() < 100, "executions=" + redis.executions.get());
+        // 每个用户只保留最后 1000 条，且保持写入顺序，裁掉的id对应的记录同时删除
+        List<String> u1 = redis.lists.get("platform:sweepwater:u1");
+        assertEquals(SweepwaterWriter.MAX_SIZE, u1.size());
+        assertEquals("2998", u1.get(u1.size() - 1));
+        assertEquals("1000", u1.get(0));
+        Map<String, String> records = redis.maps.get("platform:sweepwater:record:u1");
+        // 裁掉的记录在写入批次之后再删除
+        long deadline = System.currentTimeMillis() + 5000;
+        while (records.size() > SweepwaterWriter.MAX_SIZE && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertTrue(u1.equals(new ArrayList<>(records.keySet())), "records=" + records.size());
+        assertTrue(records.get("2998").contains("\"id\":\"2998\""));
+        assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    void dropsAndCountsWhenQueueIsFull() throws Exception {
+        FakeSweepwaterRedis redis = new FakeSweepwaterRedis(300);
+        writer = writer(redis, 10);
+
+        int accepted = 0;
+        int rejected = 0;
+        for (int i = 0; i < 200; i++) {
+            if (writer.submit("u1", dto(String.valueOf(i)))) {
+                accepted++;
+            } else {
+                rejected++;
+            }
+        }
+        assertTrue(rejected > 0);
+        assertEquals(rejected, writer.getDropped());
+
+        awaitWritten(accepted);
+        assertEquals(accepted, redis.lists.get("platform:sweepwater:u1").size());
+    }
+
+    @Test
+    void destroyFlushesPending() throws Exception {
+        FakeSweepwaterRedis redis = new FakeSweepwaterRedis(0);
+        writer = writer(redis, 100);
+        for (int i = 0; i < 50; i++) {
+            writer.submit("u1", dto(String.valueOf(i)));
+        }
+        writer.destroy();
+        writer = null;
+        assertEquals(50, redis.lists.get("platform:sweepwater:u1").size());
+    }
+
+    @Test
+    void batchFailureIsCounted() throws Exception {
+        FakeSweepwaterRedis redis = new FakeSweepwaterRedis(0);
+        redis.fail = true;
+        writer = writer(redis, 100);
+        writer.submit("u1", dto("1"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (writer.getFailed() == 0 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(1, writer.getFailed());
+        assertFalse(redis.lists.containsKey("platform:sweepwater:u1"));
+        assertFalse(redis.maps.containsKey("platform:sweepwater:record:u1"));
+    }
+
+    private void awaitWritten(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getWritten() < expected && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(expected, writer.getWritten());
+    }
+
+    private static SweepwaterWriter writer(FakeSweepwaterRedis redis, int capacity) {
+        SweepwaterWriter writer = new SweepwaterWriter();
+        ReflectionTestUtils.setField(writer, "businessPlatformRedissonClient", redis.client);
+        ReflectionTestUtils.setField(writer, "sweepwaterFeed", mock(SweepwaterFeed.class));
+        ReflectionTestUtils.setField(writer, "queueCapacity", capacity);
+        ReflectionTestUtils.setField(writer, "flushMs", 20L);
+        writer.afterPropertiesSet();
+        return writer;
+    }
+
+    private static SweepwaterDTO dto(String id) {
+        SweepwaterDTO dto = new SweepwaterDTO();
+        dto.setId(id);
+        dto.setLeagueNameA("英超");
+        dto.setTeam("曼联 -vs- 切尔西");
+        dto.setWater("1.020");
+        return dto;
+    }
+}
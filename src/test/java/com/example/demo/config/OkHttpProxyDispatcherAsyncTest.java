@@ -0,0 +1,244 @@
+package com.example.demo.config;
+
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 异步请求：结果与同步一致，重试不占线程休眠，按域名限制在途数
+ */
+class OkHttpProxyDispatcherAsyncTest {
+
+    /** 本地盘口：响应在定时线程上延迟发出，服务端本身不为每个在途请求占一个线程 */
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ScheduledExecutorService responder;
+    private String baseUrl;
+    private volatile long delayMs = 0;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger dropFirst = new AtomicInteger();
+
+    private OkHttpProxyDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+        serverExecutor = Executors.newFixedThreadPool(4);
+        responder = Executors.newScheduledThreadPool(2);
+        server.setExecutor(serverExecutor);
+        server.createContext("/odds", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (dropFirst.getAndDecrement() > 0) {
+                // 不返回响应直接断开，客户端收到 unexpected end of stream
+                exchange.close();
+                return;
+            }
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            responder.schedule(() -> {
+                inFlight.decrementAndGet();
+                respond(exchange, "{\"odds\":\"0.95\"}".getBytes(StandardCharsets.UTF_8), "application/json");
+            }, delayMs, TimeUnit.MILLISECONDS);
+        });
+        server.createContext("/page", exchange -> respond(exchange, gzip("<html>赛事</html>"), "text/html"));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        dispatcher = new OkHttpProxyDispatcher();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        responder.shutdownNow();
+    }
+
+    @Test
+    void asyncResultsMatchBlockingOnes() throws Exception {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("content-type", "application/json");
+
+        OkHttpProxyDispatcher.HttpResult sync = dispatcher.execute("POST", baseUrl + "/odds", "{}", headers, direct(), false);
+        OkHttpProxyDispatcher.HttpResult async = dispatcher.executeAsync("POST", baseUrl + "/odds", "{}", headers, direct())
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(sync.getBody(), async.getBody());
+        assertEquals(200, async.getStatus());
+
+        // 完整模式同样手动解压 gzip
+        assertEquals(dispatcher.executeFull("GET", baseUrl + "/page", null, new HashMap<>(), direct()).getBody(),
+                dispatcher.executeFullAsync("GET", baseUrl + "/page", null, new HashMap<>(), direct()).get(5, TimeUnit.SECONDS).getBody());
+    }
+
+    @Test
+    void serverTimeTravelsWithTheAsyncResult() throws Exception {
+        // 清掉本线程之前同步请求留下的值
+        OkHttpProxyDispatcher.takeServerTime();
+        long before = System.currentTimeMillis();
+        OkHttpProxyDispatcher.HttpResult result = dispatcher.executeAsync("GET", baseUrl + "/odds", null, new HashMap<>(), direct())
+                .get(5, TimeUnit.SECONDS);
+        // Date 头精确到秒
+        assertTrue(result.getServerTimeMillis() >= before - 1000 && result.getServerTimeMillis() <= System.currentTimeMillis());
+        // 异步请求不写调用线程的线程变量
+        assertEquals(0, OkHttpProxyDispatcher.takeServerTime());
+
+        dispatcher.execute("GET", baseUrl + "/odds", null, new HashMap<>(), direct(), false);
+        assertTrue(OkHttpProxyDispatcher.takeServerTime() > 0);
+    }
+
+    @Test
+    void autoProxyRefreshDoesNotBlockTheCaller() throws Exception {
+        // 代理池暂时拿不到代理：取代理要 500ms，之后分配本地 HttpServer 充当 HTTP 代理
+        ProxyPool pool = mock(ProxyPool.class);
+        when(pool.isEnabled()).thenReturn(true);
+        int port = server.getAddress().getPort();
+        when(pool.acquire(anyString(), anyBoolean())).thenAnswer(inv -> {
+            TimeUnit.MILLISECONDS.sleep(500);
+            return new ProxyPool.Lease("127.0.0.1", port, System.currentTimeMillis() + 60_000, System.currentTimeMillis() + 30_000);
+        });
+        ReflectionTestUtils.setField(dispatcher, "proxyPool", pool);
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(3);
+        config.setWebsiteId("1");
+        config.setAccount("acc");
+
+        long start = System.nanoTime();
+        CompletableFuture<OkHttpProxyDispatcher.HttpResult> future =
+                dispatcher.executeAsync("GET", "http://bookmaker.test/odds", null, new HashMap<>(), config);
+        long returnedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(returnedMs < 200, "调用线程被阻塞 " + returnedMs + "ms");
+        assertEquals("{\"odds\":\"0.95\"}", future.get(5, TimeUnit.SECONDS).getBody());
+    }
+
+    @Test
+    void retryIsScheduledWithoutBlockingTheCaller() throws Exception {
+        dropFirst.set(1);
+        long start = System.nanoTime();
+        CompletableFuture<OkHttpProxyDispatcher.HttpResult> future =
+                dispatcher.executeAsync("GET", baseUrl + "/odds", null, new HashMap<>(), direct());
+        long returnedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(returnedMs < 500, "调用线程被阻塞 " + returnedMs + "ms");
+
+        assertEquals("{\"odds\":\"0.95\"}", future.get(10, TimeUnit.SECONDS).getBody());
+        // 第二次尝试在重试间隔之后
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 1000);
+    }
+
+    @Test
+    void inFlightRequestsAreLimitedPerHost() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "maxRequestsPerHost", 4);
+        dispatcher.afterPropertiesSet();
+        delayMs = 100;
+
+        List<CompletableFuture<OkHttpProxyDispatcher.HttpResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(dispatcher.executeAsync("GET", baseUrl + "/odds", null, new HashMap<>(), direct()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(4, maxInFlight.get());
+    }
+
+    /**
+     * 500 个并发的上游请求：同步模式需要 500 个调用线程，异步模式只需调用线程 + 调度器按域名上限的线程
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+    void asyncNeedsAnOrderOfMagnitudeFewerThreads() throws Exception {
+        int calls = 500;
+        delayMs = 200;
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        // 先建好连接，两种模式都不算建连开销
+        dispatcher.execute("GET", baseUrl + "/odds", null, new HashMap<>(), direct(), false);
+
+        int base = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        ExecutorService callers = Executors.newFixedThreadPool(calls);
+        List<Future<OkHttpProxyDispatcher.HttpResult>> blocking = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            blocking.add(callers.submit(() -> dispatcher.execute("GET", baseUrl + "/odds", null, new HashMap<>(), direct(), false)));
+        }
+        for (Future<OkHttpProxyDispatcher.HttpResult> f : blocking) {
+            assertEquals(200, f.get(30, TimeUnit.SECONDS).getStatus());
+        }
+        long syncMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int syncThreads = threads.getPeakThreadCount() - base;
+        callers.shutdownNow();
+        callers.awaitTermination(5, TimeUnit.SECONDS);
+        Thread.sleep(200);
+
+        base = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        start = System.nanoTime();
+        List<CompletableFuture<OkHttpProxyDispatcher.HttpResult>> async = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            async.add(dispatcher.executeAsync("GET", baseUrl + "/odds", null, new HashMap<>(), direct()));
+        }
+        for (CompletableFuture<OkHttpProxyDispatcher.HttpResult> f : async) {
+            assertEquals(200, f.get(60, TimeUnit.SECONDS).getStatus());
+        }
+        long asyncMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int asyncThreads = Math.max(1, threads.getPeakThreadCount() - base);
+
+        assertTrue(asyncThreads * 10 <= syncThreads, String.format("%d 个并发上游请求：同步 %d 线程 %dms，异步 %d 线程 %dms",
+                calls, syncThreads, syncMs, asyncThreads, asyncMs));
+    }
+
+    private void respond(HttpExchange exchange, byte[] body, String contentType) {
+        try {
+            exchange.getResponseHeaders().add("Content-Type", contentType);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException ignored) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bos)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return bos.toByteArray();
+    }
+
+    private static ConfigAccountVO direct() {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        return config;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.demo.config;
+
+import cn.hutool.json.JSONArray;
+import com.example.demo.api.HandicapApi;
+import com.example.demo.api.OddsSnapshotService;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.holder.SweepWaterThreadPoolHolder;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.Dispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 慢盘口：扫水放弃等待后，在途的 OkHttp Call 被中断，不再占用线程和连接，也不重试
+ */
+class OkHttpProxyDispatcherCancelTest {
+
+    private static final long SLOW_MS = 3000;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService callers;
+    private String slowUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    private OkHttpProxyDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/slow", exchange -> {
+            requests.incrementAndGet();
+            received.countDown();
+            try {
+                Thread.sleep(SLOW_MS);
+                byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (InterruptedException | IOException ignored) {
+                // 客户端已断开
+            } finally {
+                exchange.close();
+            }
+        });
+        server.start();
+        slowUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/slow";
+        callers = Executors.newFixedThreadPool(4);
+        dispatcher = new OkHttpProxyDispatcher();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.destroy();
+        callers.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void blockingCallStopsWhenItsScopeIsCancelled() throws Exception {
+        HttpCallScope scope = new HttpCallScope();
+        Future<?> call = callers.submit(() -> {
+            try (HttpCallScope.Binding ignored = scope.bind()) {
+                return dispatcher.execute("GET", slowUrl, null, new HashMap<>(), direct(), false);
+            }
+        });
+        assertTrue(received.await(2, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        scope.cancel();
+        Exception e = assertThrows(Exception.class, () -> call.get(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertInstanceOf(IOException.class, e.getCause());
+        assertTrue(e.getCause().getMessage().contains("请求已取消"), e.getCause().getMessage());
+
+        // 取消不算代理失败，也不重试
+        Thread.sleep(1500);
+        assertEquals(1, requests.get());
+        assertEquals(0, failCount("no-proxy"));
+    }
+
+    @Test
+    void asyncCallStopsWhenItsFutureIsCancelled() throws Exception {
+        CompletableFuture<OkHttpProxyDispatcher.HttpResult> future =
+                dispatcher.executeAsync("GET", slowUrl, null, new HashMap<>(), direct());
+        assertTrue(received.await(2, TimeUnit.SECONDS));
+        Dispatcher okDispatcher = (Dispatcher) ReflectionTestUtils.getField(dispatcher, "asyncDispatcher");
+        assertEquals(1, okDispatcher.runningCallsCount());
+
+        future.cancel(false);
+        waitUntil(() -> okDispatcher.runningCallsCount() == 0);
+        assertEquals(0, okDispatcher.runningCallsCount());
+
+        Thread.sleep(1500);
+        assertEquals(1, requests.get());
+        assertEquals(0, failCount("no-proxy"));
+    }
+
+    @Test
+    void abandonedOddsSnapshotCancelsItsUpstreamCall() throws Exception {
+        AtomicReference<Throwable> upstreamError = new AtomicReference<>();
+        AtomicLong upstreamDoneNanos = new AtomicLong();
+        HandicapApi handicapApi = mock(HandicapApi.class);
+        when(handicapApi.eventsOddsWithServerTime(anyString(), anyString(), any(), any())).thenAnswer(inv -> {
+            try {
+                return new HandicapApi.EventsOdds(new JSONArray(dispatcher.execute("GET", slowUrl, null, new HashMap<>(), direct(), false).getBody()), 0);
+            } catch (IOException e) {
+                upstreamError.set(e);
+                throw new IllegalStateException(e);
+            } finally {
+                upstreamDoneNanos.set(System.nanoTime());
+            }
+        });
+        SweepWaterThreadPoolHolder holder = mock(SweepWaterThreadPoolHolder.class);
+        when(holder.getTeamOddsExecutor()).thenReturn(callers);
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        OddsSnapshotService snapshots = new OddsSnapshotService();
+        ReflectionTestUtils.setField(snapshots, "handicapApi", handicapApi);
+        ReflectionTestUtils.setField(snapshots, "threadPoolHolder", holder);
+        ReflectionTestUtils.setField(snapshots, "sweepMetrics", metrics);
+
+        // 扫水任务只等 200ms
+        long start = System.nanoTime();
+        CompletableFuture<JSONArray> events = snapshots.getEventsAsync("sweeper", WebsiteType.PINGBO.getId(), "L1", null)
+                .orTimeout(200, TimeUnit.MILLISECONDS);
+        assertThrows(Exception.class, () -> events.get(2, TimeUnit.SECONDS));
+
+        waitUntil(() -> upstreamDoneNanos.get() != 0);
+        // 上游请求随之中断，而不是等慢盘口 3 秒后返回
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(upstreamDoneNanos.get() - start) < 1500);
+        assertTrue(upstreamError.get().getMessage().contains("请求已取消"));
+        assertEquals(1, snapshots.getAbandonedCount());
+        assertEquals(1, requests.get());
+    }
+
+    private int failCount(String key) {
+        Map<?, ?> states = (Map<?, ?>) ReflectionTestUtils.getField(dispatcher, "proxyStateMap");
+        Object state = states.get(key);
+        return state == null ? 0 : (Integer) ReflectionTestUtils.invokeMethod(state, "getFailCount");
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static ConfigAccountVO direct() {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        return config;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.demo.config;
+
+import cn.hutool.json.JSONObject;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OkHttpProxyDispatcherPoolTest {
+
+    private HttpServer server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void directRequestsReuseKeepAliveConnection() throws Exception {
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+
+        for (int i = 0; i < 5; i++) {
+            OkHttpProxyDispatcher.HttpResult result = dispatcher.execute("GET", baseUrl + "/odds", null, new HashMap<>(), config, false);
+            assertEquals("ok", result.getBody());
+        }
+
+        JSONObject stats = dispatcher.getPoolStats();
+        assertEquals(5, stats.getLong("acquired"));
+        assertEquals(1, stats.getLong("connected"));
+        assertEquals(4, stats.getLong("reused"));
+        assertEquals(1, stats.getInt("idleConnections"));
+    }
+
+    @Test
+    void proxyClientHasItsOwnPool() throws Exception {
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(1);
+        config.setProxyHost("127.0.0.1");
+        config.setProxyPort(server.getAddress().getPort());
+
+        // 本地 HttpServer 充当 HTTP 代理
+        String target = "http://bookmaker.test/odds";
+        for (int i = 0; i < 3; i++) {
+            dispatcher.execute("GET", target, null, new HashMap<>(), config, false);
+        }
+
+        JSONObject stats = dispatcher.getPoolStats();
+        assertEquals(1, stats.getInt("proxyClients"));
+        assertEquals(3, stats.getLong("acquired"));
+        assertEquals(1, stats.getLong("connected"));
+        assertTrue(stats.getDouble("reuseRatio") > 0.6);
+    }
+
+    @Test
+    void socks5ClientReusesTunnelThroughPool() throws Exception {
+        try (Socks5StandIn socks = new Socks5StandIn("user", "pass")) {
+            OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+            ConfigAccountVO config = new ConfigAccountVO();
+            config.setProxyType(2);
+            config.setProxyHost("127.0.0.1");
+            config.setProxyPort(socks.port());
+            config.setProxyUsername("user");
+            config.setProxyPassword("pass");
+
+            for (int i = 0; i < 3; i++) {
+                OkHttpProxyDispatcher.HttpResult result = dispatcher.execute("GET", baseUrl + "/odds", null, new HashMap<>(), config, false);
+                assertEquals("ok", result.getBody());
+            }
+
+            // 三次请求只做一次 SOCKS5 握手，后两次复用连接池中的隧道
+            assertEquals(1, socks.handshakes.get());
+            JSONObject stats = dispatcher.getPoolStats();
+            assertEquals(1, stats.getInt("proxyClients"));
+            assertEquals(3, stats.getLong("acquired"));
+            assertEquals(1, stats.getLong("connected"));
+            assertEquals(2, stats.getLong("reused"));
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    void warmUpOpensConnectionInBackground() throws Exception {
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+
+        dispatcher.warmUp(config, baseUrl);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (dispatcher.getPoolStats().getLong("connected") == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, dispatcher.getPoolStats().getLong("connected"));
+    }
+
+    @Test
+    void staleKeepAliveConnectionIsRetriedOnAFreshOne() throws Exception {
+        // 每个连接只应答一次，下一个请求到达时直接断开，模拟被对端空闲断开的 keep-alive 连接
+        AtomicInteger connections = new AtomicInteger();
+        try (ServerSocket origin = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> {
+                while (!origin.isClosed()) {
+                    try (Socket socket = origin.accept()) {
+                        connections.incrementAndGet();
+                        InputStream in = socket.getInputStream();
+                        readHead(in);
+                        socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: 2\r\n\r\nok"
+                                .getBytes(StandardCharsets.US_ASCII));
+                        readHead(in);
+                    } catch (IOException e) {
+                        // 关闭
+                    }
+                }
+            }, "one-shot-origin");
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+            ConfigAccountVO config = new ConfigAccountVO();
+            config.setProxyType(0);
+            String url = "http://127.0.0.1:" + origin.getLocalPort() + "/odds";
+            assertEquals("ok", dispatcher.execute("GET", url, null, new HashMap<>(), config, false).getBody());
+
+            long start = System.currentTimeMillis();
+            assertEquals("ok", dispatcher.execute("GET", url, null, new HashMap<>(), config, false).getBody());
+            // 在拦截器里换新连接重试，没有走计入代理失败、间隔 1.2s 的重试
+            assertTrue(System.currentTimeMillis() - start < 1000);
+            assertEquals(2, connections.get());
+            dispatcher.destroy();
+        }
+    }
+
+    /**
+     * 读完一个请求头，连接关闭时抛出 EOFException
+     */
+    private static void readHead(InputStream in) throws IOException {
+        int matched = 0;
+        while (matched < 4) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            matched = (b == (matched % 2 == 0 ? '\r' : '\n')) ? matched + 1 : (b == '\r' ? 1 : 0);
+        }
+    }
+
+    /**
+     * 本地 SOCKS5 代理（用户名/密码认证，只支持 CONNECT IPv4），握手后双向转发
+     */
+    private static class Socks5StandIn implements AutoCloseable {
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        private final AtomicInteger handshakes = new AtomicInteger();
+        private final String username;
+        private final String password;
+
+        Socks5StandIn(String username, String password) throws IOException {
+            this.username = username;
+            this.password = password;
+            Thread acceptor = new Thread(this::acceptLoop, "socks5-stand-in");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int port() {
+            return serverSocket.getLocalPort();
+        }
+
+        private void acceptLoop() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket client = serverSocket.accept();
+                    Thread handler = new Thread(() -> handle(client), "socks5-stand-in-conn");
+                    handler.setDaemon(true);
+                    handler.start();
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket client) {
+            try (client) {
+                DataInputStream in = new DataInputStream(client.getInputStream());
+                OutputStream out = client.getOutputStream();
+                // 协商：只接受用户名/密码认证
+                in.readUnsignedByte();
+                in.readFully(new byte[in.readUnsignedByte()]);
+                out.write(new byte[]{0x05, 0x02});
+                in.readUnsignedByte();
+                String user = new String(in.readNBytes(in.readUnsignedByte()), StandardCharsets.UTF_8);
+                String pass = new String(in.readNBytes(in.readUnsignedByte()), StandardCharsets.UTF_8);
+                boolean authorized = username.equals(user) && password.equals(pass);
+                out.write(new byte[]{0x01, (byte) (authorized ? 0x00 : 0x01)});
+                if (!authorized) {
+                    return;
+                }
+                // CONNECT
+                in.readFully(new byte[4]);
+                byte[] address = in.readNBytes(4);
+                int port = in.readUnsignedShort();
+                try (Socket upstream = new Socket(InetAddress.getByAddress(address), port)) {
+                    out.write(new byte[]{0x05, 0x00, 0x00, 0x01, 0, 0, 0, 0, 0, 0});
+                    out.flush();
+                    handshakes.incrementAndGet();
+                    Thread pump = new Thread(() -> copy(upstream, client), "socks5-stand-in-pump");
+                    pump.setDaemon(true);
+                    pump.start();
+                    copy(client, upstream);
+                }
+            } catch (IOException ignored) {
+                // 客户端已断开
+            }
+        }
+
+        private static void copy(Socket from, Socket to) {
+            try {
+                InputStream in = from.getInputStream();
+                OutputStream out = to.getOutputStream();
+                in.transferTo(out);
+                to.shutdownOutput();
+            } catch (IOException ignored) {
+                // 对端已关闭
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+}
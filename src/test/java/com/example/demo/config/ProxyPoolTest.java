@@ -0,0 +1,434 @@
+package com.example.demo.config;
+
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 代理池：后台拉取并验证代理，按建连耗时打分分配，请求线程不等代理商接口，过期前换新
+ */
+class ProxyPoolTest {
+
+    private static final long LIFE_MS = 240_000;
+    private static final long REFRESH_BEFORE_MS = 60_000;
+
+    /** 本地代理商：每次返回队列中的下一个 host:port，队列空了返回 500 */
+    private HttpServer provider;
+    private final Queue<String> providerQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger providerCalls = new AtomicInteger();
+    private volatile long providerDelayMs;
+
+    /** 本地代理：按名称返回响应体，顺便充当 HTTP 代理 */
+    private final List<HttpServer> proxies = new ArrayList<>();
+    /** 测试指定的建连耗时(毫秒)，未指定的端口真实建连 */
+    private final Map<Integer, Long> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private ProxyPool pool;
+
+    private static final String NODELAY = "sun.net.httpserver.nodelay";
+    private static String nodelayBefore;
+
+    @BeforeAll
+    static void disableNagle() {
+        // 关闭 Nagle，避免响应头和响应体分包时本地请求多等一次延迟确认
+        nodelayBefore = System.setProperty(NODELAY, "true");
+    }
+
+    @AfterAll
+    static void restoreNagle() {
+        if (nodelayBefore == null) {
+            System.clearProperty(NODELAY);
+        } else {
+            System.setProperty(NODELAY, nodelayBefore);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        provider = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        provider.createContext("/ip", exchange -> {
+            providerCalls.incrementAndGet();
+            sleep(providerDelayMs);
+            String next = providerQueue.poll();
+            respond(exchange, next != null ? 200 : 500, next != null ? next : "no ip");
+        });
+        provider.start();
+
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        pool = new ProxyPool();
+        ReflectionTestUtils.setField(pool, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(pool, "providerUrl", "http://127.0.0.1:" + provider.getAddress().getPort() + "/ip");
+        ReflectionTestUtils.setField(pool, "size", 2);
+        ReflectionTestUtils.setField(pool, "clock", (LongSupplier) now::get);
+        @SuppressWarnings("unchecked")
+        ToLongFunction<ProxyPool.PooledProxy> connect = (ToLongFunction<ProxyPool.PooledProxy>) ReflectionTestUtils.getField(pool, "prober");
+        ReflectionTestUtils.setField(pool, "prober", (ToLongFunction<ProxyPool.PooledProxy>) proxy -> {
+            Long latency = latencies.get(proxy.port());
+            return latency != null ? latency : connect.applyAsLong(proxy);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.destroy();
+        provider.stop(0);
+        proxies.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void prefetchDropsProxiesThatCannotConnect() throws Exception {
+        int dead = deadPort();
+        int first = startProxy("first");
+        int second = startProxy("second");
+        offer(dead, first, second);
+
+        pool.maintain();
+
+        assertEquals(2, pool.idleCount());
+        assertEquals(3, providerCalls.get());
+        assertEquals(1.0, registry.get(SweepMetrics.PROXY_FETCH_METER).tag("result", ProxyPool.INVALID).counter().count());
+        assertEquals(2.0, registry.get(SweepMetrics.PROXY_FETCH_METER).tag("result", ProxyPool.OK).counter().count());
+        List<Integer> handedOut = List.of(pool.acquire("1:a", false).port(), pool.acquire("1:b", false).port());
+        assertTrue(handedOut.containsAll(List.of(first, second)), handedOut.toString());
+    }
+
+    @Test
+    void fastestProxyIsHandedOutAndKeptPerAccount() throws Exception {
+        int slow = startProxy("slow");
+        int fast = startProxy("fast");
+        latencies.put(slow, 80L);
+        latencies.put(fast, 5L);
+        offer(slow, fast);
+        pool.maintain();
+
+        int calls = providerCalls.get();
+        ProxyPool.Lease lease = pool.acquire("1:a", false);
+        assertEquals(fast, lease.port());
+        assertEquals(now.get() + LIFE_MS, lease.expireTime());
+        assertEquals(lease.expireTime() - REFRESH_BEFORE_MS, lease.refreshAt());
+        // 同一账号继续用同一个代理，其它账号拿下一个
+        assertEquals(fast, pool.acquire("1:a", false).port());
+        assertEquals(slow, pool.acquire("1:b", false).port());
+        assertNull(pool.acquire("1:c", false));
+        // 取代理不调代理商
+        assertEquals(calls, providerCalls.get());
+        assertEquals(2, pool.assignedCount());
+    }
+
+    @Test
+    void proxiesFailingRecheckAreReplaced() throws Exception {
+        int flaky = startProxy("flaky");
+        int steady = startProxy("steady");
+        latencies.put(flaky, 5L);
+        latencies.put(steady, 20L);
+        offer(flaky, steady);
+        pool.maintain();
+
+        // 复测：flaky 建连失败被剔除，补一个新的
+        int spare = startProxy("spare");
+        latencies.put(flaky, -1L);
+        latencies.put(spare, 40L);
+        offer(spare);
+        pool.maintain();
+
+        assertEquals(2, pool.idleCount());
+        assertEquals(steady, pool.acquire("1:a", false).port());
+        assertEquals(spare, pool.acquire("1:b", false).port());
+    }
+
+    @Test
+    void emptyPoolReturnsImmediatelyAndRefillsInBackground() throws Exception {
+        offer(startProxy("first"), startProxy("second"));
+        providerDelayMs = 200;
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "checkMs", 60_000L);
+        pool.afterPropertiesSet();
+
+        long start = System.nanoTime();
+        assertNull(pool.acquire("1:a", false));
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(costMs < 100, "耗时 " + costMs + "ms");
+
+        awaitIdle(2);
+        assertNotNull(pool.acquire("1:a", false));
+        assertEquals(1.0, registry.get(SweepMetrics.PROXY_POOL_METER).tag("state", ProxyPool.ASSIGNED).gauge().value());
+        // 取走一个后后台补足
+        offer(startProxy("third"));
+        awaitIdle(2);
+    }
+
+    @Test
+    void providerFailuresBackOffInsteadOfStorming() throws Exception {
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        ReflectionTestUtils.setField(pool, "checkMs", 10_000L);
+        pool.afterPropertiesSet();
+        // 启动时的补充拉取失败，本轮不再重试
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) ReflectionTestUtils.getField(pool, "fetchBackoffUntil") == 0 && System.currentTimeMillis() < deadline) {
+            sleep(10);
+        }
+        assertEquals(1, providerCalls.get());
+
+        // 退避期内空池取代理、定时检查都不请求代理商
+        for (int i = 0; i < 5; i++) {
+            assertNull(pool.acquire("1:a", false));
+        }
+        pool.maintain();
+        sleep(200);
+        assertEquals(1, providerCalls.get());
+
+        // 退避到期后再拉一次，仍失败则退避翻倍
+        now.addAndGet(10_000);
+        pool.maintain();
+        assertEquals(2, providerCalls.get());
+        assertEquals(now.get() + 20_000, (long) ReflectionTestUtils.getField(pool, "fetchBackoffUntil"));
+
+        // 代理商恢复后正常补足
+        offer(startProxy("first"), startProxy("second"));
+        now.addAndGet(20_000);
+        pool.maintain();
+        assertEquals(2, pool.idleCount());
+    }
+
+    @Test
+    void leasesRotateBeforeExpiry() throws Exception {
+        int first = startProxy("first");
+        int second = startProxy("second");
+        int third = startProxy("third");
+        latencies.put(first, 5L);
+        latencies.put(second, 10L);
+        latencies.put(third, 10L);
+        ReflectionTestUtils.setField(pool, "size", 1);
+        offer(first);
+        pool.maintain();
+        assertEquals(first, pool.acquire("1:a", false).port());
+
+        // 下个检查周期内要换新的账号，提前多备一个
+        offer(second, third);
+        now.addAndGet(LIFE_MS - REFRESH_BEFORE_MS - 1000);
+        pool.maintain();
+        assertEquals(2, pool.idleCount());
+        assertEquals(first, pool.acquire("1:a", false).port());
+
+        int calls = providerCalls.get();
+        now.addAndGet(1000);
+        ProxyPool.Lease rotated = pool.acquire("1:a", false);
+        assertNotEquals(first, rotated.port());
+        assertTrue(rotated.refreshAt() > now.get());
+        assertEquals(calls, providerCalls.get());
+    }
+
+    @Test
+    void replaceDropsTheFailedProxy() throws Exception {
+        int first = startProxy("first");
+        int second = startProxy("second");
+        latencies.put(first, 5L);
+        latencies.put(second, 10L);
+        offer(first, second);
+        pool.maintain();
+
+        assertEquals(first, pool.acquire("1:a", false).port());
+        assertEquals(second, pool.acquire("1:a", true).port());
+        // 换下来的代理不放回池中
+        assertEquals(0, pool.idleCount());
+        assertNull(pool.acquire("1:b", false));
+    }
+
+    @Test
+    void dueLeaseIsKeptUntilAReplacementArrives() throws Exception {
+        int first = startProxy("first");
+        ReflectionTestUtils.setField(pool, "size", 1);
+        offer(first);
+        pool.maintain();
+        assertEquals(first, pool.acquire("1:a", false).port());
+
+        // 到了换新时间但池中没有空闲代理：继续用当前代理
+        now.addAndGet(LIFE_MS - REFRESH_BEFORE_MS);
+        assertEquals(first, pool.acquire("1:a", false).port());
+        assertEquals(1, pool.assignedCount());
+
+        // 补到新代理后再换
+        int second = startProxy("second");
+        offer(second);
+        pool.maintain();
+        assertEquals(second, pool.acquire("1:a", false).port());
+
+        // 彻底过期且没有可换的代理
+        now.addAndGet(LIFE_MS);
+        assertNull(pool.acquire("1:a", false));
+        assertEquals(0, pool.assignedCount());
+    }
+
+    @Test
+    void reportedFailuresOutliveSwapOut() throws Exception {
+        int fast = startProxy("fast");
+        int slow = startProxy("slow");
+        latencies.put(fast, 5L);
+        latencies.put(slow, 10L);
+        offer(fast, slow);
+        pool.maintain();
+
+        assertEquals(fast, pool.acquire("1:a", false).port());
+        for (int i = 0; i < 3; i++) {
+            pool.report("127.0.0.1", fast, false);
+        }
+        // 请求失败换下
+        assertEquals(slow, pool.acquire("1:a", true).port());
+        assertEquals(3, pool.failureCount("127.0.0.1", fast));
+
+        // 代理商再次下发同一 IP，沿用失败统计，分数排在建连更慢的代理之后
+        int slower = startProxy("slower");
+        latencies.put(slower, 15L);
+        offer(fast, slower);
+        pool.maintain();
+        assertEquals(slower, pool.acquire("1:b", false).port());
+        assertEquals(fast, pool.acquire("1:c", false).port());
+    }
+
+    /**
+     * 经代理池代理发出的请求，成败回报给代理池
+     */
+    @Test
+    void dispatcherReportsRequestOutcomes() throws Exception {
+        int broken = startProxy("broken");
+        int steady = startProxy("steady");
+        latencies.put(broken, 5L);
+        latencies.put(steady, 10L);
+        offer(broken, steady);
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        pool.maintain();
+        // 入池后代理下线，请求建连失败
+        proxies.get(0).stop(0);
+
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "proxyPool", pool);
+        try {
+            ConfigAccountVO config = new ConfigAccountVO();
+            config.setProxyType(3);
+            config.setWebsiteId("1");
+            config.setAccount("a");
+            OkHttpProxyDispatcher.HttpResult result = dispatcher.execute("GET", "http://bookmaker.test/odds", null, new HashMap<>(), config, false);
+            assertEquals("steady", result.getBody());
+            assertEquals(steady, config.getProxyPort());
+            assertTrue(pool.failureCount("127.0.0.1", broken) >= 1);
+            assertEquals(0, pool.failureCount("127.0.0.1", steady));
+        } finally {
+            dispatcher.destroy();
+        }
+    }
+
+    /**
+     * 自动代理账号通过代理池分配的最快代理发出请求，请求路径上不调代理商
+     */
+    @Test
+    void dispatcherSendsAutoProxyRequestsThroughThePool() throws Exception {
+        int slow = startProxy("slow");
+        int fast = startProxy("fast");
+        latencies.put(slow, 80L);
+        latencies.put(fast, 5L);
+        offer(slow, fast);
+        ReflectionTestUtils.setField(pool, "enabled", true);
+        pool.maintain();
+        int calls = providerCalls.get();
+
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(dispatcher, "proxyPool", pool);
+        try {
+            ConfigAccountVO config = new ConfigAccountVO();
+            config.setProxyType(3);
+            config.setWebsiteId("1");
+            config.setAccount("a");
+            for (int i = 0; i < 3; i++) {
+                OkHttpProxyDispatcher.HttpResult result = dispatcher.execute("GET", "http://bookmaker.test/odds", null, new HashMap<>(), config, false);
+                assertEquals("fast", result.getBody());
+            }
+            assertEquals(fast, config.getProxyPort());
+            assertEquals(calls, providerCalls.get());
+        } finally {
+            dispatcher.destroy();
+        }
+    }
+
+    private int startProxy(String name) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> respond(exchange, 200, name));
+        server.start();
+        proxies.add(server);
+        return server.getAddress().getPort();
+    }
+
+    private static int deadPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void offer(int... ports) {
+        for (int port : ports) {
+            providerQueue.add("127.0.0.1:" + port);
+        }
+    }
+
+    private void awaitIdle(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (pool.idleCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, pool.idleCount());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) {
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException ignored) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
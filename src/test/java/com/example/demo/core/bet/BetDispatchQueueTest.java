@@ -0,0 +1,159 @@
+package com.example.demo.core.bet;
+
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 投注派发顺序、截止时间丢弃、队列满淘汰
+ */
+class BetDispatchQueueTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<BetDispatchQueue> queues = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        queues.forEach(BetDispatchQueue::destroy);
+    }
+
+    @Test
+    void expiredOpportunitiesAreDroppedNotSent() throws Exception {
+        BetDispatchQueue queue = queue(1, 100, 50, "priority");
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        queue.submit("u1", dto("busy"), 30, () -> await(release));
+        waitUntil(() -> queue.size() == 0);
+        for (int i = 0; i < 3; i++) {
+            String id = "late" + i;
+            queue.submit("u1", dto(id), 40, () -> sent.add(id));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        waitUntil(() -> queue.getExpired() == 3);
+        assertEquals(List.of(), sent);
+        assertEquals(1, queue.getDispatched());
+        assertEquals(3.0, registry.get(BetDispatchQueue.DROPPED_METER).tag("reason", "expired").counter().count());
+    }
+
+    @Test
+    void fullQueueEvictsLowestWater() throws Exception {
+        BetDispatchQueue queue = queue(1, 3, 10_000, "priority");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> sent = Collections.synchronizedList(new ArrayList<>());
+        queue.submit("u1", dto("busy"), 0, () -> await(release));
+        waitUntil(() -> queue.size() == 0);
+        for (long water : new long[]{10, 20, 30, 5, 40}) {
+            queue.submit("u1", dto("w" + water), water, () -> sent.add(water));
+        }
+        assertEquals(2, queue.getEvicted());
+        release.countDown();
+
+        waitUntil(() -> sent.size() == 3);
+        assertEquals(List.of(40L, 30L, 20L), sent);
+    }
+
+    /**
+     * 突发：400 个机会同时命中，4 个派发线程，每次投注 3ms
+     * 水位前 10% 的机会，按优先级派发的平均等待应远小于按命中顺序派发
+     */
+    @Test
+    void highWaterWaitsLessDuringBurst() throws Exception {
+        double fifo = topDecileWaitMs("fifo");
+        double priority = topDecileWaitMs("priority");
+        assertTrue(priority * 3 < fifo, "priority=" + priority + "ms, fifo=" + fifo + "ms");
+    }
+
+    private double topDecileWaitMs(String ordering) throws Exception {
+        BetDispatchQueue queue = queue(4, 1000, 60_000, ordering);
+        Random random = new Random(7);
+        int count = 400;
+        long[] water = new long[count];
+        long[] submitted = new long[count];
+        long[] started = new long[count];
+        CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            water[i] = random.nextInt(40);
+            submitted[i] = System.nanoTime();
+            queue.submit("u1", dto("o" + i), water[i], () -> {
+                started[index] = System.nanoTime();
+                sleep(3);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        long threshold = Arrays.stream(water).sorted().toArray()[count * 9 / 10];
+        double total = 0;
+        int top = 0;
+        for (int i = 0; i < count; i++) {
+            if (water[i] >= threshold) {
+                total += TimeUnit.NANOSECONDS.toMicros(started[i] - submitted[i]) / 1000.0;
+                top++;
+            }
+        }
+        return total / top;
+    }
+
+    private BetDispatchQueue queue(int workers, int capacity, long deadlineMs, String ordering) {
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        BetDispatchQueue queue = new BetDispatchQueue();
+        ReflectionTestUtils.setField(queue, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(queue, "meterRegistry", registry);
+        ReflectionTestUtils.setField(queue, "workers", workers);
+        ReflectionTestUtils.setField(queue, "capacity", capacity);
+        ReflectionTestUtils.setField(queue, "deadlineMs", deadlineMs);
+        ReflectionTestUtils.setField(queue, "ordering", ordering);
+        queue.afterPropertiesSet();
+        queues.add(queue);
+        return queue;
+    }
+
+    private static SweepwaterDTO dto(String id) {
+        SweepwaterDTO dto = new SweepwaterDTO();
+        dto.setId(id);
+        return dto;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "等待超时");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.core.bet;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.example.demo.common.enmu.WebsiteType;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.dto.sweepwater.SweepwaterDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 投注前赔率年龄：按拉取时的单调时钟判断过期，并按网站记录年龄分布
+ */
+class OddsAgeGuardTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OddsAgeGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        guard = new OddsAgeGuard();
+        ReflectionTestUtils.setField(guard, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(guard, "maxAgeMs", 1000L);
+    }
+
+    @Test
+    void staleLegRejectsTheBet() {
+        long now = System.nanoTime();
+        SweepwaterDTO dto = dto(now - TimeUnit.MILLISECONDS.toNanos(100), now - TimeUnit.MILLISECONDS.toNanos(1500));
+
+        assertFalse(guard.isFresh("u1", dto));
+        assertEquals(1.0, registry.get(SweepMetrics.ODDS_STALE_METER).tag("website", "xinbao").counter().count());
+        assertTrue(registry.find(SweepMetrics.ODDS_STALE_METER).tag("website", "pingbo").counters().isEmpty());
+        // 两边的年龄都记录
+        assertEquals(1, registry.get(SweepMetrics.ODDS_AGE_METER).tag("website", "pingbo").timer().count());
+        assertTrue(registry.get(SweepMetrics.ODDS_AGE_METER).tag("website", "xinbao").timer().max(TimeUnit.MILLISECONDS) >= 1500);
+    }
+
+    @Test
+    void freshOddsAndUnstampedDtosPass() {
+        long now = System.nanoTime();
+        assertTrue(guard.isFresh("u1", dto(now - TimeUnit.MILLISECONDS.toNanos(100), now - TimeUnit.MILLISECONDS.toNanos(900))));
+        // 手动投注等没有拉取时间戳的不检查
+        assertTrue(guard.isFresh("u1", dto(0, 0)));
+        assertEquals(1, registry.get(SweepMetrics.ODDS_AGE_METER).tag("website", "pingbo").timer().count());
+
+        ReflectionTestUtils.setField(guard, "maxAgeMs", 0L);
+        assertTrue(guard.isFresh("u1", dto(now - TimeUnit.SECONDS.toNanos(60), now)));
+        assertTrue(registry.find(SweepMetrics.ODDS_STALE_METER).counters().isEmpty());
+    }
+
+    @Test
+    void monotonicStampIsNotPersisted() {
+        SweepwaterDTO dto = dto(System.nanoTime(), System.nanoTime());
+        dto.setOddsServerTimeA(1760000000000L);
+        JSONObject json = JSONUtil.parseObj(JSONUtil.toJsonStr(dto));
+        // 单调时钟只在本进程有意义，不写入 Redis；服务器时间保留用于排查
+        assertFalse(json.containsKey("oddsFetchedNanosA"));
+        assertEquals(1760000000000L, json.getLong("oddsServerTimeA"));
+    }
+
+    private static SweepwaterDTO dto(long fetchedNanosA, long fetchedNanosB) {
+        SweepwaterDTO dto = new SweepwaterDTO();
+        dto.setId("s1");
+        dto.setWebsiteIdA(WebsiteType.PINGBO.getId());
+        dto.setWebsiteIdB(WebsiteType.XINBAO.getId());
+        dto.setOddsFetchedNanosA(fetchedNanosA);
+        dto.setOddsFetchedNanosB(fetchedNanosB);
+        return dto;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.core.cluster;
+
+import org.redisson.api.RBatch;
+import org.redisson.api.RBucketAsync;
+import org.redisson.api.RScoredSortedSet;
+import org.redisson.api.RedissonClient;
+import org.redisson.misc.CompletableFutureWrapper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 多个实例共享的内存版 Redis：节点表（zset）和带过期时间的租约（bucket），批量操作按整批原子执行
+ */
+class FakeClusterRedis {
+
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    private record Bucket(Object value, long expireAt) {
+    }
+
+    /**
+     * 每个实例一个客户端，共享同一份数据
+     */
+    RedissonClient client() {
+        RedissonClient client = mock(RedissonClient.class);
+        when(client.getScoredSortedSet(anyString())).thenAnswer(inv -> zset(inv.getArgument(0)));
+        when(client.createBatch()).thenAnswer(inv -> batch());
+        return client;
+    }
+
+    synchronized Object get(String key) {
+        Bucket bucket = buckets.get(key);
+        if (bucket == null || bucket.expireAt <= System.currentTimeMillis()) {
+            buckets.remove(key);
+            return null;
+        }
+        return bucket.value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RScoredSortedSet<String> zset(String key) {
+        RScoredSortedSet<String> zset = mock(RScoredSortedSet.class);
+        when(zset.add(anyDouble(), anyString())).thenAnswer(inv -> {
+            synchronized (this) {
+                return zsets.computeIfAbsent(key, k -> new HashMap<>()).put(inv.getArgument(1), inv.getArgument(0)) == null;
+            }
+        });
+        when(zset.removeRangeByScore(anyDouble(), anyBoolean(), anyDouble(), anyBoolean())).thenAnswer(inv -> {
+            double to = inv.getArgument(2);
+            synchronized (this) {
+                Map<String, Double> members = zsets.getOrDefault(key, new HashMap<>());
+                int size = members.size();
+                members.values().removeIf(score -> score < to);
+                return size - members.size();
+            }
+        });
+        when(zset.readAll()).thenAnswer(inv -> {
+            synchronized (this) {
+                return new ArrayList<>(zsets.getOrDefault(key, new HashMap<>()).keySet());
+            }
+        });
+        when(zset.remove(any())).thenAnswer(inv -> {
+            synchronized (this) {
+                return zsets.getOrDefault(key, new HashMap<>()).remove(inv.<String>getArgument(0)) != null;
+            }
+        });
+        return zset;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RBatch batch() {
+        List<Runnable> ops = new ArrayList<>();
+        RBatch batch = mock(RBatch.class);
+        when(batch.getBucket(anyString())).thenAnswer(inv -> {
+            String key = inv.getArgument(0);
+            RBucketAsync<Object> bucket = mock(RBucketAsync.class);
+            when(bucket.setAsync(any(), anyLong(), any(TimeUnit.class))).thenAnswer(set -> queue(ops, () -> {
+                buckets.put(key, new Bucket(set.getArgument(0),
+                        System.currentTimeMillis() + set.<TimeUnit>getArgument(2).toMillis(set.getArgument(1))));
+                return null;
+            }));
+            when(bucket.setIfAbsentAsync(any(), any(Duration.class))).thenAnswer(set -> queue(ops, () -> {
+                if (get(key) != null) {
+                    return false;
+                }
+                buckets.put(key, new Bucket(set.getArgument(0), System.currentTimeMillis() + set.<Duration>getArgument(1).toMillis()));
+                return true;
+            }));
+            when(bucket.deleteAsync()).thenAnswer(del -> queue(ops, () -> buckets.remove(key) != null));
+            return bucket;
+        });
+        when(batch.execute()).thenAnswer(inv -> {
+            synchronized (this) {
+                ops.forEach(Runnable::run);
+            }
+            return null;
+        });
+        return batch;
+    }
+
+    private static <T> CompletableFutureWrapper<T> queue(List<Runnable> ops, Supplier<T> op) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ops.add(() -> future.complete(op.get()));
+        return new CompletableFutureWrapper<>(future);
+    }
+}
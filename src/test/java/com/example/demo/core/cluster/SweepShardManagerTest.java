@@ -0,0 +1,178 @@
+package com.example.demo.core.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 多个实例（各自一个 Spring 容器）共享同一个 Redis：节点加入/离开时用户交接，任何时刻同一用户只有一个实例在扫
+ */
+class SweepShardManagerTest {
+
+    private static final List<String> USERS = IntStream.range(0, 200).mapToObj(i -> "user" + i).toList();
+
+    private final FakeClusterRedis redis = new FakeClusterRedis();
+    private final Map<String, String> sweeping = new ConcurrentHashMap<>();
+    private final AtomicInteger violations = new AtomicInteger();
+    private final List<Node> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        nodes.forEach(Node::close);
+    }
+
+    @Test
+    void handsOverUsersWithoutDoubleSweeping() throws Exception {
+        Node a = start("a");
+        Node b = start("b");
+        Node c = start("c");
+        awaitStable(a, b, c);
+
+        // 扩容
+        Node d = start("d");
+        awaitStable(a, b, c, d);
+
+        // 缩容：d 正常退出，b 宕机（不释放租约、不再心跳）
+        d.close();
+        b.crash();
+        awaitStable(a, c);
+
+        assertEquals(0, violations.get());
+    }
+
+    @Test
+    void disabledManagerSweepsEveryUser() {
+        SweepShardManager manager = new SweepShardManager();
+        manager.afterPropertiesSet();
+        assertTrue(USERS.stream().allMatch(manager::tryBegin));
+    }
+
+    /**
+     * 等到每个用户都只被环上的所属实例扫过
+     */
+    private void awaitStable(Node... alive) throws InterruptedException {
+        Set<String> names = Set.of(alive).stream().map(node -> node.name).collect(Collectors.toSet());
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            if (Set.of(alive).stream().allMatch(node -> node.manager.getRing().getNodes().equals(names))) {
+                Set.of(alive).forEach(node -> node.swept.clear());
+                Thread.sleep(300);
+                Map<String, String> owners = new ConcurrentHashMap<>();
+                boolean stable = true;
+                for (Node node : alive) {
+                    for (String user : node.swept) {
+                        stable &= owners.putIfAbsent(user, node.name) == null
+                                && node.name.equals(node.manager.getRing().nodeFor(user));
+                    }
+                }
+                if (stable && owners.size() == USERS.size()) {
+                    return;
+                }
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "用户未在限定时间内完成交接");
+            Thread.sleep(50);
+        }
+    }
+
+    private Node start(String name) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("cluster", Map.of(
+                "sweepwater.cluster.enabled", "true",
+                "sweepwater.cluster.node-id", name,
+                "sweepwater.cluster.heartbeat-ms", "50",
+                "sweepwater.cluster.node-ttl-ms", "1000",
+                "sweepwater.cluster.lease-ms", "1500")));
+        context.registerBean("businessPlatformRedissonClient", RedissonClient.class, redis::client);
+        context.registerBean(SweepShardManager.class);
+        context.refresh();
+        Node node = new Node(name, context);
+        nodes.add(node);
+        node.sweeper.start();
+        return node;
+    }
+
+    private final class Node {
+        private final String name;
+        private final AnnotationConfigApplicationContext context;
+        private final SweepShardManager manager;
+        private final Set<String> swept = ConcurrentHashMap.newKeySet();
+        private final Thread sweeper;
+        private volatile boolean running = true;
+
+        private Node(String name, AnnotationConfigApplicationContext context) {
+            this.name = name;
+            this.context = context;
+            this.manager = context.getBean(SweepShardManager.class);
+            this.sweeper = new Thread(this::sweep, "sweeper-" + name);
+        }
+
+        /**
+         * 与 AutoSweepwaterTask 一样：每轮筛出本实例可扫的用户，逐个扫完后结束
+         */
+        private void sweep() {
+            while (running) {
+                List<String> mine = USERS.stream().filter(manager::tryBegin).toList();
+                for (String user : mine) {
+                    try {
+                        String other = sweeping.putIfAbsent(user, name);
+                        if (other != null) {
+                            violations.incrementAndGet();
+                        } else {
+                            swept.add(user);
+                            // 扫水耗时
+                            Thread.sleep(1);
+                            sweeping.remove(user, name);
+                        }
+                    } catch (InterruptedException e) {
+                        return;
+                    } finally {
+                        manager.end(user);
+                    }
+                }
+            }
+        }
+
+        private void stopSweeping() {
+            running = false;
+            try {
+                sweeper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void close() {
+            stopSweeping();
+            if (context.isActive()) {
+                context.close();
+            }
+        }
+
+        /**
+         * 模拟宕机：停止扫水和心跳，但不释放租约也不退出节点表
+         */
+        private void crash() throws Exception {
+            stopSweeping();
+            ScheduledExecutorService heartbeat = (ScheduledExecutorService) ReflectionTestUtils.getField(manager, "heartbeat");
+            heartbeat.shutdownNow();
+            heartbeat.awaitTermination(1, TimeUnit.SECONDS);
+        }
+    }
+}
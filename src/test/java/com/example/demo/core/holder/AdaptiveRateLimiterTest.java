@@ -0,0 +1,314 @@
+package com.example.demo.core.holder;
+
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 自适应限速：429 后乘性降速、加性恢复，账号熔断后换账号，拿不到许可立即返回
+ */
+class AdaptiveRateLimiterTest {
+
+    private static final String WEBSITE = "1";
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private AdaptiveRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        limiter = new AdaptiveRateLimiter();
+        ReflectionTestUtils.setField(limiter, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(limiter, "clock", (LongSupplier) now::get);
+    }
+
+    @Test
+    void unlimitedUntilThrottledThenHalvesObservedRate() {
+        for (int i = 0; i < 30; i++) {
+            assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        }
+        assertEquals(0, limiter.accountRate(WEBSITE, "a"));
+
+        limiter.onThrottled(WEBSITE, "a");
+        // 最近 1 秒发了 30 个请求，降为一半
+        assertEquals(15, limiter.accountRate(WEBSITE, "a"), 0.01);
+        assertEquals(0, limiter.websiteRate(WEBSITE));
+        // 熔断期间直接拒绝，其它账号不受影响
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+        assertTrue(limiter.tryAcquire(WEBSITE, "b"));
+        assertEquals(1.0, registry.get(SweepMetrics.UPSTREAM_REJECTED_METER).tag("reason", AdaptiveRateLimiter.OPEN).counter().count());
+        assertEquals(1.0, registry.get(SweepMetrics.UPSTREAM_METER).tag("result", AdaptiveRateLimiter.THROTTLED).counter().count());
+    }
+
+    @Test
+    void halfOpenLetsOneProbeThroughAndRecoversAdditively() {
+        throttle("a", 20);
+        assertEquals(10, limiter.accountRate(WEBSITE, "a"), 0.01);
+
+        advance(1000);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        // 探测请求还没回来，不再放行
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+        // 降速 1 秒后按每秒 1 次恢复
+        assertEquals(11, limiter.accountRate(WEBSITE, "a"), 0.01);
+
+        limiter.onSuccess(WEBSITE, "a", TimeUnit.MILLISECONDS.toNanos(50));
+        int passed = 0;
+        while (limiter.tryAcquire(WEBSITE, "a")) {
+            passed++;
+        }
+        // 桶里攒了 1 秒的令牌，用完后按速率限速
+        assertEquals(9, passed);
+
+        advance(500);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        assertEquals(11.5, limiter.accountRate(WEBSITE, "a"), 0.01);
+    }
+
+    @Test
+    void unusedPermitReturnsTokenAndProbe() {
+        throttle("a", 20);
+        advance(1000);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        // 并发已满没有发出请求：探测名额退回，下一个请求可以探测
+        limiter.release(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        // 探测请求被取消：名额退回
+        limiter.onCancelled(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+
+        limiter.onSuccess(WEBSITE, "a", TimeUnit.MILLISECONDS.toNanos(50));
+        while (limiter.tryAcquire(WEBSITE, "a")) {
+            // 用完令牌
+        }
+        limiter.onCancelled(WEBSITE, "a");
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+        // 没有发出的请求退还令牌
+        limiter.release(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+    }
+
+    @Test
+    void consecutiveFailuresOpenTheBreakerWithBackoff() {
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        limiter.onFailure(WEBSITE, "a");
+        limiter.onFailure(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        limiter.onFailure(WEBSITE, "a");
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+
+        // 探测失败，熔断时长翻倍
+        advance(1000);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        limiter.onFailure(WEBSITE, "a");
+        advance(1500);
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+        advance(500);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        // 失败不降速，只熔断
+        assertEquals(0, limiter.accountRate(WEBSITE, "a"));
+    }
+
+    @Test
+    void businessRejectionsDoNotOpenTheBreaker() {
+        // token 过期等业务失败再多也不熔断
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+            limiter.onRejected(WEBSITE, "a");
+        }
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        assertEquals(10.0, registry.get(SweepMetrics.UPSTREAM_METER).tag("result", AdaptiveRateLimiter.REJECTED).counter().count());
+
+        // 半开状态下探测请求被业务拒绝：不再次熔断，探测名额退回
+        limiter.onFailure(WEBSITE, "a");
+        limiter.onFailure(WEBSITE, "a");
+        limiter.onFailure(WEBSITE, "a");
+        assertFalse(limiter.tryAcquire(WEBSITE, "a"));
+        advance(1000);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        limiter.onRejected(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+    }
+
+    @Test
+    void slowResponsesShrinkTheRateGently() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        }
+        limiter.onSuccess(WEBSITE, "a", TimeUnit.MILLISECONDS.toNanos(2500));
+        assertEquals(18, limiter.accountRate(WEBSITE, "a"), 0.01);
+        // 盘口整体变慢，网站一起降速
+        assertEquals(18, limiter.websiteRate(WEBSITE), 0.01);
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+    }
+
+    @Test
+    void disabledOnlyCounts() {
+        ReflectionTestUtils.setField(limiter, "enabled", false);
+        limiter.onThrottled(WEBSITE, "a");
+        assertTrue(limiter.tryAcquire(WEBSITE, "a"));
+        assertEquals(1.0, registry.get(SweepMetrics.UPSTREAM_METER).tag("result", AdaptiveRateLimiter.THROTTLED).counter().count());
+    }
+
+    /**
+     * 盘口每个账号每秒只允许 10 个请求，超出返回 429：不限速时大部分是 429，自适应限速后 429 明显减少且吞吐接近配额
+     */
+    @Test
+    void learnsTheQuotaOfAMockBookmaker() throws Exception {
+        int quota = 10;
+        Map<String, long[]> windows = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        ExecutorService serverExecutor = Executors.newFixedThreadPool(4);
+        server.setExecutor(serverExecutor);
+        server.createContext("/odds", exchange -> {
+            String account = exchange.getRequestURI().getQuery();
+            long second = System.currentTimeMillis() / 1000;
+            long[] window = windows.computeIfAbsent(account, k -> new long[2]);
+            boolean allowed;
+            synchronized (window) {
+                if (window[0] != second) {
+                    window[0] = second;
+                    window[1] = 0;
+                }
+                allowed = ++window[1] <= quota;
+            }
+            respond(exchange, allowed ? 200 : 429);
+        });
+        server.start();
+        OkHttpProxyDispatcher dispatcher = new OkHttpProxyDispatcher();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/odds?";
+        try {
+            ReflectionTestUtils.setField(limiter, "clock", (LongSupplier) System::nanoTime);
+            ReflectionTestUtils.setField(limiter, "increasePerSecond", 10.0);
+            ReflectionTestUtils.setField(limiter, "openMs", 100L);
+            List<String> accounts = List.of("a", "b");
+            long durationMs = 3000;
+
+            int[] plain = drive(dispatcher, url, accounts, durationMs, false);
+            // 等盘口的配额窗口重置，自适应阶段不继承上一阶段用掉的配额
+            Thread.sleep(1100);
+            int[] adaptive = drive(dispatcher, url, accounts, durationMs, true);
+
+            double plainThrottled = (double) plain[1] / (plain[0] + plain[1]);
+            double adaptiveThrottled = (double) adaptive[1] / (adaptive[0] + adaptive[1]);
+            assertTrue(plainThrottled > 0.5, "不限速 成功 " + plain[0] + " 429 " + plain[1]);
+            // 剩下的 429 主要是冷启动和每次试探时已经在途的请求
+            assertTrue(adaptiveThrottled * 2 < plainThrottled, "429 比例 " + adaptiveThrottled + "，不限速 " + plainThrottled);
+            // 两个账号 3 秒的配额是 60，自适应限速至少用上一半
+            assertTrue(adaptive[0] >= quota * accounts.size() * durationMs / 1000 / 2, "成功 " + adaptive[0]);
+            assertTrue(registry.get(SweepMetrics.UPSTREAM_METER).tag("result", AdaptiveRateLimiter.OK).counter().count() >= adaptive[0]);
+        } finally {
+            dispatcher.destroy();
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 4 个线程尽快发请求，两个账号轮流；拿不到许可时换账号，都拿不到时驱动线程稍等
+     * @return [成功数, 429 数]
+     */
+    private int[] drive(OkHttpProxyDispatcher dispatcher, String url, List<String> accounts, long durationMs, boolean adaptive) throws Exception {
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger throttled = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        long deadline = System.currentTimeMillis() + durationMs;
+        ExecutorService drivers = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(drivers.submit(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    String account = null;
+                    for (int i = 0; i < accounts.size(); i++) {
+                        String candidate = accounts.get(next.getAndIncrement() % accounts.size());
+                        if (!adaptive || limiter.tryAcquire(WEBSITE, candidate)) {
+                            account = candidate;
+                            break;
+                        }
+                    }
+                    if (account == null) {
+                        Thread.sleep(1);
+                        continue;
+                    }
+                    long start = System.nanoTime();
+                    int status = dispatcher.execute("GET", url + account, null, new HashMap<>(), direct(), false).getStatus();
+                    if (status == 429) {
+                        throttled.incrementAndGet();
+                        if (adaptive) {
+                            limiter.onThrottled(WEBSITE, account);
+                        }
+                    } else {
+                        ok.incrementAndGet();
+                        if (adaptive) {
+                            limiter.onSuccess(WEBSITE, account, System.nanoTime() - start);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(durationMs + 10000, TimeUnit.MILLISECONDS);
+        }
+        drivers.shutdownNow();
+        return new int[]{ok.get(), throttled.get()};
+    }
+
+    private void throttle(String account, int requests) {
+        for (int i = 0; i < requests; i++) {
+            assertTrue(limiter.tryAcquire(WEBSITE, account));
+        }
+        limiter.onThrottled(WEBSITE, account);
+    }
+
+    private void advance(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    private static void respond(HttpExchange exchange, int status) {
+        try {
+            byte[] body = ("{\"code\":" + status + "}").getBytes();
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException ignored) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ConfigAccountVO direct() {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        return config;
+    }
+}
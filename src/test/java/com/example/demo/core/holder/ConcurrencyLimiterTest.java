@@ -0,0 +1,109 @@
+package com.example.demo.core.holder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void unlimitedByDefault() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(0, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertNotNull(limiter.tryAcquire("1", "acc"));
+        }
+    }
+
+    @Test
+    void accountLimitIsPerAccount() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(0, 2);
+
+        ConcurrencyLimiter.Permit a1 = limiter.tryAcquire("1", "a");
+        ConcurrencyLimiter.Permit a2 = limiter.tryAcquire("1", "a");
+        assertNotNull(a1);
+        assertNotNull(a2);
+        assertNull(limiter.tryAcquire("1", "a"));
+        // 其它账号不受影响
+        assertNotNull(limiter.tryAcquire("1", "b"));
+
+        a1.close();
+        // 重复 close 不会多释放
+        a1.close();
+        assertNotNull(limiter.tryAcquire("1", "a"));
+        assertNull(limiter.tryAcquire("1", "a"));
+    }
+
+    @Test
+    void websiteLimitReleasesAccountPermitWhenFull() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1);
+
+        ConcurrencyLimiter.Permit held = limiter.tryAcquire("1", "a");
+        assertNotNull(held);
+        // 网站名额已满，账号 b 拿不到许可，且不能占着账号名额
+        assertNull(limiter.tryAcquire("1", "b"));
+        held.close();
+        assertNotNull(limiter.tryAcquire("1", "b"));
+    }
+
+    @Test
+    void inFlightNeverExceedsWebsitePermits() throws Exception {
+        int permits = 8;
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(permits, 0);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger acquired = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            Future<?>[] futures = new Future<?>[500];
+            for (int i = 0; i < futures.length; i++) {
+                String account = "acc" + (i % 20);
+                futures[i] = pool.submit(() -> {
+                    try (ConcurrencyLimiter.Permit permit = limiter.tryAcquire("1", account)) {
+                        if (permit == null) {
+                            // 名额已满立即返回，不等待
+                            refused.incrementAndGet();
+                            return null;
+                        }
+                        acquired.incrementAndGet();
+                        peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                        TimeUnit.MILLISECONDS.sleep(1);
+                        inFlight.decrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertTrue(peak.get() <= permits, "peak " + peak.get());
+        assertTrue(acquired.get() >= permits, "acquired " + acquired.get());
+        assertEquals(500, acquired.get() + refused.get());
+        assertEquals(0, limiter.inFlight("1"));
+    }
+
+    @Test
+    void fullLimiterRefusesWithoutWaiting() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 0);
+        ConcurrencyLimiter.Permit held = limiter.tryAcquire("1", "a");
+        assertNotNull(held);
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            assertNull(limiter.tryAcquire("1", "b"));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+        held.close();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.demo.core.holder;
+
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.core.metrics.SweepMetrics;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 赔率请求对冲：慢请求由备用账号接管，输家被中断，备用请求受额度限制
+ */
+class OddsHedgerTest {
+
+    private static final String WEBSITE = "1";
+
+    /** 本地盘口：/a 每 10 个请求有 1 个慢 300ms（注入抖动），/b 始终快速 */
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private String baseUrl;
+    private final AtomicInteger primaryRequests = new AtomicInteger();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private OddsHedger hedger;
+    private OkHttpProxyDispatcher dispatcher;
+
+    private static final String NODELAY = "sun.net.httpserver.nodelay";
+    private static String nodelayBefore;
+
+    @BeforeAll
+    static void disableNagle() {
+        // 关闭 Nagle，避免响应头和响应体分包时本地请求多等一次延迟确认
+        nodelayBefore = System.setProperty(NODELAY, "true");
+    }
+
+    @AfterAll
+    static void restoreNagle() {
+        if (nodelayBefore == null) {
+            System.clearProperty(NODELAY);
+        } else {
+            System.setProperty(NODELAY, nodelayBefore);
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/a", exchange -> respond(exchange, primaryRequests.incrementAndGet() % 10 == 0 ? 300 : 10, "a"));
+        server.createContext("/b", exchange -> respond(exchange, 10, "b"));
+        server.createContext("/slow", exchange -> respond(exchange, 2000, "slow"));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        dispatcher = new OkHttpProxyDispatcher();
+
+        SweepMetrics metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        hedger = new OddsHedger();
+        ReflectionTestUtils.setField(hedger, "sweepMetrics", metrics);
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        ReflectionTestUtils.setField(hedger, "minDelayMs", 20L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedger.destroy();
+        dispatcher.destroy();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void fastPrimaryDoesNotHedge() {
+        warmUp(10);
+        AtomicInteger backups = new AtomicInteger();
+        assertEquals("a", hedger.execute(WEBSITE, () -> "a", () -> {
+            backups.incrementAndGet();
+            return () -> "b";
+        }));
+        assertEquals(0, backups.get());
+    }
+
+    @Test
+    void slowPrimaryLosesToBackupAndIsCancelled() {
+        warmUp(10);
+        // 攒够一次备用额度
+        ReflectionTestUtils.setField(hedger, "budgetRatio", 1.0);
+        AtomicReference<String> primaryError = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        String result = hedger.execute(WEBSITE, () -> {
+            try {
+                return get("/slow");
+            } catch (IOException e) {
+                primaryError.set(e.getMessage());
+                return null;
+            }
+        }, () -> () -> getOrNull("/b"));
+        long costMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("b", result);
+        assertTrue(costMs < 1000, "耗时 " + costMs + "ms");
+        // 首个请求被中断，而不是等慢盘口返回
+        assertTrue(primaryError.get().contains("请求已取消"), primaryError.get());
+        assertEquals(1.0, registry.get(SweepMetrics.ODDS_HEDGE_METER).tag("result", OddsHedger.WON).counter().count());
+    }
+
+    @Test
+    void backupsStayWithinBudgetAndFreeAccounts() {
+        warmUp(10);
+        AtomicInteger backups = new AtomicInteger();
+        Supplier<String> slowPrimary = () -> {
+            sleep(60);
+            return "a";
+        };
+        for (int i = 0; i < 20; i++) {
+            hedger.execute(WEBSITE, slowPrimary, () -> {
+                backups.incrementAndGet();
+                return () -> "b";
+            });
+        }
+        // 每个请求积累 0.1 次额度
+        assertEquals(2, backups.get());
+
+        // 没有空闲的备用账号时不对冲，额度退回
+        ReflectionTestUtils.setField(hedger, "budgetRatio", 1.0);
+        assertNull(hedger.execute(WEBSITE, () -> {
+            sleep(60);
+            return null;
+        }, () -> null));
+        assertEquals(2.0, registry.get(SweepMetrics.ODDS_HEDGE_METER).tag("result", OddsHedger.FIRED).counter().count());
+    }
+
+    @Test
+    void hedgingCutsTailLatencyUnderJitter() {
+        ReflectionTestUtils.setField(hedger, "budgetRatio", 0.2);
+        int requests = 100;
+
+        ReflectionTestUtils.setField(hedger, "enabled", false);
+        List<Long> plain = measure(requests);
+
+        ReflectionTestUtils.setField(hedger, "enabled", true);
+        // 积累耗时样本和备用额度
+        measure(30);
+        List<Long> hedged = measure(requests);
+
+        long plainP99 = p99(plain);
+        long hedgedP99 = p99(hedged);
+        assertTrue(plainP99 >= 300, "不对冲 p99 " + plainP99 + "ms");
+        assertTrue(hedgedP99 * 2 < plainP99, "对冲 p99 " + hedgedP99 + "ms，不对冲 " + plainP99 + "ms");
+    }
+
+    private List<Long> measure(int requests) {
+        List<Long> costs = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            long start = System.nanoTime();
+            String result = hedger.execute(WEBSITE, () -> getOrNull("/a"), () -> () -> getOrNull("/b"));
+            costs.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            assertTrue("a".equals(result) || "b".equals(result));
+        }
+        return costs;
+    }
+
+    private static long p99(List<Long> costs) {
+        List<Long> sorted = new ArrayList<>(costs);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(0.99 * sorted.size()) - 1);
+    }
+
+    /**
+     * 填满耗时窗口，测试中的慢请求不会改变分位
+     */
+    private void warmUp(int latencyMs) {
+        for (int i = 0; i < 200; i++) {
+            hedger.record(WEBSITE, TimeUnit.MILLISECONDS.toNanos(latencyMs));
+        }
+    }
+
+    private String getOrNull(String path) {
+        try {
+            return get(path);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String get(String path) throws IOException {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        return dispatcher.execute("GET", baseUrl + path, null, new HashMap<>(), config, false).getBody();
+    }
+
+    private static void respond(HttpExchange exchange, long delayMs, String body) {
+        try {
+            Thread.sleep(delayMs);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (InterruptedException | IOException ignored) {
+            // 客户端已断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
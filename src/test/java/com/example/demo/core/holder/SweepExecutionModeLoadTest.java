@@ -0,0 +1,157 @@
+package com.example.demo.core.holder;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 扫水执行模式压测：500 个平台用户，按 用户 -> 联赛 -> 赛事 -> 赔率 的嵌套方式提交阻塞任务，
+ * 对比各模式的轮次耗时、峰值线程数、RSS 和上下文切换次数
+ * 运行：mvn test -Dtest=SweepExecutionModeLoadTest -Dsweepwater.loadtest=true
+ */
+@EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+class SweepExecutionModeLoadTest {
+
+    private static final int USERS = 500;
+    private static final int LEAGUES = 3;
+    private static final int EVENTS = 4;
+    private static final long ODDS_LATENCY_MS = 20;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void compareModes() throws Exception {
+        ModeResult pools = run("pools", new ConcurrencyLimiter(0, 0));
+        ModeResult limited = run("pools+limit", new ConcurrencyLimiter(400, 0));
+        // 限制在途请求数不拖慢轮次，也不多占线程
+        assertTrue(limited.p50Ms() <= pools.p50Ms() * 2, pools + " / " + limited);
+        assertTrue(limited.threads() <= pools.threads() * 1.1, pools + " / " + limited);
+        if (VirtualThreads.isSupported()) {
+            ModeResult virtual = run("virtual", new ConcurrencyLimiter(400, 0));
+            // 阻塞任务不再各占一个平台线程
+            assertTrue(virtual.threads() * 10 <= pools.threads(), pools + " / " + virtual);
+            assertTrue(virtual.p50Ms() <= pools.p50Ms() * 2, pools + " / " + virtual);
+        }
+    }
+
+    /**
+     * 一种执行模式的压测结果
+     */
+    private record ModeResult(String name, long p50Ms, long maxMs, int threads, long rssMb, long contextSwitches) {
+    }
+
+    private ModeResult run(String name, ConcurrencyLimiter limiter) throws Exception {
+        SweepWaterThreadPoolHolder holder = new SweepWaterThreadPoolHolder(name.startsWith("virtual") ? "virtual" : "pools");
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        try {
+            // 预热一轮
+            round(holder, limiter);
+            threads.resetPeakThreadCount();
+            long ctxBefore = contextSwitches();
+            long[] latencies = new long[ROUNDS];
+            for (int r = 0; r < ROUNDS; r++) {
+                long start = System.nanoTime();
+                round(holder, limiter);
+                latencies[r] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            }
+            long ctx = contextSwitches() - ctxBefore;
+            Arrays.sort(latencies);
+            // 每轮至少要等一次赔率请求
+            assertTrue(latencies[0] >= ODDS_LATENCY_MS);
+            return new ModeResult(name, latencies[ROUNDS / 2], latencies[ROUNDS - 1], threads.getPeakThreadCount(), rssKb() / 1024, ctx);
+        } finally {
+            holder.shutdown();
+        }
+    }
+
+    /**
+     * 与 SweepwaterService.sweepwater 相同的嵌套结构，外层任务阻塞等待内层结果
+     */
+    private void round(SweepWaterThreadPoolHolder holder, ConcurrencyLimiter limiter) {
+        List<CompletableFuture<Void>> users = new ArrayList<>(USERS);
+        for (int u = 0; u < USERS; u++) {
+            users.add(CompletableFuture.runAsync(() -> {
+                List<CompletableFuture<Void>> leagues = new ArrayList<>(LEAGUES);
+                for (int l = 0; l < LEAGUES; l++) {
+                    leagues.add(CompletableFuture.runAsync(() -> {
+                        List<CompletableFuture<Void>> events = new ArrayList<>(EVENTS);
+                        for (int e = 0; e < EVENTS; e++) {
+                            events.add(CompletableFuture.runAsync(() -> {
+                                CompletableFuture<Void> oddsA = CompletableFuture.runAsync(() -> fetchOdds(limiter, "1"), holder.getTeamOddsExecutor());
+                                CompletableFuture<Void> oddsB = CompletableFuture.runAsync(() -> fetchOdds(limiter, "2"), holder.getTeamOddsExecutor());
+                                CompletableFuture.allOf(oddsA, oddsB).join();
+                            }, holder.getEventExecutor()));
+                        }
+                        CompletableFuture.allOf(events.toArray(new CompletableFuture[0])).join();
+                    }, holder.getLeagueExecutor()));
+                }
+                CompletableFuture.allOf(leagues.toArray(new CompletableFuture[0])).join();
+            }, holder.getUserSweepExecutor()));
+        }
+        CompletableFuture.allOf(users.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 模拟一次阻塞的盘口 HTTP 请求
+     */
+    private void fetchOdds(ConcurrencyLimiter limiter, String websiteId) {
+        try (ConcurrencyLimiter.Permit permit = limiter.tryAcquire(websiteId, "acc")) {
+            if (permit == null) {
+                return;
+            }
+            TimeUnit.MILLISECONDS.sleep(ODDS_LATENCY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long rssKb() throws IOException {
+        return readStatus(Path.of("/proc/self/status"), "VmRSS:");
+    }
+
+    /**
+     * 当前存活线程的 voluntary + nonvoluntary 上下文切换次数之和（仅 Linux）
+     */
+    private static long contextSwitches() throws IOException {
+        Path tasks = Path.of("/proc/self/task");
+        if (!Files.isDirectory(tasks)) {
+            return -1;
+        }
+        long total = 0;
+        try (Stream<Path> list = Files.list(tasks)) {
+            for (Path task : list.toList()) {
+                try {
+                    total += readStatus(task.resolve("status"), "voluntary_ctxt_switches:");
+                    total += readStatus(task.resolve("status"), "nonvoluntary_ctxt_switches:");
+                } catch (IOException ignored) {
+                    // 线程已退出
+                }
+            }
+        }
+        return total;
+    }
+
+    private static long readStatus(Path status, String field) throws IOException {
+        if (!Files.exists(status)) {
+            return -1;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith(field)) {
+                return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]);
+            }
+        }
+        return -1;
+    }
+}
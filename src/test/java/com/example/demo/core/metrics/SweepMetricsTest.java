@@ -0,0 +1,94 @@
+package com.example.demo.core.metrics;
+
+import com.example.demo.common.enmu.WebsiteType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 扫水阶段耗时：标签基数受控、端点输出分位数、记录开销
+ */
+class SweepMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private SweepMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new SweepMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        ReflectionTestUtils.setField(metrics, "maxUsers", 3);
+    }
+
+    @Test
+    void userTagIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            metrics.stop(SweepMetrics.Stage.ROUND, null, "user" + i, metrics.start());
+        }
+        metrics.stop(SweepMetrics.Stage.ROUND, null, "user0", metrics.start());
+
+        Set<String> users = registry.find(SweepMetrics.METER_NAME).timers().stream()
+                .map(timer -> timer.getId().getTag("user"))
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("user0", "user1", "user2", SweepMetrics.OTHER), users);
+        assertEquals(7, registry.find(SweepMetrics.METER_NAME).tag("user", SweepMetrics.OTHER).timer().count());
+        assertEquals(2, registry.find(SweepMetrics.METER_NAME).tag("user", "user0").timer().count());
+    }
+
+    @Test
+    void endpointReportsPercentilesPerStage() {
+        for (int i = 1; i <= 100; i++) {
+            metrics.stop(SweepMetrics.Stage.FETCH, WebsiteType.XINBAO.getId(), "sweeper", System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        metrics.stop(SweepMetrics.Stage.MATCH, WebsiteType.PINGBO.getId(), WebsiteType.SBO.getId(), "u1", metrics.start());
+
+        SweepStageEndpoint endpoint = new SweepStageEndpoint();
+        ReflectionTestUtils.setField(endpoint, "sweepMetrics", metrics);
+        List<Map<String, Object>> rows = endpoint.stages(null);
+        assertEquals(List.of("fetch", "match"), rows.stream().map(row -> row.get("stage")).toList());
+
+        Map<String, Object> fetch = endpoint.stages("fetch").get(0);
+        assertEquals("xinbao", fetch.get("website"));
+        assertEquals(100L, fetch.get("count"));
+        double p50 = ((Number) fetch.get("p50Ms")).doubleValue();
+        double p99 = ((Number) fetch.get("p99Ms")).doubleValue();
+        // 客户端分位数按默认精度近似计算，只要求落在合理区间
+        assertTrue(p50 > 35 && p50 < 65, String.valueOf(p50));
+        assertTrue(p99 > 75 && p99 < 120, String.valueOf(p99));
+        assertEquals("pingbo-sbo", rows.get(1).get("website"));
+    }
+
+    /**
+     * 单次记录开销，200ms 一轮、每轮数千次记录时应可忽略
+     * 运行：mvn test -Dtest=SweepMetricsTest -Dsweepwater.loadtest=true
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "sweepwater.loadtest", matches = "true")
+    void recordOverhead() {
+        ReflectionTestUtils.setField(metrics, "maxUsers", 50);
+        String websiteA = WebsiteType.XINBAO.getId();
+        String websiteB = WebsiteType.PINGBO.getId();
+        int rounds = 2_000_000;
+        for (int i = 0; i < rounds; i++) {
+            metrics.stop(SweepMetrics.Stage.MATCH, websiteA, websiteB, "user" + (i & 31), metrics.start());
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            metrics.stop(SweepMetrics.Stage.MATCH, websiteA, websiteB, "user" + (i & 31), metrics.start());
+        }
+        long perRecord = (System.nanoTime() - start) / rounds;
+        assertTrue(perRecord < 2_000, "每次记录耗时 " + perRecord + "ns");
+    }
+}
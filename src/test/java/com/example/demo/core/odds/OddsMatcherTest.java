@@ -0,0 +1,77 @@
+package com.example.demo.core.odds;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 定点水位与原 BigDecimal 算法逐位一致
+ */
+class OddsMatcherTest {
+
+    @Test
+    void fixedPointMatchesBigDecimal() {
+        Random random = new Random(20260101L);
+        for (int i = 0; i < 200_000; i++) {
+            String a = randomOdds(random);
+            String b = randomOdds(random);
+            OddsBook.Odds oddsA = odds(a);
+            OddsBook.Odds oddsB = odds(b);
+
+            BigDecimal valueA = new BigDecimal(a);
+            BigDecimal valueB = new BigDecimal(b);
+            BigDecimal water = valueA.add(valueB);
+            if (valueA.compareTo(BigDecimal.ZERO) < 0) {
+                water = water.add(BigDecimal.valueOf(2));
+            }
+            if (valueB.compareTo(BigDecimal.ZERO) < 0) {
+                water = water.add(BigDecimal.valueOf(2));
+            }
+            water = water.setScale(3, RoundingMode.DOWN);
+            double expected = water.doubleValue();
+
+            long milli = OddsMatcher.waterMilli(oddsA, oddsB);
+            double actual = OddsMatcher.toDouble(milli);
+            assertEquals(Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual), a + " + " + b);
+            assertEquals(String.format("%.3f", expected), OddsMatcher.format(milli), a + " + " + b);
+            assertEquals(String.format("%.3f", valueA), oddsA.getFormatted());
+        }
+    }
+
+    @Test
+    void longDecimalsFallBackToBigDecimal() {
+        OddsBook.Odds precise = odds("0.12345678");
+        assertFalse(precise.isFixedPoint());
+        assertTrue(odds("-0.875").isFixedPoint());
+        // 0.12345678 + (-0.875) + 2 = 1.24845678 -> 1.248
+        assertEquals(1248, OddsMatcher.waterMilli(precise, odds("-0.875")));
+        assertEquals("-0.005", OddsMatcher.format(-5));
+        assertEquals("0.000", OddsMatcher.format(0));
+        assertEquals("12.340", OddsMatcher.format(12340));
+    }
+
+    private static String randomOdds(Random random) {
+        int scale = 1 + random.nextInt(6);
+        long unscaled = random.nextInt(2_000 * (int) Math.pow(10, scale - 1)) - 1_000L * (long) Math.pow(10, scale - 1);
+        return BigDecimal.valueOf(unscaled, scale).toPlainString();
+    }
+
+    private static OddsBook.Odds odds(String value) {
+        JSONObject court = new JSONObject().set("letBall", new JSONObject()
+                .set("up", new JSONObject().set("0.5", new JSONObject().set("id", "1").set("odds", value))));
+        JSONObject event = new JSONObject().set("id", "e").set("name", "n").set("fullCourt", court);
+        JSONObject league = new JSONObject().set("id", "l").set("events", new JSONArray().set(event));
+        OddsBook book = OddsBook.of(new JSONArray().set(league));
+        List<OddsBook.Event> events = book.league("l").events("n");
+        return events.get(0).lines(OddsBook.Period.FULL_COURT, OddsBook.Side.UP).get("0.5");
+    }
+}
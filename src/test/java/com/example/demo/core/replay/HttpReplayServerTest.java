@@ -0,0 +1,254 @@
+package com.example.demo.core.replay;
+
+import cn.hutool.core.net.URLEncodeUtil;
+import cn.hutool.core.util.ZipUtil;
+import com.example.demo.common.constants.SboCdnApiConstants;
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.model.vo.ConfigAccountVO;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 录制 -> 脱敏 -> 断网回放
+ */
+class HttpReplayServerTest {
+
+    private static final String LOGIN = "p=chk_login&langx=zh-cn&ver=2026-01-01&username=alice&password=s3cret-pass&app=N";
+    private static final String GAME_LIST = "p=get_game_list&uid=uid-987&gtype=ft&showtype=live&ts=1760000000000";
+    private static final String ODDS_JSON = "{\"leagues\":[{\"id\":\"L1\",\"odds\":\"0.95\"}]}";
+    private static final String SBO_ODDS = "{\"data\":{\"odds\":[{\"id\":1,\"price\":0.93}]}}";
+
+    @TempDir
+    Path dir;
+
+    private HttpServer bookmaker;
+    private String baseUrl;
+    private HttpTrafficRecorder recorder;
+    private HttpReplayServer replayServer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bookmaker = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        bookmaker.createContext("/transform.php", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] bytes;
+            if (body.startsWith("p=chk_login")) {
+                exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=utf-8");
+                exchange.getResponseHeaders().add("Set-Cookie", "token=cookie-secret; Path=/");
+                bytes = "<serverresponse><status>200</status><uid>uid-987</uid></serverresponse>".getBytes(StandardCharsets.UTF_8);
+            } else {
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                bytes = ODDS_JSON.getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        bookmaker.createContext("/sports", exchange -> {
+            byte[] bytes = ZipUtil.gzip("{\"events\":[1,2,3]}".getBytes(StandardCharsets.UTF_8));
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        bookmaker.start();
+        baseUrl = "http://127.0.0.1:" + bookmaker.getAddress().getPort();
+
+        recorder = new HttpTrafficRecorder();
+        ReflectionTestUtils.setField(recorder, "enabled", true);
+        ReflectionTestUtils.setField(recorder, "dir", dir.toString());
+        recorder.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        bookmaker.stop(0);
+        recorder.destroy();
+        if (replayServer != null) {
+            replayServer.destroy();
+        }
+    }
+
+    @Test
+    void recordsScrubbedTrafficAndReplaysItOffline() throws Exception {
+        OkHttpProxyDispatcher live = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(live, "httpTrafficRecorder", recorder);
+        String login = live.execute("POST", baseUrl + "/transform.php", LOGIN, form(), account(), false).getBody();
+        assertTrue(login.contains("uid-987"));
+        live.execute("POST", baseUrl + "/transform.php", GAME_LIST, form(), account(), false);
+        String events = live.executeFull("GET", baseUrl + "/sports?sp=29&_=1760000000001", null, new HashMap<>(), account()).getBody();
+        assertEquals("{\"events\":[1,2,3]}", events);
+        recorder.destroy();
+
+        String recorded = Files.readString(recorder.getFile());
+        assertEquals(3, recorded.lines().count());
+        for (String secret : List.of("alice", "s3cret-pass", "uid-987", "cookie-secret")) {
+            assertFalse(recorded.contains(secret), secret);
+        }
+        assertTrue(recorded.contains("token=***"));
+
+        // 盘口下线，只靠录制文件回放
+        bookmaker.stop(0);
+        replayServer = new HttpReplayServer();
+        ReflectionTestUtils.setField(replayServer, "enabled", true);
+        ReflectionTestUtils.setField(replayServer, "file", recorder.getFile().toString());
+        ReflectionTestUtils.setField(replayServer, "speed", 0.0);
+        replayServer.afterPropertiesSet();
+        OkHttpProxyDispatcher offline = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(offline, "httpReplayServer", replayServer);
+
+        // 回放时账号、uid、时间戳都和录制时不同
+        String replayedLogin = offline.execute("POST", baseUrl + "/transform.php",
+                LOGIN.replace("alice", "bob").replace("s3cret-pass", "other"), form(), account(), false).getBody();
+        assertTrue(replayedLogin.contains("<uid>***</uid>"), replayedLogin);
+        String odds = offline.execute("POST", baseUrl + "/transform.php",
+                GAME_LIST.replace("uid-987", "uid-123").replace("1760000000000", "1760000099999"), form(), account(), false).getBody();
+        assertEquals(ODDS_JSON, odds);
+        assertEquals("{\"events\":[1,2,3]}",
+                offline.executeFull("GET", baseUrl + "/sports?sp=29&_=1760000050000", null, new HashMap<>(), account()).getBody());
+        assertEquals(0, replayServer.getStats().getLong("approximated"));
+
+        // 录制中没有完全一致的请求时，取同一路由下参数最接近的
+        String other = offline.execute("POST", baseUrl + "/transform.php",
+                GAME_LIST.replace("showtype=live", "showtype=today"), form(), account(), false).getBody();
+        assertEquals(ODDS_JSON, other);
+        assertEquals(1, replayServer.getStats().getLong("approximated"));
+
+        assertEquals(404, offline.execute("GET", baseUrl + "/unknown", null, new HashMap<>(), account(), false).getStatus());
+        assertEquals(1, replayServer.getStats().getLong("missed"));
+    }
+
+    /**
+     * 盛帆赔率请求：oddsToken 在 URL 编码后的 variables JSON 里
+     */
+    @Test
+    void scrubsTokensInsideEncodedQueryValues() throws Exception {
+        OkHttpProxyDispatcher live = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(live, "httpTrafficRecorder", recorder);
+        String origin;
+        try (ServerSocket sbo = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            serveRaw(sbo, SBO_ODDS);
+            origin = "http://127.0.0.1:" + sbo.getLocalPort();
+            assertEquals(SBO_ODDS, live.execute("GET", sboOddsUrl(origin, "SECRET123"), null, new HashMap<>(), account(), false).getBody());
+        }
+        recorder.destroy();
+
+        String recorded = Files.readString(recorder.getFile());
+        assertFalse(recorded.contains("SECRET123"), recorded);
+        assertTrue(recorded.contains("OddsQuery"), recorded);
+
+        // 盘口下线，回放时的 oddsToken 不同，仍精确命中
+        replayServer = new HttpReplayServer();
+        ReflectionTestUtils.setField(replayServer, "enabled", true);
+        ReflectionTestUtils.setField(replayServer, "file", recorder.getFile().toString());
+        ReflectionTestUtils.setField(replayServer, "speed", 0.0);
+        replayServer.afterPropertiesSet();
+        OkHttpProxyDispatcher offline = new OkHttpProxyDispatcher();
+        ReflectionTestUtils.setField(offline, "httpReplayServer", replayServer);
+        assertEquals(SBO_ODDS, offline.execute("GET", sboOddsUrl(origin, "OTHER456"), null, new HashMap<>(), account(), false).getBody());
+        assertEquals(0, replayServer.getStats().getLong("approximated"));
+    }
+
+    /**
+     * 与 WebsiteSboEventOddsHandler 第三步相同的请求地址
+     */
+    private static String sboOddsUrl(String origin, String oddsToken) {
+        String variables = String.format("{\"query\":{\"id\":%d,\"filter\":\"Live\",\"marketGroupIds\":[0,306,307,308,309,310,311,312,313,330,331,1066212],\"excludeMarketGroupIds\":null,\"oddsCategory\":\"All\",\"priceStyle\":\"Malay\",\"oddsToken\":\"%s\",\"version\":\"SS\"}}", 9876543L, oddsToken);
+        String extensions = "{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"2c6e1227b7089e756f66a8750cd8c6c087ad4b39792388e35e2b0374b913fec0\"}}";
+        return String.format("%s/api?operationName=%s&variables=%s&extensions=%s", origin,
+                SboCdnApiConstants.OPERATION_NAME_ODDS_QUERY, encodeJsonParam(variables), encodeJsonParam(extensions));
+    }
+
+    /**
+     * 盛帆的 query 带未编码的 {}，JDK HttpServer 解析请求行时会拒绝，这里用裸 socket 模拟盘口
+     */
+    private static void serveRaw(ServerSocket server, String body) {
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                        // 跳过请求行和请求头
+                    }
+                    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                    OutputStream out = socket.getOutputStream();
+                    out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + bytes.length
+                            + "\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+                    out.write(bytes);
+                    out.flush();
+                } catch (IOException e) {
+                    // 测试结束关闭
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static String encodeJsonParam(String json) {
+        return URLEncodeUtil.encodeAll(json).replace("%7B", "{").replace("%7D", "}");
+    }
+
+    @Test
+    void followsRecordedTimelineAtSpeed() throws Exception {
+        replayServer = new HttpReplayServer();
+        ReflectionTestUtils.setField(replayServer, "speed", 10.0);
+        replayServer.load(List.of(exchange(5_000, "v1"), exchange(5_300, "v2"), exchange(7_000, "v3")));
+
+        assertEquals("v1", replayServer.pick("GET", "https://bookmaker.test", "/odds?sp=29", null).getBody());
+        Thread.sleep(60);
+        // 10 倍速下 60ms 相当于录制时间轴上 600ms
+        assertEquals("v2", replayServer.pick("GET", "https://bookmaker.test", "/odds?sp=29&_=1760000000000", null).getBody());
+        assertNull(replayServer.pick("POST", "https://bookmaker.test", "/odds", null));
+    }
+
+    private static RecordedExchange exchange(long offsetMs, String body) {
+        RecordedExchange exchange = new RecordedExchange();
+        exchange.setOffsetMs(offsetMs);
+        exchange.setMethod("GET");
+        exchange.setOrigin("https://bookmaker.test");
+        exchange.setPath("/odds?sp=29");
+        exchange.setStatus(200);
+        exchange.setBody(body);
+        return exchange;
+    }
+
+    private static Map<String, String> form() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("content-type", "application/x-www-form-urlencoded");
+        return headers;
+    }
+
+    private static ConfigAccountVO account() {
+        ConfigAccountVO config = new ConfigAccountVO();
+        config.setProxyType(0);
+        config.setAccount("alice");
+        return config;
+    }
+}
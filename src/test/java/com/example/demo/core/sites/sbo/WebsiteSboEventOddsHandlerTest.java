@@ -0,0 +1,195 @@
+package com.example.demo.core.sites.sbo;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import com.example.demo.common.enmu.ZhiBoSchedulesType;
+import com.example.demo.config.OkHttpProxyDispatcher;
+import com.example.demo.model.vo.ConfigAccountVO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 盛帆赛事赔率：本地 GraphQL 桩记录请求次数
+ */
+class WebsiteSboEventOddsHandlerTest {
+
+    private static final int EVENT_COUNT = 20;
+
+    private ServerSocket server;
+    private ExecutorService serverPool;
+    private final AtomicInteger eventsQueryCount = new AtomicInteger();
+    private final AtomicInteger oddsQueryCount = new AtomicInteger();
+    private WebsiteSboEventOddsHandler handler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 盛帆 GraphQL GET 参数中带原始 { }，JDK HttpServer 会拒绝，这里用最简的 keep-alive HTTP 桩
+        server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        serverPool = Executors.newCachedThreadPool();
+        serverPool.submit(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    serverPool.submit(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        handler = new WebsiteSboEventOddsHandler(new OkHttpProxyDispatcher(), null, null);
+        ReflectionTestUtils.setField(handler, "cdnApi", "http://127.0.0.1:" + server.getLocalPort() + "/api");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.close();
+        serverPool.shutdownNow();
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            String requestLine;
+            while ((requestLine = in.readLine()) != null) {
+                String line;
+                while ((line = in.readLine()) != null && !line.isEmpty()) {
+                    // 忽略请求头（GET 无请求体）
+                }
+                String body;
+                if (requestLine.contains("operationName=EventsQuery")) {
+                    eventsQueryCount.incrementAndGet();
+                    body = eventsResponse().toString();
+                } else {
+                    oddsQueryCount.incrementAndGet();
+                    body = oddsResponse().toString();
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                out.write(("HTTP/1.1 200 OK\r\nContent-Type: application/json\r\nContent-Length: " + bytes.length + "\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                out.write(bytes);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // 客户端断开
+        }
+    }
+
+    @Test
+    void eventListIsFetchedOncePerAccountPerTick() throws Exception {
+        ConfigAccountVO account = new ConfigAccountVO();
+        account.setAccount("sbo01");
+        account.setProxyType(0);
+
+        ExecutorService pool = Executors.newFixedThreadPool(EVENT_COUNT);
+        try {
+            List<Future<JSONObject>> futures = new ArrayList<>();
+            for (int i = 1; i <= EVENT_COUNT; i++) {
+                long eventId = i;
+                futures.add(pool.submit(() -> handler.execute(account, params(eventId))));
+            }
+            for (Future<JSONObject> future : futures) {
+                JSONObject result = future.get();
+                assertTrue(result.getBool("success"), result.toString());
+                assertEquals(1, result.getJSONArray("leagues").getJSONObject(0).getJSONArray("events").size());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, eventsQueryCount.get());
+        assertEquals(EVENT_COUNT, oddsQueryCount.get());
+    }
+
+    @Test
+    void eventListIsRefreshedAfterTtl() throws Exception {
+        AtomicLong now = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+        ReflectionTestUtils.setField(handler, "clock", (LongSupplier) now::get);
+        ReflectionTestUtils.setField(handler, "eventListTtlMs", 50L);
+        ConfigAccountVO account = new ConfigAccountVO();
+        account.setAccount("sbo01");
+        account.setProxyType(0);
+
+        handler.execute(account, params(1));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(49));
+        handler.execute(account, params(2));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        handler.execute(account, params(3));
+
+        assertEquals(2, eventsQueryCount.get());
+    }
+
+    private JSONObject params(long eventId) {
+        JSONObject params = new JSONObject();
+        params.putOpt("adminUsername", "admin");
+        params.putOpt("token", "t");
+        params.putOpt("oddsToken", "o");
+        params.putOpt("eventId", eventId);
+        params.putOpt("showType", ZhiBoSchedulesType.LIVESCHEDULE.getId());
+        return params;
+    }
+
+    private static JSONObject eventsResponse() {
+        JSONArray events = new JSONArray();
+        for (int i = 1; i <= EVENT_COUNT; i++) {
+            JSONObject event = new JSONObject();
+            event.putOpt("id", i);
+            event.putOpt("tournament", new JSONObject()
+                    .putOpt("id", 900)
+                    .putOpt("tournamentName", new JSONArray().put(name("测试联赛"))));
+            event.putOpt("homeTeam", new JSONObject().putOpt("teamName", new JSONArray().put(name("主队" + i))));
+            event.putOpt("awayTeam", new JSONObject().putOpt("teamName", new JSONArray().put(name("客队" + i))));
+            event.putOpt("mainMarketEventResult", new JSONObject()
+                    .putOpt("liveHandicapType", "Home")
+                    .putOpt("extraInfo", new JSONObject()
+                            .putOpt("period", 1)
+                            .putOpt("periodStartTime", LocalDateTime.now().minusHours(12).minusMinutes(20).toString())));
+            events.put(event);
+        }
+        return new JSONObject().putOpt("data", new JSONObject().putOpt("events", events));
+    }
+
+    private static JSONObject oddsResponse() {
+        JSONObject odds = new JSONObject();
+        odds.putOpt("id", 1001);
+        odds.putOpt("marketType", "Handicap");
+        odds.putOpt("point", 0.5);
+        odds.putOpt("eventResult", new JSONObject()
+                .putOpt("liveHomeScore", 0)
+                .putOpt("liveAwayScore", 1)
+                .putOpt("liveHandicapType", "Home"));
+        odds.putOpt("prices", new JSONArray()
+                .put(new JSONObject().putOpt("option", "h").putOpt("price", 0.92))
+                .put(new JSONObject().putOpt("option", "a").putOpt("price", 0.96)));
+        return new JSONObject().putOpt("data", new JSONObject().putOpt("eventOdds", new JSONArray().put(odds)));
+    }
+
+    private static JSONObject name(String value) {
+        return new JSONObject().putOpt("language", "ZH_CN").putOpt("value", value);
+    }
+}
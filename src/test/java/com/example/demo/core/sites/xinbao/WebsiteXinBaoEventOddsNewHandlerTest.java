@@ -0,0 +1,70 @@
+package com.example.demo.core.sites.xinbao;
+
+import cn.hutool.json.JSONObject;
+import com.example.demo.config.OkHttpProxyDispatcher;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 新二 get_game_list 解析黄金测试
+ * *.expected.json 由改造前的 DOM + XPath + JSONUtil 实现对同一份 XML 生成
+ */
+class WebsiteXinBaoEventOddsNewHandlerTest {
+
+    private final WebsiteXinBaoEventOddsNewHandler handler = new WebsiteXinBaoEventOddsNewHandler(null, null, null);
+
+    @ParameterizedTest
+    @CsvSource({
+            "game_list_live, M",
+            "game_list_live, H",
+            "game_list_escaped, H",
+            "game_list_empty, M"
+    })
+    void parseResponseMatchesGolden(String fixture, String oddsFormatType) throws IOException {
+        JSONObject params = new JSONObject();
+        params.putOpt("oddsFormatType", oddsFormatType);
+        OkHttpProxyDispatcher.HttpResult response =
+                new OkHttpProxyDispatcher.HttpResult(read(fixture + ".xml"), new HashMap<>(), 200, null, 0);
+
+        JSONObject result = handler.parseResponse(params, response);
+
+        assertEquals(read(fixture + "." + oddsFormatType + ".expected.json"), result.toStringPretty());
+    }
+
+    @Test
+    void decoderSkipsUnusedFieldsAndSortsByKey() throws Exception {
+        List<XinBaoGame> games = XinBaoGameListDecoder.decode(read("game_list_escaped.xml"));
+
+        assertEquals(2, games.size());
+        // ec_7100001 < ec_7100002
+        assertEquals("7100001", games.get(0).getEcid());
+        assertNull(games.get(0).getScoreH());
+        assertEquals("", games.get(1).getIorRouh());
+    }
+
+    @Test
+    void decoderAcceptsGameAsJsonString() throws Exception {
+        String xml = "<serverresponse><original>{\"ec_1\":\"{\\\"ECID\\\":\\\"1\\\",\\\"IOR_REH\\\":0.95,\\\"EXTRA\\\":{\\\"a\\\":[1,2]}}\"}</original></serverresponse>";
+        List<XinBaoGame> games = XinBaoGameListDecoder.decode(xml);
+
+        assertEquals(1, games.size());
+        assertEquals("1", games.get(0).getEcid());
+        assertEquals("0.95", games.get(0).getIorReh());
+    }
+
+    private String read(String name) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/xinbao/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}